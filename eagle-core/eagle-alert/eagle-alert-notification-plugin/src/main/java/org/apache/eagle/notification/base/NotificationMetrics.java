@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.eagle.notification.base;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivery counters and latency of a notification plugin, updated by its delivery workers
+ */
+public class NotificationMetrics {
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong deliveries = new AtomicLong();
+    private final AtomicLong totalLatencyNanos = new AtomicLong();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    /**
+     * @param count alerts delivered in one call to the plugin
+     */
+    public void onDelivered(int count, long latencyNanos) {
+        delivered.addAndGet(count);
+        onCall(latencyNanos);
+    }
+
+    /**
+     * @param count alerts failed in one call to the plugin
+     */
+    public void onFailed(int count, long latencyNanos) {
+        failed.addAndGet(count);
+        onCall(latencyNanos);
+    }
+
+    public void onRetried(int count) {
+        retried.addAndGet(count);
+    }
+
+    public void onDeadLettered(int count) {
+        deadLettered.addAndGet(count);
+    }
+
+    private void onCall(long latencyNanos) {
+        deliveries.incrementAndGet();
+        totalLatencyNanos.addAndGet(latencyNanos);
+        long max = maxLatencyNanos.get();
+        while (latencyNanos > max && !maxLatencyNanos.compareAndSet(max, latencyNanos)) {
+            max = maxLatencyNanos.get();
+        }
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    /**
+     * @return alerts failed by the plugin, counted for each attempt
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getRetried() {
+        return retried.get();
+    }
+
+    /**
+     * @return alerts spilled to dead letter file after all retries failed or because the queue was full
+     */
+    public long getDeadLettered() {
+        return deadLettered.get();
+    }
+
+    public double getAvgLatencyMs() {
+        long calls = deliveries.get();
+        return calls == 0 ? 0 : totalLatencyNanos.get() / 1e6 / calls;
+    }
+
+    public double getMaxLatencyMs() {
+        return maxLatencyNanos.get() / 1e6;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("delivered=%d, failed=%d, retried=%d, deadLettered=%d, avgLatencyMs=%.1f, maxLatencyMs=%.1f",
+                getDelivered(), getFailed(), getRetried(), getDeadLettered(), getAvgLatencyMs(), getMaxLatencyMs());
+    }
+}
@@ -80,8 +80,10 @@ public class AlertEmailGenerator{
         Future future = this.executorPool.submit(thread);
         try {
             future.get(MAX_TIMEOUT_MS, TimeUnit.MILLISECONDS);
-            sentSuccessfully = true;
-            LOG.info(String.format("Successfully send email to %s", recipients));
+            // sender swallows its own failures
+            sentSuccessfully = thread.sentSuccessfully();
+            if(sentSuccessfully) LOG.info(String.format("Successfully send email to %s", recipients));
+            else LOG.error(String.format("Failed to send email to %s", recipients));
         } catch (InterruptedException | ExecutionException  e) {
             sentSuccessfully = false;
             LOG.error(String.format("Failed to send email to %s, due to:%s",recipients,e),e);
@@ -33,7 +33,7 @@ import java.util.Vector;
 /**
  * Plugin to persist alerts to Eagle Storage
  */
-public class AlertEagleStorePlugin implements NotificationPlugin {
+public class AlertEagleStorePlugin implements BatchNotificationPlugin {
     private static final Logger LOG = LoggerFactory.getLogger(AlertEagleStorePlugin.class);
     private List<NotificationStatus> statusList = new Vector<>();
     private AlertEagleStorePersister persist;
@@ -85,6 +85,28 @@ public class AlertEagleStorePlugin implements NotificationPlugin {
         this.statusList.add(status);
     }
 
+    /**
+     * Persist AlertEntities to alert_details table in one request
+     * @param alertEntities
+     * @throws Exception if alerts are not persisted, so that they can be retried
+     */
+    @Override
+    public void onAlerts(List<AlertAPIEntity> alertEntities) throws Exception {
+        LOG.info("write " + alertEntities.size() + " alerts to eagle storage");
+        NotificationStatus status = new NotificationStatus();
+        try{
+            if(!persist.doPersist(alertEntities)) throw new IllegalStateException("Fail writing " + alertEntities.size() + " alert entities to Eagle Store");
+            status.successful = true;
+            status.errorMessage = "";
+        }catch (Exception ex){
+            status.successful = false;
+            status.errorMessage = ex.getMessage();
+            throw ex;
+        }finally {
+            this.statusList.add(status);
+        }
+    }
+
     @Override
     public int hashCode(){
         return new HashCodeBuilder().append(getClass().getCanonicalName()).toHashCode();
@@ -48,6 +48,8 @@ public class AlertEmailPlugin implements NotificationPlugin {
 	private final static long DEFAULT_THREAD_POOL_SHRINK_TIME = 60000L; // 1 minute
 	private transient ThreadPoolExecutor executorPool;
 	private Vector<NotificationStatus> statusList = new Vector<>();
+	// generators which failed to send alert, only those are retried when the same alert is dispatched again
+	private final Map<AlertAPIEntity, List<AlertEmailGenerator>> failedGenerators = Collections.synchronizedMap(new WeakHashMap<AlertAPIEntity, List<AlertEmailGenerator>>());
 	private Config config;
 
 	@Override
@@ -87,26 +89,38 @@ public class AlertEmailPlugin implements NotificationPlugin {
 	}
 
 	/**
-	 * API to send email
+	 * API to send email, on retry of an alert email is only sent again by generators which failed
 	 * @param alertEntity
 	 * @throws Exception
      */
 	@Override
 	public void onAlert(AlertAPIEntity alertEntity) throws  Exception {
 		String policyId = alertEntity.getTags().get(Constants.POLICY_ID);
-		List<AlertEmailGenerator> generators = this.emailGenerators.get(policyId);
+		List<AlertEmailGenerator> generators = this.failedGenerators.remove(alertEntity);
+		if(generators == null) generators = this.emailGenerators.get(policyId);
+		if(generators == null) {
+			LOG.warn("No email generators found for policy " + policyId);
+			return;
+		}
+		List<AlertEmailGenerator> failures = new ArrayList<>();
 		for(AlertEmailGenerator generator: generators) {
 			boolean isSuccess = generator.sendAlertEmail(alertEntity);
 			NotificationStatus status = new NotificationStatus();
 			if( !isSuccess ) {
 				status.errorMessage = "Failed to send email";
 				status.successful = false;
+				failures.add(generator);
 			}else {
 				status.errorMessage = "";
 				status.successful = true;
 			}
 			this.statusList.add(status);
 		}
+		// let asynchronous dispatcher retry failed email
+		if(!failures.isEmpty()) {
+			this.failedGenerators.put(alertEntity, failures);
+			throw new IllegalStateException("Failed to send " + failures.size() + " of " + generators.size() + " emails for policy " + policyId);
+		}
 	}
 
 	@Override
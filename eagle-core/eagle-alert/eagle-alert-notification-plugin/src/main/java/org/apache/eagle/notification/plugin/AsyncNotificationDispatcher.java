@@ -0,0 +1,261 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.eagle.notification.plugin;
+
+import com.typesafe.config.Config;
+import org.apache.eagle.alert.entity.AlertAPIEntity;
+import org.apache.eagle.notification.base.NotificationMetrics;
+import org.apache.eagle.notification.utils.NotificationPluginUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delivers alerts to one notification plugin off the alert executor thread, so that a slow mail server or
+ * Eagle service doesn't stall the topology.
+ *
+ * <p>Alerts are queued in a bounded queue and delivered by worker threads in batches, in one call for
+ * {@link BatchNotificationPlugin} or one by one otherwise. Failed deliveries are retried with exponential backoff,
+ * alerts still failing afterwards or rejected because the queue is full are spilled to the dead letter file
+ * of the plugin and dispatcher id as json lines.</p>
+ *
+ * <p>Configured under "eagleNotificationProps.async": enabled, queueCapacity, workers, batchSize, maxRetries,
+ * retryBackoffMs, maxRetryBackoffMs and deadLetterDir.</p>
+ */
+public class AsyncNotificationDispatcher implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncNotificationDispatcher.class);
+    public static final String ASYNC_CONFIG = "eagleNotificationProps.async";
+    private static final long POLL_TIMEOUT_MS = 100;
+    private static final long METRICS_LOG_INTERVAL_MS = 60000;
+    private static final long CLOSE_TIMEOUT_MS = 10000;
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final NotificationPlugin plugin;
+    private final String name;
+    private final BlockingQueue<AlertAPIEntity> queue;
+    private final List<Thread> workers;
+    private final int batchSize;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+    private final long maxRetryBackoffMs;
+    private final File deadLetterFile;
+    private final NotificationMetrics metrics = new NotificationMetrics();
+    private volatile boolean running = true;
+    private volatile long lastMetricsLogTime = System.currentTimeMillis();
+
+    /**
+     * Dispatcher with a dead letter file unique to this process and instance
+     */
+    public AsyncNotificationDispatcher(NotificationPlugin plugin, Config config) {
+        this(plugin, config, uniqueId());
+    }
+
+    /**
+     * @param dispatcherId identifies the dead letter file among dispatchers of the plugin, e.g. topology and task
+     */
+    public AsyncNotificationDispatcher(NotificationPlugin plugin, Config config, String dispatcherId) {
+        this.plugin = plugin;
+        this.name = plugin.getClass().getSimpleName();
+        this.queue = new ArrayBlockingQueue<>(getInt(config, "queueCapacity", 10000));
+        this.batchSize = getInt(config, "batchSize", 100);
+        this.maxRetries = getInt(config, "maxRetries", 3);
+        this.retryBackoffMs = getInt(config, "retryBackoffMs", 1000);
+        this.maxRetryBackoffMs = getInt(config, "maxRetryBackoffMs", 60000);
+        String deadLetterDir = config.hasPath(ASYNC_CONFIG + ".deadLetterDir") ? config.getString(ASYNC_CONFIG + ".deadLetterDir")
+                : new File(System.getProperty("java.io.tmpdir"), "eagle-notification").getPath();
+        this.deadLetterFile = new File(deadLetterDir, name + "-" + dispatcherId.replaceAll("[^A-Za-z0-9_.-]", "_") + ".deadletter");
+
+        int numWorkers = getInt(config, "workers", 2);
+        this.workers = new ArrayList<>(numWorkers);
+        for (int i = 0; i < numWorkers; i++) {
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    work();
+                }
+            }, "notification-" + name + "-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        LOG.info("Started " + numWorkers + " delivery workers for " + name + ", dead letter file " + deadLetterFile);
+    }
+
+    /**
+     * @return true unless "eagleNotificationProps.async.enabled" is false
+     */
+    public static boolean isEnabled(Config config) {
+        return !config.hasPath(ASYNC_CONFIG + ".enabled") || config.getBoolean(ASYNC_CONFIG + ".enabled");
+    }
+
+    /**
+     * @return process id followed by a sequence number of dispatchers created in this process
+     */
+    public static String uniqueId() {
+        return ManagementFactory.getRuntimeMXBean().getName().split("@")[0] + "-" + INSTANCES.incrementAndGet();
+    }
+
+    private static int getInt(Config config, String key, int defaultValue) {
+        String path = ASYNC_CONFIG + "." + key;
+        return config.hasPath(path) ? config.getInt(path) : defaultValue;
+    }
+
+    /**
+     * Queue alert for delivery without blocking
+     * @return false if queue is full or dispatcher is closed, alert is then spilled to dead letter file
+     */
+    public boolean submit(AlertAPIEntity alert) {
+        if (running && queue.offer(alert)) return true;
+        LOG.warn("Notification queue of " + name + " is full or closed, spilling alert to " + deadLetterFile);
+        spill(Collections.singletonList(alert));
+        return false;
+    }
+
+    public NotificationMetrics getMetrics() {
+        return metrics;
+    }
+
+    public File getDeadLetterFile() {
+        return deadLetterFile;
+    }
+
+    private void work() {
+        List<AlertAPIEntity> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                AlertAPIEntity first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    deliver(batch);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+            logMetrics();
+        }
+    }
+
+    private void deliver(List<AlertAPIEntity> batch) throws InterruptedException {
+        if (plugin instanceof BatchNotificationPlugin) {
+            deliverWithRetry(batch);
+        } else {
+            for (AlertAPIEntity alert : batch) {
+                deliverWithRetry(Collections.singletonList(alert));
+            }
+        }
+    }
+
+    private void deliverWithRetry(List<AlertAPIEntity> alerts) throws InterruptedException {
+        long backoffMs = retryBackoffMs;
+        for (int attempt = 0; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                if (plugin instanceof BatchNotificationPlugin) {
+                    ((BatchNotificationPlugin) plugin).onAlerts(alerts);
+                } else {
+                    plugin.onAlert(alerts.get(0));
+                }
+                metrics.onDelivered(alerts.size(), System.nanoTime() - start);
+                return;
+            } catch (Exception ex) {
+                metrics.onFailed(alerts.size(), System.nanoTime() - start);
+                if (attempt >= maxRetries || !running) {
+                    LOG.error("Fail delivering " + alerts.size() + " alerts to " + name + " after " + (attempt + 1) + " attempts, spilling them to " + deadLetterFile, ex);
+                    spill(alerts);
+                    return;
+                }
+                LOG.warn("Fail delivering " + alerts.size() + " alerts to " + name + ", retry in " + backoffMs + " ms", ex);
+            }
+            metrics.onRetried(alerts.size());
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException ex) {
+                spill(alerts);
+                throw ex;
+            }
+            backoffMs = Math.min(backoffMs * 2, maxRetryBackoffMs);
+        }
+    }
+
+    private synchronized void spill(List<AlertAPIEntity> alerts) {
+        try {
+            File dir = deadLetterFile.getParentFile();
+            if (!dir.isDirectory() && !dir.mkdirs()) throw new IllegalStateException("Fail creating " + dir);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(deadLetterFile, true), StandardCharsets.UTF_8));
+            try {
+                for (AlertAPIEntity alert : alerts) {
+                    writer.write(NotificationPluginUtils.objectToStr(alert));
+                    writer.write('\n');
+                }
+            } finally {
+                writer.close();
+            }
+            metrics.onDeadLettered(alerts.size());
+        } catch (Exception ex) {
+            LOG.error("Fail spilling " + alerts.size() + " alerts of " + name + " to " + deadLetterFile + ", alerts are lost: " + alerts, ex);
+        }
+    }
+
+    private void logMetrics() {
+        long now = System.currentTimeMillis();
+        if (now - lastMetricsLogTime >= METRICS_LOG_INTERVAL_MS) {
+            lastMetricsLogTime = now;
+            LOG.info("Notification metrics of " + name + ": " + metrics + ", queued=" + queue.size());
+        }
+    }
+
+    /**
+     * Stop accepting alerts and wait for workers to deliver queued ones, without retrying failed deliveries.
+     * Alerts still queued after timeout are spilled to dead letter file.
+     */
+    @Override
+    public void close() {
+        running = false;
+        long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT_MS;
+        try {
+            for (Thread worker : workers) {
+                worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        List<AlertAPIEntity> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) spill(remaining);
+        LOG.info("Closed notification dispatcher of " + name + ": " + metrics);
+    }
+}
@@ -36,4 +36,9 @@ public interface NotificationPluginManager {
      * @param isDelete
      */
     void updateNotificationPlugins(AlertDefinitionAPIEntity entity , boolean isDelete );
+
+    /**
+     * deliver pending notifications and release resources
+     */
+    void close();
 }
@@ -39,10 +39,22 @@ public class NotificationPluginManagerImpl implements NotificationPluginManager
     private static final Logger LOG = LoggerFactory.getLogger(NotificationPluginManagerImpl.class);
     // mapping from policy Id to NotificationPlugin instance
     private Map<String, Collection<NotificationPlugin>> policyNotificationMapping = new ConcurrentHashMap<>(1); //only one write thread
+    // asynchronous delivery per plugin instance, empty if disabled
+    private Map<NotificationPlugin, AsyncNotificationDispatcher> dispatchers = new HashMap<>();
     private Config config;
+    private String dispatcherId;
+    private boolean closed;
 
     public NotificationPluginManagerImpl(Config config){
+        this(config, AsyncNotificationDispatcher.uniqueId());
+    }
+
+    /**
+     * @param dispatcherId keeps dead letter files of dispatchers apart from those of other managers, e.g. topology and task
+     */
+    public NotificationPluginManagerImpl(Config config, String dispatcherId){
         this.config = config;
+        this.dispatcherId = dispatcherId;
         internalInit();
     }
 
@@ -57,6 +69,17 @@ public class NotificationPluginManagerImpl implements NotificationPluginManager
             NotificationPluginLoader.getInstance().init(config);
             for(NotificationPlugin plugin : NotificationPluginLoader.getInstance().getNotificationMapping().values()){
                 plugin.init(config, activeAlertDefs);
+                if(AsyncNotificationDispatcher.isEnabled(config)) {
+                    dispatchers.put(plugin, new AsyncNotificationDispatcher(plugin, config, dispatcherId));
+                }
+            }
+            if(!dispatchers.isEmpty()) {
+                Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        close();
+                    }
+                }, "notification-dispatcher-shutdown"));
             }
             // build policy and plugin mapping
             for( AlertDefinitionAPIEntity entity : activeAlertDefs ){
@@ -78,6 +101,11 @@ public class NotificationPluginManagerImpl implements NotificationPluginManager
             return;
         }
         for(NotificationPlugin plugin : plugins){
+            AsyncNotificationDispatcher dispatcher = dispatchers.get(plugin);
+            if(dispatcher != null) {
+                dispatcher.submit(entity);
+                continue;
+            }
             try {
                 LOG.info("execute notification plugin " + plugin);
                 plugin.onAlert(entity);
@@ -126,6 +154,18 @@ public class NotificationPluginManagerImpl implements NotificationPluginManager
         }
     }
 
+    /**
+     * Deliver alerts queued for asynchronous notification and stop dispatcher threads, only the first call has effect
+     */
+    @Override
+    public synchronized void close() {
+        if(closed) return;
+        closed = true;
+        for(AsyncNotificationDispatcher dispatcher : dispatchers.values()){
+            dispatcher.close();
+        }
+    }
+
     private Map<String, NotificationPlugin> pluginsForPolicy(AlertDefinitionAPIEntity policy) throws Exception{
         NotificationPluginLoader loader = NotificationPluginLoader.getInstance();
         loader.init(config);
@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.notifications.testcases;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import junit.framework.Assert;
+import org.apache.eagle.alert.entity.AlertAPIEntity;
+import org.apache.eagle.alert.entity.AlertDefinitionAPIEntity;
+import org.apache.eagle.common.metric.AlertContext;
+import org.apache.eagle.notification.base.NotificationMetrics;
+import org.apache.eagle.notification.plugin.AlertEagleStorePlugin;
+import org.apache.eagle.notification.plugin.AlertEmailPlugin;
+import org.apache.eagle.notification.plugin.AsyncNotificationDispatcher;
+import org.apache.eagle.policy.common.Constants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deliver alerts through {@link AsyncNotificationDispatcher} to a mock Eagle service and a stub SMTP server
+ */
+public class TestAsyncNotificationDispatcher {
+    private static final long WAIT_TIMEOUT_MS = 30000;
+    private static final String FAILING_RECIPIENT = "fail@apache.org";
+
+    private HttpServer eagleService;
+    private ServerSocket smtpServer;
+    private File deadLetterDir;
+    private final AtomicInteger createRequests = new AtomicInteger();
+    private final AtomicInteger sentEmails = new AtomicInteger();
+    private final Map<String, AtomicInteger> receivedEmails = new ConcurrentHashMap<>();
+    private final AtomicInteger rejectedRecipients = new AtomicInteger();
+    private volatile int responseCode = 200;
+    private volatile CountDownLatch firstRequestLatch = new CountDownLatch(0);
+
+    @Before
+    public void setUp() throws Exception {
+        deadLetterDir = Files.createTempDirectory("eagle-deadletter").toFile();
+        eagleService = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        eagleService.createContext("/eagle-service/rest/entities", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) {
+                try {
+                    if (createRequests.incrementAndGet() == 1) firstRequestLatch.await(WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                    InputStream in = exchange.getRequestBody();
+                    while (in.read() >= 0) ;
+                    byte[] body = (responseCode == 200 ? "{\"success\":true}" : "{\"success\":false}").getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().add("Content-Type", "application/json");
+                    exchange.sendResponseHeaders(responseCode, body.length);
+                    OutputStream out = exchange.getResponseBody();
+                    out.write(body);
+                    out.close();
+                } catch (Exception ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        });
+        eagleService.start();
+
+        smtpServer = new ServerSocket(0);
+        Thread smtp = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!smtpServer.isClosed()) {
+                    try (Socket socket = smtpServer.accept()) {
+                        serveSmtp(socket);
+                    } catch (Exception ex) {
+                        // server closed
+                    }
+                }
+            }
+        });
+        smtp.setDaemon(true);
+        smtp.start();
+    }
+
+    private void serveSmtp(Socket socket) throws Exception {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true);
+        out.print("220 localhost\r\n");
+        out.flush();
+        List<String> recipients = new ArrayList<>();
+        String line;
+        while ((line = in.readLine()) != null) {
+            String command = line.toUpperCase();
+            if (command.startsWith("RCPT") && line.contains(FAILING_RECIPIENT) && rejectedRecipients.getAndDecrement() > 0) {
+                out.print("550 rejected\r\n");
+            } else if (command.startsWith("RCPT")) {
+                recipients.add(line.substring(line.indexOf('<') + 1, line.indexOf('>')));
+                out.print("250 OK\r\n");
+            } else if (command.startsWith("DATA")) {
+                out.print("354 end with .\r\n");
+                out.flush();
+                while ((line = in.readLine()) != null && !line.equals(".")) ;
+                sentEmails.incrementAndGet();
+                for (String recipient : recipients) {
+                    receivedEmails.putIfAbsent(recipient, new AtomicInteger());
+                    receivedEmails.get(recipient).incrementAndGet();
+                }
+                recipients.clear();
+                out.print("250 OK\r\n");
+            } else if (command.startsWith("QUIT")) {
+                out.print("221 bye\r\n");
+                out.flush();
+                return;
+            } else {
+                out.print("250 OK\r\n");
+            }
+            out.flush();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        eagleService.stop(0);
+        smtpServer.close();
+        File[] files = deadLetterDir.listFiles();
+        if (files != null) for (File file : files) file.delete();
+        deadLetterDir.delete();
+    }
+
+    private Config config(String async) {
+        return ConfigFactory.parseString(
+                "eagleProps.eagleService.port = " + eagleService.getAddress().getPort() + "\n" +
+                "eagleProps.mailHost = localhost\n" +
+                "eagleProps.mailSmtpPort = \"" + smtpServer.getLocalPort() + "\"\n" +
+                "eagleProps.mailDebug = false\n" +
+                AsyncNotificationDispatcher.ASYNC_CONFIG + " { workers = 1, deadLetterDir = \"" + deadLetterDir.getAbsolutePath().replace("\\", "/") + "\", " + async + " }")
+                .withFallback(ConfigFactory.load());
+    }
+
+    private static AlertAPIEntity newAlert(int i) {
+        AlertAPIEntity alert = new AlertAPIEntity();
+        alert.setTags(new HashMap<String, String>());
+        alert.getTags().put(Constants.POLICY_ID, "testPolicyId");
+        alert.setTimestamp(System.currentTimeMillis());
+        alert.setDescription("alert " + i);
+        alert.setDecodedAlertContext(new AlertContext());
+        return alert;
+    }
+
+    private static void waitFor(NotificationMetrics metrics, long expectedDelivered, long expectedDeadLettered) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_TIMEOUT_MS;
+        while ((metrics.getDelivered() < expectedDelivered || metrics.getDeadLettered() < expectedDeadLettered) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testBatchedPersistence() throws Exception {
+        Config config = config("batchSize = 100");
+        AlertEagleStorePlugin plugin = new AlertEagleStorePlugin();
+        plugin.init(config, Collections.<AlertDefinitionAPIEntity>emptyList());
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(plugin, config);
+        firstRequestLatch = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < 10; i++) {
+                Assert.assertTrue(dispatcher.submit(newAlert(i)));
+            }
+            // alerts queued while first request is blocked are persisted in one more request
+            firstRequestLatch.countDown();
+            waitFor(dispatcher.getMetrics(), 10, 0);
+        } finally {
+            dispatcher.close();
+        }
+        Assert.assertEquals(10, dispatcher.getMetrics().getDelivered());
+        Assert.assertTrue(createRequests.get() <= 2);
+        Assert.assertEquals(0, dispatcher.getMetrics().getFailed());
+        Assert.assertFalse(dispatcher.getDeadLetterFile().exists());
+    }
+
+    @Test
+    public void testDeadLetterAfterRetries() throws Exception {
+        responseCode = 500;
+        Config config = config("batchSize = 1, maxRetries = 2, retryBackoffMs = 10");
+        AlertEagleStorePlugin plugin = new AlertEagleStorePlugin();
+        plugin.init(config, Collections.<AlertDefinitionAPIEntity>emptyList());
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(plugin, config);
+        try {
+            for (int i = 0; i < 3; i++) {
+                dispatcher.submit(newAlert(i));
+            }
+            waitFor(dispatcher.getMetrics(), 0, 3);
+        } finally {
+            dispatcher.close();
+        }
+        NotificationMetrics metrics = dispatcher.getMetrics();
+        Assert.assertEquals(0, metrics.getDelivered());
+        Assert.assertEquals(9, metrics.getFailed());
+        Assert.assertEquals(6, metrics.getRetried());
+        Assert.assertEquals(3, metrics.getDeadLettered());
+        Assert.assertEquals(9, createRequests.get());
+        List<String> lines = Files.readAllLines(dispatcher.getDeadLetterFile().toPath(), StandardCharsets.UTF_8);
+        Assert.assertEquals(3, lines.size());
+        Assert.assertTrue(lines.get(0).contains("testPolicyId"));
+    }
+
+    private static AlertDefinitionAPIEntity emailAlertDef(String... recipients) {
+        StringBuilder notificationDef = new StringBuilder("[");
+        for (String recipient : recipients) {
+            if (notificationDef.length() > 1) notificationDef.append(",");
+            notificationDef.append("{\"notificationType\":\"email\",\"sender\":\"eagle@apache.org\",\"recipients\":\"").append(recipient).append("\",\"subject\":\"test\",\"tplFileName\":\"\"}");
+        }
+        AlertDefinitionAPIEntity def = new AlertDefinitionAPIEntity();
+        def.setTags(new HashMap<String, String>());
+        def.getTags().put(Constants.POLICY_ID, "testPolicyId");
+        def.setNotificationDef(notificationDef.append("]").toString());
+        return def;
+    }
+
+    @Test
+    public void testEmailDelivery() throws Exception {
+        Config config = config("batchSize = 10");
+        AlertEmailPlugin plugin = new AlertEmailPlugin();
+        plugin.init(config, Arrays.asList(emailAlertDef("eagle@apache.org")));
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(plugin, config);
+        try {
+            for (int i = 0; i < 3; i++) {
+                dispatcher.submit(newAlert(i));
+            }
+            waitFor(dispatcher.getMetrics(), 3, 0);
+        } finally {
+            dispatcher.close();
+        }
+        Assert.assertEquals(3, dispatcher.getMetrics().getDelivered());
+        Assert.assertEquals(3, sentEmails.get());
+        Assert.assertTrue(plugin.getStatusList().get(0).successful);
+    }
+
+    @Test
+    public void testOnlyFailedRecipientsRetried() throws Exception {
+        // failing recipient is rejected until the sender gives up its own retries, so the dispatcher retries the alert
+        rejectedRecipients.set(3);
+        Config config = config("batchSize = 1, maxRetries = 1, retryBackoffMs = 10");
+        AlertEmailPlugin plugin = new AlertEmailPlugin();
+        plugin.init(config, Arrays.asList(emailAlertDef("eagle@apache.org", FAILING_RECIPIENT)));
+        AsyncNotificationDispatcher dispatcher = new AsyncNotificationDispatcher(plugin, config);
+        try {
+            dispatcher.submit(newAlert(0));
+            waitFor(dispatcher.getMetrics(), 1, 0);
+        } finally {
+            dispatcher.close();
+        }
+        NotificationMetrics metrics = dispatcher.getMetrics();
+        Assert.assertEquals(1, metrics.getDelivered());
+        Assert.assertEquals(1, metrics.getFailed());
+        Assert.assertEquals(0, metrics.getDeadLettered());
+        Assert.assertEquals(1, receivedEmails.get("eagle@apache.org").get());
+        Assert.assertEquals(1, receivedEmails.get(FAILING_RECIPIENT).get());
+    }
+
+    @Test
+    public void testDeadLetterFilePerDispatcher() throws Exception {
+        Config config = config("batchSize = 1");
+        AlertEagleStorePlugin plugin = new AlertEagleStorePlugin();
+        plugin.init(config, Collections.<AlertDefinitionAPIEntity>emptyList());
+        AsyncNotificationDispatcher first = new AsyncNotificationDispatcher(plugin, config);
+        AsyncNotificationDispatcher second = new AsyncNotificationDispatcher(plugin, config);
+        AsyncNotificationDispatcher task = new AsyncNotificationDispatcher(plugin, config, "topology-1");
+        first.close();
+        second.close();
+        task.close();
+        Assert.assertFalse(first.getDeadLetterFile().equals(second.getDeadLetterFile()));
+        Assert.assertEquals("AlertEagleStorePlugin-topology-1.deadletter", task.getDeadLetterFile().getName());
+    }
+}
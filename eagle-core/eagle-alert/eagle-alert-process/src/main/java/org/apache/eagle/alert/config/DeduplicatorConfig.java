@@ -17,6 +17,7 @@
 package org.apache.eagle.alert.config;
 
 import java.io.Serializable;
+import java.util.List;
 
 public class DeduplicatorConfig implements Serializable{
 	private static final long serialVersionUID = 1L;
@@ -32,6 +33,16 @@ public class DeduplicatorConfig implements Serializable{
 	public void setEmailDedupIntervalMin(int emailDedupIntervalMin) {
 		this.emailDedupIntervalMin = emailDedupIntervalMin;
 	}
+	/**
+	 * Tags alerts are deduplicated by, all tags if not set
+	 */
+	public List<String> getDedupKeyTags() {
+		return dedupKeyTags;
+	}
+	public void setDedupKeyTags(List<String> dedupKeyTags) {
+		this.dedupKeyTags = dedupKeyTags;
+	}
 	private int alertDedupIntervalMin;
 	private int emailDedupIntervalMin;
+	private List<String> dedupKeyTags;
 }
@@ -16,6 +16,7 @@
  */
 package org.apache.eagle.alert.dedup;
 
+import java.io.File;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -32,6 +33,7 @@ import org.apache.eagle.policy.PolicyLifecycleMethods;
 import org.apache.eagle.common.config.EagleConfigConstants;
 import org.apache.eagle.dataproc.core.JsonSerDeserUtils;
 import org.apache.eagle.datastream.JavaStormStreamExecutor2;
+import org.apache.eagle.datastream.TaskIndexAware;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,11 +41,16 @@ import com.sun.jersey.client.impl.CopyOnWriteHashMap;
 import com.typesafe.config.Config;
 import scala.Tuple2;
 
-public abstract class AlertDeduplicationExecutorBase extends JavaStormStreamExecutor2<String, AlertAPIEntity> implements PolicyLifecycleMethods<AlertDefinitionAPIEntity> {
+public abstract class AlertDeduplicationExecutorBase extends JavaStormStreamExecutor2<String, AlertAPIEntity> implements PolicyLifecycleMethods<AlertDefinitionAPIEntity>, TaskIndexAware {
 	private static final long serialVersionUID = 1L;
 	private static final Logger LOG = LoggerFactory.getLogger(AlertDeduplicationExecutorBase.class);
+	/**
+	 * Local directory dedup state is persisted in, kept in memory only if not set
+	 */
+	public static final String DEDUP_STATE_DIR = EagleConfigConstants.EAGLE_PROPS + ".dedupStateDir";
 	protected Config config;
 	protected DEDUP_TYPE dedupType;
+	private int taskIndex;
 
 	private List<String> alertExecutorIdList;
 	private volatile CopyOnWriteHashMap<String, DefaultDeduplicator<AlertAPIEntity>> alertDedups;
@@ -64,6 +71,11 @@ public abstract class AlertDeduplicationExecutorBase extends JavaStormStreamExec
 	public void prepareConfig(Config config) {
 		this.config = config;
 	}
+
+	@Override
+	public void setTaskIndex(int taskIndex) {
+		this.taskIndex = taskIndex;
+	}
 	
 	public DefaultDeduplicator<AlertAPIEntity> createAlertDedup(AlertDefinitionAPIEntity alertDef) {
 		DeduplicatorConfig dedupConfig = null;
@@ -75,15 +87,46 @@ public abstract class AlertDeduplicationExecutorBase extends JavaStormStreamExec
 		}
 
         if (dedupConfig != null) {
+			long intervalMin;
 			if (dedupType.equals(DEDUP_TYPE.ENTITY)) {
-				return new DefaultDeduplicator<>(dedupConfig.getAlertDedupIntervalMin());
+				intervalMin = dedupConfig.getAlertDedupIntervalMin();
 			} else if (dedupType.equals(DEDUP_TYPE.EMAIL)) {
-				return new DefaultDeduplicator<>(dedupConfig.getEmailDedupIntervalMin());
+				intervalMin = dedupConfig.getEmailDedupIntervalMin();
+			} else {
+				return null;
 			}
+			String policyId = alertDef.getTags().get(Constants.POLICY_ID);
+			return new DefaultDeduplicator<>(intervalMin, new TagsDedupKeyExtractor(dedupConfig.getDedupKeyTags()), createStateStore(policyId, intervalMin));
 		}
 
 		return null;
 	}
+
+	/**
+	 * Dedup state of a policy, persisted in "eagleProps.dedupStateDir" if configured so that it survives restarts.
+	 * The journal is keyed by task index, so a restarted task reloads the state of the same task
+	 */
+	protected DedupStateStore createStateStore(String policyId, long intervalMin) {
+		long retentionMs = DefaultDeduplicator.retentionMs(intervalMin);
+		if (config == null || !config.hasPath(DEDUP_STATE_DIR)) {
+			return new DedupStateStore(retentionMs);
+		}
+		String name = dedupType.name().toLowerCase() + "-" + policyId.replaceAll("[^A-Za-z0-9_.-]", "_") + "-" + taskIndex;
+		return DedupStateStore.open(new File(config.getString(DEDUP_STATE_DIR)), name, retentionMs);
+	}
+
+	/**
+	 * Replace deduplicator of policy, the previous one is closed first so that its persisted state is reopened
+	 */
+	private void updateAlertDedup(AlertDefinitionAPIEntity alertDef) {
+		String policyId = alertDef.getTags().get(Constants.POLICY_ID);
+		synchronized(alertDedups) {
+			DefaultDeduplicator<AlertAPIEntity> previous = alertDedups.remove(policyId);
+			if (previous != null) previous.close();
+			DefaultDeduplicator<AlertAPIEntity> dedup = createAlertDedup(alertDef);
+			if (dedup != null) alertDedups.put(policyId, dedup);
+		}
+	}
 	
 	@Override
 	public void init() {		
@@ -157,12 +200,7 @@ public abstract class AlertDeduplicationExecutorBase extends JavaStormStreamExec
 		if(LOG.isDebugEnabled()) LOG.debug("Alert dedup config to be added : " + added);
 		for(AlertDefinitionAPIEntity alertDef : added.values()){
 			LOG.info("Alert dedup config really added " + alertDef);
-			DefaultDeduplicator<AlertAPIEntity> dedup = createAlertDedup(alertDef);
-			if (dedup != null) {
-				synchronized(alertDedups) {		
-					alertDedups.put(alertDef.getTags().get(Constants.POLICY_ID), dedup);
-				}
-			}
+			updateAlertDedup(alertDef);
 		}
 	}
 	
@@ -170,12 +208,7 @@ public abstract class AlertDeduplicationExecutorBase extends JavaStormStreamExec
 		LOG.info("Alert dedup config changed : " + changed);
 		for(AlertDefinitionAPIEntity alertDef : changed.values()){
 			LOG.info("Alert dedup config really changed " + alertDef);
-			DefaultDeduplicator<AlertAPIEntity> dedup = createAlertDedup(alertDef);
-			if (dedup != null) {
-				synchronized(alertDedups) {
-					alertDedups.put(alertDef.getTags().get(Constants.POLICY_ID), dedup);
-				}
-			}
+			updateAlertDedup(alertDef);
 		}
 	}
 	
@@ -183,9 +216,9 @@ public abstract class AlertDeduplicationExecutorBase extends JavaStormStreamExec
 		LOG.info("alert dedup config deleted : " + deleted);
 		for(AlertDefinitionAPIEntity alertDef : deleted.values()){
 			LOG.info("alert dedup config deleted " + alertDef);
-			// no cleanup to do, just remove it
-			synchronized(alertDedups) {		
-				alertDedups.remove(alertDef.getTags().get(Constants.POLICY_ID));
+			synchronized(alertDedups) {
+				DefaultDeduplicator<AlertAPIEntity> dedup = alertDedups.remove(alertDef.getTags().get(Constants.POLICY_ID));
+				if (dedup != null) dedup.close();
 			}
 		}
 	}
@@ -0,0 +1,271 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.alert.dedup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Last timestamp of each dedup key, expired retention ms after its last update.
+ *
+ * <p>Keys are kept in update order, a key updated again is moved to the tail. As all keys share the same retention
+ * they are also ordered by expiry time, so expiring keys only looks at the head and costs O(1) amortized per update,
+ * and memory is bounded by the number of live keys whatever the number of updates.</p>
+ *
+ * <p>If opened in a directory, updates are appended to a journal file replayed on open, so that dedup state survives
+ * worker restarts. The journal is compacted into a snapshot of live keys once it's twice as large. A lock file keeps
+ * two stores from sharing a journal, the store is kept in memory only if the lock is held.</p>
+ */
+public class DedupStateStore implements Closeable {
+	private static final Logger LOG = LoggerFactory.getLogger(DedupStateStore.class);
+	private static final int MIN_COMPACTION_RECORDS = 1024;
+
+	private final LinkedHashMap<String, State> states = new LinkedHashMap<String, State>();
+	private long retentionMs;
+
+	private File journalFile;
+	private DataOutputStream journal;
+	private int journalRecords;
+	private FileChannel lockChannel;
+	private FileLock lock;
+
+	private static class State {
+		long timestamp;
+		long expireTime;
+
+		State(long timestamp, long expireTime) {
+			this.timestamp = timestamp;
+			this.expireTime = expireTime;
+		}
+	}
+
+	/**
+	 * In memory store
+	 */
+	public DedupStateStore(long retentionMs) {
+		this.retentionMs = retentionMs;
+	}
+
+	/**
+	 * Store persisted in dir, state of previous store of the same name is loaded. Falls back on in memory store
+	 * if the journal can't be opened.
+	 *
+	 * @param name journal file name without extension, unique per task so that a restarted task reloads its own state
+	 */
+	public static DedupStateStore open(File dir, String name, long retentionMs) {
+		DedupStateStore store = new DedupStateStore(retentionMs);
+		try {
+			if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Fail creating " + dir);
+			if (store.tryLock(new File(dir, name + ".lock"))) {
+				store.load(new File(dir, name + ".journal"), System.currentTimeMillis());
+			} else {
+				LOG.warn("Journal " + name + " in " + dir + " is locked, dedup state is kept in memory only");
+			}
+		} catch (IOException ex) {
+			LOG.error("Fail opening dedup journal of " + name + " in " + dir + ", dedup state is kept in memory only", ex);
+			store.close();
+		}
+		return store;
+	}
+
+	private boolean tryLock(File lockFile) throws IOException {
+		FileChannel channel = new RandomAccessFile(lockFile, "rw").getChannel();
+		try {
+			FileLock fileLock = channel.tryLock();
+			if (fileLock != null) {
+				lockChannel = channel;
+				lock = fileLock;
+				return true;
+			}
+		} catch (OverlappingFileLockException ex) {
+			// held by another store of this process
+		}
+		channel.close();
+		return false;
+	}
+
+	private void load(File file, long now) throws IOException {
+		journalFile = file;
+		Map<String, State> loaded = new HashMap<String, State>();
+		if (file.exists()) {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				while (true) {
+					String key = in.readUTF();
+					long timestamp = in.readLong();
+					long expireTime = in.readLong();
+					if (expireTime > now) {
+						loaded.put(key, new State(timestamp, expireTime));
+					} else {
+						loaded.remove(key);
+					}
+				}
+			} catch (EOFException ex) {
+				// end of journal, or record partially written when process was killed
+			} finally {
+				in.close();
+			}
+		}
+		List<Map.Entry<String, State>> sorted = new ArrayList<Map.Entry<String, State>>(loaded.entrySet());
+		Collections.sort(sorted, new Comparator<Map.Entry<String, State>>() {
+			@Override
+			public int compare(Map.Entry<String, State> o1, Map.Entry<String, State> o2) {
+				return Long.compare(o1.getValue().expireTime, o2.getValue().expireTime);
+			}
+		});
+		for (Map.Entry<String, State> entry : sorted) {
+			states.put(entry.getKey(), entry.getValue());
+		}
+		compact();
+		LOG.info("Loaded " + states.size() + " dedup keys from " + file);
+	}
+
+	/**
+	 * @return last timestamp of key, null if unknown or expired
+	 */
+	public Long get(String key) {
+		State state = states.get(key);
+		return state == null ? null : state.timestamp;
+	}
+
+	public void put(String key, long timestamp, long now) {
+		long expireTime = now + retentionMs;
+		State state = states.remove(key);
+		if (state == null) {
+			state = new State(timestamp, expireTime);
+		} else {
+			state.timestamp = timestamp;
+			state.expireTime = expireTime;
+		}
+		// re-inserted at the tail to keep keys in expiry order
+		states.put(key, state);
+		if (journal != null) {
+			try {
+				writeRecord(journal, key, timestamp, expireTime);
+				journalRecords++;
+			} catch (IOException ex) {
+				LOG.error("Fail writing dedup journal " + journalFile + ", dedup state is kept in memory only", ex);
+				close();
+			}
+		}
+	}
+
+	/**
+	 * Remove keys not updated within retention
+	 */
+	public void expire(long now) {
+		Iterator<State> it = states.values().iterator();
+		while (it.hasNext() && it.next().expireTime <= now) {
+			it.remove();
+		}
+	}
+
+	/**
+	 * Keys updated afterwards expire with the new retention. Keys are expired in update order, so once retention
+	 * is shortened newer keys may expire later than their expire time, until older keys expire.
+	 */
+	public void setRetentionMs(long retentionMs) {
+		this.retentionMs = retentionMs;
+	}
+
+	public int size() {
+		return states.size();
+	}
+
+	/**
+	 * Flush journal to the file system, compact it if it's more than twice as large as live keys
+	 */
+	public void flush() {
+		if (journal == null) return;
+		try {
+			if (journalRecords > 2 * states.size() + MIN_COMPACTION_RECORDS) {
+				compact();
+			} else {
+				journal.flush();
+			}
+		} catch (IOException ex) {
+			LOG.error("Fail flushing dedup journal " + journalFile + ", dedup state is kept in memory only", ex);
+			close();
+		}
+	}
+
+	private void compact() throws IOException {
+		if (journal != null) journal.close();
+		journal = null;
+		File snapshot = new File(journalFile.getPath() + ".tmp");
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(snapshot)));
+		try {
+			for (Map.Entry<String, State> entry : states.entrySet()) {
+				writeRecord(out, entry.getKey(), entry.getValue().timestamp, entry.getValue().expireTime);
+			}
+		} finally {
+			out.close();
+		}
+		Files.move(snapshot.toPath(), journalFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		journalRecords = states.size();
+		journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile, true)));
+	}
+
+	private static void writeRecord(DataOutputStream out, String key, long timestamp, long expireTime) throws IOException {
+		out.writeUTF(key);
+		out.writeLong(timestamp);
+		out.writeLong(expireTime);
+	}
+
+	/**
+	 * Flush and release the journal, the store is kept in memory afterwards
+	 */
+	@Override
+	public void close() {
+		try {
+			if (journal != null) journal.close();
+			if (lock != null) lock.release();
+			if (lockChannel != null) lockChannel.close();
+		} catch (IOException ex) {
+			LOG.warn("Fail closing dedup journal " + journalFile, ex);
+		} finally {
+			journal = null;
+			lock = null;
+			lockChannel = null;
+		}
+	}
+}
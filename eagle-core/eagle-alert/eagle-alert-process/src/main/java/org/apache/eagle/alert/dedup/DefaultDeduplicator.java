@@ -16,11 +16,9 @@
  */
 package org.apache.eagle.alert.dedup;
 
+import java.io.Closeable;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 
 import org.apache.commons.lang.time.DateUtils;
 import org.slf4j.Logger;
@@ -28,9 +26,15 @@ import org.slf4j.LoggerFactory;
 
 import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
 
-public class DefaultDeduplicator<T extends TaggedLogAPIEntity> implements EntityDeduplicator<T>{
+public class DefaultDeduplicator<T extends TaggedLogAPIEntity> implements EntityDeduplicator<T>, Closeable {
+	/**
+	 * Min time a dedup key is kept after its last update
+	 */
+	public static final long MIN_RETENTION_MS = 7 * DateUtils.MILLIS_PER_DAY;
+
 	protected long dedupIntervalMin;
-	protected Map<EntityTagsUniq, Long> entites = new HashMap<EntityTagsUniq, Long>();
+	protected final DedupKeyExtractor keyExtractor;
+	protected final DedupStateStore store;
 	public static Logger LOG = LoggerFactory.getLogger(DefaultDeduplicator.class);
 	
 	public static enum AlertDeduplicationStatus{
@@ -40,52 +44,56 @@ public class DefaultDeduplicator<T extends TaggedLogAPIEntity> implements Entity
 	}
 	
 	public DefaultDeduplicator() {
-		this.dedupIntervalMin = 0;
+		this(0);
 	}
 	
 	public DefaultDeduplicator(long intervalMin) {
+		this(intervalMin, new TagsDedupKeyExtractor(), new DedupStateStore(retentionMs(intervalMin)));
+	}
+
+	/**
+	 * @param store dedup state, retention should be {@link #retentionMs(long)} of intervalMin
+	 */
+	public DefaultDeduplicator(long intervalMin, DedupKeyExtractor keyExtractor, DedupStateStore store) {
 		this.dedupIntervalMin = intervalMin;
+		this.keyExtractor = keyExtractor;
+		this.store = store;
 	}
-	
-	public void clearOldCache() {
-		List<EntityTagsUniq> removedkeys = new ArrayList<EntityTagsUniq>();
-		for (Entry<EntityTagsUniq, Long> entry : entites.entrySet()) {
-			EntityTagsUniq entity = entry.getKey();
-			if (System.currentTimeMillis() - 7 * DateUtils.MILLIS_PER_DAY > entity.createdTime) {
-				removedkeys.add(entry.getKey());
-			}
-		}
-		for (EntityTagsUniq alertKey : removedkeys) {
-			entites.remove(alertKey);
-		}
+
+	/**
+	 * @return how long a dedup key is kept after its last update, no less than a week
+	 */
+	public static long retentionMs(long intervalMin) {
+		return Math.max(MIN_RETENTION_MS, intervalMin * DateUtils.MILLIS_PER_MINUTE);
 	}
 	
-	public AlertDeduplicationStatus checkDedup(EntityTagsUniq key){
-		long current = key.timestamp;
-		if(!entites.containsKey(key)){
-			entites.put(key, current);
+	public AlertDeduplicationStatus checkDedup(String key, long timestamp, long now){
+		Long last = store.get(key);
+		if(last == null){
+			store.put(key, timestamp, now);
 			return AlertDeduplicationStatus.NEW;
 		}
 		
-		long last = entites.get(key);
-		if(current - last >= dedupIntervalMin * DateUtils.MILLIS_PER_MINUTE){
-			entites.put(key, current);
+		if(timestamp - last >= dedupIntervalMin * DateUtils.MILLIS_PER_MINUTE){
+			store.put(key, timestamp, now);
 			return AlertDeduplicationStatus.DUPLICATED;
 		}
 		
 		return AlertDeduplicationStatus.IGNORED;
 	}
 	
-	public List<T> dedup(List<T> list) {
-		clearOldCache();
+	public synchronized List<T> dedup(List<T> list) {
+		long now = System.currentTimeMillis();
+		store.expire(now);
 		List<T> dedupList = new ArrayList<T>();
         int totalCount = list.size();
         int dedupedCount = 0;
 		for(T entity: list) {
-			if (entity.getTags() == null) {
+			String key = keyExtractor.extract(entity);
+			if (key == null) {
 				if(LOG.isDebugEnabled()) LOG.debug("Tags is null, don't know how to deduplicate, do nothing");
 			} else {
-                AlertDeduplicationStatus status = checkDedup(new EntityTagsUniq(entity.getTags(), entity.getTimestamp()));
+                AlertDeduplicationStatus status = checkDedup(key, entity.getTimestamp(), now);
                 if (!status.equals(AlertDeduplicationStatus.IGNORED)) {
                     dedupList.add(entity);
                 } else {
@@ -95,6 +103,7 @@ public class DefaultDeduplicator<T extends TaggedLogAPIEntity> implements Entity
                 }
             }
 		}
+		store.flush();
 
         if(dedupedCount>0){
             LOG.info(String.format("Skipped %s of %s alerts because they are duplicated",dedupedCount,totalCount));
@@ -105,12 +114,21 @@ public class DefaultDeduplicator<T extends TaggedLogAPIEntity> implements Entity
 		return dedupList;
 	}
 
-	public EntityDeduplicator<T> setDedupIntervalMin(long dedupIntervalMin) {
+	public synchronized EntityDeduplicator<T> setDedupIntervalMin(long dedupIntervalMin) {
 		this.dedupIntervalMin = dedupIntervalMin;
+		store.setRetentionMs(retentionMs(dedupIntervalMin));
 		return this;
 	}
 	
 	public long getDedupIntervalMin() {
 		return dedupIntervalMin;
 	}
+
+	/**
+	 * Release persisted dedup state, so that it can be reopened by the deduplicator replacing this one
+	 */
+	@Override
+	public synchronized void close() {
+		store.close();
+	}
 }
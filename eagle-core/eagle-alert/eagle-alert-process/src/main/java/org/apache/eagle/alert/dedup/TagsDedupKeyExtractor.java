@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.alert.dedup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+
+/**
+ * Dedup key made of tag values, of all tags by default or of the configured tag names only.
+ * Tags with null value are not part of the key.
+ */
+public class TagsDedupKeyExtractor implements DedupKeyExtractor {
+	private static final long serialVersionUID = 1L;
+	private static final char SEPARATOR = '\u0001';
+
+	private final String[] tagNames;
+
+	public TagsDedupKeyExtractor() {
+		this(null);
+	}
+
+	/**
+	 * @param tagNames tags the key is made of, all tags if null or empty
+	 */
+	public TagsDedupKeyExtractor(List<String> tagNames) {
+		this.tagNames = tagNames == null || tagNames.isEmpty() ? null : new TreeSet<String>(tagNames).toArray(new String[0]);
+	}
+
+	@Override
+	public String extract(TaggedLogAPIEntity entity) {
+		Map<String, String> tags = entity.getTags();
+		if (tags == null) return null;
+		StringBuilder key = new StringBuilder();
+		for (String tagName : tagNames != null ? tagNames : new TreeSet<String>(tags.keySet()).toArray(new String[0])) {
+			String value = tags.get(tagName);
+			if (value != null) {
+				key.append(tagName).append('=').append(value).append(SEPARATOR);
+			}
+		}
+		return key.toString();
+	}
+}
@@ -16,6 +16,7 @@
  */
 package org.apache.eagle.alert.notification;
 
+import java.io.Closeable;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +28,7 @@ import org.apache.eagle.policy.DynamicPolicyLoader;
 import org.apache.eagle.policy.PolicyLifecycleMethods;
 import org.apache.eagle.datastream.Collector;
 import org.apache.eagle.datastream.JavaStormStreamExecutor1;
+import org.apache.eagle.datastream.TaskIndexAware;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,7 +38,7 @@ import scala.Tuple1;
 /**
  * notify alert by email, kafka message, storage or other means
  */
-public class AlertNotificationExecutor extends JavaStormStreamExecutor1<String> implements PolicyLifecycleMethods<AlertDefinitionAPIEntity> {
+public class AlertNotificationExecutor extends JavaStormStreamExecutor1<String> implements PolicyLifecycleMethods<AlertDefinitionAPIEntity>, TaskIndexAware, Closeable {
 	private static final long serialVersionUID = 1690354365435407034L;
 	private static final Logger LOG = LoggerFactory.getLogger(AlertNotificationExecutor.class);
 	private Config config;
@@ -45,6 +47,7 @@ public class AlertNotificationExecutor extends JavaStormStreamExecutor1<String>
 
 	private List<String> alertExecutorIdList;
 	private PolicyDefinitionDAO dao;
+	private int taskIndex;
 
 
     public AlertNotificationExecutor(List<String> alertExecutorIdList, PolicyDefinitionDAO dao){
@@ -69,7 +72,8 @@ public class AlertNotificationExecutor extends JavaStormStreamExecutor1<String>
 			LOG.warn("No alert definitions found for site: "+site+", application: "+ application);
 		}
 		try{
-			notificationManager = new NotificationPluginManagerImpl(config);
+			String topologyName = config.hasPath("envContextConfig.topologyName") ? config.getString("envContextConfig.topologyName") : "alertNotification";
+			notificationManager = new NotificationPluginManagerImpl(config, topologyName + "-" + taskIndex);
 		}catch (Exception ex ){
 			LOG.error("Fail to initialize NotificationManager: ", ex);
 			throw new IllegalStateException("Fail to initialize NotificationManager: ", ex);
@@ -87,6 +91,19 @@ public class AlertNotificationExecutor extends JavaStormStreamExecutor1<String>
 		this.config = config;
 	}
 
+	@Override
+	public void setTaskIndex(int taskIndex) {
+		this.taskIndex = taskIndex;
+	}
+
+	/**
+	 * Deliver queued notifications before the bolt is cleaned up, rather than only on JVM shutdown
+	 */
+	@Override
+	public void close() {
+		if(notificationManager != null) notificationManager.close();
+	}
+
 	@Override
 	public void flatMap(java.util.List<Object> input, Collector<Tuple1<String>> outputCollector){
 		AlertAPIEntity alertEntity = (AlertAPIEntity) input.get(1);
@@ -19,13 +19,16 @@ package org.apache.eagle.alert.persist;
 import org.apache.eagle.alert.entity.AlertAPIEntity;
 import com.typesafe.config.Config;
 import org.apache.eagle.common.config.EagleConfigConstants;
+import org.apache.eagle.datastream.BatchFlatMapper;
 import org.apache.eagle.datastream.Collector;
 import org.apache.eagle.datastream.JavaStormStreamExecutor1;
 import scala.Tuple1;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
-public class AlertPersistExecutor extends JavaStormStreamExecutor1<String> {
+public class AlertPersistExecutor extends JavaStormStreamExecutor1<String> implements BatchFlatMapper<Tuple1<String>> {
 
 	private static final long serialVersionUID = 1L;
 	private Config config;
@@ -53,4 +56,16 @@ public class AlertPersistExecutor extends JavaStormStreamExecutor1<String> {
     public void flatMap(java.util.List<Object> input, Collector<Tuple1<String>> outputCollector){
         persist.doPersist(Arrays.asList((AlertAPIEntity)(input.get(1))));
     }
+
+    /**
+     * Persist alerts of a micro-batch in one create request
+     */
+    @Override
+    public void flatMapBatch(List<List<Object>> inputs, Collector<Tuple1<String>> outputCollector){
+        List<AlertAPIEntity> alerts = new ArrayList<AlertAPIEntity>(inputs.size());
+        for(List<Object> input : inputs){
+            alerts.add((AlertAPIEntity)(input.get(1)));
+        }
+        persist.doPersist(alerts);
+    }
 }
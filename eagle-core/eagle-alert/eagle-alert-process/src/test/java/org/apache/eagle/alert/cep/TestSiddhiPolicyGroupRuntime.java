@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.alert.cep;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import junit.framework.Assert;
+import org.apache.eagle.alert.entity.AbstractPolicyDefinitionEntity;
+import org.apache.eagle.alert.entity.AlertAPIEntity;
+import org.apache.eagle.alert.entity.AlertDefinitionAPIEntity;
+import org.apache.eagle.alert.entity.AlertStreamSchemaEntity;
+import org.apache.eagle.alert.executor.AlertExecutor;
+import org.apache.eagle.datastream.Collector;
+import org.apache.eagle.policy.DefaultPolicyPartitioner;
+import org.apache.eagle.policy.common.Constants;
+import org.apache.eagle.policy.dao.AlertStreamSchemaDAO;
+import org.apache.eagle.policy.dao.PolicyDefinitionDAO;
+import org.apache.eagle.policy.dao.PolicyDefinitionEntityDAOImpl;
+import org.apache.eagle.policy.siddhi.SiddhiPolicyDefinition;
+import org.apache.eagle.policy.siddhi.SiddhiPolicyGroupRuntime;
+import org.apache.eagle.policy.siddhi.StreamMetadataManager;
+import org.apache.eagle.service.client.EagleServiceConnector;
+import org.junit.Test;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class TestSiddhiPolicyGroupRuntime {
+	private static final String EXECUTOR_ID = "testAlertExecutor";
+	private static final String STREAM_NAME = "hdfsAuditLogEventStream";
+
+	private final List<String> alertedPolicies = Collections.synchronizedList(new ArrayList<String>());
+	private final Collector<Tuple2<String, AlertAPIEntity>> collector = new Collector<Tuple2<String, AlertAPIEntity>>() {
+		@Override
+		public void collect(Tuple2<String, AlertAPIEntity> alert) {
+			alertedPolicies.add(alert._1());
+		}
+	};
+
+	private SiddhiPolicyDefinition createPolicyDef(String expression, boolean containsDefinition) {
+		SiddhiPolicyDefinition policyDef = new SiddhiPolicyDefinition();
+		policyDef.setType("siddhiCEPEngine");
+		policyDef.setExpression(expression);
+		policyDef.setContainsDefinition(containsDefinition);
+		return policyDef;
+	}
+
+	@Test
+	public void testIsShareable() {
+		Assert.assertTrue(SiddhiPolicyGroupRuntime.isShareable(createPolicyDef(
+				"from hdfsAuditLogEventStream[cmd=='open'] select * insert into outputStream ;", false)));
+		Assert.assertTrue(SiddhiPolicyGroupRuntime.isShareable(createPolicyDef(
+				"from hdfsAuditLogEventStream#window.time(1 min) select user, count(*) as c group by user insert into outputStream", false)));
+		// multiple queries
+		Assert.assertFalse(SiddhiPolicyGroupRuntime.isShareable(createPolicyDef(
+				"from hdfsAuditLogEventStream select * insert into tmpStream; from tmpStream select * insert into outputStream;", false)));
+		// own stream definitions
+		Assert.assertFalse(SiddhiPolicyGroupRuntime.isShareable(createPolicyDef(
+				"define stream s (a string); from s select * insert into outputStream;", true)));
+		// no output stream
+		Assert.assertFalse(SiddhiPolicyGroupRuntime.isShareable(createPolicyDef("from hdfsAuditLogEventStream select *", false)));
+		Assert.assertFalse(SiddhiPolicyGroupRuntime.isShareable(null));
+	}
+
+	private static AlertStreamSchemaEntity createStreamMetaEntity(String attrName) {
+		AlertStreamSchemaEntity entity = new AlertStreamSchemaEntity();
+		Map<String, String> tags = new HashMap<String, String>();
+		tags.put("application", "hdfsAuditLog");
+		tags.put("streamName", STREAM_NAME);
+		tags.put("attrName", attrName);
+		entity.setTags(tags);
+		entity.setAttrType("string");
+		return entity;
+	}
+
+	private static AlertDefinitionAPIEntity createAlertDef(String policyId, String expression) {
+		AlertDefinitionAPIEntity alertDef = new AlertDefinitionAPIEntity();
+		Map<String, String> tags = new HashMap<String, String>();
+		tags.put(Constants.POLICY_ID, policyId);
+		tags.put(Constants.POLICY_TYPE, "siddhiCEPEngine");
+		tags.put("alertExecutorId", EXECUTOR_ID);
+		alertDef.setTags(tags);
+		alertDef.setPolicyDef("{\"type\":\"siddhiCEPEngine\",\"expression\":\"" + expression + "\"}");
+		return alertDef;
+	}
+
+	/**
+	 * Alert executor evaluating given policies in shared execution plan
+	 */
+	private AlertExecutor createAlertExecutor(AlertDefinitionAPIEntity... alertDefs) {
+		final Map<String, Map<String, AlertDefinitionAPIEntity>> initialAlertDefs = new HashMap<>();
+		initialAlertDefs.put(EXECUTOR_ID, new HashMap<String, AlertDefinitionAPIEntity>());
+		for (AlertDefinitionAPIEntity alertDef : alertDefs) {
+			initialAlertDefs.get(EXECUTOR_ID).put(alertDef.getTags().get(Constants.POLICY_ID), alertDef);
+		}
+		PolicyDefinitionDAO<AlertDefinitionAPIEntity> alertDao = new PolicyDefinitionEntityDAOImpl<AlertDefinitionAPIEntity>(new EagleServiceConnector(null, null),
+				Constants.ALERT_DEFINITION_SERVICE_ENDPOINT_NAME) {
+			@Override
+			public Map<String, Map<String, AlertDefinitionAPIEntity>> findActivePoliciesGroupbyExecutorId(String site, String dataSource) {
+				return initialAlertDefs;
+			}
+
+			@Override
+			public void updatePolicyDetails(AbstractPolicyDefinitionEntity entity) { /* do nothing */ }
+		};
+		AlertExecutor alertExecutor = new AlertExecutor(EXECUTOR_ID, new DefaultPolicyPartitioner(), 1, 0, alertDao, new String[]{STREAM_NAME}) {
+			@Override
+			public AlertStreamSchemaDAO getAlertStreamSchemaDAO(Config config) {
+				return new AlertStreamSchemaDAO() {
+					@Override
+					public List<AlertStreamSchemaEntity> findAlertStreamSchemaByApplication(String application) {
+						return Arrays.asList(createStreamMetaEntity("cmd"), createStreamMetaEntity("user"));
+					}
+				};
+			}
+		};
+		Config config = ConfigFactory.parseString("alertExecutorConfigs." + EXECUTOR_ID + ".sharedSiddhiRuntime = true")
+				.withFallback(ConfigFactory.load("unittest.conf"));
+		StreamMetadataManager.getInstance().reset();
+		alertExecutor.prepareConfig(config);
+		alertExecutor.init();
+		return alertExecutor;
+	}
+
+	private void send(AlertExecutor alertExecutor, String cmd) {
+		TreeMap<String, Object> event = new TreeMap<String, Object>();
+		event.put("cmd", cmd);
+		event.put("user", "user1");
+		alertExecutor.flatMap(Arrays.<Object>asList("user1", STREAM_NAME, event), collector);
+	}
+
+	private int alertCount(String policyId) {
+		return Collections.frequency(alertedPolicies, policyId);
+	}
+
+	@Test
+	public void testAlertsAttributedToPolicies() {
+		AlertExecutor alertExecutor = createAlertExecutor(
+				createAlertDef("openPolicy", "from hdfsAuditLogEventStream[cmd=='open'] select * insert into outputStream;"),
+				createAlertDef("deletePolicy", "from hdfsAuditLogEventStream[cmd=='delete'] select * insert into outputStream;"));
+		send(alertExecutor, "open");
+		send(alertExecutor, "delete");
+		send(alertExecutor, "open");
+		send(alertExecutor, "rename");
+		// both policies insert into outputStream, but each only sees its own output
+		Assert.assertEquals(2, alertCount("openPolicy"));
+		Assert.assertEquals(1, alertCount("deletePolicy"));
+		Assert.assertEquals(3, alertedPolicies.size());
+	}
+
+	@Test
+	public void testHotAddUpdateDelete() {
+		AlertExecutor alertExecutor = createAlertExecutor(
+				createAlertDef("openPolicy", "from hdfsAuditLogEventStream[cmd=='open'] select * insert into outputStream;"),
+				createAlertDef("deletePolicy", "from hdfsAuditLogEventStream[cmd=='delete'] select * insert into outputStream;"));
+
+		AlertDefinitionAPIEntity renamePolicy = createAlertDef("renamePolicy", "from hdfsAuditLogEventStream[cmd=='rename'] select * insert into outputStream;");
+		alertExecutor.onPolicyCreated(Collections.singletonMap("renamePolicy", renamePolicy));
+		send(alertExecutor, "rename");
+		Assert.assertEquals(1, alertCount("renamePolicy"));
+
+		AlertDefinitionAPIEntity changedPolicy = createAlertDef("openPolicy", "from hdfsAuditLogEventStream[cmd=='mkdirs'] select * insert into outputStream;");
+		alertExecutor.onPolicyChanged(Collections.singletonMap("openPolicy", changedPolicy));
+		send(alertExecutor, "open");
+		Assert.assertEquals(0, alertCount("openPolicy"));
+		send(alertExecutor, "mkdirs");
+		Assert.assertEquals(1, alertCount("openPolicy"));
+
+		alertExecutor.onPolicyDeleted(Collections.singletonMap("deletePolicy", createAlertDef("deletePolicy", "")));
+		send(alertExecutor, "delete");
+		Assert.assertEquals(0, alertCount("deletePolicy"));
+		// other policies keep working after removal
+		send(alertExecutor, "rename");
+		Assert.assertEquals(2, alertCount("renamePolicy"));
+	}
+
+	@Test
+	public void testPolicyChangeKeepsWindowOfSharedPolicies() {
+		AlertExecutor alertExecutor = createAlertExecutor(
+				createAlertDef("batchPolicy", "from hdfsAuditLogEventStream#window.lengthBatch(2) select * insert into outputStream;"),
+				createAlertDef("openPolicy", "from hdfsAuditLogEventStream[cmd=='open'] select * insert into outputStream;"));
+		send(alertExecutor, "open");
+		send(alertExecutor, "open");
+		Assert.assertEquals(1, alertCount("batchPolicy"));
+
+		// pending event of batchPolicy's window is kept across add, update and delete of other policies
+		send(alertExecutor, "open");
+		alertExecutor.onPolicyCreated(Collections.singletonMap("deletePolicy",
+				createAlertDef("deletePolicy", "from hdfsAuditLogEventStream[cmd=='delete'] select * insert into outputStream;")));
+		alertExecutor.onPolicyChanged(Collections.singletonMap("openPolicy",
+				createAlertDef("openPolicy", "from hdfsAuditLogEventStream[cmd=='mkdirs'] select * insert into outputStream;")));
+		alertExecutor.onPolicyDeleted(Collections.singletonMap("deletePolicy", createAlertDef("deletePolicy", "")));
+		send(alertExecutor, "mkdirs");
+		Assert.assertEquals(2, alertCount("batchPolicy"));
+		// replaced version of openPolicy no longer alerts, the new one does
+		Assert.assertEquals(4, alertCount("openPolicy"));
+		send(alertExecutor, "open");
+		Assert.assertEquals(4, alertCount("openPolicy"));
+		Assert.assertEquals(0, alertCount("deletePolicy"));
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.alert.dedup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.time.DateUtils;
+import org.apache.eagle.alert.entity.AlertAPIEntity;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+
+public class TestDefaultDeduplicator {
+	private File stateDir;
+
+	@Before
+	public void setUp() throws Exception {
+		stateDir = Files.createTempDirectory("dedup").toFile();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (File file : stateDir.listFiles()) {
+			file.delete();
+		}
+		stateDir.delete();
+	}
+
+	private static AlertAPIEntity alert(String user, String host, long timestamp) {
+		AlertAPIEntity alert = new AlertAPIEntity();
+		Map<String, String> tags = new HashMap<String, String>();
+		tags.put("policyId", "readPrivate");
+		tags.put("user", user);
+		tags.put("hostname", host);
+		alert.setTags(tags);
+		alert.setTimestamp(timestamp);
+		return alert;
+	}
+
+	private static DefaultDeduplicator<AlertAPIEntity> deduplicator(long intervalMin, List<String> keyTags, DedupStateStore store) {
+		return new DefaultDeduplicator<AlertAPIEntity>(intervalMin, new TagsDedupKeyExtractor(keyTags), store);
+	}
+
+	@Test
+	public void testDedupInterval() {
+		DefaultDeduplicator<AlertAPIEntity> dedup = new DefaultDeduplicator<AlertAPIEntity>(10);
+		long start = 1450000000000L;
+		Assert.assertEquals(1, dedup.dedup(Arrays.asList(alert("bob", "host1", start))).size());
+		Assert.assertEquals(0, dedup.dedup(Arrays.asList(alert("bob", "host1", start + 5 * DateUtils.MILLIS_PER_MINUTE))).size());
+		Assert.assertEquals(1, dedup.dedup(Arrays.asList(alert("bob", "host2", start + 5 * DateUtils.MILLIS_PER_MINUTE))).size());
+		Assert.assertEquals(1, dedup.dedup(Arrays.asList(alert("bob", "host1", start + 10 * DateUtils.MILLIS_PER_MINUTE))).size());
+	}
+
+	@Test
+	public void testKeyTags() {
+		DefaultDeduplicator<AlertAPIEntity> dedup = deduplicator(10, Arrays.asList("user"), new DedupStateStore(DefaultDeduplicator.retentionMs(10)));
+		long start = 1450000000000L;
+		Assert.assertEquals(2, dedup.dedup(Arrays.asList(alert("bob", "host1", start), alert("bob", "host2", start), alert("alice", "host1", start))).size());
+	}
+
+	@Test
+	public void testExpiry() {
+		DedupStateStore store = new DedupStateStore(1000);
+		store.put("a", 1, 0);
+		store.put("b", 1, 500);
+		store.put("a", 2, 800);
+		store.expire(1000);
+		Assert.assertEquals(2, store.size());
+		store.expire(1500);
+		Assert.assertEquals(Long.valueOf(2), store.get("a"));
+		Assert.assertNull(store.get("b"));
+		store.expire(1800);
+		Assert.assertEquals(0, store.size());
+	}
+
+	@Test
+	public void testRepeatedUpdatesKeepIndexBounded() {
+		DedupStateStore store = new DedupStateStore(1000);
+		for (int i = 0; i < 100000; i++) {
+			store.put("key" + (i % 100), i, i);
+			store.expire(i);
+		}
+		// keys are indexed in the map itself, one entry per live key however often it is updated
+		Assert.assertEquals(100, store.size());
+		// updated keys are moved to the tail, so expiring the older half leaves the newer one
+		store.expire(100000 + 1000 - 51);
+		Assert.assertEquals(50, store.size());
+		Assert.assertNull(store.get("key49"));
+		Assert.assertEquals(Long.valueOf(99950), store.get("key50"));
+	}
+
+	@Test
+	public void testPersistedAcrossRestart() {
+		long retentionMs = DefaultDeduplicator.retentionMs(10);
+		long start = 1450000000000L;
+		DefaultDeduplicator<AlertAPIEntity> dedup = deduplicator(10, null, DedupStateStore.open(stateDir, "entity-readPrivate", retentionMs));
+		Assert.assertEquals(1, dedup.dedup(Arrays.asList(alert("bob", "host1", start))).size());
+
+		// store of the same name is locked until closed, the concurrent one is kept in memory only
+		DedupStateStore concurrent = DedupStateStore.open(stateDir, "entity-readPrivate", retentionMs);
+		Assert.assertEquals(0, concurrent.size());
+		concurrent.close();
+		dedup.close();
+
+		dedup = deduplicator(10, null, DedupStateStore.open(stateDir, "entity-readPrivate", retentionMs));
+		Assert.assertEquals(0, dedup.dedup(Arrays.asList(alert("bob", "host1", start + DateUtils.MILLIS_PER_MINUTE))).size());
+		Assert.assertEquals(1, dedup.dedup(Arrays.asList(alert("alice", "host1", start + DateUtils.MILLIS_PER_MINUTE))).size());
+		dedup.close();
+	}
+
+	private DedupStateStore openTaskStore(int taskIndex, String policyId, long intervalMin) {
+		Config config = ConfigFactory.parseMap(Collections.singletonMap(AlertDeduplicationExecutorBase.DEDUP_STATE_DIR, stateDir.getPath()));
+		AlertEntityDeduplicationExecutor executor = new AlertEntityDeduplicationExecutor(null, null);
+		executor.prepareConfig(config);
+		executor.setTaskIndex(taskIndex);
+		return executor.createStateStore(policyId, intervalMin);
+	}
+
+	@Test
+	public void testJournalKeyedByTaskIndex() {
+		DedupStateStore task0 = openTaskStore(0, "readPrivate", 10);
+		DedupStateStore task1 = openTaskStore(1, "readPrivate", 10);
+		long now = System.currentTimeMillis();
+		task0.put("bob", 0, now);
+		task1.put("alice", 1, now);
+		task0.close();
+		task1.close();
+
+		// restarted tasks open in reverse order, each reloads its own journal
+		task1 = openTaskStore(1, "readPrivate", 10);
+		task0 = openTaskStore(0, "readPrivate", 10);
+		Assert.assertEquals(Long.valueOf(1), task1.get("alice"));
+		Assert.assertNull(task1.get("bob"));
+		Assert.assertEquals(Long.valueOf(0), task0.get("bob"));
+		Assert.assertNull(task0.get("alice"));
+		task0.close();
+		task1.close();
+	}
+
+	@Test
+	public void testJournalCompaction() {
+		DedupStateStore store = DedupStateStore.open(stateDir, "compaction", 60000);
+		long now = System.currentTimeMillis();
+		for (int i = 0; i < 100000; i++) {
+			store.put("key" + (i % 100), i, now);
+			store.flush();
+		}
+		store.close();
+		File journal = new File(stateDir, "compaction.journal");
+		Assert.assertTrue("journal should be compacted, size " + journal.length(), journal.length() < 100 * 1024);
+
+		store = DedupStateStore.open(stateDir, "compaction", 60000);
+		Assert.assertEquals(100, store.size());
+		Assert.assertEquals(Long.valueOf(99999), store.get("key99"));
+		store.close();
+	}
+
+	@Test
+	public void testManyActiveKeys() {
+		DefaultDeduplicator<AlertAPIEntity> dedup = new DefaultDeduplicator<AlertAPIEntity>(10);
+		long start = 1450000000000L;
+		List<AlertAPIEntity> alerts = new ArrayList<AlertAPIEntity>();
+		for (int i = 0; i < 300000; i++) {
+			alerts.add(alert("user" + i, "host" + (i % 50), start));
+		}
+		long begin = System.currentTimeMillis();
+		int passed = 0;
+		for (AlertAPIEntity alert : alerts) {
+			passed += dedup.dedup(Arrays.asList(alert)).size();
+		}
+		Assert.assertEquals(alerts.size(), passed);
+		Assert.assertEquals(0, dedup.dedup(Arrays.asList(alert("user0", "host0", start))).size());
+		Assert.assertTrue("dedup cost should not grow with active keys", System.currentTimeMillis() - begin < 30000);
+	}
+}
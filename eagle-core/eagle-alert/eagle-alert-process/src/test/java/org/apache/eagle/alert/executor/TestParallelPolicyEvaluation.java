@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.alert.executor;
+
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import junit.framework.Assert;
+import org.apache.eagle.alert.entity.AbstractPolicyDefinitionEntity;
+import org.apache.eagle.alert.entity.AlertAPIEntity;
+import org.apache.eagle.alert.entity.AlertDefinitionAPIEntity;
+import org.apache.eagle.alert.entity.AlertStreamSchemaEntity;
+import org.apache.eagle.dataproc.core.ValuesArray;
+import org.apache.eagle.datastream.Collector;
+import org.apache.eagle.policy.DefaultPolicyPartitioner;
+import org.apache.eagle.policy.PolicyEvaluationContext;
+import org.apache.eagle.policy.PolicyEvaluator;
+import org.apache.eagle.policy.common.Constants;
+import org.apache.eagle.policy.dao.AlertStreamSchemaDAO;
+import org.apache.eagle.policy.dao.PolicyDefinitionDAO;
+import org.apache.eagle.policy.dao.PolicyDefinitionEntityDAOImpl;
+import org.apache.eagle.policy.siddhi.StreamMetadataManager;
+import org.apache.eagle.service.client.EagleServiceConnector;
+import org.junit.Test;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Policies evaluated by parallel lanes should emit the same alerts as sequential evaluation, in the same order for each policy
+ */
+public class TestParallelPolicyEvaluation {
+	private static final String STREAM_NAME = "testStream";
+	private static final String BLOCKED_POLICY = "policy7";
+	/**
+	 * Evaluation of BLOCKED_POLICY waits for the gate
+	 */
+	private static volatile CountDownLatch gate = new CountDownLatch(0);
+
+	/**
+	 * Alerts on events with given cmd, or on all events if cmd is null, and throws after alerting if failing
+	 */
+	private static class StubPolicyEvaluator implements PolicyEvaluator<AlertDefinitionAPIEntity> {
+		private final PolicyEvaluationContext<AlertDefinitionAPIEntity, AlertAPIEntity> context;
+		private final String cmd;
+		private final boolean failing;
+
+		StubPolicyEvaluator(PolicyEvaluationContext<AlertDefinitionAPIEntity, AlertAPIEntity> context, String cmd, boolean failing) {
+			this.context = context;
+			this.cmd = cmd;
+			this.failing = failing;
+		}
+
+		@Override
+		public void evaluate(ValuesArray input) throws Exception {
+			Map event = (Map) input.get(2);
+			if (BLOCKED_POLICY.equals(context.policyId)) gate.await();
+			// shuffle completion order of lanes
+			Thread.sleep(((Integer) event.get("seq") + context.policyId.length()) % 3);
+			if (cmd == null || cmd.equals(event.get("cmd"))) {
+				context.outputCollector = (Collector) input.get(0);
+				AlertAPIEntity alert = new AlertAPIEntity();
+				alert.setDescription(String.valueOf(event.get("seq")));
+				context.alertExecutor.onEvalEvents(context, Arrays.asList(alert));
+			}
+			if (failing) throw new IllegalStateException("policy " + context.policyId + " fails");
+		}
+
+		@Override
+		public void onPolicyUpdate(AlertDefinitionAPIEntity newAlertDef) {
+		}
+
+		@Override
+		public void onPolicyDelete() {
+		}
+
+		@Override
+		public Map<String, String> getAdditionalContext() {
+			return Collections.emptyMap();
+		}
+
+		@Override
+		public boolean isMarkdownEnabled() {
+			return false;
+		}
+
+		@Override
+		public String getMarkdownReason() {
+			return null;
+		}
+	}
+
+	private static AlertDefinitionAPIEntity createAlertDef(String policyId) {
+		AlertDefinitionAPIEntity alertDef = new AlertDefinitionAPIEntity();
+		Map<String, String> tags = new HashMap<String, String>();
+		tags.put(Constants.POLICY_ID, policyId);
+		tags.put(Constants.POLICY_TYPE, "stub");
+		alertDef.setTags(tags);
+		return alertDef;
+	}
+
+	private static AlertExecutor createAlertExecutor(String executorId, int evaluationThreads) {
+		final Map<String, Map<String, AlertDefinitionAPIEntity>> initialAlertDefs = new HashMap<>();
+		initialAlertDefs.put(executorId, new HashMap<String, AlertDefinitionAPIEntity>());
+		for (int i = 0; i < 8; i++) {
+			initialAlertDefs.get(executorId).put("policy" + i, createAlertDef("policy" + i));
+		}
+		PolicyDefinitionDAO<AlertDefinitionAPIEntity> alertDao = new PolicyDefinitionEntityDAOImpl<AlertDefinitionAPIEntity>(new EagleServiceConnector(null, null),
+				Constants.ALERT_DEFINITION_SERVICE_ENDPOINT_NAME) {
+			@Override
+			public Map<String, Map<String, AlertDefinitionAPIEntity>> findActivePoliciesGroupbyExecutorId(String site, String dataSource) {
+				return initialAlertDefs;
+			}
+
+			@Override
+			public void updatePolicyDetails(AbstractPolicyDefinitionEntity entity) { /* do nothing */ }
+		};
+		AlertExecutor alertExecutor = new AlertExecutor(executorId, new DefaultPolicyPartitioner(), 1, 0, alertDao, new String[]{STREAM_NAME}) {
+			@Override
+			public AlertStreamSchemaDAO getAlertStreamSchemaDAO(Config config) {
+				return new AlertStreamSchemaDAO() {
+					@Override
+					public List<AlertStreamSchemaEntity> findAlertStreamSchemaByApplication(String application) {
+						return Collections.emptyList();
+					}
+				};
+			}
+
+			@Override
+			protected PolicyEvaluator<AlertDefinitionAPIEntity> createPolicyEvaluator(AlertDefinitionAPIEntity alertDef) {
+				PolicyEvaluationContext<AlertDefinitionAPIEntity, AlertAPIEntity> context = new PolicyEvaluationContext<>();
+				context.policyId = alertDef.getTags().get(Constants.POLICY_ID);
+				context.alertExecutor = this;
+				int index = Integer.parseInt(context.policyId.substring("policy".length()));
+				StubPolicyEvaluator evaluator = new StubPolicyEvaluator(context, index % 2 == 0 ? "open" : null, index == 3);
+				context.evaluator = evaluator;
+				return evaluator;
+			}
+		};
+		Config config = ConfigFactory.parseString("alertExecutorConfigs." + executorId + ".evaluationThreads = " + evaluationThreads)
+				.withFallback(ConfigFactory.load("unittest.conf"));
+		StreamMetadataManager.getInstance().reset();
+		alertExecutor.prepareConfig(config);
+		alertExecutor.init();
+		return alertExecutor;
+	}
+
+	private static Collector<Tuple2<String, AlertAPIEntity>> collectTo(final List<String> alerts) {
+		return new Collector<Tuple2<String, AlertAPIEntity>>() {
+			@Override
+			public void collect(Tuple2<String, AlertAPIEntity> alert) {
+				alerts.add(alert._1() + ":" + alert._2().getDescription());
+			}
+		};
+	}
+
+	private static void send(AlertExecutor alertExecutor, Collector<Tuple2<String, AlertAPIEntity>> collector) {
+		for (int seq = 0; seq < 20; seq++) {
+			TreeMap<String, Object> event = new TreeMap<String, Object>();
+			event.put("cmd", seq % 3 == 0 ? "open" : "delete");
+			event.put("seq", seq);
+			alertExecutor.flatMap(Arrays.<Object>asList("key", STREAM_NAME, event), collector);
+		}
+	}
+
+	private static List<String> alertsOf(String policyId, List<String> alerts) {
+		List<String> result = new ArrayList<String>();
+		for (String alert : alerts) {
+			if (alert.startsWith(policyId + ":")) result.add(alert);
+		}
+		return result;
+	}
+
+	private static int liveEvaluationThreads(String executorId) {
+		int count = 0;
+		for (Thread thread : Thread.getAllStackTraces().keySet()) {
+			if (thread.getName().startsWith(executorId + "_0-eval-") && thread.isAlive()) count++;
+		}
+		return count;
+	}
+
+	@Test
+	public void testSameAlertsAsSequentialEvaluation() throws Exception {
+		AlertExecutor sequential = createAlertExecutor("sequentialAlertExecutor", 1);
+		AlertExecutor parallel = createAlertExecutor("parallelAlertExecutor", 4);
+		try {
+			List<String> expected = Collections.synchronizedList(new ArrayList<String>());
+			send(sequential, collectTo(expected));
+			// 4 policies alert on 7 open events, 4 policies alert on all 20 events
+			Assert.assertEquals(4 * 7 + 4 * 20, expected.size());
+			// failing policy3 still alerts before throwing
+			Assert.assertTrue(expected.contains("policy3:0"));
+
+			gate = new CountDownLatch(1);
+			List<String> actual = Collections.synchronizedList(new ArrayList<String>());
+			Collector<Tuple2<String, AlertAPIEntity>> collector = collectTo(actual);
+			// inputs are only queued, a blocked policy doesn't hold up the calling thread
+			send(parallel, collector);
+			Assert.assertTrue(alertsOf(BLOCKED_POLICY, actual).isEmpty());
+			gate.countDown();
+			parallel.flush(collector);
+
+			Assert.assertEquals(expected.size(), actual.size());
+			for (int i = 0; i < 8; i++) {
+				Assert.assertEquals(alertsOf("policy" + i, expected), alertsOf("policy" + i, actual));
+			}
+		} finally {
+			gate.countDown();
+			sequential.close();
+			parallel.close();
+		}
+		Assert.assertEquals(0, liveEvaluationThreads("parallelAlertExecutor"));
+	}
+}
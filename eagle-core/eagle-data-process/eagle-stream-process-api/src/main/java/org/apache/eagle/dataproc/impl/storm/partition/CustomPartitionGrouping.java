@@ -23,29 +23,67 @@ import backtype.storm.generated.GlobalStreamId;
 import backtype.storm.grouping.CustomStreamGrouping;
 import backtype.storm.task.WorkerTopologyContext;
 import org.apache.eagle.partition.PartitionStrategy;
+import org.apache.eagle.partition.PartitionStrategyImpl;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class CustomPartitionGrouping implements CustomStreamGrouping {
 
     public List<Integer> targetTasks;
     public PartitionStrategy strategy;
+    /**
+     * Whether downstream operator is {@link org.apache.eagle.partition.Combinable}, so that hot keys may be split
+     */
+    public boolean combinable;
+    private transient PartitionStrategyImpl splittingStrategy;
+    // chosen task of each target task index, so that no list is allocated per tuple
+    private transient List<List<Integer>> choices;
 
     public CustomPartitionGrouping(PartitionStrategy strategy) {
+        this(strategy, false);
+    }
+
+    public CustomPartitionGrouping(PartitionStrategy strategy, boolean combinable) {
         this.strategy = strategy;
+        this.combinable = combinable;
     }
 
     @Override
     public void prepare(WorkerTopologyContext context, GlobalStreamId stream, List<Integer> targetTasks) {
         this.targetTasks = new ArrayList<>(targetTasks);
+        this.choices = new ArrayList<>(targetTasks.size());
+        for (Integer targetTask : targetTasks) {
+            choices.add(Collections.singletonList(targetTask));
+        }
+        if (strategy instanceof PartitionStrategyImpl) {
+            PartitionStrategyImpl strategyImpl = (PartitionStrategyImpl) strategy;
+            if (combinable) {
+                this.splittingStrategy = strategyImpl;
+                strategyImpl.enableHotKeySplitting();
+            }
+            // route by data distribution from the first tuple on, so that window state of a key is never split
+            strategyImpl.start(targetTasks.size());
+        }
+    }
+
+    /**
+     * Stop refreshing routing table of strategy. Storm never calls it as grouping lives as long as the worker,
+     * and the refreshing thread is a daemon.
+     */
+    public void cleanup() {
+        if (strategy instanceof PartitionStrategyImpl) {
+            ((PartitionStrategyImpl) strategy).stop();
+        }
     }
 
     @Override
     public List<Integer> chooseTasks(int taskId, List<Object> values) {
         int numTasks = targetTasks.size();
-        int targetTaskIndex = strategy.balance((String)values.get(0), numTasks);
-        return Arrays.asList(targetTasks.get(targetTaskIndex));
+        int targetTaskIndex = splittingStrategy != null
+                ? splittingStrategy.balance((String)values.get(0), numTasks, true)
+                : strategy.balance((String)values.get(0), numTasks);
+        return choices.get(targetTaskIndex);
     }
 }
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.dataproc.impl.storm.serialization;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.apache.eagle.alert.entity.AlertAPIEntity;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Alerts emitted by alert executors to notification, written as their tags and columns instead of java serialization
+ * of the whole entity including its property change support
+ */
+public class AlertAPIEntitySerializer extends Serializer<AlertAPIEntity> {
+    @Override
+    public void write(Kryo kryo, Output output, AlertAPIEntity entity) {
+        output.writeString(entity.getPrefix());
+        output.writeLong(entity.getTimestamp());
+        writeTags(output, entity.getTags());
+        output.writeString(entity.getEncodedRowkey());
+        kryo.writeClassAndObject(output, entity.getExp());
+        output.writeString(entity.getDescription());
+        output.writeString(entity.getRemediationID());
+        output.writeString(entity.getRemediationCallback());
+        output.writeString(entity.getAlertContext());
+        output.writeString(entity.getStreamId());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public AlertAPIEntity read(Kryo kryo, Input input, Class<AlertAPIEntity> type) {
+        AlertAPIEntity entity = new AlertAPIEntity();
+        entity.setPrefix(input.readString());
+        entity.setTimestamp(input.readLong());
+        entity.setTags(readTags(input));
+        entity.setEncodedRowkey(input.readString());
+        entity.setExp((Map<String, Object>) kryo.readClassAndObject(input));
+        entity.setDescription(input.readString());
+        entity.setRemediationID(input.readString());
+        entity.setRemediationCallback(input.readString());
+        entity.setAlertContext(input.readString());
+        entity.setStreamId(input.readString());
+        return entity;
+    }
+
+    // size + 1, 0 for null tags
+    private static void writeTags(Output output, Map<String, String> tags) {
+        if (tags == null) {
+            output.writeVarInt(0, true);
+            return;
+        }
+        output.writeVarInt(tags.size() + 1, true);
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            output.writeString(tag.getKey());
+            output.writeString(tag.getValue());
+        }
+    }
+
+    private static Map<String, String> readTags(Input input) {
+        int size = input.readVarInt(true) - 1;
+        if (size < 0) return null;
+        Map<String, String> tags = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            tags.put(input.readString(), input.readString());
+        }
+        return tags;
+    }
+}
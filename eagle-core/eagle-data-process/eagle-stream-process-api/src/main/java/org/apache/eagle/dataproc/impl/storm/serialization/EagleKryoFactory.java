@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.dataproc.impl.storm.serialization;
+
+import backtype.storm.Config;
+import backtype.storm.serialization.DefaultKryoFactory;
+import com.esotericsoftware.kryo.Kryo;
+import org.apache.eagle.alert.entity.AlertAPIEntity;
+import org.apache.eagle.alert.entity.AlertStreamSchemaEntity;
+import org.apache.eagle.common.config.EagleConfigConstants;
+import org.apache.eagle.policy.dao.AlertStreamSchemaDAOImpl;
+import org.apache.eagle.policy.siddhi.StreamMetadataManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Kryo factory registering compact serializers for tuples exchanged by Eagle bolts, i.e. sorted map events,
+ * scala tuples, alerts and value lists of keyed DSL tuples, which otherwise fall back on java serialization.
+ *
+ * <p>Field dictionary of event maps is resolved once when topology is submitted and shipped in topology configuration,
+ * so that all workers encode field names with the same ids, see {@link #configure(Map, com.typesafe.config.Config)}.</p>
+ */
+public class EagleKryoFactory extends DefaultKryoFactory {
+    private static final Logger LOG = LoggerFactory.getLogger(EagleKryoFactory.class);
+
+    /**
+     * Sorted field names of event maps in topology configuration
+     */
+    public static final String EVENT_FIELDS = "eagle.kryo.eventFields";
+    /**
+     * Set to false to use storm default serialization
+     */
+    public static final String KRYO_SERIALIZERS_CONFIG = "envContextConfig.kryoSerializers";
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void postRegister(Kryo k, Map conf) {
+        register(k, eventFields(conf));
+        super.postRegister(k, conf);
+    }
+
+    /**
+     * Register Eagle serializers, registration order must be the same in all workers
+     *
+     * @param eventFields field dictionary of event maps
+     */
+    public static void register(Kryo kryo, List<String> eventFields) {
+        kryo.register(TreeMap.class, new SortedMapSerializer(eventFields));
+        ScalaTupleSerializer tupleSerializer = new ScalaTupleSerializer();
+        for (Class<?> tupleClass : ScalaTupleSerializer.TUPLE_CLASSES) {
+            kryo.register(tupleClass, tupleSerializer);
+        }
+        kryo.register(AlertAPIEntity.class, new AlertAPIEntitySerializer());
+        JavaListSerializer listSerializer = new JavaListSerializer();
+        kryo.register(JavaListSerializer.ARRAYS_LIST_CLASS, listSerializer);
+        kryo.register(LinkedList.class, listSerializer);
+    }
+
+    /**
+     * Use this factory for the topology unless disabled with "envContextConfig.kryoSerializers = false"
+     *
+     * @param stormConf topology configuration to be submitted
+     * @param config application configuration
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static void configure(Map stormConf, com.typesafe.config.Config config) {
+        if (config.hasPath(KRYO_SERIALIZERS_CONFIG) && !config.getBoolean(KRYO_SERIALIZERS_CONFIG)) return;
+        List<String> eventFields = loadEventFields(config);
+        stormConf.put(Config.TOPOLOGY_KRYO_FACTORY, EagleKryoFactory.class.getName());
+        stormConf.put(EVENT_FIELDS, eventFields);
+        LOG.info("Using " + EagleKryoFactory.class.getSimpleName() + " with " + eventFields.size() + " event fields");
+    }
+
+    /**
+     * @return sorted attribute names of all streams of the application, empty if stream schemas are not available
+     */
+    public static List<String> loadEventFields(com.typesafe.config.Config config) {
+        String servicePath = EagleConfigConstants.EAGLE_PROPS + "." + EagleConfigConstants.EAGLE_SERVICE;
+        if (!config.hasPath(servicePath) || !config.hasPath(EagleConfigConstants.EAGLE_PROPS + "." + EagleConfigConstants.APPLICATION)) {
+            return Collections.emptyList();
+        }
+        try {
+            StreamMetadataManager.getInstance().init(config, new AlertStreamSchemaDAOImpl(config));
+            SortedSet<String> fields = new TreeSet<>();
+            for (SortedMap<String, AlertStreamSchemaEntity> attributes : StreamMetadataManager.getInstance().getMetadataEntityMapForAllStreams().values()) {
+                fields.addAll(attributes.keySet());
+            }
+            return new ArrayList<>(fields);
+        } catch (Exception ex) {
+            LOG.warn("Fail loading stream schemas, event field names will be written inline", ex);
+            return Collections.emptyList();
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static List<String> eventFields(Map conf) {
+        List<String> eventFields = (List<String>) conf.get(EVENT_FIELDS);
+        return eventFields == null ? Collections.<String>emptyList() : eventFields;
+    }
+}
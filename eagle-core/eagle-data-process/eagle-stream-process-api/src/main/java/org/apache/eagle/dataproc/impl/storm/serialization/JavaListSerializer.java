@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.dataproc.impl.storm.serialization;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Value lists of keyed tuples emitted by DSL bolts, i.e. <code>Arrays.asList</code> and {@link LinkedList},
+ * which storm does not register
+ */
+@SuppressWarnings("rawtypes")
+public class JavaListSerializer extends Serializer<List> {
+    static final Class<?> ARRAYS_LIST_CLASS = Arrays.asList().getClass();
+
+    @Override
+    public void write(Kryo kryo, Output output, List list) {
+        output.writeInt(list.size(), true);
+        for (Object element : list) {
+            kryo.writeClassAndObject(output, element);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List read(Kryo kryo, Input input, Class<List> type) {
+        Object[] elements = new Object[input.readInt(true)];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = kryo.readClassAndObject(input);
+        }
+        if (type == LinkedList.class) {
+            return new LinkedList<>(Arrays.asList(elements));
+        }
+        return Arrays.asList(elements);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.dataproc.impl.storm.serialization;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import scala.Product;
+import scala.Tuple1;
+import scala.Tuple2;
+import scala.Tuple3;
+import scala.Tuple4;
+import scala.Tuple5;
+
+/**
+ * Scala tuples emitted by stream executors, written as their elements only
+ */
+public class ScalaTupleSerializer extends Serializer<Product> {
+    static final Class<?>[] TUPLE_CLASSES = {Tuple1.class, Tuple2.class, Tuple3.class, Tuple4.class, Tuple5.class};
+
+    public ScalaTupleSerializer() {
+        setImmutable(true);
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, Product tuple) {
+        for (int i = 0; i < tuple.productArity(); i++) {
+            kryo.writeClassAndObject(output, tuple.productElement(i));
+        }
+    }
+
+    @Override
+    public Product read(Kryo kryo, Input input, Class<Product> type) {
+        if (type == Tuple2.class) {
+            return new Tuple2<>(kryo.readClassAndObject(input), kryo.readClassAndObject(input));
+        } else if (type == Tuple1.class) {
+            return new Tuple1<>(kryo.readClassAndObject(input));
+        } else if (type == Tuple3.class) {
+            return new Tuple3<>(kryo.readClassAndObject(input), kryo.readClassAndObject(input), kryo.readClassAndObject(input));
+        } else if (type == Tuple4.class) {
+            return new Tuple4<>(kryo.readClassAndObject(input), kryo.readClassAndObject(input), kryo.readClassAndObject(input),
+                    kryo.readClassAndObject(input));
+        } else if (type == Tuple5.class) {
+            return new Tuple5<>(kryo.readClassAndObject(input), kryo.readClassAndObject(input), kryo.readClassAndObject(input),
+                    kryo.readClassAndObject(input), kryo.readClassAndObject(input));
+        }
+        throw new IllegalArgumentException("Unsupported tuple type " + type);
+    }
+}
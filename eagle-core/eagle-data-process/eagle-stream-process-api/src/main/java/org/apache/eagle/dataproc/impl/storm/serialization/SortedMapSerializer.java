@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.dataproc.impl.storm.serialization;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Schema based encoding of sorted map events, e.g. audit log events keyed by attribute name.
+ *
+ * <p>Keys found in the field dictionary are written as their id in the dictionary instead of the name, other keys are
+ * written inline, so events having fields out of stream schema are still serialized. Writer and reader must share the
+ * same dictionary, see {@link EagleKryoFactory}.</p>
+ */
+public class SortedMapSerializer extends Serializer<TreeMap<Object, Object>> {
+    // key tags, field ids start from FIELD_ID
+    private static final int OBJECT_KEY = 0;
+    private static final int STRING_KEY = 1;
+    private static final int FIELD_ID = 2;
+
+    private final String[] fields;
+    private final Map<String, Integer> fieldIds;
+
+    /**
+     * @param fields field dictionary, id of a field is its index
+     */
+    public SortedMapSerializer(List<String> fields) {
+        this.fields = fields.toArray(new String[fields.size()]);
+        this.fieldIds = new HashMap<>(fields.size() * 2);
+        for (int i = 0; i < this.fields.length; i++) {
+            fieldIds.put(this.fields[i], i);
+        }
+    }
+
+    @Override
+    public void write(Kryo kryo, Output output, TreeMap<Object, Object> map) {
+        kryo.writeClassAndObject(output, map.comparator());
+        output.writeVarInt(map.size(), true);
+        for (Map.Entry<Object, Object> entry : map.entrySet()) {
+            Object key = entry.getKey();
+            if (key instanceof String) {
+                Integer id = fieldIds.get(key);
+                if (id != null) {
+                    output.writeVarInt(FIELD_ID + id, true);
+                } else {
+                    output.writeVarInt(STRING_KEY, true);
+                    output.writeString((String) key);
+                }
+            } else {
+                output.writeVarInt(OBJECT_KEY, true);
+                kryo.writeClassAndObject(output, key);
+            }
+            kryo.writeClassAndObject(output, entry.getValue());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TreeMap<Object, Object> read(Kryo kryo, Input input, Class<TreeMap<Object, Object>> type) {
+        Comparator<Object> comparator = (Comparator<Object>) kryo.readClassAndObject(input);
+        TreeMap<Object, Object> map = new TreeMap<>(comparator);
+        int size = input.readVarInt(true);
+        for (int i = 0; i < size; i++) {
+            int tag = input.readVarInt(true);
+            Object key;
+            if (tag >= FIELD_ID) {
+                key = fields[tag - FIELD_ID];
+            } else if (tag == STRING_KEY) {
+                key = input.readString();
+            } else {
+                key = kryo.readClassAndObject(input);
+            }
+            map.put(key, kryo.readClassAndObject(input));
+        }
+        return map;
+    }
+
+    @Override
+    public TreeMap<Object, Object> copy(Kryo kryo, TreeMap<Object, Object> original) {
+        return new TreeMap<>(original);
+    }
+}
@@ -19,6 +19,7 @@ package org.apache.eagle.datastream
 import com.typesafe.config.{Config, ConfigFactory}
 import org.apache.eagle.dataproc.util.ConfigOptionParser
 import org.apache.eagle.datastream.core._
+import org.apache.eagle.datastream.local.LocalExecutionEnvironment
 import org.apache.eagle.datastream.storm.StormExecutionEnvironment
 
 import scala.reflect.runtime.universe._
@@ -35,6 +36,7 @@ import scala.reflect.runtime.universe._
  */
 object ExecutionEnvironments{
   type storm = StormExecutionEnvironment
+  type local = LocalExecutionEnvironment
 
   /**
    * Use `'''get[StormExecutionEnvironment](config)'''` instead
@@ -57,6 +57,7 @@ class StreamContext(private val conf:Config) extends StreamContextBuilder{
     StreamUnionExpansion()
     StreamGroupbyExpansion()
     StreamParallelismConfigExpansion()
+    StreamChainExpansion()
     StreamNameExpansion()
     GraphPrinter.print(dag,message="After expanded DAG ")
     GraphPrinter.printDotDigraph(dag)
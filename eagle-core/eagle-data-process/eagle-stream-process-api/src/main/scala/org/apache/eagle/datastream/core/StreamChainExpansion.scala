@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.eagle.datastream.core
+
+import com.typesafe.config.Config
+import org.apache.eagle.datastream.{JavaStormStreamExecutor, StormStreamExecutor}
+import org.jgrapht.experimental.dag.DirectedAcyclicGraph
+import org.slf4j.LoggerFactory
+
+import scala.collection.JavaConversions._
+import scala.collection.mutable.ListBuffer
+
+/**
+ * Fuse consecutive filter, map, flatMap and foreach operators into one ChainedProducer, so that they are invoked
+ * in-process by one processing element instead of being connected by shuffle grouping.
+ *
+ * Two operators are chained if the upstream one has only one outgoing edge, which is a shuffle connector, the downstream
+ * one has only one incoming edge and both have the same parallelism. Enabled by default, can be disabled per application
+ * with "envContextConfig.operatorChaining = false".
+ *
+ * Should be applied after groupby and parallelism expansions.
+ *
+ * @param config context configuration
+ */
+case class StreamChainExpansion(config: Config) extends StreamDAGExpansion(config){
+  val LOG = LoggerFactory.getLogger(classOf[StreamChainExpansion])
+
+  override def expand(dag: DirectedAcyclicGraph[StreamProducer[Any], StreamConnector[Any,Any]]) = {
+    if(StreamChainExpansion.isEnabled(config)) {
+      val chains = ListBuffer[Seq[StreamProducer[Any]]]()
+      val iter = dag.iterator()
+      while (iter.hasNext) {
+        val current = iter.next()
+        if (isChainHead(dag, current)) {
+          val chain = ListBuffer[StreamProducer[Any]](current)
+          var next = nextInChain(dag, current)
+          while (next.isDefined) {
+            chain += next.get
+            next = nextInChain(dag, next.get)
+          }
+          if (chain.size > 1) chains += chain.toList
+        }
+      }
+      chains.foreach(chain => fuse(dag, chain))
+    }
+  }
+
+  private def isChainable(producer: StreamProducer[Any]): Boolean = producer match {
+    case FilterProducer(_) | MapperProducer(_, _) | ForeachProducer(_) => true
+    case FlatMapProducer(worker) => !worker.isInstanceOf[StormStreamExecutor[_]] && !worker.isInstanceOf[JavaStormStreamExecutor[_]]
+    case _ => false
+  }
+
+  private def nextInChain(dag: DirectedAcyclicGraph[StreamProducer[Any], StreamConnector[Any,Any]], producer: StreamProducer[Any]): Option[StreamProducer[Any]] = {
+    if(!isChainable(producer) || producer.outKeyed || dag.outDegreeOf(producer) != 1) return None
+    dag.outgoingEdgesOf(producer).head match {
+      case ShuffleConnector(_, to) if isChainable(to) && !to.inKeyed && dag.inDegreeOf(to) == 1 && to.parallelism == producer.parallelism => Some(to)
+      case _ => None
+    }
+  }
+
+  private def isChainHead(dag: DirectedAcyclicGraph[StreamProducer[Any], StreamConnector[Any,Any]], producer: StreamProducer[Any]): Boolean = {
+    isChainable(producer) && !dag.incomingEdgesOf(producer).exists(e => nextInChain(dag, e.from).isDefined)
+  }
+
+  private def fuse(dag: DirectedAcyclicGraph[StreamProducer[Any], StreamConnector[Any,Any]], chain: Seq[StreamProducer[Any]]) = {
+    val head = chain.head
+    val last = chain.last
+    val chained = ChainedProducer[Any](chain).initWith(dag, config, hook = false)
+    chained.name = chain.map(_.name).mkString(StreamChainExpansion.NAME_SEPARATOR)
+    chained.streamId = last.streamId
+    chained.parallelism(head.parallelism)
+    chained.inKeyed = head.inKeyed
+    chained.outKeyed = last.outKeyed
+    chained.keySelector = last.keySelector
+    LOG.info(s"Chained ${chain.size} operators into ${chained.name}")
+
+    val incoming = dag.incomingEdgesOf(head).toList
+    val outgoing = dag.outgoingEdgesOf(last).toList
+    dag.addVertex(chained)
+    incoming.foreach(e => dag.addEdge(e.from, chained, StreamConnector(e.from, chained, e)))
+    outgoing.foreach(e => dag.addEdge(chained, e.to, StreamConnector(chained, e.to, e)))
+    chain.foreach(p => dag.removeVertex(p))
+  }
+}
+
+object StreamChainExpansion{
+  val CHAINING_CONFIG = "envContextConfig.operatorChaining"
+  val NAME_SEPARATOR = "+"
+
+  def isEnabled(config: Config): Boolean = !config.hasPath(CHAINING_CONFIG) || config.getBoolean(CHAINING_CONFIG)
+
+  def apply()(implicit config:Config, dag: DirectedAcyclicGraph[StreamProducer[Any], StreamConnector[Any,Any]]): StreamChainExpansion ={
+    val e = StreamChainExpansion(config)
+    e.expand(dag)
+    e
+  }
+}
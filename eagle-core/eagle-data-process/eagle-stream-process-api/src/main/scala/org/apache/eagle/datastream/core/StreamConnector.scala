@@ -18,7 +18,7 @@
  */
 package org.apache.eagle.datastream.core
 
-import org.apache.eagle.partition.PartitionStrategy
+import org.apache.eagle.partition.{Combinable, PartitionStrategy}
 
 abstract class StreamConnector[+T1 <: Any,+T2 <: Any](val from: StreamProducer[T1], val to: StreamProducer[T2]) extends Serializable
 
@@ -40,6 +40,18 @@ case class GroupbyKeyConnector[T1 <: Any,+T2 <: Any](override val from: StreamPr
 case class GroupbyStrategyConnector[+T1 <: Any,+T2 <: Any](override val from: StreamProducer[T1], override val to: StreamProducer[T2],customGroupBy:PartitionStrategy)
   extends StreamConnector[T1,T2](from,to){
   override def toString: String = s"groupByStrategy( $customGroupBy )"
+
+  /**
+   * Whether downstream operator declares itself [[Combinable]], so that hot keys may be split across its tasks
+   */
+  def combinable: Boolean = to match {
+    case FlatMapProducer(mapper) => mapper.isInstanceOf[Combinable]
+    case ChainedProducer(operators) => operators.head match {
+      case FlatMapProducer(mapper) => mapper.isInstanceOf[Combinable]
+      case _ => false
+    }
+    case _ => false
+  }
 }
 
 object StreamConnector{
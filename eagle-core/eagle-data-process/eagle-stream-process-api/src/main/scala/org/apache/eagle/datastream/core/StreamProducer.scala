@@ -279,6 +279,13 @@ case class MapperProducer[T,R](numOutputFields : Int, var fn : T => R) extends S
 
 case class ForeachProducer[T](var fn : T => Unit) extends StreamProducer[T]
 
+/**
+ * Consecutive operators fused into one processing element, see [[StreamChainExpansion]]
+ */
+case class ChainedProducer[T](operators: Seq[StreamProducer[Any]]) extends StreamProducer[T]{
+  override def toString: String = s"Chain(${operators.map(_.name).mkString(" ~> ")})"
+}
+
 abstract class GroupByProducer[T] extends StreamProducer[T]
 case class GroupByFieldProducer[T](fields : Seq[Int]) extends GroupByProducer[T]
 case class GroupByStrategyProducer[T](partitionStrategy: PartitionStrategy) extends GroupByProducer[T]
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.datastream.local
+
+import backtype.storm.topology.base.BaseRichSpout
+import com.typesafe.config.Config
+import org.apache.eagle.datastream.core.{ExecutionEnvironment, StormSourceProducer, StreamDAG}
+
+/**
+ * Execute stream DAG in current JVM without Storm, e.g. to replay captured events through the application or to
+ * benchmark it, see [[LocalTopologyExecutorImpl]] for threading model and configuration.
+ */
+class LocalExecutionEnvironment(private val conf:Config) extends ExecutionEnvironment(conf) {
+  @volatile private var executor: LocalTopologyExecutorImpl = null
+
+  /**
+   * Block until all sources are exhausted and emitted values are processed
+   */
+  override def execute(dag: StreamDAG) : Unit = {
+    executor = LocalTopologyCompiler(config.get, dag).buildTopology
+    executor.execute
+  }
+
+  /**
+   * Stop sources of current execution, e.g. Storm spouts which never end
+   */
+  def shutdown(): Unit = {
+    if(executor != null) executor.stop()
+  }
+
+  /**
+   * @return counters of each stage of current or last execution
+   */
+  def metrics: Seq[LocalStageMetrics] = if(executor == null) Nil else executor.metrics
+
+  def fromSpout[T](source: BaseRichSpout): StormSourceProducer[T] = {
+    val ret = StormSourceProducer[T](source)
+    ret.initWith(dag,config.get)
+    ret
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.datastream.local
+
+import java.util
+
+import backtype.storm.spout.{ISpoutOutputCollector, SpoutOutputCollector}
+import backtype.storm.topology.base.BaseRichSpout
+import com.typesafe.config.Config
+import org.apache.eagle.datastream._
+import org.apache.eagle.datastream.core._
+import org.apache.eagle.datastream.storm._
+import org.slf4j.LoggerFactory
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable.ListBuffer
+
+/**
+ * Processing logic of one task of a local stage. Like a Storm bolt, it is compiled once per producer and copied for
+ * each task, so state of operator is never shared between tasks.
+ */
+trait LocalOperator extends Serializable {
+  /**
+   * @param taskIndex index of the task among tasks of the stage
+   * @param emitter receives emitted values
+   */
+  def open(taskIndex: Int, emitter: util.List[AnyRef] => Unit): Unit
+
+  def process(values: util.List[AnyRef]): Unit
+
+  def close(): Unit = {}
+}
+
+/**
+ * Filter, map, flatMap and foreach bolts invoked without input tuple, see [[AbstractStreamBolt#emitTo]]
+ */
+case class StreamBoltOperator(bolt: AbstractStreamBolt[Any]) extends LocalOperator {
+  override def open(taskIndex: Int, emitter: util.List[AnyRef] => Unit): Unit = {
+    bolt.emitTo((values, _) => emitter(values))
+  }
+
+  override def process(values: util.List[AnyRef]): Unit = {
+    bolt.onInput(values)(null)
+  }
+
+  override def close(): Unit = {
+    bolt.cleanup()
+  }
+}
+
+/**
+ * Storm stream executor, e.g. alert or persist executor, already prepared with config by [[StormBoltFactory]]
+ */
+case class ExecutorOperator(worker: FlatMapper[AnyRef]) extends LocalOperator {
+  @transient private var collector: Collector[AnyRef] = null
+
+  override def open(taskIndex: Int, emitter: util.List[AnyRef] => Unit): Unit = {
+    StormWrapperUtils.setTaskIndex(worker, taskIndex)
+    worker match {
+      case executor: StormStreamExecutor[_] => executor.init
+      case executor: JavaStormStreamExecutor[_] => executor.init
+      case _ =>
+    }
+    collector = new Collector[AnyRef] {
+      override def collect(t: AnyRef): Unit = emitter(StormWrapperUtils.productAsJavaList(t.asInstanceOf[Product]))
+    }
+  }
+
+  override def process(values: util.List[AnyRef]): Unit = {
+    worker.flatMap(values.asScala, collector)
+  }
+
+  override def close(): Unit = {
+    StormWrapperUtils.closeExecutor(worker)
+  }
+}
+
+/**
+ * Operators of a [[ChainedProducer]], each one hands its output to the next one
+ */
+case class ChainedOperator(operators: Seq[LocalOperator]) extends LocalOperator {
+  require(operators.nonEmpty, "operators should not be empty")
+
+  override def open(taskIndex: Int, emitter: util.List[AnyRef] => Unit): Unit = {
+    val emitters = operators.tail.map(next => (values: util.List[AnyRef]) => next.process(values)) :+ emitter
+    operators.zip(emitters).foreach { case (operator, out) => operator.open(taskIndex, out) }
+  }
+
+  override def process(values: util.List[AnyRef]): Unit = {
+    operators.head.process(values)
+  }
+
+  override def close(): Unit = {
+    operators.foreach(_.close())
+  }
+}
+
+/**
+ * Source of one task of a local source stage, copied for each task like [[LocalOperator]]
+ */
+trait LocalSource extends Serializable {
+  /**
+   * Emit values until source is exhausted or running returns false
+   */
+  def run(emitter: util.List[AnyRef] => Unit, running: () => Boolean): Unit
+}
+
+/**
+ * Emit iterable as [[IterableStreamSpout]] does, but finish once exhausted if not recycled
+ *
+ * @param keySelector key selector if output is keyed, otherwise null
+ */
+case class IterableSource(iterable: Iterable[Any], recycle: Boolean, keySelector: KeySelector) extends LocalSource {
+  override def run(emitter: util.List[AnyRef] => Unit, running: () => Boolean): Unit = {
+    do {
+      val iterator = iterable.iterator
+      while (running() && iterator.hasNext) {
+        emitter(LocalSource.toValues(iterator.next(), keySelector))
+      }
+    } while (recycle && running())
+  }
+}
+
+case class IteratorSource(iterator: Iterator[Any], keySelector: KeySelector) extends LocalSource {
+  override def run(emitter: util.List[AnyRef] => Unit, running: () => Boolean): Unit = {
+    while (running() && iterator.hasNext) {
+      emitter(LocalSource.toValues(iterator.next(), keySelector))
+    }
+  }
+}
+
+/**
+ * Drive a Storm spout without topology context until stopped. A message is acked as soon as it is handed to
+ * downstream tasks, as nothing is replayed locally.
+ */
+case class SpoutSource(spout: BaseRichSpout, stormConf: util.Map[String, AnyRef]) extends LocalSource {
+  override def run(emitter: util.List[AnyRef] => Unit, running: () => Boolean): Unit = {
+    val emitted = ListBuffer[AnyRef]()
+    var numEmitted = 0
+    spout.open(stormConf, null, new SpoutOutputCollector(new ISpoutOutputCollector {
+      override def emit(streamId: String, tuple: util.List[AnyRef], messageId: AnyRef): util.List[Integer] = {
+        emitter(tuple)
+        numEmitted += 1
+        if (messageId != null) emitted += messageId
+        util.Collections.emptyList[Integer]()
+      }
+
+      override def emitDirect(taskId: Int, streamId: String, tuple: util.List[AnyRef], messageId: AnyRef): Unit = {
+        emit(streamId, tuple, messageId)
+      }
+
+      override def reportError(error: Throwable): Unit = {
+        LocalSource.LOG.error(s"Error reported by $spout", error)
+      }
+    }))
+    spout.activate()
+    try {
+      while (running()) {
+        numEmitted = 0
+        spout.nextTuple()
+        emitted.foreach(spout.ack)
+        emitted.clear()
+        if (numEmitted == 0) Thread.sleep(1)
+      }
+    } finally {
+      spout.deactivate()
+      spout.close()
+    }
+  }
+}
+
+object LocalSource {
+  private[local] val LOG = LoggerFactory.getLogger(classOf[LocalSource])
+
+  def toValues(value: Any, keySelector: KeySelector): util.List[AnyRef] = {
+    if (keySelector != null) {
+      util.Arrays.asList(keySelector.key(value).asInstanceOf[AnyRef], value.asInstanceOf[AnyRef])
+    } else {
+      util.Arrays.asList(value.asInstanceOf[AnyRef])
+    }
+  }
+}
+
+/**
+ * Compile producers to local sources and operators, reusing Storm spouts and bolts for the processing logic
+ */
+object LocalOperatorFactory {
+  def createSource(config: Config, producer: StreamProducer[Any]): LocalSource = {
+    val keySelector = if (producer.outKeyed) producer.keySelector else null
+    producer match {
+      case IterableStreamProducer(iterable, recycle) => IterableSource(iterable, recycle, keySelector)
+      case IteratorStreamProducer(iterator) =>
+        // an iterator can neither be copied nor shared between tasks
+        if (producer.parallelism > 1) {
+          throw new IllegalArgumentException(s"Parallelism of iterator source ${producer.name} should be 1, but got ${producer.parallelism}")
+        }
+        IteratorSource(iterator, keySelector)
+      case _: StormSourceProducer[Any] => SpoutSource(StormSpoutFactory.createSpout(config, producer), new util.HashMap[String, AnyRef]())
+      case _ => throw new IllegalArgumentException(s"Cannot compile unknown $producer to a local source")
+    }
+  }
+
+  def createOperator(graph: StreamProducerGraph, producer: StreamProducer[Any], config: Config): LocalOperator = {
+    producer match {
+      case chain: ChainedProducer[Any] => ChainedOperator(chain.operators.map(operator => createOperator(graph, operator, config)))
+      case _ => StormBoltFactory.getBoltWrapper(graph, producer, config) match {
+        case bolt: AbstractStreamBolt[Any] => StreamBoltOperator(bolt)
+        case StormBoltWrapper(worker) => ExecutorOperator(worker)
+        case JavaStormBoltWrapper(worker) => ExecutorOperator(worker)
+        case bolt => throw new UnsupportedOperationException(s"Unsupported bolt $bolt compiled from producer $producer")
+      }
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.datastream.local
+
+import java.util
+
+import org.apache.commons.lang3.SerializationUtils
+import org.apache.eagle.dataproc.impl.storm.partition.CustomPartitionGrouping
+import org.apache.eagle.datastream.core._
+import org.apache.eagle.partition.PartitionStrategy
+
+/**
+ * Choose the task of downstream stage to receive values, same as the Storm grouping compiled from the connector
+ * by [[org.apache.eagle.datastream.storm.StormTopologyCompiler]]
+ */
+trait LocalRouter {
+  /**
+   * @param values emitted values
+   * @return index of downstream task
+   */
+  def route(values: util.List[AnyRef]): Int
+
+  def close(): Unit = {}
+}
+
+/**
+ * Round-robin over downstream tasks, one router per upstream task
+ */
+case class ShuffleRouter(numTasks: Int) extends LocalRouter {
+  private var next = 0
+
+  override def route(values: util.List[AnyRef]): Int = {
+    next = (next + 1) % numTasks
+    next
+  }
+}
+
+/**
+ * Hash of selected field values like Storm fields grouping, so that equal values always go to the same task
+ */
+case class FieldsRouter(numTasks: Int, fields: Seq[Int]) extends LocalRouter {
+  override def route(values: util.List[AnyRef]): Int = {
+    val selected = new util.ArrayList[AnyRef](fields.size)
+    fields.foreach(i => selected.add(values.get(i)))
+    LocalRouter.mod(selected.hashCode(), numTasks)
+  }
+}
+
+/**
+ * Route by the partition strategy of [[CustomPartitionGrouping]], with downstream task indexes as task ids
+ *
+ * Strategy is not thread safe, so each router routes with its own copy like each Storm task deserializes its grouping
+ */
+case class StrategyRouter(numTasks: Int, strategy: PartitionStrategy, combinable: Boolean) extends LocalRouter {
+  private val grouping = new CustomPartitionGrouping(SerializationUtils.clone(strategy), combinable)
+  grouping.prepare(null, null, util.Arrays.asList((0 until numTasks).map(Int.box): _*))
+
+  override def route(values: util.List[AnyRef]): Int = {
+    grouping.chooseTasks(0, values).get(0)
+  }
+
+  override def close(): Unit = {
+    grouping.cleanup()
+  }
+}
+
+object LocalRouter {
+  /**
+   * Keyed values are ["key","value"], so groupByKey is the fields grouping of first field
+   */
+  def apply(connector: StreamConnector[Any, Any], numTasks: Int): LocalRouter = connector match {
+    case GroupbyFieldsConnector(_, _, groupByFields) => FieldsRouter(numTasks, groupByFields)
+    case GroupbyKeyConnector(_, _, _) => FieldsRouter(numTasks, Seq(0))
+    case connector@GroupbyStrategyConnector(_, _, strategy) => StrategyRouter(numTasks, strategy, connector.combinable)
+    case ShuffleConnector(_, _) => ShuffleRouter(numTasks)
+    case _ => throw new UnsupportedOperationException(s"Unsupported stream connector $connector")
+  }
+
+  private[local] def mod(hash: Int, numTasks: Int): Int = {
+    val m = hash % numTasks
+    if (m < 0) m + numTasks else m
+  }
+}
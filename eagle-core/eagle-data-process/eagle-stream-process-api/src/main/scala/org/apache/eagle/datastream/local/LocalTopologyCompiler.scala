@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.datastream.local
+
+import com.typesafe.config.Config
+import org.apache.eagle.datastream.core._
+import org.slf4j.LoggerFactory
+
+import scala.collection.mutable.ListBuffer
+
+/**
+ * Compile stream DAG into local stages, one stage per producer with producer's parallelism as number of tasks
+ */
+case class LocalTopologyCompiler(config: Config, graph: StreamProducerGraph) extends AbstractTopologyCompiler {
+  val LOG = LoggerFactory.getLogger(classOf[LocalTopologyCompiler])
+
+  override def buildTopology: LocalTopologyExecutorImpl = {
+    val stages = ListBuffer[LocalStage]()
+    val edges = ListBuffer[LocalEdge]()
+    val iter = graph.iterator()
+    while (iter.hasNext) {
+      val producer = iter.next()
+      if (graph.isSource(producer)) {
+        stages += LocalStage(producer.name, producer.parallelism, Some(LocalOperatorFactory.createSource(config, producer)), None)
+      } else {
+        stages += LocalStage(producer.name, producer.parallelism, None, Some(LocalOperatorFactory.createOperator(graph, producer, config)))
+      }
+      graph.outgoingEdgesOf(producer).foreach(sc => edges += LocalEdge(producer.name, sc.to.name, sc))
+    }
+    LOG.info(s"Local topology DAG\n{\n \t${edges.map(e => s"${e.from} ~> ${e.to} in ${e.connector}").mkString("\n\t")} \n}")
+    LocalTopologyExecutorImpl(stages.toList, edges.toList, config)
+  }
+}
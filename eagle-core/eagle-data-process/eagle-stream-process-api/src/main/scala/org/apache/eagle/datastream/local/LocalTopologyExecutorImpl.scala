@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.datastream.local
+
+import java.util
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.{ArrayBlockingQueue, BlockingQueue}
+
+import com.typesafe.config.Config
+import org.apache.commons.lang3.SerializationUtils
+import org.apache.eagle.datastream.core.{AbstractTopologyExecutor, StreamConnector}
+import org.slf4j.LoggerFactory
+
+/**
+ * Compiled stage, exactly one of source or operator is defined
+ */
+case class LocalStage(name: String, parallelism: Int, source: Option[LocalSource], operator: Option[LocalOperator])
+
+case class LocalEdge(from: String, to: String, connector: StreamConnector[Any, Any])
+
+/**
+ * Counters of one stage summed over its tasks
+ *
+ * busyNanos is the time spent in processing values, in synchronous mode it includes processing of downstream stages
+ */
+class LocalStageMetrics(val name: String, val parallelism: Int) {
+  val received = new AtomicLong()
+  val emitted = new AtomicLong()
+  val failed = new AtomicLong()
+  val busyNanos = new AtomicLong()
+
+  /**
+   * @return values processed per second of busy time by one task
+   */
+  def throughputPerTask: Double = {
+    if (busyNanos.get() == 0) 0.0 else received.get() * 1000000000.0 / busyNanos.get()
+  }
+
+  override def toString: String = {
+    s"$name(parallelism=$parallelism, received=${received.get}, emitted=${emitted.get}, failed=${failed.get}, " +
+      f"throughputPerTask=$throughputPerTask%.1f/s)"
+  }
+}
+
+/**
+ * Run compiled stages in current JVM.
+ *
+ * Each task of a stage owns a copy of the stage's source or operator. In default multi-threaded mode every task runs in
+ * its own thread and reads from a bounded queue, so that a slow stage blocks its upstream like back pressure.
+ * In synchronous mode, enabled with "envContextConfig.local.synchronous = true", sources are run one after another in
+ * calling thread and emitted values are processed depth-first before returning, which is deterministic for tests.
+ *
+ * Execution returns once all sources are exhausted, or [[stop]] is called, and all emitted values are processed.
+ */
+case class LocalTopologyExecutorImpl(stages: Seq[LocalStage], edges: Seq[LocalEdge], config: Config) extends AbstractTopologyExecutor {
+  import LocalTopologyExecutorImpl._
+
+  val LOG = LoggerFactory.getLogger(classOf[LocalTopologyExecutorImpl])
+  val synchronous = config.hasPath(SYNCHRONOUS_CONFIG) && config.getBoolean(SYNCHRONOUS_CONFIG)
+  val queueCapacity = if (config.hasPath(QUEUE_CAPACITY_CONFIG)) config.getInt(QUEUE_CAPACITY_CONFIG) else DEFAULT_QUEUE_CAPACITY
+  val metrics: Seq[LocalStageMetrics] = stages.map(stage => new LocalStageMetrics(stage.name, stage.parallelism))
+  @volatile private var running = true
+
+  private class Task(val stage: LocalStage, val index: Int, val stageMetrics: LocalStageMetrics) {
+    val source = stage.source.map(s => if (index == 0) s else SerializationUtils.clone(s))
+    val operator = stage.operator.map(o => if (index == 0) o else SerializationUtils.clone(o))
+    val inbox: BlockingQueue[util.List[AnyRef]] = if (synchronous || operator.isEmpty) null else new ArrayBlockingQueue[util.List[AnyRef]](queueCapacity)
+    var outputs: Seq[(LocalRouter, IndexedSeq[Task])] = Nil
+    var numUpstreamTasks = 0
+
+    def emit(values: util.List[AnyRef]): Unit = {
+      stageMetrics.emitted.incrementAndGet()
+      outputs.foreach { case (router, targets) => targets(router.route(values)).receive(values) }
+    }
+
+    def receive(values: util.List[AnyRef]): Unit = {
+      if (synchronous) process(values) else inbox.put(values)
+    }
+
+    def process(values: util.List[AnyRef]): Unit = {
+      stageMetrics.received.incrementAndGet()
+      val start = System.nanoTime()
+      try {
+        operator.get.process(values)
+      } catch {
+        case t: Throwable =>
+          stageMetrics.failed.incrementAndGet()
+          LOG.error(s"Got exception when processing $values in ${stage.name}[$index]", t)
+      } finally {
+        stageMetrics.busyNanos.addAndGet(System.nanoTime() - start)
+      }
+    }
+
+    /**
+     * A task failing to open still drains its inbox, values are then counted as failed
+     */
+    def open(): Unit = {
+      try {
+        operator.foreach(_.open(index, emit))
+      } catch {
+        case t: Throwable => LOG.error(s"Failed to open $this", t)
+      }
+    }
+
+    def runSource(): Unit = {
+      val start = System.nanoTime()
+      try {
+        source.get.run(emit, () => running)
+      } finally {
+        stageMetrics.busyNanos.addAndGet(System.nanoTime() - start)
+      }
+    }
+
+    /**
+     * Process inbox until end of stream is received from every upstream task
+     */
+    def runOperator(): Unit = {
+      var ended = 0
+      while (ended < numUpstreamTasks) {
+        val values = inbox.take()
+        if (values eq END_OF_STREAM) ended += 1 else process(values)
+      }
+    }
+
+    def endOfStream(): Unit = {
+      outputs.foreach { case (_, targets) => targets.foreach(_.inbox.put(END_OF_STREAM)) }
+    }
+
+    override def toString = s"${stage.name}[$index]"
+  }
+
+  override def execute: Unit = {
+    val tasks = stages.zip(metrics).map { case (stage, stageMetrics) =>
+      stage.name -> (0 until stage.parallelism).map(i => new Task(stage, i, stageMetrics))
+    }.toMap
+    edges.foreach(edge => {
+      val targets = tasks(edge.to)
+      tasks(edge.from).foreach(task => task.outputs :+= ((LocalRouter(edge.connector, targets.size), targets)))
+      targets.foreach(_.numUpstreamTasks += tasks(edge.from).size)
+    })
+    val ordered = stages.flatMap(stage => tasks(stage.name))
+    LOG.info(s"Executing ${stages.size} stages with ${ordered.size} tasks in ${if (synchronous) "synchronous" else "multi-threaded"} mode")
+
+    val start = System.currentTimeMillis()
+    try {
+      if (synchronous) {
+        ordered.foreach(_.open())
+        ordered.filter(_.source.isDefined).foreach(_.runSource())
+        ordered.foreach(_.operator.foreach(_.close()))
+      } else {
+        val threads = ordered.map(task => new Thread(new Runnable {
+          override def run(): Unit = {
+            try {
+              task.open()
+              if (task.source.isDefined) task.runSource() else task.runOperator()
+              task.operator.foreach(_.close())
+            } catch {
+              case t: Throwable => LOG.error(s"Task $task terminated", t)
+            } finally {
+              task.endOfStream()
+            }
+          }
+        }, s"local-$task"))
+        threads.foreach(_.start())
+        threads.foreach(_.join())
+      }
+    } finally {
+      ordered.foreach(_.outputs.foreach(_._1.close()))
+    }
+    val elapsed = System.currentTimeMillis() - start
+    LOG.info(s"Executed in $elapsed ms\n\t${metrics.mkString("\n\t")}")
+  }
+
+  /**
+   * Stop sources, values already emitted are still processed
+   */
+  def stop(): Unit = {
+    running = false
+  }
+}
+
+object LocalTopologyExecutorImpl {
+  val SYNCHRONOUS_CONFIG = "envContextConfig.local.synchronous"
+  val QUEUE_CAPACITY_CONFIG = "envContextConfig.local.queueCapacity"
+  val DEFAULT_QUEUE_CAPACITY = 1024
+
+  private val END_OF_STREAM: util.List[AnyRef] = new util.ArrayList[AnyRef](0)
+}
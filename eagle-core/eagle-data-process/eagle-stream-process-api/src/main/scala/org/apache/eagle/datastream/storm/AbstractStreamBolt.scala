@@ -26,6 +26,8 @@ import org.apache.eagle.datastream.core.StreamInfo
 import org.apache.eagle.datastream.utils.NameConstants
 import org.slf4j.LoggerFactory
 
+import scala.collection.JavaConverters._
+
 /**
  *
  * @param fieldsNum zero-fieldsNum may means something different
@@ -33,9 +35,27 @@ import org.slf4j.LoggerFactory
  * @param streamInfo
  * @tparam T
  */
-abstract class AbstractStreamBolt[T](val fieldsNum:Int=1, val ack:Boolean = true)(implicit streamInfo:StreamInfo) extends BaseRichBolt{
+abstract class AbstractStreamBolt[T](val fieldsNum:Int=1, val ack:Boolean = true)(implicit streamInfo:StreamInfo) extends BaseRichBolt with MicroBatchBolt{
   private var _collector: OutputCollector = null
   private val LOG = LoggerFactory.getLogger(classOf[AbstractStreamBolt[T]])
+  /**
+   * Receives emitted values in-process instead of the collector, e.g. next operator of [[ChainedBoltWrapper]]
+   */
+  @transient private var _emitter: (util.List[AnyRef], Tuple) => Unit = null
+
+  /**
+   * Hand emitted values, keyed if outKeyed, to given function instead of emitting them to collector
+   */
+  private[datastream] def emitTo(emitter: (util.List[AnyRef], Tuple) => Unit): Unit = {
+    _emitter = emitter
+  }
+
+  /**
+   * Hand emitted values to next operator in-process instead of emitting them to collector
+   */
+  private[storm] def chainTo(next: AbstractStreamBolt[Any]): Unit = {
+    emitTo((values, input) => next.onInput(values)(input))
+  }
 
   /**
    * If outKeyed then
@@ -68,21 +88,54 @@ abstract class AbstractStreamBolt[T](val fieldsNum:Int=1, val ack:Boolean = true
 
   def emit(values:util.List[AnyRef])(implicit input:Tuple){
     if (streamInfo.outKeyed) {
-      _collector.emit(input, util.Arrays.asList(streamInfo.keySelector.key(values).asInstanceOf[AnyRef], values))
+      output(util.Arrays.asList(streamInfo.keySelector.key(values).asInstanceOf[AnyRef], values))
     } else {
-      _collector.emit(input, values)
+      output(values)
     }
   }
 
   def emit(value:Any)(implicit input:Tuple){
     if(streamInfo.outKeyed) {
-      _collector.emit(input, util.Arrays.asList(streamInfo.keySelector.key(value).asInstanceOf[AnyRef],value.asInstanceOf[AnyRef]))
+      output(util.Arrays.asList(streamInfo.keySelector.key(value).asInstanceOf[AnyRef],value.asInstanceOf[AnyRef]))
     }else{
-      _collector.emit(input,util.Arrays.asList(value.asInstanceOf[AnyRef]))
+      output(util.Arrays.asList(value.asInstanceOf[AnyRef]))
+    }
+  }
+
+  private def output(values:util.List[AnyRef])(implicit input:Tuple){
+    if(_emitter != null) {
+      _emitter(values, input)
+    } else {
+      _collector.emit(input, values)
+    }
+  }
+
+  /**
+   * Handle values of an input tuple, as ["key","value"] if inKeyed
+   */
+  private[datastream] def onInput(values:util.List[AnyRef])(implicit input:Tuple){
+    if (streamInfo.inKeyed) {
+      onKeyValue(values.get(0), values.get(1).asInstanceOf[T])
+    } else {
+      onValues(values)
     }
   }
 
   override def execute(input: Tuple): Unit = {
+    if(microBatch.isDefined) {
+      executeBatch(input)(tuples => {
+        val processed = tuples.asScala.filter(process)
+        if(ack) processed.foreach(_collector.ack)
+      })
+    } else if(process(input) && ack) {
+      _collector.ack(input)
+    }
+  }
+
+  /**
+   * @return false if input failed
+   */
+  private def process(input: Tuple): Boolean = {
     try {
       implicit val _input = input
       if (streamInfo.inKeyed) {
@@ -92,11 +145,12 @@ abstract class AbstractStreamBolt[T](val fieldsNum:Int=1, val ack:Boolean = true
       } else {
         onValues(input.getValues)
       }
-      if(ack) _collector.ack(input)
+      true
     }catch {
       case t: Throwable => {
         LOG.error(s"Got exception when processing $input",t)
         _collector.fail(input)
+        false
       }
     }
   }
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.datastream.storm
+
+import java.util
+
+import backtype.storm.task.{OutputCollector, TopologyContext}
+import backtype.storm.topology.OutputFieldsDeclarer
+import backtype.storm.topology.base.BaseRichBolt
+import backtype.storm.tuple.Tuple
+
+/**
+ * One bolt invoking a chain of operators in-process, see [[org.apache.eagle.datastream.core.StreamChainExpansion]]
+ *
+ * Each operator hands its output values to the next one as the tuple values it would have emitted, only the last one
+ * emits to the collector. Input tuple is acked or failed by the first operator once the whole chain has processed it.
+ *
+ * @param operators bolts of chained operators in stream order
+ */
+case class ChainedBoltWrapper(operators: Seq[AbstractStreamBolt[Any]]) extends BaseRichBolt {
+  require(operators.nonEmpty, "operators should not be empty")
+
+  override def prepare(stormConf: util.Map[_, _], context: TopologyContext, collector: OutputCollector): Unit = {
+    operators.foreach(_.prepare(stormConf, context, collector))
+    operators.sliding(2).foreach {
+      case Seq(current, next) => current.chainTo(next)
+      case _ =>
+    }
+  }
+
+  override def execute(input: Tuple): Unit = {
+    operators.head.execute(input)
+  }
+
+  override def getComponentConfiguration: util.Map[String, AnyRef] = operators.head.getComponentConfiguration
+
+  override def declareOutputFields(declarer: OutputFieldsDeclarer): Unit = {
+    operators.last.declareOutputFields(declarer)
+  }
+
+  override def cleanup(): Unit = {
+    operators.foreach(_.cleanup())
+  }
+}
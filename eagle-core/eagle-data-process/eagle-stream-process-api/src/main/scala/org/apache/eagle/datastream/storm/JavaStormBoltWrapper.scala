@@ -25,16 +25,21 @@ import backtype.storm.tuple.{Fields, Tuple}
 import org.apache.eagle.datastream.{Collector, JavaStormStreamExecutor}
 import org.slf4j.LoggerFactory
 
-case class JavaStormBoltWrapper(worker : JavaStormStreamExecutor[AnyRef]) extends BaseRichBolt{
+case class JavaStormBoltWrapper(worker : JavaStormStreamExecutor[AnyRef]) extends BaseRichBolt with MicroBatchBolt{
   val LOG = LoggerFactory.getLogger(StormBoltWrapper.getClass)
   var _collector : OutputCollector = null
 
   override def prepare(stormConf: util.Map[_, _], context: TopologyContext, collector: OutputCollector): Unit = {
     _collector = collector
+    if(context != null) StormWrapperUtils.setTaskIndex(worker, context.getThisTaskIndex)
     worker.init
   }
 
   override def execute(input : Tuple): Unit ={
+    if(microBatch.isDefined) {
+      executeBatch(input)(tuples => ExecutorBatch.execute(worker, tuples, _collector))
+      return
+    }
     worker.flatMap(input.getValues, new Collector[AnyRef](){
       def collect(t: AnyRef): Unit ={
         _collector.emit(input, StormWrapperUtils.productAsJavaList(t.asInstanceOf[Product]))
@@ -43,6 +48,10 @@ case class JavaStormBoltWrapper(worker : JavaStormStreamExecutor[AnyRef]) extend
     _collector.ack(input)
   }
 
+  override def cleanup(): Unit = {
+    StormWrapperUtils.closeExecutor(worker)
+  }
+
   override def declareOutputFields(declarer : OutputFieldsDeclarer): Unit ={
     val fields = worker.fields
     LOG.info("output fields for worker " + worker + " : " + fields.toList)
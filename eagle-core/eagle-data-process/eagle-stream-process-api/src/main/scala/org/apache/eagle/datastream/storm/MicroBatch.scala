@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.datastream.storm
+
+import java.util
+
+import backtype.storm.task.OutputCollector
+import backtype.storm.topology.base.BaseRichBolt
+import backtype.storm.tuple.Tuple
+import backtype.storm.{Config => StormConfig, Constants}
+import com.typesafe.config.Config
+import org.apache.eagle.datastream.{BatchFlatMapper, Collector, FlatMapper}
+import org.slf4j.LoggerFactory
+
+import scala.collection.JavaConverters._
+
+/**
+ * Micro-batch settings of a bolt, tuples are buffered and executed together once size tuples are buffered or
+ * timeoutMs elapsed since the first one was buffered
+ *
+ * @param size max number of tuples in a batch
+ * @param timeoutMs max time a tuple waits in the buffer, checked on arrival of tuples and tick tuples
+ */
+case class MicroBatch(size: Int, timeoutMs: Long) {
+  /**
+   * Tick tuples frequency to flush buffered tuples when no more tuple arrives, storm ticks in seconds
+   */
+  def tickFrequencySecs: Int = math.max(1, math.ceil(timeoutMs / 1000.0).toInt)
+}
+
+object MicroBatch {
+  val SIZE_CONFIG = "envContextConfig.microBatch.size"
+  val TIMEOUT_CONFIG = "envContextConfig.microBatch.timeoutMs"
+  val DEFAULT_TIMEOUT_MS = 100L
+
+  /**
+   * @return micro-batch settings if "envContextConfig.microBatch.size" is greater than 1
+   */
+  def apply(config: Config): Option[MicroBatch] = {
+    if (!config.hasPath(SIZE_CONFIG) || config.getInt(SIZE_CONFIG) <= 1) return None
+    val timeoutMs = if (config.hasPath(TIMEOUT_CONFIG)) config.getLong(TIMEOUT_CONFIG) else DEFAULT_TIMEOUT_MS
+    Some(MicroBatch(config.getInt(SIZE_CONFIG), timeoutMs))
+  }
+
+  def isTickTuple(input: Tuple): Boolean = {
+    Constants.SYSTEM_COMPONENT_ID == input.getSourceComponent && Constants.SYSTEM_TICK_STREAM_ID == input.getSourceStreamId
+  }
+}
+
+/**
+ * Tuples buffered for a micro-batch, not thread safe as bolts execute tuples in one thread
+ */
+class MicroBatchBuffer(microBatch: MicroBatch) {
+  private var tuples = new util.ArrayList[Tuple](microBatch.size)
+  private var firstBufferedAt = 0L
+
+  def add(input: Tuple): Unit = {
+    if (tuples.isEmpty) firstBufferedAt = System.currentTimeMillis()
+    tuples.add(input)
+  }
+
+  def size: Int = tuples.size
+
+  def isDue: Boolean = {
+    !tuples.isEmpty && (tuples.size >= microBatch.size || System.currentTimeMillis() - firstBufferedAt >= microBatch.timeoutMs)
+  }
+
+  /**
+   * @return buffered tuples in arrival order, buffer is empty afterwards
+   */
+  def drain(): util.List[Tuple] = {
+    val drained = tuples
+    tuples = new util.ArrayList[Tuple](microBatch.size)
+    drained
+  }
+}
+
+/**
+ * Bolt executing tuples in micro-batches if microBatch is set, see [[MicroBatch]]
+ */
+trait MicroBatchBolt extends BaseRichBolt {
+  var microBatch: Option[MicroBatch] = None
+  @transient private var buffer: MicroBatchBuffer = null
+
+  override def getComponentConfiguration: util.Map[String, AnyRef] = microBatch match {
+    case Some(batch) =>
+      val conf = new util.HashMap[String, AnyRef]()
+      conf.put(StormConfig.TOPOLOGY_TICK_TUPLE_FREQ_SECS, Int.box(batch.tickFrequencySecs))
+      conf
+    case None => super.getComponentConfiguration
+  }
+
+  /**
+   * Buffer input and hand buffered tuples to execute once batch is due, tick tuples are not buffered
+   * and only flush timed out tuples
+   */
+  protected def executeBatch(input: Tuple)(execute: util.List[Tuple] => Unit): Unit = {
+    if (buffer == null) buffer = new MicroBatchBuffer(microBatch.get)
+    if (!MicroBatch.isTickTuple(input)) buffer.add(input)
+    if (buffer.isDue) execute(buffer.drain())
+  }
+}
+
+/**
+ * Execute micro-batches with executors, [[BatchFlatMapper]] executors get the whole batch and their output is
+ * anchored to all tuples of the batch, other executors are adapted by executing tuples one by one
+ */
+object ExecutorBatch {
+  private val LOG = LoggerFactory.getLogger(ExecutorBatch.getClass)
+
+  def execute(worker: FlatMapper[AnyRef], tuples: util.List[Tuple], collector: OutputCollector): Unit = worker match {
+    case batchWorker: BatchFlatMapper[AnyRef @unchecked] =>
+      val inputs = new util.ArrayList[util.List[AnyRef]](tuples.size)
+      tuples.asScala.foreach(tuple => inputs.add(tuple.getValues))
+      try {
+        batchWorker.flatMapBatch(inputs, new Collector[AnyRef] {
+          override def collect(t: AnyRef): Unit = {
+            collector.emit(tuples, StormWrapperUtils.productAsJavaList(t.asInstanceOf[Product]))
+          }
+        })
+      } catch {
+        case ex: Exception =>
+          LOG.error(s"fail executing batch of ${tuples.size} tuples", ex)
+          tuples.asScala.foreach(collector.fail)
+          return
+      }
+      tuples.asScala.foreach(collector.ack)
+    case _ =>
+      val succeeded = new util.ArrayList[Tuple](tuples.size)
+      tuples.asScala.foreach(input => {
+        try {
+          worker.flatMap(input.getValues.asScala, new Collector[AnyRef] {
+            override def collect(t: AnyRef): Unit = {
+              collector.emit(input, StormWrapperUtils.productAsJavaList(t.asInstanceOf[Product]))
+            }
+          })
+          succeeded.add(input)
+        } catch {
+          case ex: Exception =>
+            LOG.error(s"fail executing $input", ex)
+            collector.fail(input)
+        }
+      })
+      succeeded.asScala.foreach(collector.ack)
+  }
+}
@@ -26,6 +26,15 @@ import org.apache.eagle.datastream.core._
 
 object StormBoltFactory {
   def getBoltWrapper(graph: StreamProducerGraph, producer : StreamProducer[Any], config : Config) : BaseRichBolt = {
+    val bolt = createBoltWrapper(graph, producer, config)
+    bolt match {
+      case batchBolt: MicroBatchBolt => batchBolt.microBatch = MicroBatch(config)
+      case _ =>
+    }
+    bolt
+  }
+
+  private def createBoltWrapper(graph: StreamProducerGraph, producer : StreamProducer[Any], config : Config) : BaseRichBolt = {
     implicit val streamInfo = producer.getInfo
     producer match{
       case FlatMapProducer(worker) => {
@@ -53,6 +62,9 @@ object StormBoltFactory {
       case foreach:ForeachProducer[Any] => {
         ForeachBoltWrapper(foreach.fn)
       }
+      case chain : ChainedProducer[Any] => {
+        ChainedBoltWrapper(chain.operators.map(operator => getBoltWrapper(graph, operator, config).asInstanceOf[AbstractStreamBolt[Any]]))
+      }
       case persist : PersistProducer[Any] => {
         val persisExecutor = new PersistExecutor(persist.executorId, persist.storageType.toString)
         persisExecutor.prepareConfig(config)
@@ -27,16 +27,21 @@ import org.slf4j.LoggerFactory
 
 import scala.collection.JavaConverters._
 
-case class StormBoltWrapper(worker : StormStreamExecutor[AnyRef]) extends BaseRichBolt{
+case class StormBoltWrapper(worker : StormStreamExecutor[AnyRef]) extends BaseRichBolt with MicroBatchBolt{
   val LOG = LoggerFactory.getLogger(StormBoltWrapper.getClass)
   var _collector : OutputCollector = null
 
   override def prepare(stormConf: util.Map[_, _], context: TopologyContext, collector: OutputCollector): Unit = {
     _collector = collector
+    if(context != null) StormWrapperUtils.setTaskIndex(worker, context.getThisTaskIndex)
     worker.init
   }
 
   override def execute(input : Tuple): Unit = {
+    if(microBatch.isDefined) {
+      executeBatch(input)(tuples => ExecutorBatch.execute(worker, tuples, _collector))
+      return
+    }
     try {
       worker.flatMap(input.getValues.asScala, new Collector[AnyRef] {
         override def collect(t: AnyRef): Unit = {
@@ -53,6 +58,10 @@ case class StormBoltWrapper(worker : StormStreamExecutor[AnyRef]) extends BaseRi
     _collector.ack(input)
   }
 
+  override def cleanup(): Unit = {
+    StormWrapperUtils.closeExecutor(worker)
+  }
+
   override def declareOutputFields(declarer : OutputFieldsDeclarer): Unit ={
     val fields = worker.fields
     LOG.info("Output fields for worker " + worker + " : " + fields.toList)
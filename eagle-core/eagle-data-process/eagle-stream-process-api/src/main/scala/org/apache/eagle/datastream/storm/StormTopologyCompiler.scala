@@ -72,8 +72,8 @@ case class StormTopologyCompiler(config: Config, graph: StreamProducerGraph) ext
         sc match {
           case GroupbyFieldsConnector(_, _, groupByFields) =>
             boltDeclarer.fieldsGrouping(fromName, new Fields(fields(groupByFields)))
-          case GroupbyStrategyConnector(_, _, strategy) =>
-            boltDeclarer.customGrouping(fromName, new CustomPartitionGrouping(strategy));
+          case connector@GroupbyStrategyConnector(_, _, strategy) =>
+            boltDeclarer.customGrouping(fromName, new CustomPartitionGrouping(strategy, connector.combinable));
           case GroupbyKeyConnector(_, _, keySelector) =>
             boltDeclarer.fieldsGrouping(fromName, new Fields(NameConstants.FIELD_KEY));
           case ShuffleConnector(_, _) => {
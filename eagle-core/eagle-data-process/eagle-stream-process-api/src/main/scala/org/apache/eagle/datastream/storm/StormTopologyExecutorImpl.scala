@@ -22,6 +22,7 @@ import _root_.storm.trident.spout.RichSpoutBatchExecutor
 import backtype.storm.generated.StormTopology
 import backtype.storm.utils.Utils
 import backtype.storm.{Config, LocalCluster, StormSubmitter}
+import org.apache.eagle.dataproc.impl.storm.serialization.EagleKryoFactory
 import org.apache.eagle.datastream.core.AbstractTopologyExecutor
 import org.apache.thrift7.transport.TTransportException
 import org.slf4j.LoggerFactory
@@ -39,6 +40,7 @@ case class StormTopologyExecutorImpl(topology: StormTopology, config: com.typesa
     conf.put(Config.TOPOLOGY_EXECUTOR_RECEIVE_BUFFER_SIZE, Int.box(16384))
     conf.put(Config.TOPOLOGY_EXECUTOR_SEND_BUFFER_SIZE, Int.box(16384))
     conf.put(Config.NIMBUS_THRIFT_MAX_BUFFER_SIZE, Int.box(20480000))
+    EagleKryoFactory.configure(conf, config)
 
     if(config.hasPath("envContextConfig.stormConfigFile")) {
       val file = new File(config.getString("envContextConfig.stormConfigFile"))
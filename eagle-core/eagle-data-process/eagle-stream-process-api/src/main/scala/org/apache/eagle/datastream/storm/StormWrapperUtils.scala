@@ -17,12 +17,40 @@
 
 package org.apache.eagle.datastream.storm
 
+import java.io.Closeable
 import java.util
 
+import org.apache.eagle.datastream.TaskIndexAware
+import org.slf4j.LoggerFactory
+
 object StormWrapperUtils {
+  private val LOG = LoggerFactory.getLogger(StormWrapperUtils.getClass)
+
   def productAsJavaList(product:Product):util.List[AnyRef]={
     val list = new util.LinkedList[AnyRef]()
     product.productIterator.foreach((p:Any) => list.add(p.asInstanceOf[AnyRef]))
     list
   }
+
+  /**
+   * Set index of current task to executors implementing [[org.apache.eagle.datastream.TaskIndexAware]]
+   */
+  def setTaskIndex(worker: AnyRef, taskIndex: Int): Unit = worker match {
+    case aware: TaskIndexAware => aware.setTaskIndex(taskIndex)
+    case _ =>
+  }
+
+  /**
+   * Release resources of executors implementing [[java.io.Closeable]], e.g. threads they started in init,
+   * when the bolt or local task running them is cleaned up
+   */
+  def closeExecutor(worker: AnyRef): Unit = worker match {
+    case closeable: Closeable =>
+      try {
+        closeable.close()
+      } catch {
+        case ex: Exception => LOG.error(s"Fail closing executor $worker", ex)
+      }
+    case _ =>
+  }
 }
\ No newline at end of file
@@ -19,7 +19,7 @@
 
 package org.apache.eagle.datastream.utils
 
-import org.apache.eagle.datastream.core.{StreamConnector, StreamProducer}
+import org.apache.eagle.datastream.core.{ChainedProducer, StreamConnector, StreamProducer}
 import org.jgrapht.experimental.dag.DirectedAcyclicGraph
 import org.slf4j.LoggerFactory
 
@@ -39,6 +39,11 @@ object GraphPrinter {
       dag.outgoingEdgesOf(current).foreach(edge => {
         graphStr += s"${edge.from.name}{${edge.from.parallelism}} ~> ${edge.to.name}{${edge.to.parallelism}} in ${edge.toString}"
       })
+      current match {
+        case chain: ChainedProducer[Any] =>
+          graphStr += s"${chain.name}{${chain.parallelism}} chains ${chain.operators.map(_.name).mkString(" ~> ")} in process"
+        case _ =>
+      }
     }
     LOG.info(message+"\n{ \n\t" + graphStr.mkString("\n\t") + "\n}")
   }
@@ -51,6 +56,11 @@ object GraphPrinter {
       dag.outgoingEdgesOf(current).foreach(edge => {
         graphStr += s""""${edge.from.name} x ${edge.from.parallelismNum}" -> "${edge.to.name} x ${edge.from.parallelismNum}" [label = "$edge"];"""
       })
+      current match {
+        case chain: ChainedProducer[Any] =>
+          graphStr += s""""${chain.name} x ${chain.parallelismNum}" [shape = box];"""
+        case _ =>
+      }
     }
     val dotDigraph = s"""digraph $title { \n\t${graphStr.mkString("\n\t")} \n}"""
     LOG.info(s"""$message\n\n$dotDigraph\n""")
@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.dataproc.impl.storm.partition;
+
+import junit.framework.Assert;
+import org.apache.eagle.partition.DataDistributionDao;
+import org.apache.eagle.partition.PartitionAlgorithm;
+import org.apache.eagle.partition.PartitionStrategyImpl;
+import org.apache.eagle.partition.Weight;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Simulate routing of users with Zipfian distributed activity to 16 tasks
+ */
+public class TestCustomPartitionGrouping {
+    private static final int NUM_TASKS = 16;
+    private static final int NUM_USERS = 1000;
+    private static final double ZIPF_EXPONENT = 1.2;
+    private static final int NUM_EVENTS = 200000;
+
+    @Test
+    public void testSplitHotKeysOfDataDistribution() {
+        List<Weight> weights = zipfWeights();
+        List<String> events = zipfEvents(weights);
+
+        PartitionStrategyImpl strategy = new PartitionStrategyImpl(dao(weights), new GreedyAlgorithm());
+        strategy.refreshRoutingTable(NUM_TASKS);
+        double imbalance = imbalance(grouping(strategy, false), events);
+
+        PartitionStrategyImpl splittingStrategy = new PartitionStrategyImpl(dao(weights), new GreedyAlgorithm());
+        splittingStrategy.enableHotKeySplitting();
+        splittingStrategy.refreshRoutingTable(NUM_TASKS);
+        double splitImbalance = imbalance(grouping(splittingStrategy, true), events);
+
+        Assert.assertTrue("Hottest user should overload its task, imbalance: " + imbalance, imbalance > 2.5);
+        Assert.assertTrue("Hot users should be spread, imbalance: " + splitImbalance, splitImbalance < 1.2);
+    }
+
+    @Test
+    public void testSplitHotKeysSampledBetweenRefreshes() {
+        List<String> events = zipfEvents(zipfWeights());
+        PartitionStrategyImpl strategy = new PartitionStrategyImpl(dao(Collections.<Weight>emptyList()), new GreedyAlgorithm());
+        strategy.enableHotKeySplitting();
+        strategy.refreshRoutingTable(NUM_TASKS);
+        CustomPartitionGrouping grouping = grouping(strategy, true);
+
+        double hashedImbalance = imbalance(grouping, events);
+        strategy.refreshHotKeys(NUM_TASKS);
+        double splitImbalance = imbalance(grouping, events);
+
+        Assert.assertTrue("Hashed hot users should overload tasks, imbalance: " + hashedImbalance, hashedImbalance > 2.5);
+        Assert.assertTrue("Sampled hot users should be spread, imbalance: " + splitImbalance, splitImbalance < 1.5);
+    }
+
+    @Test
+    public void testNotCombinableKeepsKeyOnOneTask() {
+        List<Weight> weights = zipfWeights();
+        PartitionStrategyImpl strategy = new PartitionStrategyImpl(dao(weights), new GreedyAlgorithm());
+        strategy.enableHotKeySplitting();
+        strategy.refreshRoutingTable(NUM_TASKS);
+        CustomPartitionGrouping grouping = grouping(strategy, false);
+        List<Integer> tasks = grouping.chooseTasks(0, Arrays.<Object>asList("user0"));
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(tasks, grouping.chooseTasks(0, Arrays.<Object>asList("user0")));
+        }
+    }
+
+    @Test
+    public void testRoutingTableBuiltOnPrepare() {
+        PartitionStrategyImpl strategy = new PartitionStrategyImpl(dao(zipfWeights()), new PartitionAlgorithm() {
+            @Override
+            public Map<String, Integer> partition(List<Weight> weights, int k) {
+                Map<String, Integer> partition = new HashMap<>();
+                for (Weight weight : weights) {
+                    partition.put(weight.key, 5);
+                }
+                return partition;
+            }
+        });
+        CustomPartitionGrouping grouping = grouping(strategy, false);
+        try {
+            for (int i = 0; i < NUM_USERS; i++) {
+                Assert.assertEquals(Collections.singletonList(105), grouping.chooseTasks(0, Arrays.<Object>asList("user" + i)));
+            }
+        } finally {
+            grouping.cleanup();
+        }
+    }
+
+    private static CustomPartitionGrouping grouping(PartitionStrategyImpl strategy, boolean combinable) {
+        CustomPartitionGrouping grouping = new CustomPartitionGrouping(strategy, combinable);
+        List<Integer> targetTasks = new ArrayList<>();
+        for (int i = 0; i < NUM_TASKS; i++) {
+            targetTasks.add(100 + i);
+        }
+        grouping.prepare(null, null, targetTasks);
+        return grouping;
+    }
+
+    /**
+     * @return load of the most loaded task relative to average load
+     */
+    private static double imbalance(CustomPartitionGrouping grouping, List<String> events) {
+        Map<Integer, Integer> loads = new HashMap<>();
+        for (String user : events) {
+            Integer task = grouping.chooseTasks(0, Arrays.<Object>asList(user)).get(0);
+            Integer load = loads.get(task);
+            loads.put(task, load == null ? 1 : load + 1);
+        }
+        return Collections.max(loads.values()) / ((double) events.size() / NUM_TASKS);
+    }
+
+    private static List<Weight> zipfWeights() {
+        List<Weight> weights = new ArrayList<>(NUM_USERS);
+        for (int i = 0; i < NUM_USERS; i++) {
+            weights.add(new Weight("user" + i, 1.0 / Math.pow(i + 1, ZIPF_EXPONENT)));
+        }
+        return weights;
+    }
+
+    private static List<String> zipfEvents(List<Weight> weights) {
+        double[] cumulative = new double[weights.size()];
+        double total = 0;
+        for (int i = 0; i < weights.size(); i++) {
+            total += weights.get(i).value;
+            cumulative[i] = total;
+        }
+        Random random = new Random(1);
+        List<String> events = new ArrayList<>(NUM_EVENTS);
+        for (int i = 0; i < NUM_EVENTS; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * total);
+            events.add(weights.get(Math.min(index < 0 ? -index - 1 : index, weights.size() - 1)).key);
+        }
+        return events;
+    }
+
+    private static DataDistributionDao dao(final List<Weight> weights) {
+        return new DataDistributionDao() {
+            @Override
+            public List<Weight> fetchDataDistribution(long startTime, long endTime) {
+                return weights;
+            }
+        };
+    }
+
+    /**
+     * Assign each key in order to the least loaded bucket
+     */
+    private static class GreedyAlgorithm implements PartitionAlgorithm {
+        @Override
+        public Map<String, Integer> partition(List<Weight> weights, int k) {
+            PriorityQueue<double[]> buckets = new PriorityQueue<>(k, new Comparator<double[]>() {
+                @Override
+                public int compare(double[] o1, double[] o2) {
+                    return Double.compare(o1[0], o2[0]);
+                }
+            });
+            for (int i = 0; i < k; i++) {
+                buckets.add(new double[]{0, i});
+            }
+            Map<String, Integer> partition = new HashMap<>();
+            for (Weight weight : weights) {
+                double[] bucket = buckets.poll();
+                bucket[0] += weight.value;
+                partition.put(weight.key, (int) bucket[1]);
+                buckets.add(bucket);
+            }
+            return partition;
+        }
+    }
+}
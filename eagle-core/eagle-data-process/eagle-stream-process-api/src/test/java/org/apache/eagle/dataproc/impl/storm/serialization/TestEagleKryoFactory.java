@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.dataproc.impl.storm.serialization;
+
+import backtype.storm.Config;
+import backtype.storm.serialization.KryoValuesDeserializer;
+import backtype.storm.serialization.KryoValuesSerializer;
+import backtype.storm.utils.Utils;
+import junit.framework.Assert;
+import org.apache.eagle.alert.entity.AlertAPIEntity;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public class TestEagleKryoFactory {
+    private static final Logger LOG = LoggerFactory.getLogger(TestEagleKryoFactory.class);
+    private static final List<String> EVENT_FIELDS = Arrays.asList("allowed", "cmd", "dst", "host", "securityZone", "sensitivityType", "src", "timestamp", "user");
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> stormConf(boolean eagleKryo) {
+        Map<String, Object> conf = Utils.readDefaultConfig();
+        if (eagleKryo) {
+            conf.put(Config.TOPOLOGY_KRYO_FACTORY, EagleKryoFactory.class.getName());
+            conf.put(EagleKryoFactory.EVENT_FIELDS, EVENT_FIELDS);
+        }
+        return conf;
+    }
+
+    private static SortedMap<String, Object> auditEvent(int i) {
+        SortedMap<String, Object> event = new TreeMap<>();
+        event.put("allowed", true);
+        event.put("cmd", "open");
+        event.put("dst", null);
+        event.put("host", "10.0.0." + (i % 256));
+        event.put("securityZone", "NA");
+        event.put("sensitivityType", "PRIVATE");
+        event.put("src", "/tmp/private/file-" + i);
+        event.put("timestamp", 1450000000000L + i);
+        event.put("user", "user" + (i % 100));
+        event.put("unknownField", i);
+        return event;
+    }
+
+    private static AlertAPIEntity alert() {
+        AlertAPIEntity alert = new AlertAPIEntity();
+        alert.setPrefix("alertdetail");
+        alert.setTimestamp(1450000000000L);
+        Map<String, String> tags = new HashMap<>();
+        tags.put("site", "sandbox");
+        tags.put("policyId", "readPrivate");
+        alert.setTags(tags);
+        alert.setDescription("read private file");
+        alert.setAlertContext("{\"properties\":{}}");
+        alert.setStreamId("hdfsAuditLogEventStream");
+        return alert;
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Map<String, Object> conf = stormConf(true);
+        KryoValuesSerializer serializer = new KryoValuesSerializer(conf);
+        KryoValuesDeserializer deserializer = new KryoValuesDeserializer(conf);
+        SortedMap<String, Object> event = auditEvent(1);
+        Tuple2<String, SortedMap<String, Object>> keyed = new Tuple2<>("user1", event);
+
+        List<Object> values = deserializer.deserialize(serializer.serialize(Arrays.<Object>asList("user1", "hdfsAuditLogEventStream", event, keyed)));
+        Assert.assertEquals("user1", values.get(0));
+        Assert.assertEquals(event, values.get(2));
+        Assert.assertEquals(TreeMap.class, values.get(2).getClass());
+        Assert.assertEquals(keyed, values.get(3));
+
+        // keyed DSL tuples carry values as a nested list
+        List<Object> keyedValues = deserializer.deserialize(serializer.serialize(Arrays.<Object>asList("user1",
+                Arrays.<Object>asList("user1", event), new LinkedList<Object>(Arrays.<Object>asList("user1", 1L)))));
+        Assert.assertEquals(Arrays.<Object>asList("user1", event), keyedValues.get(1));
+        Assert.assertEquals(LinkedList.class, keyedValues.get(2).getClass());
+        Assert.assertEquals(Arrays.<Object>asList("user1", 1L), keyedValues.get(2));
+
+        AlertAPIEntity alert = alert();
+        AlertAPIEntity copy = (AlertAPIEntity) deserializer.deserialize(serializer.serialize(Arrays.<Object>asList(alert))).get(0);
+        Assert.assertEquals(alert.getTimestamp(), copy.getTimestamp());
+        Assert.assertEquals(alert.getTags(), copy.getTags());
+        Assert.assertEquals(alert.getDescription(), copy.getDescription());
+        Assert.assertEquals(alert.getAlertContext(), copy.getAlertContext());
+        Assert.assertEquals(alert.getStreamId(), copy.getStreamId());
+        Assert.assertNull(copy.getRemediationID());
+    }
+
+    /**
+     * Bytes per tuple and serialization throughput of audit event tuples, with storm default and Eagle serializers
+     */
+    @Test
+    public void testBenchmark() {
+        int numTuples = 20000;
+        long defaultBytes = benchmark("storm default", stormConf(false), numTuples);
+        long eagleBytes = benchmark("eagle kryo", stormConf(true), numTuples);
+        Assert.assertTrue("eagle serializers should write less bytes, " + eagleBytes + " vs " + defaultBytes, eagleBytes * 2 < defaultBytes);
+    }
+
+    private long benchmark(String name, Map<String, Object> conf, int numTuples) {
+        KryoValuesSerializer serializer = new KryoValuesSerializer(conf);
+        KryoValuesDeserializer deserializer = new KryoValuesDeserializer(conf);
+        List<List<Object>> tuples = new ArrayList<>(numTuples);
+        for (int i = 0; i < numTuples; i++) {
+            SortedMap<String, Object> event = auditEvent(i);
+            tuples.add(Arrays.<Object>asList(event.get("user"), "hdfsAuditLogEventStream", event));
+        }
+        // warm up
+        for (int i = 0; i < 1000; i++) deserializer.deserialize(serializer.serialize(tuples.get(i)));
+
+        long bytes = 0;
+        long start = System.nanoTime();
+        for (List<Object> tuple : tuples) {
+            byte[] serialized = serializer.serialize(tuple);
+            bytes += serialized.length;
+            deserializer.deserialize(serialized);
+        }
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1000000);
+        LOG.info(String.format("%s: %d bytes per tuple, %d tuples/s serialized and deserialized", name, bytes / numTuples, numTuples * 1000L / elapsedMs));
+        return bytes / numTuples;
+    }
+}
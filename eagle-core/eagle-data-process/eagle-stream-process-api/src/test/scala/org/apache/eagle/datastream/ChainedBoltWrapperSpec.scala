@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.datastream
+
+import java.util
+
+import backtype.storm.task.OutputCollector
+import backtype.storm.tuple.Tuple
+import org.apache.eagle.datastream.core.StreamInfo
+import org.apache.eagle.datastream.storm.{AbstractStreamBolt, ChainedBoltWrapper, FilterBoltWrapper, MapBoltWrapper}
+import org.mockito.Mockito._
+import org.scalatest.{FlatSpec, Matchers}
+
+class ChainedBoltWrapperSpec extends FlatSpec with Matchers{
+  private def map(fn: Any => Any): AbstractStreamBolt[Any] = MapBoltWrapper(0, fn)(new StreamInfo)
+
+  private def filter(fn: Any => Boolean): AbstractStreamBolt[Any] = FilterBoltWrapper(fn)(new StreamInfo)
+
+  private def execute(operators: AbstractStreamBolt[Any]*)(value: Int): (Tuple, OutputCollector) = {
+    val collector = mock(classOf[OutputCollector])
+    val input = mock(classOf[Tuple])
+    when(input.getValues).thenReturn(util.Arrays.asList[AnyRef](Int.box(value)))
+    val bolt = ChainedBoltWrapper(operators)
+    bolt.prepare(new util.HashMap[String, AnyRef](), null, collector)
+    bolt.execute(input)
+    (input, collector)
+  }
+
+  "ChainedBoltWrapper" should "hand values to chained operators in-process and emit only output of last one" in {
+    val (input, collector) = execute(map(_.asInstanceOf[Int] * 2), filter(_.asInstanceOf[Int] > 2), map(_.asInstanceOf[Int] + 1))(2)
+    verify(collector).emit(input, util.Arrays.asList[AnyRef](Int.box(5)))
+    verify(collector, times(1)).ack(input)
+    verifyNoMoreInteractions(collector)
+  }
+
+  it should "ack input once even if chained operator emits nothing" in {
+    val (input, collector) = execute(map(_.asInstanceOf[Int] * 2), filter(_.asInstanceOf[Int] > 2), map(_.asInstanceOf[Int] + 1))(1)
+    verify(collector, times(1)).ack(input)
+    verifyNoMoreInteractions(collector)
+  }
+
+  it should "fail input once if head operator throws" in {
+    val (input, collector) = execute(map(_ => throw new IllegalStateException("head")), map(_.asInstanceOf[Int] + 1))(1)
+    verify(collector, times(1)).fail(input)
+    verifyNoMoreInteractions(collector)
+  }
+
+  it should "fail input once if chained operator throws" in {
+    val (input, collector) = execute(map(_.asInstanceOf[Int] * 2), map(_ => throw new IllegalStateException("chained")), map(_.asInstanceOf[Int] + 1))(1)
+    verify(collector, times(1)).fail(input)
+    verifyNoMoreInteractions(collector)
+  }
+}
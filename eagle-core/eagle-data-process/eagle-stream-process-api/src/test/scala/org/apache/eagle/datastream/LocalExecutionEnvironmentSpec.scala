@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.datastream
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicInteger
+
+import com.typesafe.config.ConfigFactory
+import org.apache.eagle.datastream.local.{LocalExecutionEnvironment, LocalTopologyExecutorImpl, StrategyRouter}
+import org.apache.eagle.partition.PartitionStrategy
+import org.scalatest.{BeforeAndAfter, FlatSpec, Matchers}
+
+import scala.collection.JavaConverters._
+
+class LocalExecutionEnvironmentSpec extends FlatSpec with Matchers with BeforeAndAfter {
+  import LocalExecutionEnvironmentSpec._
+
+  before {
+    collected.clear()
+  }
+
+  "LocalExecutionEnvironment" should "process values in order in synchronous mode" in {
+    val config = ConfigFactory.parseString(s"${LocalTopologyExecutorImpl.SYNCHRONOUS_CONFIG} = true").withFallback(ConfigFactory.load())
+    val env = ExecutionEnvironments.getWithConfig[LocalExecutionEnvironment](config)
+    env.from(Seq("a", "bb", "ccc", "dddd")).map(length).filter(longerThanOne).foreach(collect)
+    env.execute()
+    collected.asScala.toList should be(List(2, 3, 4))
+    env.metrics.map(_.received.get).max should be(4)
+  }
+
+  it should "send values of the same key to the same task with multiple threads" in {
+    val env = ExecutionEnvironments.get[LocalExecutionEnvironment]
+    env.from(1 to 1000).groupByKey(mod4).map(withThreadName).parallelism(4).foreach(collect)
+    env.execute()
+    val values = collected.asScala.toList.asInstanceOf[List[(String, Int)]]
+    values.map(_._2).sorted should be((1 to 1000).toList)
+    values.groupBy(v => v._2 % 4).values.foreach(group => group.map(_._1).distinct.size should be(1))
+    values.map(_._1).distinct.size should be(4)
+  }
+
+  it should "route values by custom partition strategy" in {
+    val env = ExecutionEnvironments.get[LocalExecutionEnvironment]
+    val words = (1 to 200).map(i => "w" * (i % 7 + 1))
+    env.from(words).groupBy(LengthStrategy()).map(withThreadNameOfWord).parallelism(4).foreach(collect)
+    env.execute()
+    val values = collected.asScala.toList.asInstanceOf[List[(String, String)]]
+    values.map(_._2).sorted should be(words.sorted)
+    values.foreach { case (threadName, word) => threadName should endWith(s"[${word.length % 4}]") }
+  }
+
+  "StrategyRouter" should "route with its own copy of strategy" in {
+    val strategy = LengthStrategy()
+    val routers = Seq(StrategyRouter(4, strategy, combinable = false), StrategyRouter(4, strategy, combinable = false))
+    routers.foreach(router => router.route(java.util.Arrays.asList[AnyRef]("www")) should be(3))
+    strategy.balanced should be(0)
+  }
+
+  "LocalTopologyExecutorImpl" should "block source once queue of downstream task is full" in {
+    val capacity = 2
+    val config = ConfigFactory.parseString(s"${LocalTopologyExecutorImpl.QUEUE_CAPACITY_CONFIG} = $capacity").withFallback(ConfigFactory.load())
+    val env = ExecutionEnvironments.getWithConfig[LocalExecutionEnvironment](config)
+    produced.set(0)
+    consumed.set(0)
+    env.from(countedValues).foreach(slowCollect)
+    env.execute()
+    collected.size should be(50)
+    // besides the queue, one value is being processed and source may hold one more waiting to be queued
+    collected.asScala.map(_.asInstanceOf[Int]).max should be <= (capacity + 1)
+  }
+
+  "LocalOperatorFactory" should "reject iterator source with parallelism greater than 1" in {
+    val env = ExecutionEnvironments.get[LocalExecutionEnvironment]
+    env.from(Iterator(1, 2, 3), recycle = false).parallelism(2).foreach(collect)
+    an[IllegalArgumentException] should be thrownBy env.execute()
+  }
+}
+
+object LocalExecutionEnvironmentSpec {
+  val collected = new ConcurrentLinkedQueue[Any]()
+  // foreach of non-keyed stream gets values list
+  val collect: Any => Unit = values => collected.add(values.asInstanceOf[java.util.List[_]].get(0))
+  val length: String => Int = _.length
+  val longerThanOne: Int => Boolean = _ > 1
+  val mod4: Int => Any = _ % 4
+  val withThreadName: Int => (String, Int) = value => (Thread.currentThread().getName, value)
+  val withThreadNameOfWord: String => (String, String) = value => (Thread.currentThread().getName, value)
+
+  val produced = new AtomicInteger()
+  val consumed = new AtomicInteger()
+  val countedValues: Iterable[Int] = new Iterable[Int] {
+    override def iterator: Iterator[Int] = (1 to 50).iterator.map(value => {
+      produced.incrementAndGet()
+      value
+    })
+  }
+  // collects number of values produced but not yet processed
+  val slowCollect: Any => Unit = _ => {
+    Thread.sleep(2)
+    collected.add(produced.get() - consumed.incrementAndGet())
+  }
+
+  /**
+   * Route words by their length, counting routed words of this copy
+   */
+  case class LengthStrategy() extends PartitionStrategy {
+    var balanced = 0
+
+    override def balance(key: String, buckNum: Int): Int = {
+      balanced += 1
+      key.length % buckNum
+    }
+  }
+}
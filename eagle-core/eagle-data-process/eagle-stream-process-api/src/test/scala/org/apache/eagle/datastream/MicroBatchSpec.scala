@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.datastream
+
+import java.util
+
+import backtype.storm.task.OutputCollector
+import backtype.storm.tuple.Tuple
+import com.typesafe.config.{Config, ConfigFactory}
+import org.apache.eagle.datastream.storm.{MicroBatch, MicroBatchBuffer, StormBoltWrapper}
+import org.mockito.Mockito._
+import org.scalatest.{FlatSpec, Matchers}
+
+import scala.collection.JavaConverters._
+
+class MicroBatchSpec extends FlatSpec with Matchers{
+  import MicroBatchSpec._
+
+  "MicroBatch" should "be enabled only if size is greater than 1" in {
+    MicroBatch(ConfigFactory.parseString("")) should be(None)
+    MicroBatch(ConfigFactory.parseString(s"${MicroBatch.SIZE_CONFIG} = 1")) should be(None)
+    MicroBatch(ConfigFactory.parseString(s"${MicroBatch.SIZE_CONFIG} = 64")) should be(Some(MicroBatch(64, MicroBatch.DEFAULT_TIMEOUT_MS)))
+    MicroBatch(ConfigFactory.parseString(s"${MicroBatch.SIZE_CONFIG} = 64\n${MicroBatch.TIMEOUT_CONFIG} = 2500")).get.tickFrequencySecs should be(3)
+  }
+
+  "MicroBatchBuffer" should "be due once full" in {
+    val buffer = new MicroBatchBuffer(MicroBatch(3, 60000))
+    buffer.isDue should be(false)
+    buffer.add(null)
+    buffer.add(null)
+    buffer.isDue should be(false)
+    buffer.add(null)
+    buffer.isDue should be(true)
+    buffer.drain().size should be(3)
+    buffer.size should be(0)
+    buffer.isDue should be(false)
+  }
+
+  it should "be due once first buffered tuple timed out" in {
+    val buffer = new MicroBatchBuffer(MicroBatch(100, 20))
+    buffer.add(null)
+    buffer.isDue should be(false)
+    Thread.sleep(50)
+    buffer.isDue should be(true)
+    buffer.drain().size should be(1)
+  }
+
+  "StormBoltWrapper in micro-batch" should "anchor output of batch executor to all tuples and ack them in bulk" in {
+    val (bolt, collector) = prepare(new ConcatExecutor)
+    val tuples = (1 to 3).map(i => tuple("a" + i))
+    bolt.execute(tuples(0))
+    bolt.execute(tuples(1))
+    verifyZeroInteractions(collector)
+    bolt.execute(tuples(2))
+    verify(collector).emit(tuples.asJava, util.Arrays.asList[AnyRef]("a1a2a3"))
+    tuples.foreach(t => verify(collector).ack(t))
+    verifyNoMoreInteractions(collector)
+  }
+
+  it should "fail all tuples of the batch if batch executor throws" in {
+    val (bolt, collector) = prepare(new ConcatExecutor)
+    val tuples = Seq(tuple("a1"), tuple(INVALID), tuple("a3"))
+    tuples.foreach(bolt.execute)
+    tuples.foreach(t => verify(collector).fail(t))
+    verifyNoMoreInteractions(collector)
+  }
+
+  it should "execute tuples one by one with executor not handling batches" in {
+    val (bolt, collector) = prepare(new UpperCaseExecutor)
+    val tuples = Seq(tuple("a1"), tuple(INVALID), tuple("a3"))
+    tuples.foreach(bolt.execute)
+    verify(collector).emit(tuples(0), util.Arrays.asList[AnyRef]("A1"))
+    verify(collector).emit(tuples(2), util.Arrays.asList[AnyRef]("A3"))
+    verify(collector).fail(tuples(1))
+    verify(collector).ack(tuples(0))
+    verify(collector).ack(tuples(2))
+    verifyNoMoreInteractions(collector)
+  }
+}
+
+object MicroBatchSpec {
+  val INVALID = "invalid"
+
+  def prepare(worker: StormStreamExecutor[AnyRef]): (StormBoltWrapper, OutputCollector) = {
+    val collector = mock(classOf[OutputCollector])
+    val bolt = StormBoltWrapper(worker)
+    bolt.microBatch = Some(MicroBatch(3, 60000))
+    bolt.prepare(new util.HashMap[String, AnyRef](), null, collector)
+    (bolt, collector)
+  }
+
+  def tuple(value: String): Tuple = {
+    val input = mock(classOf[Tuple])
+    when(input.getValues).thenReturn(util.Arrays.asList[AnyRef](value))
+    input
+  }
+
+  /**
+   * Emit values of each tuple in upper case, throws on invalid value
+   */
+  class UpperCaseExecutor extends StormStreamExecutor[AnyRef] {
+    override def prepareConfig(config: Config): Unit = {}
+
+    override def init: Unit = {}
+
+    override def fields: Array[String] = Array("f0")
+
+    override def flatMap(input: Seq[AnyRef], collector: Collector[AnyRef]): Unit = {
+      val value = input.head.asInstanceOf[String]
+      if (value == INVALID) throw new IllegalArgumentException(value)
+      collector.collect(Tuple1(value.toUpperCase))
+    }
+  }
+
+  /**
+   * Emit concatenated values of the whole batch, throws if any value is invalid
+   */
+  class ConcatExecutor extends UpperCaseExecutor with BatchFlatMapper[AnyRef] {
+    override def flatMapBatch(inputs: util.List[util.List[AnyRef]], collector: Collector[AnyRef]): Unit = {
+      val values = inputs.asScala.map(_.get(0).asInstanceOf[String])
+      if (values.contains(INVALID)) throw new IllegalArgumentException(values.mkString(","))
+      collector.collect(Tuple1(values.mkString))
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.datastream
+
+import com.typesafe.config.ConfigFactory
+import org.apache.eagle.datastream.core._
+import org.apache.eagle.datastream.storm.StormExecutionEnvironment
+import org.scalatest.{FlatSpec, Matchers}
+
+class StreamChainExpansionSpec extends FlatSpec with Matchers{
+  private def chainsOf(dag: StreamDAG): List[ChainedProducer[_]] = dag.iterator().collect {
+    case chain: ChainedProducer[_] => chain
+  }.toList
+
+  "StreamChainExpansion" should "fuse consecutive shuffled operators into one producer" in {
+    val env = new StormExecutionEnvironment(ConfigFactory.load())
+    env.fromSpout[String](TestSpout()).filter(_ != null).nameAs("notNull").map1(_.length).nameAs("length").foreach(println)
+    val dag = env.build
+    val chains = chainsOf(dag)
+    chains.size should be(1)
+    chains.head.operators.size should be(3)
+    chains.head.name should startWith("notNull+length+")
+    dag.getNodeByName(chains.head.name) should be(Some(chains.head))
+    dag.getNodeByName("notNull") should be(None)
+  }
+
+  it should "not fuse operators across grouping or different parallelism" in {
+    val env = new StormExecutionEnvironment(ConfigFactory.load())
+    env.fromSpout[String](TestSpout())
+      .map1(_.trim).nameAs("trim")
+      .groupBy(0)
+      .filter(_ != null).nameAs("notNull")
+      .map1(_.length).nameAs("length")
+      .map1(_ * 2).nameAs("double").parallelism(2)
+    val dag = env.build
+    val chains = chainsOf(dag)
+    chains.size should be(1)
+    chains.head.operators.map(_.name) should be(Seq("notNull", "length"))
+    dag.getNodeByName("trim").isDefined should be(true)
+    dag.getNodeByName("double").isDefined should be(true)
+  }
+
+  it should "be disabled by configuration" in {
+    val config = ConfigFactory.parseString(s"${StreamChainExpansion.CHAINING_CONFIG} = false").withFallback(ConfigFactory.load())
+    val env = new StormExecutionEnvironment(config)
+    env.fromSpout[String](TestSpout()).filter(_ != null).map1(_.length).foreach(println)
+    chainsOf(env.build) should be(Nil)
+  }
+}
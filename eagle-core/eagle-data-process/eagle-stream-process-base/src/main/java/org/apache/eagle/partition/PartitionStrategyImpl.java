@@ -23,21 +23,56 @@ import org.apache.commons.lang3.time.DateUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Route keys by the partition of their data distribution. The first routing table is built in calling thread by
+ * {@link #start(int)}, which grouping calls before any key is routed, so that no key moves between buckets right after
+ * startup. Afterwards the table is refreshed in a background thread and swapped atomically, so that
+ * {@link #balance(String, int)} never blocks on the tuple path.
+ *
+ * <p>If downstream operator is {@link Combinable}, a key whose share of load exceeds {@link #hotKeyFactor} times the
+ * share of one bucket is split into several buckets. Hot keys are detected from the data distribution on each refresh,
+ * and from keys sampled on the tuple path every {@link #hotKeyCheckInterval} in between.</p>
+ */
 public class PartitionStrategyImpl implements PartitionStrategy {
 
     public DataDistributionDao dao;
     public PartitionAlgorithm algorithm;
-    public Map<String, Integer> routingTable;
-    public long lastRefreshTime;
     public long refreshInterval;
     public long timeRange;
+    public long hotKeyCheckInterval = DEFAULT_HOT_KEY_CHECK_INTERVAL;
+    public double hotKeyFactor = DEFAULT_HOT_KEY_FACTOR;
     public static long DEFAULT_TIME_RANGE = 2 * DateUtils.MILLIS_PER_DAY;
     public static long DEFAULT_REFRESH_INTERVAL = 2 * DateUtils.MILLIS_PER_HOUR;
+    public static long DEFAULT_HOT_KEY_CHECK_INTERVAL = DateUtils.MILLIS_PER_MINUTE;
+    public static double DEFAULT_HOT_KEY_FACTOR = 1.0;
+    private static final String SPLIT_SEPARATOR = "\u0000";
+    // one of every 2^SAMPLE_SHIFT keys is sampled into a ring of SAMPLE_SIZE keys
+    private static final int SAMPLE_SHIFT = 4;
+    private static final int SAMPLE_SIZE = 8192;
     private final Logger LOG = LoggerFactory.getLogger(PartitionStrategyImpl.class);
 
+    private transient volatile RoutingTable routingTable;
+    private transient volatile int buckNum;
+    private transient volatile boolean splitHotKeys;
+    private transient volatile String[] samples;
+    private transient int sampleCount;
+    private transient List<Weight> weights;
+    private transient List<ScheduledFuture<?>> refreshTasks;
+    // shared by all strategies of the JVM, a daemon thread never keeps the worker alive
+    private static ScheduledExecutorService scheduler;
+
     public PartitionStrategyImpl(DataDistributionDao dao, PartitionAlgorithm algorithm, long refreshInterval, long timeRange) {
         this.dao = dao;
         this.algorithm = algorithm;
@@ -49,38 +84,280 @@ public class PartitionStrategyImpl implements PartitionStrategy {
         this(dao, algorithm, DEFAULT_REFRESH_INTERVAL, DEFAULT_TIME_RANGE);
     }
 
-    public boolean needRefresh() {
-        if (System.currentTimeMillis() > lastRefreshTime + refreshInterval) {
-            lastRefreshTime = System.currentTimeMillis();
-            return true;
+    @Override
+    public int balance(String key, int buckNum) {
+        return balance(key, buckNum, false);
+    }
+
+    /**
+     * @param splitHotKeys whether downstream operator is {@link Combinable}, so that a hot key may go to several buckets
+     */
+    public int balance(String key, int buckNum, boolean splitHotKeys) {
+        if (splitHotKeys) {
+            if (!this.splitHotKeys) {
+                enableHotKeySplitting();
+            }
+            sample(key);
+        }
+        RoutingTable table = routingTable;
+        if (table == null || table.getBuckNum() != buckNum) {
+            if (this.buckNum != buckNum) {
+                // not started by grouping, or number of buckets changed
+                start(buckNum);
+                table = routingTable;
+            }
+            if (table == null || table.getBuckNum() != buckNum) {
+                return RoutingTable.hash(key, buckNum);
+            }
         }
-        return false;
+        return table.route(key, splitHotKeys);
     }
 
-    public Map<String, Integer> generateRoutingTable(int buckNum) {
-        try {
-            long currentTime = System.currentTimeMillis();
-            List<Weight> weights = dao.fetchDataDistribution(currentTime - timeRange, currentTime);
-            routingTable = algorithm.partition(weights, buckNum);
-            return routingTable;
+    /**
+     * Partition hot keys into several buckets from now on
+     */
+    public synchronized void enableHotKeySplitting() {
+        if (splitHotKeys) {
+            return;
+        }
+        samples = new String[SAMPLE_SIZE];
+        splitHotKeys = true;
+        if (refreshTasks != null) {
+            scheduler().execute(new Runnable() {
+                @Override
+                public void run() {
+                    refreshHotKeysQuietly();
+                }
+            });
         }
-        catch (Exception ex) {
+    }
+
+    /**
+     * Fetch data distribution and swap in the routing table partitioned from it
+     */
+    public void refreshRoutingTable(int buckNum) {
+        LOG.info("Going to refresh routing table");
+        long currentTime = System.currentTimeMillis();
+        List<Weight> weights;
+        try {
+            weights = dao.fetchDataDistribution(currentTime - timeRange, currentTime);
+        } catch (Exception ex) {
             throw new RuntimeException(ex);
         }
+        synchronized (this) {
+            this.weights = weights;
+        }
+        routingTable = buildRoutingTable(weights, buckNum);
+        LOG.info("Finish refresh routing table");
     }
 
-    @Override
-    public int balance(String key, int buckNum) {
-        if (needRefresh()) {
-            LOG.info("Going to refresh routing table");
-            routingTable = generateRoutingTable(buckNum);
-            LOG.info("Finish refresh routing table");
+    /**
+     * Swap in the routing table partitioned from last fetched data distribution and hot keys currently sampled
+     */
+    public void refreshHotKeys(int buckNum) {
+        if (!splitHotKeys) {
+            return;
+        }
+        List<Weight> weights;
+        synchronized (this) {
+            weights = this.weights;
+        }
+        routingTable = buildRoutingTable(weights == null ? Collections.<Weight>emptyList() : weights, buckNum);
+    }
+
+    private void sample(String key) {
+        int count = ++sampleCount;
+        if ((count & ((1 << SAMPLE_SHIFT) - 1)) == 0) {
+            samples[(count >>> SAMPLE_SHIFT) & (SAMPLE_SIZE - 1)] = key;
         }
-        if (routingTable.containsKey(key)) {
-            return routingTable.get(key);
+    }
+
+    /**
+     * Build the routing table of given number of buckets in calling thread, then refresh it in background
+     */
+    public synchronized void start(int buckNum) {
+        if (this.buckNum == buckNum) {
+            return;
         }
-        else {
-            return Math.abs(key.hashCode()) % buckNum;
+        this.buckNum = buckNum;
+        try {
+            refreshRoutingTable(buckNum);
+        } catch (Throwable t) {
+            LOG.error("Failed to build routing table, keys are hashed until next refresh", t);
         }
+        if (refreshTasks != null) {
+            return;
+        }
+        ScheduledExecutorService executor = scheduler();
+        refreshTasks = new ArrayList<>(2);
+        refreshTasks.add(executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    refreshRoutingTable(PartitionStrategyImpl.this.buckNum);
+                } catch (Throwable t) {
+                    LOG.error("Failed to refresh routing table", t);
+                }
+            }
+        }, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS));
+        refreshTasks.add(executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                refreshHotKeysQuietly();
+            }
+        }, hotKeyCheckInterval, hotKeyCheckInterval, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Stop refreshing routing table in background, keys are still routed by last table
+     */
+    public synchronized void stop() {
+        if (refreshTasks == null) {
+            return;
+        }
+        for (ScheduledFuture<?> refreshTask : refreshTasks) {
+            refreshTask.cancel(false);
+        }
+        refreshTasks = null;
+    }
+
+    private static synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "partition-routing-refresher");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return scheduler;
+    }
+
+    private void refreshHotKeysQuietly() {
+        try {
+            refreshHotKeys(buckNum);
+        } catch (Throwable t) {
+            LOG.error("Failed to refresh hot keys", t);
+        }
+    }
+
+    /**
+     * Without hot key splitting, keys are partitioned by their data distribution only. Otherwise hot keys are
+     * partitioned as several keys sharing their weight, and keys sampled on the tuple path but absent in the data
+     * distribution are partitioned by their sampled share of load.
+     */
+    private RoutingTable buildRoutingTable(List<Weight> weights, int buckNum) {
+        double total = 0;
+        for (Weight weight : weights) {
+            total += weight.value;
+        }
+        Map<String, Double> sampledShares = splitHotKeys ? sampledShares() : Collections.<String, Double>emptyMap();
+        Map<String, Double> hotKeys = splitHotKeys ? detectHotKeys(weights, total, sampledShares, buckNum) : Collections.<String, Double>emptyMap();
+
+        // heaviest first, so that greedy partition algorithms spread them before the others
+        double unit = total > 0 ? total : 1.0;
+        List<Weight> partitioned = new ArrayList<>(weights.size() + sampledShares.size() + hotKeys.size() * buckNum);
+        for (Map.Entry<String, Double> hotKey : sortByShare(hotKeys)) {
+            int span = span(hotKey.getValue(), buckNum);
+            for (int i = 0; i < span; i++) {
+                partitioned.add(new Weight(hotKey.getKey() + SPLIT_SEPARATOR + i, hotKey.getValue() * unit / span));
+            }
+        }
+        Map<String, Double> unknownKeys = new HashMap<>(sampledShares);
+        for (Weight weight : weights) {
+            unknownKeys.remove(weight.key);
+            if (!hotKeys.containsKey(weight.key)) {
+                partitioned.add(weight);
+            }
+        }
+        for (Map.Entry<String, Double> unknownKey : sortByShare(unknownKeys)) {
+            if (!hotKeys.containsKey(unknownKey.getKey())) {
+                partitioned.add(new Weight(unknownKey.getKey(), unknownKey.getValue() * unit));
+            }
+        }
+        Map<String, Integer> partition = algorithm.partition(partitioned, buckNum);
+
+        Map<String, int[]> buckets = new HashMap<>(partition.size() * 2);
+        for (Map.Entry<String, Integer> entry : partition.entrySet()) {
+            if (!entry.getKey().contains(SPLIT_SEPARATOR)) {
+                buckets.put(entry.getKey(), new int[]{entry.getValue()});
+            }
+        }
+        for (Map.Entry<String, Double> hotKey : hotKeys.entrySet()) {
+            int[] hotKeyBuckets = new int[span(hotKey.getValue(), buckNum)];
+            for (int i = 0; i < hotKeyBuckets.length; i++) {
+                Integer bucket = partition.get(hotKey.getKey() + SPLIT_SEPARATOR + i);
+                hotKeyBuckets[i] = bucket == null ? RoutingTable.hash(hotKey.getKey(), buckNum) : bucket;
+            }
+            buckets.put(hotKey.getKey(), hotKeyBuckets);
+        }
+        if (!hotKeys.isEmpty()) {
+            LOG.info("Split hot keys with share of load " + hotKeys);
+        }
+        return new RoutingTable(buckets, buckNum);
+    }
+
+    /**
+     * @return share of sampled load of each key
+     */
+    private Map<String, Double> sampledShares() {
+        Map<String, Double> shares = new HashMap<>();
+        int numSamples = 0;
+        for (String key : samples.clone()) {
+            if (key != null) {
+                Double count = shares.get(key);
+                shares.put(key, count == null ? 1 : count + 1);
+                numSamples++;
+            }
+        }
+        for (Map.Entry<String, Double> entry : shares.entrySet()) {
+            entry.setValue(entry.getValue() / numSamples);
+        }
+        return shares;
+    }
+
+    /**
+     * @return share of load of each hot key, from data distribution or sampled keys whichever is higher
+     */
+    private Map<String, Double> detectHotKeys(List<Weight> weights, double total, Map<String, Double> sampledShares, int buckNum) {
+        double threshold = hotKeyFactor / buckNum;
+        Map<String, Double> hotKeys = new HashMap<>();
+        if (total > 0) {
+            for (Weight weight : weights) {
+                double share = weight.value / total;
+                if (share > threshold) {
+                    hotKeys.put(weight.key, share);
+                }
+            }
+        }
+        for (Map.Entry<String, Double> entry : sampledShares.entrySet()) {
+            Double known = hotKeys.get(entry.getKey());
+            if (entry.getValue() > threshold && (known == null || known < entry.getValue())) {
+                hotKeys.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (String key : new ArrayList<>(hotKeys.keySet())) {
+            if (span(hotKeys.get(key), buckNum) < 2) {
+                hotKeys.remove(key);
+            }
+        }
+        return hotKeys;
+    }
+
+    private static List<Map.Entry<String, Double>> sortByShare(Map<String, Double> shares) {
+        List<Map.Entry<String, Double>> sorted = new ArrayList<>(shares.entrySet());
+        Collections.sort(sorted, new Comparator<Map.Entry<String, Double>>() {
+            @Override
+            public int compare(Map.Entry<String, Double> o1, Map.Entry<String, Double> o2) {
+                return Double.compare(o2.getValue(), o1.getValue());
+            }
+        });
+        return sorted;
+    }
+
+    private static int span(double share, int buckNum) {
+        return Math.min(buckNum, (int) Math.ceil(share * buckNum));
     }
 }
@@ -0,0 +1,96 @@
+/*
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more
+ *    contributor license agreements.  See the NOTICE file distributed with
+ *    this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0
+ *    (the "License"); you may not use this file except in compliance with
+ *    the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package org.apache.eagle.partition;
+
+import java.util.Map;
+
+/**
+ * Immutable routing table built in background by {@link PartitionStrategyImpl}, keys are looked up in open addressing
+ * arrays so that routing on the tuple path neither locks nor allocates.
+ *
+ * <p>A key is routed to one bucket, or round robin over several buckets if it is split as a hot key.</p>
+ */
+public final class RoutingTable {
+    private final int buckNum;
+    private final int mask;
+    private final String[] keys;
+    private final int[][] buckets;
+    // Round robin position of split keys, lost updates between threads only shift the rotation
+    private int next;
+
+    /**
+     * @param partition buckets of each key, more than one bucket if the key is split
+     * @param buckNum number of buckets
+     */
+    public RoutingTable(Map<String, int[]> partition, int buckNum) {
+        this.buckNum = buckNum;
+        int capacity = 2;
+        while (capacity < partition.size() * 2) {
+            capacity <<= 1;
+        }
+        this.mask = capacity - 1;
+        this.keys = new String[capacity];
+        this.buckets = new int[capacity][];
+        for (Map.Entry<String, int[]> entry : partition.entrySet()) {
+            int slot = spread(entry.getKey().hashCode()) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = entry.getKey();
+            buckets[slot] = entry.getValue();
+        }
+    }
+
+    public int getBuckNum() {
+        return buckNum;
+    }
+
+    /**
+     * @param key partition key
+     * @param split whether a hot key may be routed to any of its buckets
+     * @return bucket of key, or hash of key if absent
+     */
+    public int route(String key, boolean split) {
+        int slot = spread(key.hashCode()) & mask;
+        String current;
+        while ((current = keys[slot]) != null) {
+            if (current.equals(key)) {
+                int[] candidates = buckets[slot];
+                if (split && candidates.length > 1) {
+                    return candidates[(next++ & Integer.MAX_VALUE) % candidates.length];
+                }
+                return candidates[0];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return hash(key, buckNum);
+    }
+
+    /**
+     * Bucket of key not in routing table
+     */
+    public static int hash(String key, int buckNum) {
+        return Math.abs(key.hashCode() % buckNum);
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.datastream
+
+/**
+ * Executor able to handle a micro-batch of inputs in one call, to amortize per-call overhead such as locking or I/O.
+ *
+ * Used by executor bolts when micro-batch is enabled with "envContextConfig.microBatch.size", outputs are then
+ * anchored to all inputs of the batch. Executors not implementing it still get inputs one by one.
+ */
+trait BatchFlatMapper[T] {
+  /**
+   * @param inputs values of each input tuple in arrival order
+   */
+  def flatMapBatch(inputs : java.util.List[java.util.List[AnyRef]], collector : Collector[T])
+}
@@ -0,0 +1,275 @@
+/*
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more
+ *    contributor license agreements.  See the NOTICE file distributed with
+ *    this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0
+ *    (the "License"); you may not use this file except in compliance with
+ *    the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package org.apache.eagle.metric.reportor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Listener which buffers flushed metrics in a bounded queue and writes them to the delegate listener
+ * (e.g. {@link EagleServiceReporterMetricListener}) in batches from a background thread, so that emitting
+ * metrics never blocks the event thread on a service call.
+ *
+ * <p>A batch is written once it has <code>batchSize</code> metrics, or <code>flushIntervalMs</code> after its first metric arrives.
+ * When the queue is full, metrics are dropped or the caller is blocked according to {@link OverflowPolicy}.</p>
+ *
+ * <p>A delegate {@link EagleServiceReporterMetricListener} reports failed writes, which are counted. Queue depth, dropped,
+ * failed and flushed counts and flush latency are written as gauges along with the metrics once enabled by
+ * {@link #reportListenerMetrics(Map, long)}.</p>
+ */
+public class AsyncEagleMetricListener implements EagleMetricListener {
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncEagleMetricListener.class);
+
+    public static final int DEFAULT_CAPACITY = 10000;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 5000;
+    public static final long DEFAULT_LISTENER_METRICS_INTERVAL_MS = 60000;
+
+    public static final String QUEUE_DEPTH_METRIC_NAME = "eagle.metric.listener.queue.depth";
+    public static final String DROPPED_METRIC_NAME = "eagle.metric.listener.dropped.count";
+    public static final String FAILED_METRIC_NAME = "eagle.metric.listener.failed.count";
+    public static final String FLUSHED_METRIC_NAME = "eagle.metric.listener.flushed.count";
+    public static final String MAX_FLUSH_LATENCY_METRIC_NAME = "eagle.metric.listener.flush.latency.max";
+
+    public enum OverflowPolicy {
+        /**
+         * drop the metric being added
+         */
+        DROP_NEWEST,
+        /**
+         * drop the oldest metric in the queue to make room
+         */
+        DROP_OLDEST,
+        /**
+         * block the caller until there is room, i.e. back-pressure
+         */
+        BLOCK
+    }
+
+    private final EagleMetricListener delegate;
+    private final BlockingQueue<EagleMetric> queue;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final OverflowPolicy overflowPolicy;
+    private final Thread worker;
+    private volatile boolean running = true;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private volatile long lastFlushLatencyMs;
+    private volatile long maxFlushLatencyMs;
+    private long reportedDropped;
+    private volatile Map<String, String> listenerMetricDimensions;
+    private volatile long listenerMetricsIntervalMs;
+    private long lastListenerMetricsTime = System.currentTimeMillis();
+
+    public AsyncEagleMetricListener(EagleMetricListener delegate) {
+        this(delegate, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL_MS, OverflowPolicy.DROP_NEWEST);
+    }
+
+    /**
+     * @param delegate listener which writes metrics synchronously
+     * @param capacity max number of metrics waiting to be written
+     * @param batchSize max number of metrics written by one call of delegate
+     * @param flushIntervalMs max time in milliseconds a metric waits for its batch to fill
+     * @param overflowPolicy what to do when the queue is full
+     */
+    public AsyncEagleMetricListener(EagleMetricListener delegate, int capacity, int batchSize, long flushIntervalMs, OverflowPolicy overflowPolicy) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.overflowPolicy = overflowPolicy;
+        this.worker = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "eagle-metric-reporter");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Write counters of this listener as gauges through the delegate every intervalMs
+     *
+     * @param dimensions tags of the gauges, e.g. site and application
+     */
+    public void reportListenerMetrics(Map<String, String> dimensions, long intervalMs) {
+        this.listenerMetricsIntervalMs = intervalMs;
+        this.listenerMetricDimensions = dimensions;
+    }
+
+    @Override
+    public void onMetricFlushed(List<EagleMetric> metrics) {
+        for (EagleMetric metric : metrics) {
+            enqueue(metric);
+        }
+    }
+
+    private void enqueue(EagleMetric metric) {
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    queue.put(metric);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    dropped.incrementAndGet();
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(metric)) {
+                    if (queue.poll() != null) dropped.incrementAndGet();
+                }
+                break;
+            default:
+                if (!queue.offer(metric)) dropped.incrementAndGet();
+        }
+    }
+
+    private void writeLoop() {
+        List<EagleMetric> batch = new ArrayList<>(batchSize);
+        while (running) {
+            writeListenerMetrics();
+            try {
+                EagleMetric first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                // coalesce metrics arriving within flush interval into one write
+                long deadline = System.currentTimeMillis() + flushIntervalMs;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long wait = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || wait <= 0) break;
+                    EagleMetric next = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException ex) {
+                LOG.warn("Interrupted, stop writing metrics");
+                running = false;
+            }
+            write(batch);
+        }
+        while (!queue.isEmpty()) {
+            queue.drainTo(batch, batchSize);
+            write(batch);
+        }
+    }
+
+    private void write(List<EagleMetric> batch) {
+        if (batch.isEmpty()) return;
+        long start = System.currentTimeMillis();
+        if (send(batch)) flushed.addAndGet(batch.size());
+        else failed.addAndGet(batch.size());
+        lastFlushLatencyMs = System.currentTimeMillis() - start;
+        if (lastFlushLatencyMs > maxFlushLatencyMs) maxFlushLatencyMs = lastFlushLatencyMs;
+        batch.clear();
+
+        long totalDropped = dropped.get();
+        if (totalDropped > reportedDropped) {
+            LOG.warn((totalDropped - reportedDropped) + " metrics are dropped as queue is full, total dropped: " + totalDropped);
+            reportedDropped = totalDropped;
+        }
+    }
+
+    /**
+     * @return false if the delegate fails to write the metrics
+     */
+    private boolean send(List<EagleMetric> metrics) {
+        try {
+            if (delegate instanceof EagleServiceReporterMetricListener) {
+                return ((EagleServiceReporterMetricListener) delegate).write(metrics);
+            }
+            delegate.onMetricFlushed(metrics);
+            return true;
+        } catch (Exception ex) {
+            LOG.error("Got exception while writing " + metrics.size() + " metrics", ex);
+            return false;
+        }
+    }
+
+    private void writeListenerMetrics() {
+        Map<String, String> dimensions = listenerMetricDimensions;
+        long now = System.currentTimeMillis();
+        if (dimensions == null || now - lastListenerMetricsTime < listenerMetricsIntervalMs) return;
+        lastListenerMetricsTime = now;
+        List<EagleMetric> gauges = new ArrayList<>(5);
+        gauges.add(gauge(now, QUEUE_DEPTH_METRIC_NAME, dimensions, queue.size()));
+        gauges.add(gauge(now, DROPPED_METRIC_NAME, dimensions, dropped.get()));
+        gauges.add(gauge(now, FAILED_METRIC_NAME, dimensions, failed.get()));
+        gauges.add(gauge(now, FLUSHED_METRIC_NAME, dimensions, flushed.get()));
+        gauges.add(gauge(now, MAX_FLUSH_LATENCY_METRIC_NAME, dimensions, maxFlushLatencyMs));
+        // sent directly, so that they are neither dropped with a full queue nor counted as flushed
+        send(gauges);
+    }
+
+    private static EagleGaugeMetric gauge(long timestamp, String metricName, Map<String, String> dimensions, double value) {
+        return new EagleGaugeMetric(timestamp, MetricKeyCodeDecoder.codeTSMetricKey(timestamp, metricName, dimensions), value);
+    }
+
+    /**
+     * Stop the background thread after metrics in the queue are written, it may take up to flush interval
+     */
+    public void close() {
+        running = false;
+        try {
+            worker.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return number of metrics waiting to be written
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getFlushedCount() {
+        return flushed.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getLastFlushLatencyMs() {
+        return lastFlushLatencyMs;
+    }
+
+    public long getMaxFlushLatencyMs() {
+        return maxFlushLatencyMs;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more
+ *    contributor license agreements.  See the NOTICE file distributed with
+ *    this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0
+ *    (the "License"); you may not use this file except in compliance with
+ *    the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package org.apache.eagle.metric.reportor;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counter resolved once by {@link EagleCounterRegistry#counter(String, java.util.Map)},
+ * so that updating it is a single atomic add without building metric key or looking up registry.
+ */
+public class EagleCounterHandle {
+    private final String name;
+    private final AtomicLong value = new AtomicLong();
+
+    EagleCounterHandle(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return encoded metric key, see {@link MetricKeyCodeDecoder#codeMetricKey(String, java.util.Map)}
+     */
+    public String getName() {
+        return name;
+    }
+
+    public void inc() {
+        value.incrementAndGet();
+    }
+
+    public void inc(long n) {
+        value.addAndGet(n);
+    }
+
+    /**
+     * @return count since last flush
+     */
+    public long getCount() {
+        return value.get();
+    }
+
+    long drain() {
+        return value.getAndSet(0);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more
+ *    contributor license agreements.  See the NOTICE file distributed with
+ *    this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0
+ *    (the "License"); you may not use this file except in compliance with
+ *    the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package org.apache.eagle.metric.reportor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Registry of pre-resolved {@link EagleCounterHandle}s, which are counted on event thread and flushed
+ * to {@link EagleMetricListener} in one batch per granularity period by a background thread.
+ *
+ * <p>Unlike {@link EagleCounterMetric}, periods are aligned to wall clock and flushed even if no event comes after them.</p>
+ */
+public class EagleCounterRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(EagleCounterRegistry.class);
+
+    private static ScheduledExecutorService flusher;
+
+    private final ConcurrentMap<String, EagleCounterHandle> counters = new ConcurrentHashMap<>();
+    /**
+     * Removed counters whose last counts are not flushed yet
+     */
+    private final Queue<EagleCounterHandle> removed = new ConcurrentLinkedQueue<>();
+    private final EagleMetricListener listener;
+    private final long granularity;
+    private ScheduledFuture<?> flushTask;
+
+    /**
+     * @param listener listener of flushed metrics
+     * @param granularity period of counters in milliseconds
+     */
+    public EagleCounterRegistry(EagleMetricListener listener, long granularity) {
+        this.listener = listener;
+        this.granularity = granularity;
+    }
+
+    private static synchronized ScheduledExecutorService getFlusher() {
+        if (flusher == null) {
+            flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+                    thread.setName("eagle-metric-flusher");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return flusher;
+    }
+
+    /**
+     * Resolve the counter, it's created at the first time
+     *
+     * @param metricName metric name
+     * @param dimensions tags of the metric
+     */
+    public EagleCounterHandle counter(String metricName, Map<String, String> dimensions) {
+        String key = MetricKeyCodeDecoder.codeMetricKey(metricName, dimensions);
+        EagleCounterHandle counter = counters.get(key);
+        if (counter == null) {
+            counter = new EagleCounterHandle(key);
+            EagleCounterHandle existing = counters.putIfAbsent(key, counter);
+            if (existing != null) counter = existing;
+        }
+        return counter;
+    }
+
+    /**
+     * Remove the counter, e.g. when its policy is deleted, counts since last flush are still flushed once
+     */
+    public void remove(EagleCounterHandle counter) {
+        if (counters.remove(counter.getName(), counter)) removed.add(counter);
+    }
+
+    /**
+     * @return number of registered counters
+     */
+    public int size() {
+        return counters.size();
+    }
+
+    /**
+     * Start flushing counters at the end of every granularity period
+     */
+    public synchronized void start() {
+        if (flushTask != null) return;
+        long now = System.currentTimeMillis();
+        flushTask = getFlusher().scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                // counts of the period which just ends
+                flush(trim(System.currentTimeMillis()) - granularity);
+            }
+        }, granularity - now % granularity, granularity, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop flushing, counts of the current period are flushed immediately
+     */
+    public synchronized void stop() {
+        if (flushTask == null) return;
+        flushTask.cancel(false);
+        flushTask = null;
+        flush(trim(System.currentTimeMillis()));
+    }
+
+    private long trim(long timestamp) {
+        return timestamp / granularity * granularity;
+    }
+
+    private void drainTo(List<EagleMetric> metrics, EagleCounterHandle counter, long timestamp) {
+        long count = counter.drain();
+        if (count > 0) {
+            String name = MetricKeyCodeDecoder.addTimestampToMetricKey(timestamp, counter.getName());
+            metrics.add(new EagleCounterMetric(timestamp, name, count, granularity));
+        }
+    }
+
+    /**
+     * Flush counts since last flush as metrics of the given timestamp, counters which are not counted are skipped
+     */
+    public void flush(long timestamp) {
+        List<EagleMetric> metrics = new ArrayList<>();
+        for (EagleCounterHandle counter : counters.values()) {
+            drainTo(metrics, counter, timestamp);
+        }
+        EagleCounterHandle counter;
+        while ((counter = removed.poll()) != null) {
+            drainTo(metrics, counter, timestamp);
+        }
+        if (metrics.isEmpty()) return;
+        try {
+            listener.onMetricFlushed(metrics);
+        } catch (Exception ex) {
+            LOG.error("Got exception while flushing " + metrics.size() + " metrics", ex);
+        }
+    }
+}
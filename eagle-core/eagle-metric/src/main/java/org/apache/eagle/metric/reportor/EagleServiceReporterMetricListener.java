@@ -42,6 +42,14 @@ public class EagleServiceReporterMetricListener implements EagleMetricListener{
     }
 
     public void onMetricFlushed(List<EagleMetric> metrics) {
+        write(metrics);
+    }
+
+    /**
+     * Same as {@link #onMetricFlushed(List)}, failures are logged and reported to the caller
+     * @return true if all metrics are written to service
+     */
+    public boolean write(List<EagleMetric> metrics) {
         List<GenericMetricEntity> entities = new ArrayList<>();
         for (EagleMetric metric : metrics) {
             String metricName = metric.name;
@@ -52,6 +60,7 @@ public class EagleServiceReporterMetricListener implements EagleMetricListener{
             GenericServiceAPIResponseEntity<String> response = client.create(entities, GenericMetricEntity.GENERIC_METRIC_SERVICE);
             if(response.isSuccess()) {
                 LOG.info("Wrote " + total + " entities to service");
+                return true;
             }else{
                 LOG.error("Failed to write " + total + " entities to service, due to server exception: "+ response.getException());
             }
@@ -59,5 +68,6 @@ public class EagleServiceReporterMetricListener implements EagleMetricListener{
         catch (Exception ex) {
             LOG.error("Got exception while writing entities: ", ex);
         }
+        return false;
     }
 }
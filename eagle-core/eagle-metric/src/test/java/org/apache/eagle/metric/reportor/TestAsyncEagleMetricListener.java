@@ -0,0 +1,121 @@
+/*
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more
+ *    contributor license agreements.  See the NOTICE file distributed with
+ *    this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0
+ *    (the "License"); you may not use this file except in compliance with
+ *    the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package org.apache.eagle.metric.reportor;
+
+import junit.framework.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class TestAsyncEagleMetricListener {
+
+    private EagleMetric createMetric(int i) {
+        return new EagleGaugeMetric(0, "0/metric" + i, i);
+    }
+
+    @Test
+    public void testBatch() {
+        final List<Integer> batchSizes = new ArrayList<>();
+        AsyncEagleMetricListener listener = new AsyncEagleMetricListener(new EagleMetricListener() {
+            @Override
+            public void onMetricFlushed(List<EagleMetric> metrics) {
+                batchSizes.add(metrics.size());
+            }
+        }, 100, 4, 100, AsyncEagleMetricListener.OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 10; i++) {
+            listener.onMetricFlushed(Arrays.asList(createMetric(i)));
+        }
+        listener.close();
+        Assert.assertEquals(10, listener.getFlushedCount());
+        Assert.assertEquals(0, listener.getDroppedCount());
+        Assert.assertEquals(0, listener.getQueueDepth());
+        for (int size : batchSizes) {
+            Assert.assertTrue(size <= 4);
+        }
+    }
+
+    @Test
+    public void testDropNewest() throws Exception {
+        final CountDownLatch writing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        AsyncEagleMetricListener listener = new AsyncEagleMetricListener(new EagleMetricListener() {
+            @Override
+            public void onMetricFlushed(List<EagleMetric> metrics) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        }, 2, 1, 100, AsyncEagleMetricListener.OverflowPolicy.DROP_NEWEST);
+        listener.onMetricFlushed(Arrays.asList(createMetric(0)));
+        Assert.assertTrue(writing.await(10, TimeUnit.SECONDS));
+        // background thread is blocked by the first write, only 2 of them can be queued
+        listener.onMetricFlushed(Arrays.asList(createMetric(1), createMetric(2), createMetric(3), createMetric(4), createMetric(5)));
+        Assert.assertEquals(2, listener.getQueueDepth());
+        Assert.assertEquals(3, listener.getDroppedCount());
+        release.countDown();
+        listener.close();
+        Assert.assertEquals(3, listener.getFlushedCount());
+    }
+
+    @Test
+    public void testFailedWriteCounted() {
+        AsyncEagleMetricListener listener = new AsyncEagleMetricListener(new EagleServiceReporterMetricListener("localhost", 0) {
+            @Override
+            public boolean write(List<EagleMetric> metrics) {
+                return false;
+            }
+        }, 100, 4, 100, AsyncEagleMetricListener.OverflowPolicy.DROP_NEWEST);
+        for (int i = 0; i < 10; i++) {
+            listener.onMetricFlushed(Arrays.asList(createMetric(i)));
+        }
+        listener.close();
+        Assert.assertEquals(10, listener.getFailedCount());
+        Assert.assertEquals(0, listener.getFlushedCount());
+    }
+
+    @Test
+    public void testListenerMetricsReported() throws Exception {
+        final List<String> names = Collections.synchronizedList(new ArrayList<String>());
+        AsyncEagleMetricListener listener = new AsyncEagleMetricListener(new EagleMetricListener() {
+            @Override
+            public void onMetricFlushed(List<EagleMetric> metrics) {
+                for (EagleMetric metric : metrics) {
+                    names.add(MetricKeyCodeDecoder.decodeTSMetricKey(metric.name).metricName);
+                }
+            }
+        }, 100, 4, 100, AsyncEagleMetricListener.OverflowPolicy.DROP_NEWEST);
+        listener.reportListenerMetrics(Collections.singletonMap("site", "sandbox"), 50);
+        Thread.sleep(500);
+        listener.close();
+        Assert.assertTrue(names.contains(AsyncEagleMetricListener.QUEUE_DEPTH_METRIC_NAME));
+        Assert.assertTrue(names.contains(AsyncEagleMetricListener.DROPPED_METRIC_NAME));
+        Assert.assertTrue(names.contains(AsyncEagleMetricListener.FAILED_METRIC_NAME));
+        // listener metrics are not counted as written metrics
+        Assert.assertEquals(0, listener.getFlushedCount());
+    }
+}
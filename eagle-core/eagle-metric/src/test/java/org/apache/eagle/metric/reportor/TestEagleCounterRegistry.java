@@ -0,0 +1,93 @@
+/*
+ *
+ *    Licensed to the Apache Software Foundation (ASF) under one or more
+ *    contributor license agreements.  See the NOTICE file distributed with
+ *    this work for additional information regarding copyright ownership.
+ *    The ASF licenses this file to You under the Apache License, Version 2.0
+ *    (the "License"); you may not use this file except in compliance with
+ *    the License.  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ */
+
+package org.apache.eagle.metric.reportor;
+
+import junit.framework.Assert;
+import org.apache.eagle.log.entity.GenericMetricEntity;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestEagleCounterRegistry {
+
+    @Test
+    public void testFlush() {
+        final List<EagleMetric> flushed = new ArrayList<>();
+        EagleCounterRegistry counters = new EagleCounterRegistry(new EagleMetricListener() {
+            @Override
+            public void onMetricFlushed(List<EagleMetric> metrics) {
+                flushed.addAll(metrics);
+            }
+        }, 60000);
+
+        Map<String, String> dimensions = new HashMap<>();
+        dimensions.put("policyId", "policy1");
+        EagleCounterHandle counter = counters.counter("eagle.policy.eval.count", dimensions);
+        Assert.assertSame(counter, counters.counter("eagle.policy.eval.count", dimensions));
+        counter.inc();
+        counter.inc(2);
+        Assert.assertEquals(3, counter.getCount());
+
+        counters.flush(120000);
+        Assert.assertEquals(1, flushed.size());
+        Assert.assertEquals(0, counter.getCount());
+        GenericMetricEntity entity = MetricEntityAdaptor.convert(flushed.get(0).name, flushed.get(0));
+        Assert.assertEquals("eagle.policy.eval.count", entity.getPrefix());
+        Assert.assertEquals(120000, entity.getTimestamp());
+        Assert.assertEquals("policy1", entity.getTags().get("policyId"));
+        Assert.assertEquals(3.0, entity.getValue()[0]);
+
+        // nothing is counted since last flush
+        counters.flush(180000);
+        Assert.assertEquals(1, flushed.size());
+    }
+
+    @Test
+    public void testRemove() {
+        final List<EagleMetric> flushed = new ArrayList<>();
+        EagleCounterRegistry counters = new EagleCounterRegistry(new EagleMetricListener() {
+            @Override
+            public void onMetricFlushed(List<EagleMetric> metrics) {
+                flushed.addAll(metrics);
+            }
+        }, 60000);
+
+        Map<String, String> dimensions = new HashMap<>();
+        dimensions.put("policyId", "policy1");
+        EagleCounterHandle counter = counters.counter("eagle.policy.eval.count", dimensions);
+        counter.inc(2);
+        counters.remove(counter);
+        Assert.assertEquals(0, counters.size());
+
+        // counts before removal are flushed once
+        counters.flush(120000);
+        Assert.assertEquals(1, flushed.size());
+        Assert.assertEquals(2.0, MetricEntityAdaptor.convert(flushed.get(0).name, flushed.get(0)).getValue()[0]);
+        counter.inc();
+        counters.flush(180000);
+        Assert.assertEquals(1, flushed.size());
+
+        // a new counter is created for the same key afterwards
+        Assert.assertNotSame(counter, counters.counter("eagle.policy.eval.count", dimensions));
+    }
+}
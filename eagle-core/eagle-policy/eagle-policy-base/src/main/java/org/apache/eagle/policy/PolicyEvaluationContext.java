@@ -19,6 +19,7 @@ package org.apache.eagle.policy;
 import org.apache.eagle.alert.entity.AbstractPolicyDefinitionEntity;
 import org.apache.eagle.datastream.Collector;
 import org.apache.eagle.policy.executor.IPolicyExecutor;
+import org.apache.eagle.policy.siddhi.SiddhiPolicyGroupRuntime;
 
 public class PolicyEvaluationContext<T extends AbstractPolicyDefinitionEntity, K> {
 	
@@ -31,4 +32,9 @@ public class PolicyEvaluationContext<T extends AbstractPolicyDefinitionEntity, K
 	public Collector outputCollector;
 	
 	public ResultRender<T, K> resultRender;
+
+	/**
+	 * Siddhi execution plan shared by policies of the executor, null if each policy has its own execution plan
+	 */
+	public SiddhiPolicyGroupRuntime<T, K> siddhiGroupRuntime;
 }
\ No newline at end of file
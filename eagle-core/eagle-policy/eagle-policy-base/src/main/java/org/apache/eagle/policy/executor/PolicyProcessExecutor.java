@@ -16,7 +16,6 @@
  */
 package org.apache.eagle.policy.executor;
 
-import com.codahale.metrics.MetricRegistry;
 import com.sun.jersey.client.impl.CopyOnWriteHashMap;
 import com.typesafe.config.Config;
 import org.apache.commons.lang3.time.DateUtils;
@@ -25,28 +24,41 @@ import org.apache.eagle.alert.entity.AlertDefinitionAPIEntity;
 import org.apache.eagle.common.config.EagleConfigConstants;
 import org.apache.eagle.dataproc.core.JsonSerDeserUtils;
 import org.apache.eagle.dataproc.core.ValuesArray;
+import org.apache.eagle.datastream.BatchFlatMapper;
 import org.apache.eagle.datastream.Collector;
 import org.apache.eagle.datastream.JavaStormStreamExecutor2;
-import org.apache.eagle.metric.reportor.EagleCounterMetric;
+import org.apache.eagle.metric.reportor.EagleCounterHandle;
+import org.apache.eagle.metric.reportor.EagleCounterRegistry;
 import org.apache.eagle.metric.reportor.EagleMetricListener;
 import org.apache.eagle.metric.reportor.EagleServiceReporterMetricListener;
-import org.apache.eagle.metric.reportor.MetricKeyCodeDecoder;
 import org.apache.eagle.policy.*;
 import org.apache.eagle.policy.common.Constants;
 import org.apache.eagle.policy.config.AbstractPolicyDefinition;
 import org.apache.eagle.policy.dao.AlertStreamSchemaDAO;
 import org.apache.eagle.policy.dao.AlertStreamSchemaDAOImpl;
 import org.apache.eagle.policy.dao.PolicyDefinitionDAO;
+import org.apache.eagle.policy.siddhi.SiddhiPolicyEvaluator;
+import org.apache.eagle.policy.siddhi.SiddhiPolicyGroupRuntime;
+import org.apache.eagle.policy.siddhi.SiddhiStreamMetadataUtils;
 import org.apache.eagle.policy.siddhi.StreamMetadataManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import scala.Tuple2;
 
+import java.io.Closeable;
 import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * The stream process executor based on two types
@@ -57,7 +69,7 @@ import java.util.Map.Entry;
  */
 public abstract class PolicyProcessExecutor<T extends AbstractPolicyDefinitionEntity, K>
 		extends JavaStormStreamExecutor2<String, K> 
-		implements PolicyLifecycleMethods<T>, PolicyDistributionReportMethods, IPolicyExecutor<T, K>
+		implements PolicyLifecycleMethods<T>, PolicyDistributionReportMethods, IPolicyExecutor<T, K>, BatchFlatMapper<Tuple2<String, K>>, Closeable
 {
 	
 	private static final long serialVersionUID = 1L;
@@ -69,6 +81,8 @@ public abstract class PolicyProcessExecutor<T extends AbstractPolicyDefinitionEn
 	public static final String EAGLE_ALERT_COUNT = "eagle.alert.count";
 	public static final String EAGLE_ALERT_FAIL_COUNT = "eagle.alert.fail.count";
 
+	private static final String SHARED_PLAN_LANE_KEY = "siddhiGroupRuntime";
+
 	private	 static long MERITE_GRANULARITY = DateUtils.MILLIS_PER_MINUTE;
 
 	private final Class<T> policyDefinitionClz;
@@ -80,6 +94,19 @@ public abstract class PolicyProcessExecutor<T extends AbstractPolicyDefinitionEn
 	private Config config;
 	private Map<String, Map<String, T>> initialAlertDefs;
 	private String[] sourceStreams;
+	/**
+	 * Siddhi execution plan shared by all Siddhi policies of this executor partition, null if disabled
+	 */
+	private SiddhiPolicyGroupRuntime<T, K> siddhiGroupRuntime;
+	/**
+	 * Evaluation lanes, each policy is always evaluated by the same lane, null if policies are evaluated sequentially by the calling thread
+	 */
+	private transient List<EvaluationLane> lanes;
+	/**
+	 * Alerts of policies evaluated by lanes, emitted by the calling thread
+	 */
+	private transient AlertHandoff<Tuple2<String, K>> alertHandoff;
+	private boolean needValidation;
 
 	/**
 	 * metricMap's key = metricName[#policyId]
@@ -87,8 +114,32 @@ public abstract class PolicyProcessExecutor<T extends AbstractPolicyDefinitionEn
 	private Map<String, Map<String, String>> dimensionsMap; // cache it for performance
 	private Map<String, String> baseDimensions;
 
-	private MetricRegistry registry;
 	private EagleMetricListener listener;
+	private EagleCounterRegistry counters;
+	private EagleCounterHandle eventCounter;
+	private EagleCounterHandle alertFailCounter;
+	private ConcurrentMap<String, PolicyCounters> policyCounters;
+
+	/**
+	 * Counters of a policy, resolved once so that counting an event doesn't build metric keys
+	 */
+	private static class PolicyCounters {
+		final EagleCounterHandle evalCount;
+		final EagleCounterHandle evalFailCount;
+		final EagleCounterHandle alertCount;
+
+		PolicyCounters(EagleCounterRegistry counters, Map<String, String> dimensions) {
+			this.evalCount = counters.counter(EAGLE_POLICY_EVAL_COUNT, dimensions);
+			this.evalFailCount = counters.counter(EAGLE_POLICY_EVAL_FAIL_COUNT, dimensions);
+			this.alertCount = counters.counter(EAGLE_ALERT_COUNT, dimensions);
+		}
+
+		void remove(EagleCounterRegistry counters) {
+			counters.remove(evalCount);
+			counters.remove(evalFailCount);
+			counters.remove(alertCount);
+		}
+	}
 
 	private PolicyDefinitionDAO<T> policyDefinitionDao;
 
@@ -145,7 +196,6 @@ public abstract class PolicyProcessExecutor<T extends AbstractPolicyDefinitionEn
 		String password = config.hasPath(EagleConfigConstants.EAGLE_PROPS + "." + EagleConfigConstants.EAGLE_SERVICE + "." + EagleConfigConstants.PASSWORD) ?
 				          config.getString(EagleConfigConstants.EAGLE_PROPS + "." + EagleConfigConstants.EAGLE_SERVICE + "." + EagleConfigConstants.PASSWORD) : null;
 		
-		registry = new MetricRegistry();
 		listener = new EagleServiceReporterMetricListener(host, port, username, password);
 		
 		baseDimensions = new HashMap<>();
@@ -157,6 +207,13 @@ public abstract class PolicyProcessExecutor<T extends AbstractPolicyDefinitionEn
 		baseDimensions.put(EagleConfigConstants.SITE, config.getString(EagleConfigConstants.EAGLE_PROPS + "." + EagleConfigConstants.SITE));
 
 		dimensionsMap = new HashMap<String, Map<String, String>>();
+
+		// counters are flushed to eagle service by background thread
+		counters = new EagleCounterRegistry(listener, MERITE_GRANULARITY);
+		eventCounter = counters.counter(EAGLE_EVENT_COUNT, baseDimensions);
+		alertFailCounter = counters.counter(EAGLE_ALERT_FAIL_COUNT, baseDimensions);
+		policyCounters = new ConcurrentHashMap<>();
+		counters.start();
 	}
 
     public AlertStreamSchemaDAO getAlertStreamSchemaDAO(Config config){
@@ -167,6 +224,23 @@ public abstract class PolicyProcessExecutor<T extends AbstractPolicyDefinitionEn
 	public void init() {
 		// initialize StreamMetadataManager before it is used
 		StreamMetadataManager.getInstance().init(config, getAlertStreamSchemaDAO(config));
+		String sharedRuntimeConfigKey = Constants.ALERT_EXECUTOR_CONFIGS + "." + executorId + ".sharedSiddhiRuntime";
+		if(config.hasPath(sharedRuntimeConfigKey) && config.getBoolean(sharedRuntimeConfigKey)){
+			siddhiGroupRuntime = new SiddhiPolicyGroupRuntime<>(config, sourceStreams, needValidation());
+		}
+		needValidation = needValidation();
+		String evaluationThreadsConfigKey = Constants.ALERT_EXECUTOR_CONFIGS + "." + executorId + ".evaluationThreads";
+		int evaluationThreads = config.hasPath(evaluationThreadsConfigKey) ? config.getInt(evaluationThreadsConfigKey) : 1;
+		if(evaluationThreads > 1){
+			String queueCapacityConfigKey = Constants.ALERT_EXECUTOR_CONFIGS + "." + executorId + ".evaluationQueueCapacity";
+			int queueCapacity = config.hasPath(queueCapacityConfigKey) ? config.getInt(queueCapacityConfigKey) : 1000;
+			alertHandoff = new AlertHandoff<>();
+			lanes = new ArrayList<>(evaluationThreads);
+			for (int i = 0; i < evaluationThreads; i++) {
+				lanes.add(new EvaluationLane(i, queueCapacity));
+			}
+			LOG.info("Policies are evaluated in parallel by " + evaluationThreads + " lanes of capacity " + queueCapacity);
+		}
 		// for each AlertDefinition, to create a PolicyEvaluator
 		Map<String, PolicyEvaluator<T>> tmpPolicyEvaluators = new HashMap<String, PolicyEvaluator<T>>();
 		
@@ -191,6 +265,11 @@ public abstract class PolicyProcessExecutor<T extends AbstractPolicyDefinitionEn
 			}
 		}
 		
+		if(siddhiGroupRuntime != null){
+			// compile shared execution plan once for all initial policies
+			siddhiGroupRuntime.start();
+			LOG.info(siddhiGroupRuntime.size() + " siddhi policies are evaluated by shared execution plan");
+		}
 		policyEvaluators = new CopyOnWriteHashMap<>();
 		// for efficiency, we don't put single policy evaluator
 		policyEvaluators.putAll(tmpPolicyEvaluators);
@@ -221,11 +300,7 @@ public abstract class PolicyProcessExecutor<T extends AbstractPolicyDefinitionEn
 			throw new IllegalStateException(msg);
 		}
 		
-		// check out whether strong incoming data validation is necessary
-        String needValidationConfigKey= Constants.ALERT_EXECUTOR_CONFIGS + "." + executorId + ".needValidation";
-
-        // Default: true
-        boolean needValidation = !config.hasPath(needValidationConfigKey) || config.getBoolean(needValidationConfigKey);
+        boolean needValidation = needValidation();
 
 		AbstractPolicyDefinition policyDef = null;
 		PolicyEvaluator<T> pe;
@@ -237,6 +312,7 @@ public abstract class PolicyProcessExecutor<T extends AbstractPolicyDefinitionEn
 			context.policyId = alertDef.getTags().get("policyId");
 			context.alertExecutor = this;
 			context.resultRender = this.getResultRender();
+			context.siddhiGroupRuntime = siddhiGroupRuntime;
 			// create evaluator instance
 			pe = (PolicyEvaluator<T>) evalCls
 					.getConstructor(Config.class, PolicyEvaluationContext.class, AbstractPolicyDefinition.class, String[].class, boolean.class)
@@ -251,6 +327,14 @@ public abstract class PolicyProcessExecutor<T extends AbstractPolicyDefinitionEn
 		return pe;
 	}
 
+	/**
+	 * check out whether strong incoming data validation is necessary, default: true
+	 */
+	private boolean needValidation(){
+		String needValidationConfigKey= Constants.ALERT_EXECUTOR_CONFIGS + "." + executorId + ".needValidation";
+		return !config.hasPath(needValidationConfigKey) || config.getBoolean(needValidationConfigKey);
+	}
+
     /**
      * verify both alertExecutor logic name and partition id
      * @param alertDef alert definition
@@ -273,24 +357,32 @@ public abstract class PolicyProcessExecutor<T extends AbstractPolicyDefinitionEn
 		return false;
 	}
 
-	private void updateCounter(String name, Map<String, String> dimensions, double value) {
-		long current = System.currentTimeMillis();
-		String metricName = MetricKeyCodeDecoder.codeMetricKey(name, dimensions);
-		if (registry.getMetrics().get(metricName) == null) {
-			EagleCounterMetric metric = new EagleCounterMetric(current, metricName, value, MERITE_GRANULARITY);
-			metric.registerListener(listener);
-			registry.register(metricName, metric);
-		} else {
-			EagleCounterMetric metric = (EagleCounterMetric) registry.getMetrics().get(metricName);
-			metric.update(value, current);
-			// TODO: need remove unused metric from registry
+	private PolicyCounters getPolicyCounters(String policyId) {
+		PolicyCounters policyCounter = policyCounters.get(policyId);
+		if (policyCounter == null) {
+			policyCounter = createPolicyCounters(policyId);
 		}
+		return policyCounter;
 	}
-	
-	private void updateCounter(String name, Map<String, String> dimensions) {
-		updateCounter(name, dimensions, 1.0);
+
+	private synchronized PolicyCounters createPolicyCounters(String policyId) {
+		PolicyCounters policyCounter = policyCounters.get(policyId);
+		if (policyCounter == null) {
+			policyCounter = new PolicyCounters(counters, getDimensions(policyId));
+			policyCounters.put(policyId, policyCounter);
+		}
+		return policyCounter;
 	}
-	
+
+	/**
+	 * Release counters of a deleted policy, so that they don't pile up with policy churn
+	 */
+	private synchronized void removePolicyCounters(String policyId) {
+		PolicyCounters policyCounter = policyCounters.remove(policyId);
+		if (policyCounter != null) policyCounter.remove(counters);
+		dimensionsMap.remove(policyId);
+	}
+
 	protected Map<String, String> getDimensions(String policyId) {
 		if (dimensionsMap.get(policyId) == null) {
 			Map<String, String> newDimensions = new HashMap<String, String>(baseDimensions);
@@ -301,7 +393,7 @@ public abstract class PolicyProcessExecutor<T extends AbstractPolicyDefinitionEn
 	}
 	
     /**
-     * within this single executor, execute all PolicyEvaluator sequentially
+     * within this single executor, execute all PolicyEvaluator sequentially, or hand the input to evaluation lanes if evaluationThreads is configured
      * the contract for input:
      * 1. total # of fields for input is 3, which is fixed
      * 2. the first field is key
@@ -310,31 +402,244 @@ public abstract class PolicyProcessExecutor<T extends AbstractPolicyDefinitionEn
      */
     @Override
     public void flatMap(java.util.List<Object> input, Collector<Tuple2<String, K>> outputCollector){
-        if(input.size() != 3)
-            throw new IllegalStateException("AlertExecutor always consumes exactly 3 fields: key, stream name and value(SortedMap)");
-        if(LOG.isDebugEnabled()) LOG.debug("Msg is coming " + input.get(2));
+        flatMapBatch(Collections.<List<Object>>singletonList(input), outputCollector);
+    }
+
+    /**
+     * Evaluate a micro-batch of inputs in arrival order, policyEvaluators is locked once for the whole batch
+     * instead of once per input, see {@link #flatMap(List, Collector)} for the contract of each input.
+     *
+     * <p>With evaluation lanes the inputs are only queued, alerts of earlier inputs already evaluated by lanes are emitted
+     * to outputCollector by the calling thread, see {@link #flush(Collector)} to wait for all queued inputs.</p>
+     */
+    @Override
+    public void flatMapBatch(List<List<Object>> inputs, Collector<Tuple2<String, K>> outputCollector){
+        for(List<Object> input : inputs) {
+            if (input.size() != 3)
+                throw new IllegalStateException("AlertExecutor always consumes exactly 3 fields: key, stream name and value(SortedMap)");
+        }
         if(LOG.isDebugEnabled()) LOG.debug("Current policyEvaluators: " + policyEvaluators.keySet().toString());
 
-        updateCounter(EAGLE_EVENT_COUNT, baseDimensions);
+        eventCounter.inc(inputs.size());
+        if (lanes != null) {
+            try {
+                for (List<Object> input : inputs) submitToLanes(input);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(executorId + ", partition " + partitionSeq + " is interrupted while queuing inputs", ex);
+            } finally {
+                alertHandoff.drainTo(outputCollector);
+            }
+            return;
+        }
+        synchronized(this.policyEvaluators) {
+            for (List<Object> input : inputs) evaluate(input, outputCollector);
+        }
+    }
+
+    private void evaluate(List<Object> input, Collector<Tuple2<String, K>> outputCollector) {
+        if(LOG.isDebugEnabled()) LOG.debug("Msg is coming " + input.get(2));
         try{
-            synchronized(this.policyEvaluators) {
-                for(Entry<String, PolicyEvaluator<T>> entry : policyEvaluators.entrySet()){
-                    String policyId = entry.getKey();
-                    PolicyEvaluator<T> evaluator = entry.getValue();
-                    if (!evaluator.isMarkdownEnabled()) { // not evaluated for a marked down policy
-                        updateCounter(EAGLE_POLICY_EVAL_COUNT, getDimensions(policyId));
-                        try {
-                            evaluator.evaluate(new ValuesArray(outputCollector, input.get(1), input.get(2)));
-                        } catch (Exception ex) {
-                            LOG.error("Got an exception, but continue to run " + input.get(2).toString(), ex);
-                            updateCounter(EAGLE_POLICY_EVAL_COUNT, getDimensions(policyId));
-                        }
+            evaluateSequentially(input, outputCollector);
+        } catch(Exception ex){
+            LOG.error(executorId + ", partition " + partitionSeq + ", error fetching alerts, but continue to run", ex);
+            alertFailCounter.inc();
+        }
+    }
+
+    /**
+     * Evaluate policies one by one in the calling thread, which holds the lock of policyEvaluators
+     */
+    @SuppressWarnings("rawtypes")
+    private void evaluateSequentially(List<Object> input, Collector<Tuple2<String, K>> outputCollector) {
+        // evaluators only read the input, so it's shared by all policies
+        ValuesArray values = new ValuesArray(outputCollector, input.get(1), input.get(2));
+        boolean hasSharedPolicy = false;
+        for(Entry<String, PolicyEvaluator<T>> entry : policyEvaluators.entrySet()){
+            String policyId = entry.getKey();
+            PolicyEvaluator<T> evaluator = entry.getValue();
+            if (!evaluator.isMarkdownEnabled()) { // not evaluated for a marked down policy
+                PolicyCounters policyCounter = getPolicyCounters(policyId);
+                policyCounter.evalCount.inc();
+                if (evaluator instanceof SiddhiPolicyEvaluator && ((SiddhiPolicyEvaluator) evaluator).isShared()) {
+                    hasSharedPolicy = true;
+                    continue;
+                }
+                try {
+                    evaluator.evaluate(values);
+                } catch (Exception ex) {
+                    LOG.error("Got an exception, but continue to run " + input.get(2).toString(), ex);
+                    policyCounter.evalFailCount.inc();
+                }
+            }
+        }
+        if (hasSharedPolicy) {
+            // event is sent once for all policies of the shared execution plan
+            try {
+                siddhiGroupRuntime.evaluate(outputCollector, (String) input.get(1), (SortedMap) input.get(2));
+            } catch (Exception ex) {
+                LOG.error("Got an exception from shared execution plan, but continue to run " + input.get(2).toString(), ex);
+            }
+        }
+    }
+
+    /**
+     * Lane evaluating the policy, the shared siddhi execution plan has a lane of its own too
+     */
+    private int laneOf(String policyId) {
+        return (policyId.hashCode() & Integer.MAX_VALUE) % lanes.size();
+    }
+
+    /**
+     * Queue the input to every lane, blocks only if a lane is full. The input is shared by lanes, so it's validated before.
+     */
+    @SuppressWarnings("rawtypes")
+    private void submitToLanes(List<Object> input) throws InterruptedException {
+        if (needValidation) {
+            for (PolicyEvaluator<T> evaluator : policyEvaluators.values()) {
+                if (evaluator instanceof SiddhiPolicyEvaluator) {
+                    // siddhi evaluators remove undeclared fields from the input, do it once before it's shared by threads
+                    SiddhiStreamMetadataUtils.removeUndeclaredAttrs((String) input.get(1), (SortedMap) input.get(2));
+                    break;
+                }
+            }
+        }
+        for (EvaluationLane lane : lanes) lane.submit(input);
+    }
+
+    /**
+     * Evaluate the policies of a lane, policyEvaluators is copy-on-write so it's read without lock
+     */
+    @SuppressWarnings("rawtypes")
+    private void evaluateLane(int lane, List<Object> input) {
+        ValuesArray values = new ValuesArray(alertHandoff, input.get(1), input.get(2));
+        boolean hasSharedPolicy = false;
+        for (Entry<String, PolicyEvaluator<T>> entry : policyEvaluators.entrySet()) {
+            PolicyEvaluator<T> evaluator = entry.getValue();
+            if (evaluator.isMarkdownEnabled()) continue; // not evaluated for a marked down policy
+            if (evaluator instanceof SiddhiPolicyEvaluator && ((SiddhiPolicyEvaluator) evaluator).isShared()) {
+                hasSharedPolicy = true;
+                if (laneOf(entry.getKey()) == lane) getPolicyCounters(entry.getKey()).evalCount.inc();
+                continue;
+            }
+            if (laneOf(entry.getKey()) != lane) continue;
+            PolicyCounters policyCounter = getPolicyCounters(entry.getKey());
+            policyCounter.evalCount.inc();
+            try {
+                evaluator.evaluate(values);
+            } catch (Exception ex) {
+                LOG.error("Got an exception, but continue to run " + input.get(2).toString(), ex);
+                policyCounter.evalFailCount.inc();
+            }
+        }
+        if (hasSharedPolicy && laneOf(SHARED_PLAN_LANE_KEY) == lane) {
+            // event is sent once for all policies of the shared execution plan
+            try {
+                siddhiGroupRuntime.evaluate(alertHandoff, (String) input.get(1), (SortedMap) input.get(2));
+            } catch (Exception ex) {
+                LOG.error("Got an exception from shared execution plan, but continue to run " + input.get(2).toString(), ex);
+            }
+        }
+    }
+
+    /**
+     * Wait until evaluation lanes have evaluated all queued inputs, then emit their alerts to outputCollector.
+     * Returns at once if policies are evaluated sequentially.
+     */
+    public void flush(Collector<Tuple2<String, K>> outputCollector) throws InterruptedException {
+        if (lanes == null) return;
+        for (EvaluationLane lane : lanes) lane.awaitEvaluated();
+        alertHandoff.drainTo(outputCollector);
+    }
+
+    /**
+     * Single thread with a bounded queue evaluating the policies routed to it in arrival order, lives as long as the executor
+     */
+    private class EvaluationLane implements Runnable {
+        private final int index;
+        private final BlockingQueue<List<Object>> queue;
+        private final Thread thread;
+        private long submitted;
+        private long evaluated;
+
+        EvaluationLane(int index, int capacity) {
+            this.index = index;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.thread = new Thread(this, executorId + "_" + partitionSeq + "-eval-" + index);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        void submit(List<Object> input) throws InterruptedException {
+            synchronized (this) {
+                submitted++;
+            }
+            queue.put(input);
+        }
+
+        synchronized void awaitEvaluated() throws InterruptedException {
+            while (evaluated < submitted && thread.isAlive()) wait(100);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    List<Object> input = queue.take();
+                    try {
+                        evaluateLane(index, input);
+                    } catch (Exception ex) {
+                        LOG.error(executorId + ", partition " + partitionSeq + ", error fetching alerts, but continue to run", ex);
+                        alertFailCounter.inc();
+                    }
+                    synchronized (this) {
+                        evaluated++;
+                        notifyAll();
                     }
                 }
+            } catch (InterruptedException ex) {
+                // executor is closed
+            }
+        }
+
+        void stop() throws InterruptedException {
+            thread.interrupt();
+            thread.join(10000);
+            if (thread.isAlive()) LOG.warn("Evaluation lane " + thread.getName() + " is still running");
+            if (!queue.isEmpty()) LOG.warn(queue.size() + " inputs queued in evaluation lane " + thread.getName() + " are dropped");
+        }
+    }
+
+    /**
+     * Alerts collected by evaluation lanes, emitted by the thread calling the executor since the output collector is not thread-safe
+     */
+    private static class AlertHandoff<R> implements Collector<R> {
+        private final ConcurrentLinkedQueue<R> alerts = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public void collect(R r) {
+            alerts.add(r);
+        }
+
+        void drainTo(Collector<R> outputCollector) {
+            R alert;
+            while ((alert = alerts.poll()) != null) outputCollector.collect(alert);
+        }
+    }
+
+    /**
+     * Stop evaluation lanes and counters, called when the bolt running this executor is cleaned up
+     */
+    @Override
+    public void close() {
+        // flush counts of the current period
+        if (counters != null) counters.stop();
+        if (lanes != null) {
+            try {
+                for (EvaluationLane lane : lanes) lane.stop();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
             }
-        } catch(Exception ex){
-            LOG.error(executorId + ", partition " + partitionSeq + ", error fetching alerts, but continue to run", ex);
-            updateCounter(EAGLE_ALERT_FAIL_COUNT, baseDimensions);
         }
     }
 
@@ -386,6 +691,7 @@ public abstract class PolicyProcessExecutor<T extends AbstractPolicyDefinitionEn
 					pe.onPolicyDelete();
 				}
 			}
+			removePolicyCounters(policyId);
 		}
 	}
 
@@ -397,12 +703,13 @@ public abstract class PolicyProcessExecutor<T extends AbstractPolicyDefinitionEn
             LOG.info(String.format("Detected %d alerts for policy %s", alerts.size(), policyId));
 			Collector outputCollector = context.outputCollector;
 			PolicyEvaluator<T> evaluator = context.evaluator;
-			updateCounter(EAGLE_ALERT_COUNT, getDimensions(policyId), alerts.size());
-			for (K entity : alerts) {
-				synchronized(this) {
+			getPolicyCounters(policyId).alertCount.inc(alerts.size());
+			// alerts may come from evaluation threads, emit the whole batch under one lock
+			synchronized(this) {
+				for (K entity : alerts) {
 					outputCollector.collect(new Tuple2(policyId, entity));
+					if(LOG.isDebugEnabled()) LOG.debug("A new alert is triggered: " + executorId + ", partition " + partitionSeq + ", Got an alert with output context: " + entity + ", for policy " + evaluator);
 				}
-				if(LOG.isDebugEnabled()) LOG.debug("A new alert is triggered: " + executorId + ", partition " + partitionSeq + ", Got an alert with output context: " + entity + ", for policy " + evaluator);
 			}
 		}
 	}
@@ -20,7 +20,6 @@ import com.lmax.disruptor.ExceptionHandler;
 import com.lmax.disruptor.FatalExceptionHandler;
 import com.typesafe.config.Config;
 import org.apache.eagle.alert.entity.AbstractPolicyDefinitionEntity;
-import org.apache.eagle.alert.entity.AlertStreamSchemaEntity;
 import org.apache.eagle.dataproc.core.JsonSerDeserUtils;
 import org.apache.eagle.dataproc.core.ValuesArray;
 import org.apache.eagle.datastream.Collector;
@@ -57,6 +56,10 @@ public class SiddhiPolicyEvaluator<T extends AbstractPolicyDefinitionEntity, K>
     private final boolean needValidation;
     private final Config config;
     private final PolicyEvaluationContext<T, K> context;
+    /**
+     * execution plan shared with other policies of the executor, null if this policy has its own execution plan
+     */
+    private final SiddhiPolicyGroupRuntime<T, K> groupRuntime;
 
     /**
      * everything dependent on policyDef should be together and switched in runtime
@@ -70,6 +73,10 @@ public class SiddhiPolicyEvaluator<T extends AbstractPolicyDefinitionEntity, K>
         String executionPlanName;
         boolean markdownEnabled;
         String markdownReason;
+        /**
+         * whether the policy is evaluated by shared execution plan, its own execution plan is only used for validation then
+         */
+        boolean shared;
     }
 
     public SiddhiPolicyEvaluator(Config config, PolicyEvaluationContext<T, K> context, AbstractPolicyDefinition policyDef, String[] sourceStreams) {
@@ -82,11 +89,35 @@ public class SiddhiPolicyEvaluator<T extends AbstractPolicyDefinitionEntity, K>
         this.context.evaluator = this;
         this.needValidation = needValidation;
         this.sourceStreams = sourceStreams;
+        this.groupRuntime = context.siddhiGroupRuntime;
         init(policyDef);
     }
 
     public void init(AbstractPolicyDefinition policyDef) {
-        siddhiRuntime = createSiddhiRuntime((SiddhiPolicyDefinition) policyDef);
+        siddhiRuntime = createRuntime((SiddhiPolicyDefinition) policyDef);
+    }
+
+    /**
+     * Create the runtime of the policy, a valid shareable policy is moved to the shared execution plan
+     * once it's validated by compiling its own execution plan
+     */
+    private SiddhiRuntime createRuntime(SiddhiPolicyDefinition policyDef) {
+        SiddhiRuntime runtime = createSiddhiRuntime(policyDef);
+        if (groupRuntime != null && !runtime.markdownEnabled && SiddhiPolicyGroupRuntime.isShareable(policyDef)) {
+            try {
+                groupRuntime.addPolicy(context.policyId, policyDef, context);
+                runtime.siddhiManager.getExecutionPlanRuntime(runtime.executionPlanName).shutdown();
+                runtime.siddhiInputHandlers = Collections.emptyMap();
+                runtime.shared = true;
+            } catch (Exception ex) {
+                LOG.warn("Policy " + context.policyId + " can not be evaluated in shared execution plan, use its own execution plan", ex);
+            }
+        }
+        return runtime;
+    }
+
+    public boolean isShared() {
+        return siddhiRuntime.shared;
     }
 
     public static String addContextFieldIfNotExist(String expression) {
@@ -206,7 +237,10 @@ public class SiddhiPolicyEvaluator<T extends AbstractPolicyDefinitionEntity, K>
     @SuppressWarnings({"rawtypes"})
     @Override
     public void evaluate(ValuesArray data) throws Exception {
-        if (!siddhiRuntime.markdownEnabled) {
+        if (siddhiRuntime.shared) {
+            // event is sent once for all policies of the shared execution plan
+            groupRuntime.evaluate((Collector) data.get(0), (String) data.get(1), (SortedMap) data.get(2));
+        } else if (!siddhiRuntime.markdownEnabled) {
             if (LOG.isDebugEnabled()) LOG.debug("Siddhi policy evaluator consumers data :" + data);
             Collector outputCollector = (Collector) data.get(0);
             String streamName = (String) data.get(1);
@@ -235,13 +269,7 @@ public class SiddhiPolicyEvaluator<T extends AbstractPolicyDefinitionEntity, K>
     private void validateEventInRuntime(String sourceStream, SortedMap data) {
         if (!needValidation)
             return;
-        SortedMap<String, AlertStreamSchemaEntity> map = StreamMetadataManager.getInstance().getMetadataEntityMapForStream(sourceStream);
-        if (!map.keySet().equals(data.keySet())) {
-            Set<Object> badKeys = new TreeSet<>();
-            for (Object key : data.keySet()) if (!map.containsKey(key)) badKeys.add(key);
-            LOG.warn(String.format("Ignore invalid fields %s in event: %s from stream: %s, valid fields are: %s", badKeys.toString(), data.toString(), sourceStream, map.keySet().toString()));
-            for (Object key : badKeys) data.remove(key);
-        }
+        SiddhiStreamMetadataUtils.removeUndeclaredAttrs(sourceStream, data);
     }
 
     private void putAttrsIntoInputStream(List<Object> input, String streamName, SortedMap map) {
@@ -267,7 +295,11 @@ public class SiddhiPolicyEvaluator<T extends AbstractPolicyDefinitionEntity, K>
             LOG.error("Initial policy def error, ", ex);
         }
         SiddhiRuntime previous = siddhiRuntime;
-        siddhiRuntime = createSiddhiRuntime((SiddhiPolicyDefinition) policyDef);
+        siddhiRuntime = createRuntime((SiddhiPolicyDefinition) policyDef);
+        if (previous.shared) {
+            if (!siddhiRuntime.shared) groupRuntime.removePolicy(context.policyId);
+            return;
+        }
         synchronized (previous) {
             if (!previous.markdownEnabled) // condition to check if previous SiddhiRuntime was started after policy validation
                 previous.siddhiManager.getExecutionPlanRuntime(previous.executionPlanName).shutdown();
@@ -276,6 +308,11 @@ public class SiddhiPolicyEvaluator<T extends AbstractPolicyDefinitionEntity, K>
 
     @Override
     public void onPolicyDelete() {
+        if (siddhiRuntime.shared) {
+            LOG.info("Going to remove policy " + context.policyId + " from shared siddhi execution plan");
+            groupRuntime.removePolicy(context.policyId);
+            return;
+        }
         synchronized (siddhiRuntime) {
             LOG.info("Going to shutdown siddhi execution plan, planName: " + siddhiRuntime.executionPlanName);
             if (!siddhiRuntime.markdownEnabled) // condition to check if previous SiddhiRuntime was started after policy validation
@@ -317,7 +354,7 @@ public class SiddhiPolicyEvaluator<T extends AbstractPolicyDefinitionEntity, K>
     @Override
     public String getMarkdownReason() { return siddhiRuntime.markdownReason; }
 
-    private static class SiddhiPolicyExceptionHandler implements Serializable, ExceptionHandler<Object> {
+    static class SiddhiPolicyExceptionHandler implements Serializable, ExceptionHandler<Object> {
         private final static Logger LOG = LoggerFactory.getLogger(SiddhiPolicyExceptionHandler.class);
 
         public void handleEventException(Throwable ex, long sequence, Object event) {
@@ -0,0 +1,281 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.policy.siddhi;
+
+import com.typesafe.config.Config;
+import org.apache.eagle.alert.entity.AbstractPolicyDefinitionEntity;
+import org.apache.eagle.datastream.Collector;
+import org.apache.eagle.policy.PolicyEvaluationContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.siddhi.core.ExecutionPlanRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.stream.input.InputHandler;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * One Siddhi execution plan shared by all Siddhi policies of an alert executor partition.
+ *
+ * <p>Stream definitions of the source streams are declared once, each policy is added as a query named
+ * <code>policy_&lt;n&gt;</code> with its own {@link SiddhiQueryCallbackImpl}, so that alerts are still routed back to
+ * the {@link PolicyEvaluationContext} of the right policy, while an incoming event is converted to <code>Object[]</code>
+ * and sent to Siddhi only once for all policies.</p>
+ *
+ * <p>Only single-query policies without their own stream definitions can be shared, see {@link #isShareable(SiddhiPolicyDefinition)}.
+ * The output stream of each query is renamed per policy so that policies inserting into the same stream name can not see each other.</p>
+ *
+ * <p>Siddhi can not add or remove queries of a running execution plan, so once the runtime is started a policy added or
+ * changed is compiled into an execution plan of its own, while the query of a removed or replaced policy is left in its plan
+ * with its callback disabled, and the plan is shut down once none of its policies is live. Window and pattern states of
+ * other policies are kept then, all policies are only compiled into one execution plan again by {@link #regroup()}.</p>
+ */
+public class SiddhiPolicyGroupRuntime<T extends AbstractPolicyDefinitionEntity, K> {
+    private final static Logger LOG = LoggerFactory.getLogger(SiddhiPolicyGroupRuntime.class);
+
+    private final static String QUERY_NAME_PREFIX = "policy_";
+    private final static Pattern OUTPUT_STREAM_PATTERN = Pattern.compile("\\binto\\s+([A-Za-z_][A-Za-z0-9_]*)\\s*;?\\s*$");
+
+    private final Config config;
+    private final String[] sourceStreams;
+    private final boolean needValidation;
+
+    /**
+     * Shared policies keyed by policyId, in insertion order so that query names are stable between regroups
+     */
+    private final Map<String, Member> members = new LinkedHashMap<>();
+    private boolean started = false;
+
+    /**
+     * Running execution plans, the regrouped one first followed by those of policies added or changed since
+     */
+    private final List<Plan> plans = new ArrayList<>();
+    private Collector outputCollector;
+
+    private class Member {
+        final SiddhiPolicyDefinition policyDef;
+        final PolicyEvaluationContext<T, K> context;
+        Plan plan;
+        volatile boolean retired;
+
+        Member(SiddhiPolicyDefinition policyDef, PolicyEvaluationContext<T, K> context) {
+            this.policyDef = policyDef;
+            this.context = context;
+        }
+    }
+
+    private static class Plan {
+        final ExecutionPlanRuntime runtime;
+        final Map<String, InputHandler> inputHandlers;
+        int livePolicies;
+
+        Plan(ExecutionPlanRuntime runtime, Map<String, InputHandler> inputHandlers, int livePolicies) {
+            this.runtime = runtime;
+            this.inputHandlers = inputHandlers;
+            this.livePolicies = livePolicies;
+        }
+    }
+
+    /**
+     * Drops alerts of a policy which has been removed or replaced while its query is still in a running plan
+     */
+    private class MemberCallback extends SiddhiQueryCallbackImpl<T, K> {
+        private final Member member;
+
+        MemberCallback(Member member) {
+            super(config, member.context);
+            this.member = member;
+        }
+
+        @Override
+        public void receive(long timeStamp, Event[] inEvents, Event[] removeEvents) {
+            if (!member.retired) super.receive(timeStamp, inEvents, removeEvents);
+        }
+    }
+
+    public SiddhiPolicyGroupRuntime(Config config, String[] sourceStreams, boolean needValidation) {
+        this.config = config;
+        this.sourceStreams = sourceStreams;
+        this.needValidation = needValidation;
+    }
+
+    /**
+     * @return true if the policy can be evaluated in a shared execution plan, i.e. it doesn't define streams by itself
+     * and consists of a single query which inserts into an output stream
+     */
+    public static boolean isShareable(SiddhiPolicyDefinition policyDef) {
+        if (policyDef == null || policyDef.isContainsDefinition() || policyDef.getExpression() == null) return false;
+        String expression = policyDef.getExpression().trim();
+        if (expression.endsWith(";")) expression = expression.substring(0, expression.length() - 1);
+        return expression.indexOf(';') < 0 && OUTPUT_STREAM_PATTERN.matcher(expression).find();
+    }
+
+    /**
+     * Add or replace the policy, if the runtime is already started the policy is compiled into an execution plan of its own
+     * so that states of other policies are kept, the previous version of the policy stops alerting
+     */
+    public synchronized void addPolicy(String policyId, SiddhiPolicyDefinition policyDef, PolicyEvaluationContext<T, K> context) {
+        if (!isShareable(policyDef)) {
+            throw new IllegalArgumentException("Policy " + policyId + " can not be evaluated in shared execution plan: " + policyDef);
+        }
+        Member member = new Member(policyDef, context);
+        context.outputCollector = outputCollector;
+        // compiled first, so that other policies and the previous version keep running if it fails
+        if (started) plans.add(compile(Collections.singletonList(member)));
+        Member previous = members.put(policyId, member);
+        if (previous != null) retire(previous);
+    }
+
+    /**
+     * Remove the policy, other policies keep their states
+     */
+    public synchronized void removePolicy(String policyId) {
+        Member member = members.remove(policyId);
+        if (member != null) retire(member);
+    }
+
+    private void retire(Member member) {
+        member.retired = true;
+        Plan plan = member.plan;
+        if (plan != null && --plan.livePolicies == 0) {
+            plans.remove(plan);
+            shutdownPlan(plan);
+        }
+    }
+
+    public synchronized boolean contains(String policyId) {
+        return members.containsKey(policyId);
+    }
+
+    public synchronized int size() {
+        return members.size();
+    }
+
+    /**
+     * @return number of running execution plans
+     */
+    public synchronized int planCount() {
+        return plans.size();
+    }
+
+    /**
+     * Compile and start the execution plan of all policies added so far, later changes are applied immediately
+     */
+    public synchronized void start() {
+        started = true;
+        regroup();
+    }
+
+    /**
+     * Compile all policies into one execution plan again, which resets window and pattern states of all policies
+     */
+    public synchronized void regroup() {
+        shutdownPlans();
+        if (members.isEmpty()) return;
+        plans.add(compile(new ArrayList<>(members.values())));
+    }
+
+    public synchronized void shutdown() {
+        started = false;
+        shutdownPlans();
+    }
+
+    private void shutdownPlans() {
+        for (Plan plan : plans) shutdownPlan(plan);
+        plans.clear();
+        for (Member member : members.values()) member.plan = null;
+    }
+
+    private static void shutdownPlan(Plan plan) {
+        plan.runtime.shutdown();
+        LOG.info("Shared siddhi execution plan " + plan.runtime.getName() + " is successfully shutdown");
+    }
+
+    private Plan compile(List<Member> queries) {
+        StringBuilder sb = new StringBuilder();
+        for (String sourceStream : sourceStreams) {
+            sb.append(SiddhiStreamMetadataUtils.convertToStreamDef(sourceStream));
+        }
+        for (int i = 0; i < queries.size(); i++) {
+            sb.append(" @info(name = '").append(QUERY_NAME_PREFIX).append(i).append("') ")
+                    .append(renameOutputStream(queries.get(i).policyDef.getExpression(), i));
+        }
+        String executionPlan = sb.toString();
+
+        SiddhiManager manager = new SiddhiManager();
+        ExecutionPlanRuntime runtime = manager.createExecutionPlanRuntime(executionPlan);
+        runtime.handleExceptionWith(new SiddhiPolicyEvaluator.SiddhiPolicyExceptionHandler());
+        Map<String, InputHandler> handlers = new HashMap<>();
+        for (String sourceStream : sourceStreams) {
+            handlers.put(sourceStream, runtime.getInputHandler(sourceStream));
+        }
+        runtime.start();
+        Plan plan = new Plan(runtime, handlers, queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            runtime.addCallback(QUERY_NAME_PREFIX + i, new MemberCallback(queries.get(i)));
+            queries.get(i).plan = plan;
+        }
+        LOG.info("Shared siddhi execution plan of " + queries.size() + " policies: " + executionPlan);
+        return plan;
+    }
+
+    private static String renameOutputStream(String expression, int index) {
+        String trimmed = expression.trim();
+        Matcher matcher = OUTPUT_STREAM_PATTERN.matcher(trimmed);
+        if (!matcher.find()) return trimmed;
+        return trimmed.substring(0, matcher.start(1)) + matcher.group(1) + "_" + QUERY_NAME_PREFIX + index + ";";
+    }
+
+    /**
+     * Send the event once to each execution plan of shared policies
+     *
+     * @param outputCollector collector for alerts
+     * @param streamName source stream name
+     * @param data event attributes sorted by attribute name
+     */
+    @SuppressWarnings("rawtypes")
+    public synchronized void evaluate(Collector outputCollector, String streamName, SortedMap data) throws InterruptedException {
+        if (plans.isEmpty() || plans.get(0).inputHandlers.get(streamName) == null) return;
+        if (this.outputCollector != outputCollector) {
+            // retain the collector in the context of each policy, only happens when collector changes
+            this.outputCollector = outputCollector;
+            for (Member member : members.values()) member.context.outputCollector = outputCollector;
+        }
+        Object[] input = toInput(streamName, data);
+        for (int i = 0; i < plans.size(); i++) {
+            plans.get(i).inputHandlers.get(streamName).send(i == 0 ? input : input.clone());
+        }
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private Object[] toInput(String streamName, SortedMap data) {
+        if (!needValidation) {
+            return data.values().toArray();
+        }
+        SiddhiStreamMetadataUtils.removeUndeclaredAttrs(streamName, data);
+        Object[] input = new Object[data.size()];
+        int i = 0;
+        for (Map.Entry entry : (Set<Map.Entry>) data.entrySet()) {
+            Object value = entry.getValue();
+            input[i++] = value == null ? SiddhiStreamMetadataUtils.getAttrDefaultValue(streamName, (String) entry.getKey()) : value;
+        }
+        return input;
+    }
+}
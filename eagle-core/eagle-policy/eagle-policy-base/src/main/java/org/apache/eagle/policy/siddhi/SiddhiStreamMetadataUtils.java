@@ -21,7 +21,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
+import java.util.TreeSet;
 
 /**
  * convert metadata entities for a stream to stream definition for siddhi cep engine
@@ -96,6 +98,25 @@ public class SiddhiStreamMetadataUtils {
         sb.append(",");
     }
 
+	/**
+	 * Remove fields of the event which are not declared in stream schema, otherwise they will cause exception for siddhi engine.
+	 * This is a heavy operation, we should avoid to use.
+	 *
+	 * @param streamName source stream id
+	 * @param data input event, modified in place
+	 * @see <a href="https://issues.apache.org/jira/browse/EAGLE-49">https://issues.apache.org/jira/browse/EAGLE-49</a>
+	 */
+	@SuppressWarnings("rawtypes")
+	public static void removeUndeclaredAttrs(String streamName, SortedMap data){
+		SortedMap<String, AlertStreamSchemaEntity> map = StreamMetadataManager.getInstance().getMetadataEntityMapForStream(streamName);
+		if (!map.keySet().equals(data.keySet())) {
+			Set<Object> badKeys = new TreeSet<>();
+			for (Object key : data.keySet()) if (!map.containsKey(key)) badKeys.add(key);
+			LOG.warn(String.format("Ignore invalid fields %s in event: %s from stream: %s, valid fields are: %s", badKeys.toString(), data.toString(), streamName, map.keySet().toString()));
+			for (Object key : badKeys) data.remove(key);
+		}
+	}
+
 	public static Object getAttrDefaultValue(String streamName, String attrName){
 		SortedMap<String, AlertStreamSchemaEntity> map = getAttrMap(streamName);
 		AlertStreamSchemaEntity entity = map.get(attrName);
@@ -30,6 +30,14 @@ public interface IEagleServiceClient extends IEagleServiceRequestBuilder, Closea
 
     IEagleServiceClient silence(boolean silence);
 
+    /**
+     * Write entities of create and update, and read entities of search in the compact binary format instead of JSON,
+     * the service should support <code>application/x-eagle-entity</code>
+     *
+     * @param binary false by default
+     */
+    IEagleServiceClient binary(boolean binary);
+
     /**
      *
      * @param <E>
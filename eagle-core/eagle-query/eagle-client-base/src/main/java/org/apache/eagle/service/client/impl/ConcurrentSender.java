@@ -17,66 +17,172 @@
 package org.apache.eagle.service.client.impl;
 
 import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
-import org.apache.eagle.service.client.EagleServiceClientException;
+import org.apache.eagle.log.entity.GenericServiceAPIResponseEntity;
 import org.apache.eagle.service.client.IEagleServiceClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.util.Collections;
-import java.util.LinkedList;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Asynchronous entity sender, producers only put entities into a bounded queue and return.
+ *
+ * <p>A dispatcher thread drains the queue into batches of <code>batchSize</code>, a partial batch is sent once its first
+ * entity waited for <code>batchInterval</code> even if nothing else comes. At most <code>parallelNum</code> batches are
+ * in flight, each retried up to <code>maxRetries</code> times with exponential backoff. When requests can not keep up,
+ * the queue fills up and the {@link OverflowPolicy} decides what happens to new entities.</p>
+ *
+ * <p>Configuration should be set before the first entity is sent, {@link #close()} sends everything accepted so far.</p>
+ */
 public class ConcurrentSender implements Closeable{
+    private final static Logger LOG = LoggerFactory.getLogger(ConcurrentSender.class);
+
+    /**
+     * What {@link #send(TaggedLogAPIEntity)} does when the queue is full
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait for space in the queue
+         */
+        BLOCK,
+        /**
+         * Drop the oldest entity in the queue to make space
+         */
+        DROP_OLDEST,
+        /**
+         * Throw {@link RejectedExecutionException}
+         */
+        FAIL_FAST
+    }
+
     private final int parallelNum;
     private final IEagleServiceClient client;
-    private final SynchronousQueue<TaggedLogAPIEntity> queue;
-    private final List<Handler> handlers;
     private int batchSize = 1000;
     private long batchInterval = 3 * 1000;
-    private boolean isStarted = false;
+    private int queueCapacity = 10000;
+    private int maxRetries = 3;
+    private long retryBackoff = 1000;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
 
-    private final static Logger LOG = LoggerFactory.getLogger(ConcurrentSender.class);
+    private BlockingQueue<TaggedLogAPIEntity> queue;
+    private Semaphore inFlight;
+    private ExecutorService senders;
+    private Thread dispatcher;
+    private volatile boolean isStarted = false;
+    private volatile boolean isStopped = false;
+
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private volatile int lastBatchSize = 0;
+    private volatile long lastFlushLatency = 0;
 
     public ConcurrentSender(IEagleServiceClient client, int parallelNum) {
+        if(parallelNum <= 0) throw new IllegalArgumentException("parallelNum should be positive, but got "+parallelNum);
         this.parallelNum = parallelNum;
         this.client = client;
-        this.queue= new SynchronousQueue<TaggedLogAPIEntity>();
-        this.handlers = Collections.synchronizedList(new LinkedList<Handler>());
     }
 
-    public void start(){
-        if(!this.isStarted) {
-            LOG.info("Starting with handlers = " + this.parallelNum + ", batchSize = " + this.batchSize + ", batchInterval (ms) = " + this.batchInterval);
-
-            for (int i = 0; i < this.parallelNum; i++) {
-                Handler handler = new Handler(this.queue, this.client, this.batchSize, this.batchInterval);
+    public synchronized void start(){
+        if(this.isStopped) throw new IllegalStateException("Already closed");
+        if(this.isStarted) {
+            LOG.warn("Already started");
+            return;
+        }
+        LOG.info("Starting with handlers = " + this.parallelNum + ", batchSize = " + this.batchSize + ", batchInterval (ms) = " + this.batchInterval
+                + ", queueCapacity = " + this.queueCapacity + ", maxRetries = " + this.maxRetries + ", overflowPolicy = " + this.overflowPolicy);
 
-                Thread thread = new Thread(handler);
+        this.queue = new ArrayBlockingQueue<TaggedLogAPIEntity>(this.queueCapacity);
+        this.inFlight = new Semaphore(this.parallelNum);
+        final AtomicInteger threadNum = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(this.parallelNum, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
                 thread.setDaemon(true);
-                thread.setName("Sender-" + i);
-                this.handlers.add(handler);
-                thread.start();
+                thread.setName("Sender-" + threadNum.getAndIncrement());
+                return thread;
             }
+        });
+        this.dispatcher = new Thread(new Dispatcher());
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.setName("Sender-dispatcher");
+        this.dispatcher.start();
+        this.isStarted = true;
+    }
 
-            this.isStarted = true;
-        }else{
-            LOG.warn("Already started");
-        }
+    private void checkNotStarted(){
+        if(this.isStarted) throw new IllegalStateException("Can not be changed after started");
     }
 
     public ConcurrentSender batchSize(int batchSize){
+        checkNotStarted();
+        if(batchSize <= 0) throw new IllegalArgumentException("batchSize should be positive, but got "+batchSize);
         this.batchSize = batchSize;
         return this;
     }
 
     public ConcurrentSender batchInterval(long batchInterval){
+        checkNotStarted();
+        if(batchInterval <= 0) throw new IllegalArgumentException("batchInterval should be positive, but got "+batchInterval);
         this.batchInterval = batchInterval;
         return this;
     }
 
+    /**
+     * @param queueCapacity max number of entities waiting to be sent, 10000 by default
+     */
+    public ConcurrentSender queueCapacity(int queueCapacity){
+        checkNotStarted();
+        if(queueCapacity <= 0) throw new IllegalArgumentException("queueCapacity should be positive, but got "+queueCapacity);
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * @param maxRetries max number of retries of a failed batch before it's dropped, 3 by default
+     */
+    public ConcurrentSender maxRetries(int maxRetries){
+        checkNotStarted();
+        if(maxRetries < 0) throw new IllegalArgumentException("maxRetries should not be negative, but got "+maxRetries);
+        this.maxRetries = maxRetries;
+        return this;
+    }
+
+    /**
+     * @param retryBackoff wait before the first retry in milliseconds, doubled for each further retry, 1000 by default
+     */
+    public ConcurrentSender retryBackoff(long retryBackoff){
+        checkNotStarted();
+        if(retryBackoff < 0) throw new IllegalArgumentException("retryBackoff should not be negative, but got "+retryBackoff);
+        this.retryBackoff = retryBackoff;
+        return this;
+    }
+
+    /**
+     * @param overflowPolicy {@link OverflowPolicy#BLOCK} by default
+     */
+    public ConcurrentSender overflowPolicy(OverflowPolicy overflowPolicy){
+        checkNotStarted();
+        if(overflowPolicy == null) throw new IllegalArgumentException("overflowPolicy should not be null");
+        this.overflowPolicy = overflowPolicy;
+        return this;
+    }
+
     public ConcurrentSender send(final List<? extends TaggedLogAPIEntity> entities) throws InterruptedException {
         for(TaggedLogAPIEntity entity:entities){
             this.send(entity);
@@ -84,87 +190,194 @@ public class ConcurrentSender implements Closeable{
         return this;
     }
 
+    /**
+     * @throws InterruptedException if interrupted while waiting for space with {@link OverflowPolicy#BLOCK}
+     * @throws RejectedExecutionException if the queue is full with {@link OverflowPolicy#FAIL_FAST}
+     * @throws IllegalStateException if already closed
+     */
     public ConcurrentSender send(final TaggedLogAPIEntity entity) throws InterruptedException {
+        if(this.isStopped){
+            throw new IllegalStateException("Already closed");
+        }
         if(!this.isStarted){
-            this.start();
+            synchronized (this) {
+                if(!this.isStarted) this.start();
+            }
+        }
+        switch (this.overflowPolicy){
+            case BLOCK:
+                this.queue.put(entity);
+                break;
+            case DROP_OLDEST:
+                while(!this.queue.offer(entity)){
+                    if(this.queue.poll() != null) this.droppedCount.incrementAndGet();
+                }
+                break;
+            case FAIL_FAST:
+                if(!this.queue.offer(entity)){
+                    throw new RejectedExecutionException("Queue is full with "+this.queue.size()+" entities");
+                }
+                break;
         }
-        this.queue.put(entity);
         return this;
     }
 
+    /**
+     * Send all entities accepted so far and wait for them
+     */
     @Override
     public void close() throws IOException {
-        for(Handler handler: handlers){
-            handler.close();
+        synchronized (this) {
+            if(this.isStopped) return;
+            this.isStopped = true;
+        }
+        if(!this.isStarted) return;
+        this.dispatcher.interrupt();
+        try {
+            this.dispatcher.join();
+            this.senders.shutdown();
+            this.senders.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while closing");
         }
+        LOG.info("Closed, sent = " + this.sentCount.get() + ", dropped = " + this.droppedCount.get() + ", failed = " + this.failedCount.get());
     }
 
-    private class Handler extends BatchSender implements Runnable{
-        private final long batchInterval;
-        private final SynchronousQueue<TaggedLogAPIEntity> localQueue;
+    /**
+     * @return number of entities waiting in the queue
+     */
+    public int getQueueDepth(){
+        return this.queue == null ? 0 : this.queue.size();
+    }
 
-        private boolean isStopped;
-        private long lastFlushTime;
+    /**
+     * @return number of batches being sent
+     */
+    public int getInFlight(){
+        return this.inFlight == null ? 0 : this.parallelNum - this.inFlight.availablePermits();
+    }
 
-        public Handler(SynchronousQueue<TaggedLogAPIEntity> queue, IEagleServiceClient client, int batchSize, long batchInterval) {
-            super(client, batchSize);
-            this.localQueue = queue;
-            this.batchInterval = batchInterval;
-        }
+    /**
+     * @return size of the last batch sent successfully
+     */
+    public int getLastBatchSize(){
+        return this.lastBatchSize;
+    }
 
-        @Override
-        public void run() {
-            if(LOG.isDebugEnabled()) LOG.debug("Starting ...");
-            lastFlushTime = System.currentTimeMillis();
+    /**
+     * @return milliseconds taken by the last batch sent successfully, including retries
+     */
+    public long getLastFlushLatency(){
+        return this.lastFlushLatency;
+    }
 
-            while(!isStopped){
-                TaggedLogAPIEntity entity = null;
-                try {
-                    entity = this.localQueue.take();
-                } catch (InterruptedException e) {
-                    LOG.error(e.getMessage(),e);
-                }
+    public long getSentCount(){
+        return this.sentCount.get();
+    }
 
-                if(entity!=null){
+    /**
+     * @return number of entities dropped by {@link OverflowPolicy#DROP_OLDEST}
+     */
+    public long getDroppedCount(){
+        return this.droppedCount.get();
+    }
+
+    /**
+     * @return number of entities given up after retries
+     */
+    public long getFailedCount(){
+        return this.failedCount.get();
+    }
+
+    private void dispatch(final List<TaggedLogAPIEntity> batch){
+        this.inFlight.acquireUninterruptibly();
+        try {
+            this.senders.execute(new Runnable() {
+                @Override
+                public void run() {
                     try {
-                        this.send(entity);
-                    } catch (IOException e) {
-                        LOG.error(e.getMessage(),e);
-                    } catch (EagleServiceClientException e) {
-                        LOG.error(e.getMessage(),e);
-                    }
-                    long currentTimestamp = System.currentTimeMillis();
-
-                    if((currentTimestamp - this.lastFlushTime) >= this.batchInterval){
-                        if(LOG.isDebugEnabled())
-                            LOG.info(String.format("%s - %s >= %s",currentTimestamp,this.lastFlushTime,this.batchInterval));
-
-                        try {
-                            this.flush();
-                        } catch (IOException e) {
-                            LOG.error(e.getMessage(),e);
-                        } catch (EagleServiceClientException e) {
-                            LOG.error(e.getMessage(),e);
-                        }
+                        sendWithRetry(batch);
+                    } finally {
+                        inFlight.release();
                     }
-                }else{
-                    LOG.warn("Got null entity");
                 }
-            }
-
-            if(LOG.isDebugEnabled()) LOG.debug("Stopping ...");
+            });
+        } catch (RejectedExecutionException ex) {
+            this.inFlight.release();
+            sendWithRetry(batch);
         }
+    }
 
-        @Override
-        public void close() throws IOException {
-            this.isStopped = true;
-            super.close();
+    private void sendWithRetry(List<TaggedLogAPIEntity> batch){
+        final long start = System.currentTimeMillis();
+        for(int attempt = 0; ; attempt++){
+            String error;
+            Exception exception = null;
+            try {
+                GenericServiceAPIResponseEntity<String> response = this.client.create(batch);
+                if(response.isSuccess()){
+                    this.sentCount.addAndGet(batch.size());
+                    this.lastBatchSize = batch.size();
+                    this.lastFlushLatency = System.currentTimeMillis() - start;
+                    return;
+                }
+                error = "Service exception: " + response.getException();
+            } catch (Exception e) {
+                error = e.getMessage();
+                exception = e;
+            }
+            if(attempt >= this.maxRetries){
+                LOG.error("Failed to send " + batch.size() + " entities after " + (attempt + 1) + " attempts: " + error, exception);
+                this.failedCount.addAndGet(batch.size());
+                return;
+            }
+            long backoff = this.retryBackoff << Math.min(attempt, 16);
+            LOG.warn("Failed to send " + batch.size() + " entities, retry in " + backoff + " ms: " + error);
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOG.error("Interrupted while retrying, dropped " + batch.size() + " entities");
+                this.failedCount.addAndGet(batch.size());
+                return;
+            }
         }
+    }
 
+    /**
+     * Drains the queue into batches until closed and the queue is empty
+     */
+    private class Dispatcher implements Runnable {
         @Override
-        public void flush() throws IOException, EagleServiceClientException {
-            super.flush();
-            this.lastFlushTime = System.currentTimeMillis();
+        public void run() {
+            if(LOG.isDebugEnabled()) LOG.debug("Starting ...");
+            List<TaggedLogAPIEntity> batch = new ArrayList<TaggedLogAPIEntity>(batchSize);
+            long deadline = 0;
+            while(!isStopped || !queue.isEmpty()){
+                long now = System.currentTimeMillis();
+                long wait = batch.isEmpty() ? batchInterval : deadline - now;
+                TaggedLogAPIEntity entity = null;
+                if(wait > 0) {
+                    try {
+                        entity = queue.poll(wait, TimeUnit.MILLISECONDS);
+                    } catch (InterruptedException e) {
+                        // closing, send what is left in the queue
+                        continue;
+                    }
+                }
+                if(entity != null){
+                    if(batch.isEmpty()) deadline = System.currentTimeMillis() + batchInterval;
+                    batch.add(entity);
+                    queue.drainTo(batch, batchSize - batch.size());
+                }
+                if(!batch.isEmpty() && (batch.size() >= batchSize || isStopped || System.currentTimeMillis() >= deadline)){
+                    dispatch(batch);
+                    batch = new ArrayList<TaggedLogAPIEntity>(batchSize);
+                }
+            }
+            if(!batch.isEmpty()) dispatch(batch);
+            if(LOG.isDebugEnabled()) LOG.debug("Stopping ...");
         }
     }
 }
@@ -24,6 +24,9 @@ import com.sun.jersey.api.client.config.DefaultClientConfig;
 import com.sun.jersey.client.urlconnection.URLConnectionClientHandler;
 import org.apache.eagle.common.Base64;
 import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.BinaryEntityFormat;
+import org.apache.eagle.log.entity.BinaryEntityReader;
+import org.apache.eagle.log.entity.BinaryEntityWriter;
 import org.apache.eagle.log.entity.GenericServiceAPIResponseEntity;
 import org.apache.eagle.log.entity.meta.EntityDefinition;
 import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
@@ -40,8 +43,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
 import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -57,6 +63,7 @@ public abstract class EagleServiceBaseClient implements IEagleServiceClient {
     private String username;
     private String password;
     protected boolean silence = false;
+    protected boolean binary = false;
 
     public String getBaseEndpoint() {
         return baseEndpoint;
@@ -70,9 +77,11 @@ public abstract class EagleServiceBaseClient implements IEagleServiceClient {
     protected static final MediaType DEFAULT_MEDIA_TYPE = MediaType.APPLICATION_JSON_TYPE;
     protected static final String DEFAULT_HTTP_HEADER_CONTENT_TYPE = "application/json";
     protected static final String CONTENT_TYPE = "Content-Type";
+    protected static final MediaType BINARY_MEDIA_TYPE = MediaType.valueOf(BinaryEntityFormat.MEDIA_TYPE);
 
     protected final static String GENERIC_ENTITY_PATH = "/entities";
     protected final static String GENERIC_ENTITY_DELETE_PATH = GENERIC_ENTITY_PATH+"/delete";
+    protected final static String GENERIC_ENTITY_STREAM_PATH = GENERIC_ENTITY_PATH+"/stream";
     private final Client client;
     private final List<Closeable> closeables = new LinkedList<Closeable>();
 
@@ -146,6 +155,40 @@ public abstract class EagleServiceBaseClient implements IEagleServiceClient {
         return mapper.writeValueAsString(entities);
     }
 
+    /**
+     * Entities written in {@link BinaryEntityFormat} while the request is being sent
+     */
+    protected static StreamingOutput marshallAsBinary(final List<? extends TaggedLogAPIEntity> entities) {
+        return new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                BinaryEntityWriter writer = new BinaryEntityWriter(output);
+                for(TaggedLogAPIEntity entity : entities){
+                    writer.write(entity);
+                }
+                writer.finish();
+            }
+        };
+    }
+
+    /**
+     * Read the response of a binary search, entities followed by the JSON trailer
+     */
+    @SuppressWarnings("unchecked")
+    protected static <T> GenericServiceAPIResponseEntity<T> unmarshallBinary(InputStream inputStream) throws IOException {
+        BinaryEntityReader reader = new BinaryEntityReader(inputStream);
+        try {
+            List<TaggedLogAPIEntity> entities = reader.readAll();
+            GenericServiceAPIResponseEntity<T> response = new ObjectMapper().readValue(reader.getTrailer(), GenericServiceAPIResponseEntity.class);
+            if(!entities.isEmpty()){
+                response.setObj((List<T>) entities);
+            }
+            return response;
+        } finally {
+            reader.close();
+        }
+    }
+
     protected <E extends TaggedLogAPIEntity> Map<String,List<E>> groupEntitiesByService(List<E> entities) throws EagleServiceClientException {
         Map<String,List<E>> serviceEntityMap = new HashMap<String, List<E>>();
         if(LOG.isDebugEnabled()) LOG.debug("Grouping entities by service name");
@@ -252,6 +295,27 @@ public abstract class EagleServiceBaseClient implements IEagleServiceClient {
                 .put(GenericServiceAPIResponseEntity.class, json);
     }
 
+    /**
+     * Send HTTP POST request with entities in {@link BinaryEntityFormat} and serviceName
+     */
+    @SuppressWarnings("unchecked")
+    protected GenericServiceAPIResponseEntity<String> postBinaryEntitiesWithService(String resourceURL, List<? extends TaggedLogAPIEntity> entities,String serviceName) {
+        final WebResource r = getWebResource(resourceURL);
+        return putAuthHeaderIfNeeded(r.queryParam(SERVICE_NAME,serviceName).accept(DEFAULT_MEDIA_TYPE))
+                .type(BINARY_MEDIA_TYPE)
+                .post(GenericServiceAPIResponseEntity.class, marshallAsBinary(entities));
+    }
+
+    /**
+     * Send HTTP PUT request with entities in {@link BinaryEntityFormat} and serviceName
+     */
+    @SuppressWarnings("unchecked")
+    protected GenericServiceAPIResponseEntity<String> putBinaryEntitiesWithService(String resourceURL, List<? extends TaggedLogAPIEntity> entities,String serviceName) {
+        final WebResource r = getWebResource(resourceURL);
+        return putAuthHeaderIfNeeded(r.queryParam(SERVICE_NAME,serviceName).accept(DEFAULT_MEDIA_TYPE))
+                .type(BINARY_MEDIA_TYPE)
+                .put(GenericServiceAPIResponseEntity.class, marshallAsBinary(entities));
+    }
 
     protected <E extends TaggedLogAPIEntity> String getServiceNameByClass(Class<E> entityClass) throws EagleServiceClientException {
         EntityDefinition entityDefinition = null;
@@ -336,4 +400,10 @@ public abstract class EagleServiceBaseClient implements IEagleServiceClient {
         this.silence = silence;
         return this;
     }
+
+    @Override
+    public EagleServiceBaseClient binary(boolean binary) {
+        this.binary = binary;
+        return this;
+    }
 }
\ No newline at end of file
@@ -21,6 +21,7 @@ import org.apache.eagle.log.entity.GenericServiceAPIResponseEntity;
 import org.apache.eagle.service.client.EagleServiceClientException;
 import org.apache.eagle.service.client.EagleServiceConnector;
 import org.apache.eagle.service.client.EagleServiceSingleEntityQueryRequest;
+import com.sun.jersey.api.client.ClientResponse;
 import com.sun.jersey.api.client.WebResource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,7 +56,11 @@ public class EagleServiceClientImpl extends EagleServiceBaseClient {
         checkNotNull(entities,"entities");
 
         final GenericServiceAPIResponseEntity<String> response;
-        response = postEntitiesWithService(GENERIC_ENTITY_PATH, entities, serviceName);
+        if (binary) {
+            response = postBinaryEntitiesWithService(GENERIC_ENTITY_PATH, entities, serviceName);
+        } else {
+            response = postEntitiesWithService(GENERIC_ENTITY_PATH, entities, serviceName);
+        }
         if (!response.isSuccess()) {
             LOG.error("Failed to create entities for service: " + serviceName);
         }
@@ -180,6 +185,9 @@ public class EagleServiceClientImpl extends EagleServiceBaseClient {
         checkNotNull(entities,"entities");
         checkNotNull(serviceName,"serviceName");
 
+        if(binary){
+            return putBinaryEntitiesWithService(GENERIC_ENTITY_PATH,entities,serviceName);
+        }
         return putEntitiesWithService(GENERIC_ENTITY_PATH,entities,serviceName);
     }
 
@@ -188,14 +196,31 @@ public class EagleServiceClientImpl extends EagleServiceBaseClient {
     public <T extends Object> GenericServiceAPIResponseEntity<T> search(EagleServiceSingleEntityQueryRequest request) throws EagleServiceClientException {
         String queryString = request.getQueryParameterString();
         StringBuilder sb = new StringBuilder();
-        sb.append(GENERIC_ENTITY_PATH);
+        sb.append(binary ? GENERIC_ENTITY_STREAM_PATH : GENERIC_ENTITY_PATH);
         sb.append("?");
         sb.append(queryString);
         final String urlString =  sb.toString();
         if(!this.silence) LOG.info("Going to query service: " + getWholePath(urlString));
+        if(binary){
+            return searchAsBinary(urlString);
+        }
         WebResource r = getWebResource(urlString);
         return putAuthHeaderIfNeeded(r.accept(DEFAULT_MEDIA_TYPE))
                                        .header(CONTENT_TYPE, DEFAULT_HTTP_HEADER_CONTENT_TYPE)
                                        .get(GenericServiceAPIResponseEntity.class);
     }
-}
\ No newline at end of file
+
+    private <T> GenericServiceAPIResponseEntity<T> searchAsBinary(String urlString) throws EagleServiceClientException {
+        WebResource r = getWebResource(urlString);
+        ClientResponse response = putAuthHeaderIfNeeded(r.accept(BINARY_MEDIA_TYPE)).get(ClientResponse.class);
+        if(response.getStatus() != ClientResponse.Status.OK.getStatusCode()){
+            String message = response.getEntity(String.class);
+            throw new EagleServiceClientException("Failed to query service with status " + response.getStatus() + ": " + message);
+        }
+        try {
+            return unmarshallBinary(response.getEntityInputStream());
+        } catch (IOException e) {
+            throw new EagleServiceClientException(e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.service.client;
+
+import junit.framework.Assert;
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.GenericServiceAPIResponseEntity;
+import org.apache.eagle.service.client.impl.ConcurrentSender;
+import org.apache.eagle.service.client.impl.EagleServiceClientImpl;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestConcurrentSender {
+
+    /**
+     * Records batches instead of sending them
+     */
+    private static class RecordingClient extends EagleServiceClientImpl {
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<Integer>();
+        final AtomicInteger failures = new AtomicInteger();
+        volatile CountDownLatch blocker;
+
+        RecordingClient() {
+            super("localhost", 0);
+        }
+
+        @Override
+        public <E extends TaggedLogAPIEntity> GenericServiceAPIResponseEntity<String> create(List<E> entities) throws IOException, EagleServiceClientException {
+            if(blocker != null){
+                try {
+                    blocker.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            if(failures.getAndDecrement() > 0){
+                throw new IOException("service unavailable");
+            }
+            batchSizes.add(entities.size());
+            GenericServiceAPIResponseEntity<String> response = new GenericServiceAPIResponseEntity<String>();
+            response.setSuccess(true);
+            return response;
+        }
+    }
+
+    @Test
+    public void testFlushPartialBatchByInterval() throws Exception {
+        RecordingClient client = new RecordingClient();
+        ConcurrentSender sender = new ConcurrentSender(client, 2).batchSize(100).batchInterval(50);
+        for(int i = 0; i < 3; i++){
+            sender.send(new TaggedLogAPIEntity());
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while(client.batchSizes.isEmpty() && System.currentTimeMillis() < deadline){
+            Thread.sleep(10);
+        }
+        // flushed without any further entity or close
+        Assert.assertEquals(1, client.batchSizes.size());
+        Assert.assertEquals(3, client.batchSizes.get(0).intValue());
+        Assert.assertEquals(3, sender.getLastBatchSize());
+        sender.close();
+    }
+
+    @Test
+    public void testBatchSizeAndClose() throws Exception {
+        RecordingClient client = new RecordingClient();
+        ConcurrentSender sender = new ConcurrentSender(client, 4).batchSize(10).batchInterval(60 * 1000);
+        for(int i = 0; i < 95; i++){
+            sender.send(new TaggedLogAPIEntity());
+        }
+        sender.close();
+        int total = 0;
+        for(int size : client.batchSizes){
+            Assert.assertTrue(size <= 10);
+            total += size;
+        }
+        Assert.assertEquals(95, total);
+        Assert.assertEquals(95, sender.getSentCount());
+        Assert.assertEquals(0, sender.getQueueDepth());
+    }
+
+    @Test
+    public void testRetry() throws Exception {
+        RecordingClient client = new RecordingClient();
+        client.failures.set(2);
+        ConcurrentSender sender = new ConcurrentSender(client, 1).batchSize(5).maxRetries(2).retryBackoff(1);
+        for(int i = 0; i < 5; i++){
+            sender.send(new TaggedLogAPIEntity());
+        }
+        sender.close();
+        Assert.assertEquals(5, sender.getSentCount());
+        Assert.assertEquals(0, sender.getFailedCount());
+
+        client.failures.set(10);
+        sender = new ConcurrentSender(client, 1).batchSize(5).maxRetries(1).retryBackoff(1);
+        for(int i = 0; i < 5; i++){
+            sender.send(new TaggedLogAPIEntity());
+        }
+        sender.close();
+        Assert.assertEquals(0, sender.getSentCount());
+        Assert.assertEquals(5, sender.getFailedCount());
+    }
+
+    @Test
+    public void testOverflowPolicy() throws Exception {
+        RecordingClient client = new RecordingClient();
+        client.blocker = new CountDownLatch(1);
+        ConcurrentSender sender = new ConcurrentSender(client, 1).batchSize(1).queueCapacity(2)
+                .overflowPolicy(ConcurrentSender.OverflowPolicy.FAIL_FAST);
+        try {
+            // one in flight, one held by the dispatcher, two in the queue
+            for(int i = 0; i < 100; i++){
+                sender.send(new TaggedLogAPIEntity());
+                TimeUnit.MILLISECONDS.sleep(1);
+            }
+            Assert.fail("send should fail fast when the queue is full");
+        } catch (RejectedExecutionException ex) {
+            // expected
+        }
+        Assert.assertEquals(2, sender.getQueueDepth());
+        client.blocker.countDown();
+        sender.close();
+
+        client.blocker = new CountDownLatch(1);
+        sender = new ConcurrentSender(client, 1).batchSize(1).queueCapacity(2)
+                .overflowPolicy(ConcurrentSender.OverflowPolicy.DROP_OLDEST);
+        for(int i = 0; i < 100; i++){
+            sender.send(new TaggedLogAPIEntity());
+        }
+        Assert.assertTrue(sender.getDroppedCount() > 0);
+        Assert.assertTrue(sender.getQueueDepth() <= 2);
+        client.blocker.countDown();
+        sender.close();
+        Assert.assertEquals(100, sender.getSentCount() + sender.getDroppedCount());
+    }
+}
@@ -46,6 +46,16 @@ public interface EagleConfig {
 	
     int getHBaseClientScanCacheSize();
 
+    /**
+     * @return max number of gets sent to HBase in one multi-get by index and rowkey readers
+     */
+    int getHBaseClientMultiGetBatchSize();
+
+    /**
+     * @return max number of multi-get batches in flight at the same time for one index or rowkey reader
+     */
+    int getHBaseClientMultiGetConcurrency();
+
     TimeZone getTimeZone();
     
     boolean isServiceAuditingEnabled();
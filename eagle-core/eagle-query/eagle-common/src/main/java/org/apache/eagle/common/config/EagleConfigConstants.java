@@ -28,6 +28,8 @@ public final class EagleConfigConstants {
     public final static String SERVICE_COPROCESSOR_ENABLED = "eagle.service.coprocessor-enabled";
     public final static String SERVICE_TABLE_NAME_PREFIXED_WITH_ENVIRONMENT = "eagle.service.table-name-prefixed-with-environment";
     public final static String SERVICE_HBASE_CLIENT_SCAN_CACHE_SIZE = "eagle.service.hbase-client-scan-cache-size";
+    public final static String SERVICE_HBASE_CLIENT_MULTIGET_BATCH_SIZE = "eagle.service.hbase-client-multiget-batch-size";
+    public final static String SERVICE_HBASE_CLIENT_MULTIGET_CONCURRENCY = "eagle.service.hbase-client-multiget-concurrency";
     public final static String SERVICE_THREADPOOL_CORE_SIZE = "eagle.service.threadpool-core-size";
     public final static String SERVICE_THREADPOOL_MAX_SIZE = "eagle.service.threadpool-max-size";
     public final static String SERVICE_THREADPOOL_SHRINK_SIZE = "eagle.service.threadpool-shrink-size";
@@ -36,6 +38,8 @@ public final class EagleConfigConstants {
     public final static String EAGLE_TIME_ZONE = "eagle.timezone";
     public final static String DEFAULT_EAGLE_TIME_ZONE = "UTC";
 
+    public final static int DEFAULT_HBASE_CLIENT_MULTIGET_BATCH_SIZE = 1000;
+    public final static int DEFAULT_HBASE_CLIENT_MULTIGET_CONCURRENCY = 4;
     public final static int DEFAULT_THREAD_POOL_CORE_SIZE = 10;
     public final static int DEFAULT_THREAD_POOL_MAX_SIZE = 20;
     public final static long DEFAULT_THREAD_POOL_SHRINK_TIME = 60000L;
@@ -54,6 +54,8 @@ public class EagleConfigFactory implements EagleConfig {
 
 	private HTablePool pool;
 	private int hbaseClientScanCacheSize = 1000;
+	private int hbaseClientMultiGetBatchSize = EagleConfigConstants.DEFAULT_HBASE_CLIENT_MULTIGET_BATCH_SIZE;
+	private int hbaseClientMultiGetConcurrency = EagleConfigConstants.DEFAULT_HBASE_CLIENT_MULTIGET_CONCURRENCY;
 
 	private ThreadPoolExecutor executor = null;
 
@@ -119,6 +121,8 @@ public class EagleConfigFactory implements EagleConfig {
 		this.eagleServicePort = config.hasPath(EagleConfigConstants.SERVICE_PORT) ? config.getInt(EagleConfigConstants.SERVICE_PORT) : EagleConfigConstants.DEFAULT_SERVICE_PORT;
         this.tableNamePrefixedWithEnv = config.hasPath(EagleConfigConstants.SERVICE_TABLE_NAME_PREFIXED_WITH_ENVIRONMENT) && config.getBoolean(EagleConfigConstants.SERVICE_TABLE_NAME_PREFIXED_WITH_ENVIRONMENT);
         this.hbaseClientScanCacheSize = config.hasPath(EagleConfigConstants.SERVICE_HBASE_CLIENT_SCAN_CACHE_SIZE)? config.getInt(EagleConfigConstants.SERVICE_HBASE_CLIENT_SCAN_CACHE_SIZE) : hbaseClientScanCacheSize;
+        this.hbaseClientMultiGetBatchSize = config.hasPath(EagleConfigConstants.SERVICE_HBASE_CLIENT_MULTIGET_BATCH_SIZE)? config.getInt(EagleConfigConstants.SERVICE_HBASE_CLIENT_MULTIGET_BATCH_SIZE) : hbaseClientMultiGetBatchSize;
+        this.hbaseClientMultiGetConcurrency = config.hasPath(EagleConfigConstants.SERVICE_HBASE_CLIENT_MULTIGET_CONCURRENCY)? config.getInt(EagleConfigConstants.SERVICE_HBASE_CLIENT_MULTIGET_CONCURRENCY) : hbaseClientMultiGetConcurrency;
         // initilize eagle service thread pool for parallel execution of hbase scan etc.
 		int threadPoolCoreSize = config.hasPath(EagleConfigConstants.SERVICE_THREADPOOL_CORE_SIZE)? config.getInt(EagleConfigConstants.SERVICE_THREADPOOL_CORE_SIZE): EagleConfigConstants.DEFAULT_THREAD_POOL_CORE_SIZE;
 		int threadPoolMaxSize = config.hasPath(EagleConfigConstants.SERVICE_THREADPOOL_MAX_SIZE) ? config.getInt(EagleConfigConstants.SERVICE_THREADPOOL_MAX_SIZE) : EagleConfigConstants.DEFAULT_THREAD_POOL_MAX_SIZE;
@@ -173,6 +177,16 @@ public class EagleConfigFactory implements EagleConfig {
 		return this.hbaseClientScanCacheSize;
 	}
 
+    @Override
+	public int getHBaseClientMultiGetBatchSize(){
+		return this.hbaseClientMultiGetBatchSize;
+	}
+
+    @Override
+	public int getHBaseClientMultiGetConcurrency(){
+		return this.hbaseClientMultiGetConcurrency;
+	}
+
     @Override
     public TimeZone getTimeZone() {
         return this.timeZone;
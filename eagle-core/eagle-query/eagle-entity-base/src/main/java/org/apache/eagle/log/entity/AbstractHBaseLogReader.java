@@ -126,6 +126,19 @@ public abstract class AbstractHBaseLogReader<T> implements LogReader<T> {
 		}
 	}
 	
+	/**
+	 * Start scanning from the given rowkey inclusively instead of the end time or last scan key,
+	 * must be called before {@link #open()}
+	 *
+	 * @param rowkey the first rowkey to scan
+	 */
+	public void setScanStartRowkey(byte[] rowkey) {
+		if (isOpen) {
+			throw new IllegalStateException("Scan start rowkey can not be changed after the reader is opened");
+		}
+		this.stopKey = rowkey;
+	}
+
 	/**
 	 * TODO If the required field is null for a row, then this row will not be fetched. That could be a problem for counting
 	 * Need another version of read to strictly get the number of rows which will return all the columns for a column family
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Compact binary wire format of entity lists, an alternative to JSON for high volume writes and reads.
+ *
+ * <pre>
+ * stream    := 'E' 'G' 'B' version:byte service:string entity* END [trailer: JSON until the end of stream]
+ * entity    := ENTITY flags:byte [prefix:dict] [encodedRowkey:string] timestamp:long
+ *              (tagCount+1):varint (name:dict value:dict)* qualifierCount:varint (name:dict (length+1):varint bytes)*
+ * dict      := 0 (null) | 1 string (new entry) | (index+2):varint (existing entry)
+ * string    := length:varint utf8 bytes
+ * </pre>
+ *
+ * <p>Qualifier values are encoded with the {@link org.apache.eagle.log.entity.meta.EntitySerDeser} of each qualifier,
+ * i.e. exactly the bytes stored in HBase, so the service doesn't decode and re-encode them. Tag names, tag values,
+ * qualifier names and prefixes are written once per stream and referred by index afterwards, the dictionary is bounded
+ * by {@link #MAX_DICTIONARY_SIZE} on both sides. Compression is left to the HTTP <code>Content-Encoding</code>.</p>
+ *
+ * @see BinaryEntityWriter
+ * @see BinaryEntityReader
+ */
+public final class BinaryEntityFormat {
+	public final static String MEDIA_TYPE = "application/x-eagle-entity";
+
+	final static byte[] MAGIC = {'E', 'G', 'B'};
+	final static byte VERSION = 1;
+	final static byte ENTITY = 1;
+	final static byte END = 0;
+	final static int FLAG_PREFIX = 1;
+	final static int FLAG_ENCODED_ROWKEY = 2;
+	final static int MAX_DICTIONARY_SIZE = 1 << 16;
+
+	private final static Charset UTF_8 = Charset.forName("UTF-8");
+
+	private BinaryEntityFormat() {
+	}
+
+	static void writeVarInt(DataOutput out, int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	static int readVarInt(DataInput in) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			final int b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	static void writeString(DataOutput out, String value) throws IOException {
+		final byte[] bytes = value.getBytes(UTF_8);
+		writeVarInt(out, bytes.length);
+		out.write(bytes);
+	}
+
+	static String readString(DataInput in) throws IOException {
+		final byte[] bytes = new byte[readVarInt(in)];
+		in.readFully(bytes);
+		return new String(bytes, UTF_8);
+	}
+}
@@ -0,0 +1,191 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity;
+
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.meta.EntityCodec;
+import org.apache.eagle.log.entity.meta.EntityDefinition;
+import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads entities written by {@link BinaryEntityWriter} one at a time, the entity class is resolved by the service name
+ * in the header.
+ *
+ * <p>Not thread safe.</p>
+ */
+public class BinaryEntityReader implements Closeable {
+	private final DataInputStream in;
+	private final List<String> dictionary = new ArrayList<String>();
+	private EntityDefinition entityDefinition;
+	private EntityCodec codec;
+	private boolean headerRead = false;
+	private boolean finished = false;
+
+	public BinaryEntityReader(InputStream input) {
+		this.in = new DataInputStream(new BufferedInputStream(input));
+	}
+
+	/**
+	 * @return entity definition of the stream, or null if there is no entity in the stream
+	 */
+	public EntityDefinition getEntityDefinition() throws IOException {
+		readHeader();
+		return entityDefinition;
+	}
+
+	/**
+	 * @return next entity, or null at the end of entities
+	 */
+	@SuppressWarnings("unchecked")
+	public <E extends TaggedLogAPIEntity> E read() throws IOException {
+		readHeader();
+		if (finished) return null;
+		final byte marker = in.readByte();
+		if (marker == BinaryEntityFormat.END) {
+			finished = true;
+			return null;
+		} else if (marker != BinaryEntityFormat.ENTITY) {
+			throw new IOException("Unexpected marker " + marker);
+		} else if (codec == null) {
+			throw new IOException("Entity found in stream without service name");
+		}
+
+		final int flags = in.readByte();
+		final String prefix = (flags & BinaryEntityFormat.FLAG_PREFIX) != 0 ? readDictionary() : null;
+		final String encodedRowkey = (flags & BinaryEntityFormat.FLAG_ENCODED_ROWKEY) != 0 ? BinaryEntityFormat.readString(in) : null;
+		final long timestamp = in.readLong();
+
+		final int tagCount = BinaryEntityFormat.readVarInt(in);
+		Map<String, String> tags = null;
+		if (tagCount > 0) {
+			tags = new HashMap<String, String>((tagCount - 1) * 2);
+			for (int i = 0; i < tagCount - 1; i++) {
+				tags.put(readDictionary(), readDictionary());
+			}
+		}
+
+		final int qualifierCount = BinaryEntityFormat.readVarInt(in);
+		final Map<String, byte[]> qualifierValues = new HashMap<String, byte[]>(qualifierCount * 2);
+		for (int i = 0; i < qualifierCount; i++) {
+			final String name = readDictionary();
+			final int length = BinaryEntityFormat.readVarInt(in);
+			byte[] value = null;
+			if (length > 0) {
+				value = new byte[length - 1];
+				in.readFully(value);
+			}
+			qualifierValues.put(name, value);
+		}
+
+		final TaggedLogAPIEntity entity;
+		try {
+			entity = codec.readValue(qualifierValues);
+		} catch (IOException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException(e);
+		}
+		if (tags != null) entity.setTags(tags);
+		entity.setPrefix(prefix);
+		entity.setEncodedRowkey(encodedRowkey);
+		entity.setTimestamp(timestamp);
+		return (E) entity;
+	}
+
+	/**
+	 * Read all remaining entities
+	 */
+	public <E extends TaggedLogAPIEntity> List<E> readAll() throws IOException {
+		final List<E> entities = new LinkedList<E>();
+		E entity;
+		while ((entity = read()) != null) {
+			entities.add(entity);
+		}
+		return entities;
+	}
+
+	/**
+	 * @return the underlying stream, positioned at the trailer after all entities are read
+	 */
+	public InputStream getTrailer() {
+		if (!finished) {
+			throw new IllegalStateException("Entities are not completely read yet");
+		}
+		return in;
+	}
+
+	@Override
+	public void close() throws IOException {
+		in.close();
+	}
+
+	private void readHeader() throws IOException {
+		if (headerRead) return;
+		final byte[] magic = new byte[BinaryEntityFormat.MAGIC.length];
+		in.readFully(magic);
+		if (!Arrays.equals(magic, BinaryEntityFormat.MAGIC)) {
+			throw new IOException("Not a binary entity stream");
+		}
+		final byte version = in.readByte();
+		if (version != BinaryEntityFormat.VERSION) {
+			throw new IOException("Unsupported binary entity format version " + version);
+		}
+		final String serviceName = BinaryEntityFormat.readString(in);
+		if (!serviceName.isEmpty()) {
+			try {
+				entityDefinition = EntityDefinitionManager.getEntityByServiceName(serviceName);
+			} catch (InstantiationException | IllegalAccessException e) {
+				throw new IOException(e);
+			}
+			if (entityDefinition == null) {
+				throw new IOException("entity definition of service " + serviceName + " not found");
+			}
+			codec = EntityCodec.getInstance(entityDefinition);
+		}
+		headerRead = true;
+	}
+
+	private String readDictionary() throws IOException {
+		final int ref = BinaryEntityFormat.readVarInt(in);
+		if (ref == 0) {
+			return null;
+		} else if (ref == 1) {
+			final String value = BinaryEntityFormat.readString(in);
+			if (dictionary.size() < BinaryEntityFormat.MAX_DICTIONARY_SIZE) {
+				dictionary.add(value);
+			}
+			return value;
+		}
+		final int index = ref - 2;
+		if (index >= dictionary.size()) {
+			throw new IOException("Unknown dictionary index " + index);
+		}
+		return dictionary.get(index);
+	}
+}
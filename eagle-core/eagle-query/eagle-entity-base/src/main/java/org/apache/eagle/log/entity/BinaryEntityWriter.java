@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity;
+
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.meta.EntityCodec;
+import org.apache.eagle.log.entity.meta.EntityDefinition;
+import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes entities of one entity class in {@link BinaryEntityFormat} as they come, nothing but the dictionary is
+ * kept in memory. The header is written with the first entity, all entities should be of the same class.
+ *
+ * <p>Not thread safe.</p>
+ */
+public class BinaryEntityWriter implements Closeable {
+	private final DataOutputStream out;
+	private final Map<String, Integer> dictionary = new HashMap<String, Integer>();
+	private EntityCodec codec;
+	private String service;
+	private boolean headerWritten = false;
+	private boolean finished = false;
+
+	public BinaryEntityWriter(OutputStream output) {
+		this.out = new DataOutputStream(new BufferedOutputStream(output));
+	}
+
+	public void write(TaggedLogAPIEntity entity) throws IOException {
+		if (finished) {
+			throw new IllegalStateException("Writer is already finished");
+		}
+		if (codec == null) {
+			final EntityDefinition ed;
+			try {
+				ed = EntityDefinitionManager.getEntityDefinitionByEntityClass(entity.getClass());
+			} catch (InstantiationException | IllegalAccessException e) {
+				throw new IOException(e);
+			}
+			if (ed == null) {
+				throw new IllegalArgumentException("Failed to find entity definition of class: " + entity.getClass());
+			}
+			codec = EntityCodec.getInstance(ed);
+			service = ed.getService();
+		} else if (entity.getClass() != codec.getEntityClass()) {
+			throw new IllegalArgumentException("Expect entity of " + codec.getEntityClass() + ", but got " + entity.getClass());
+		}
+
+		// serialize all values before anything of the entity goes to stream, so a failure leaves no partial entity
+		final Map<String, byte[]> qualifierValues;
+		try {
+			qualifierValues = codec.writeValue(entity);
+		} catch (IOException | RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IOException(e);
+		}
+
+		if (!headerWritten) {
+			writeHeader(service);
+		}
+		out.writeByte(BinaryEntityFormat.ENTITY);
+		int flags = 0;
+		if (entity.getPrefix() != null) flags |= BinaryEntityFormat.FLAG_PREFIX;
+		if (entity.getEncodedRowkey() != null) flags |= BinaryEntityFormat.FLAG_ENCODED_ROWKEY;
+		out.writeByte(flags);
+		if (entity.getPrefix() != null) writeDictionary(entity.getPrefix());
+		if (entity.getEncodedRowkey() != null) BinaryEntityFormat.writeString(out, entity.getEncodedRowkey());
+		out.writeLong(entity.getTimestamp());
+
+		final Map<String, String> tags = entity.getTags();
+		BinaryEntityFormat.writeVarInt(out, tags == null ? 0 : tags.size() + 1);
+		if (tags != null) {
+			for (Map.Entry<String, String> tag : tags.entrySet()) {
+				writeDictionary(tag.getKey());
+				writeDictionary(tag.getValue());
+			}
+		}
+
+		BinaryEntityFormat.writeVarInt(out, qualifierValues.size());
+		for (Map.Entry<String, byte[]> qualifier : qualifierValues.entrySet()) {
+			writeDictionary(qualifier.getKey());
+			final byte[] value = qualifier.getValue();
+			BinaryEntityFormat.writeVarInt(out, value == null ? 0 : value.length + 1);
+			if (value != null) out.write(value);
+		}
+	}
+
+	/**
+	 * Write the end of entities and flush, the underlying stream is left open for a trailer
+	 */
+	public void finish() throws IOException {
+		if (finished) return;
+		if (!headerWritten) {
+			// no entity at all
+			writeHeader("");
+		}
+		out.writeByte(BinaryEntityFormat.END);
+		out.flush();
+		finished = true;
+	}
+
+	/**
+	 * Finish and close the underlying stream
+	 */
+	@Override
+	public void close() throws IOException {
+		finish();
+		out.close();
+	}
+
+	private void writeHeader(String serviceName) throws IOException {
+		out.write(BinaryEntityFormat.MAGIC);
+		out.writeByte(BinaryEntityFormat.VERSION);
+		BinaryEntityFormat.writeString(out, serviceName);
+		headerWritten = true;
+	}
+
+	private void writeDictionary(String value) throws IOException {
+		if (value == null) {
+			BinaryEntityFormat.writeVarInt(out, 0);
+			return;
+		}
+		final Integer index = dictionary.get(value);
+		if (index != null) {
+			BinaryEntityFormat.writeVarInt(out, index + 2);
+			return;
+		}
+		BinaryEntityFormat.writeVarInt(out, 1);
+		BinaryEntityFormat.writeString(out, value);
+		if (dictionary.size() < BinaryEntityFormat.MAX_DICTIONARY_SIZE) {
+			dictionary.put(value, dictionary.size());
+		}
+	}
+}
@@ -0,0 +1,248 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity;
+
+import org.apache.eagle.common.ByteUtil;
+import org.apache.eagle.log.entity.meta.*;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only view of one scanned row over the backing arrays of its HBase {@link Cell}s.
+ *
+ * <p>Qualifiers are resolved to {@link QualifierIndex} slots of the entity definition when the view is created,
+ * nothing else is decoded or copied until asked for, so a reader only pays for the fields it actually uses.
+ * Cells which are not pre-defined qualifiers are treated as tags.</p>
+ *
+ * <p>Not thread safe, a view is expected to be consumed by the thread which scanned the row.</p>
+ */
+public class CellRowView {
+	private final EntityDefinition ed;
+	private final QualifierIndex qualifierIndex;
+	private final byte[] row;
+	private final Cell[] cells;
+	/**
+	 * Cell position of each qualifier slot, -1 if the row has no such qualifier
+	 */
+	private final int[] qualifierCells;
+	private final int[] tagCells;
+	private final int tagCount;
+
+	private Map<String, String> tags;
+
+	public CellRowView(EntityDefinition ed, byte[] row, List<Cell> cells) {
+		this(ed, row, cells.toArray(new Cell[cells.size()]), null);
+	}
+
+	/**
+	 * @param ed entity definition
+	 * @param row rowkey
+	 * @param cells cells of the row
+	 * @param projection qualifier or tag names to keep, if null keep all cells
+	 */
+	public CellRowView(EntityDefinition ed, byte[] row, Cell[] cells, byte[][] projection) {
+		this.ed = ed;
+		this.qualifierIndex = ed.getQualifierIndex();
+		this.row = row;
+		this.cells = cells;
+		this.qualifierCells = new int[qualifierIndex.size()];
+		Arrays.fill(this.qualifierCells, -1);
+		int[] _tagCells = new int[cells.length];
+		int _tagCount = 0;
+		for(int i = 0; i < cells.length; i++){
+			Cell cell = cells[i];
+			if(projection != null && !isProjected(cell, projection)){
+				continue;
+			}
+			int index = qualifierIndex.indexOf(cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength());
+			if(index == QualifierIndex.NOT_FOUND){
+				_tagCells[_tagCount++] = i;
+			}else{
+				qualifierCells[index] = i;
+			}
+		}
+		this.tagCells = _tagCells;
+		this.tagCount = _tagCount;
+	}
+
+	private static boolean isProjected(Cell cell, byte[][] projection) {
+		for(byte[] name : projection){
+			if(Bytes.equals(name, 0, name.length, cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength())){
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public EntityDefinition getEntityDefinition() {
+		return ed;
+	}
+
+	public byte[] getRow() {
+		return row;
+	}
+
+	public boolean isEmpty() {
+		if(tagCount > 0) return false;
+		for(int pos : qualifierCells){
+			if(pos >= 0) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return number of qualifier slots, see {@link QualifierIndex#size()}
+	 */
+	public int getQualifierSlots() {
+		return qualifierCells.length;
+	}
+
+	public boolean hasValue(int qualifierIndex) {
+		return qualifierCells[qualifierIndex] >= 0;
+	}
+
+	public Qualifier getQualifier(int qualifierIndex) {
+		return this.qualifierIndex.get(qualifierIndex);
+	}
+
+	/**
+	 * @return cell of the qualifier slot, or null if the row has no such qualifier
+	 */
+	public Cell getCell(int qualifierIndex) {
+		int pos = qualifierCells[qualifierIndex];
+		return pos < 0 ? null : cells[pos];
+	}
+
+	/**
+	 * @return copy of the qualifier value, or null if the row has no such qualifier
+	 */
+	public byte[] getValue(int qualifierIndex) {
+		Cell cell = getCell(qualifierIndex);
+		return cell == null ? null : CellUtil.cloneValue(cell);
+	}
+
+	/**
+	 * Deserialize the qualifier value, fixed width primitives and strings are decoded in place,
+	 * other types are copied out and handed to {@link EntitySerDeser#deserialize(byte[])}
+	 *
+	 * @return deserialized value, or null if the row has no such qualifier
+	 */
+	public Object getObject(int qualifierIndex) {
+		Cell cell = getCell(qualifierIndex);
+		if(cell == null){
+			return null;
+		}
+		EntitySerDeser<Object> serDeser = this.qualifierIndex.get(qualifierIndex).getSerDeser();
+		byte[] buffer = cell.getValueArray();
+		int offset = cell.getValueOffset();
+		int length = cell.getValueLength();
+		if(serDeser instanceof StringSerDeser){
+			return new String(buffer, offset, length);
+		}else if(serDeser instanceof IntSerDeser){
+			return length < 4 ? null : Integer.valueOf(ByteUtil.bytesToInt(buffer, offset));
+		}else if(serDeser instanceof LongSerDeser){
+			return length < 8 ? null : Long.valueOf(ByteUtil.bytesToLong(buffer, offset));
+		}else if(serDeser instanceof DoubleSerDeser){
+			return length < 8 ? null : Double.valueOf(ByteUtil.bytesToDouble(buffer, offset));
+		}
+		return serDeser.deserialize(CellUtil.cloneValue(cell));
+	}
+
+	/**
+	 * @return tag value decoded in place, or null if the row has no such tag
+	 */
+	public String getTag(String tagName) {
+		if(tags != null){
+			return tags.get(tagName);
+		}
+		byte[] name = tagName.getBytes();
+		for(int i = 0; i < tagCount; i++){
+			Cell cell = cells[tagCells[i]];
+			if(Bytes.equals(name, 0, name.length, cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength())){
+				return new String(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+			}
+		}
+		return null;
+	}
+
+	public boolean hasTag(byte[] tagName) {
+		return getTagCell(tagName) != null;
+	}
+
+	/**
+	 * @return cell of the tag, or null if the row has no such tag
+	 */
+	public Cell getTagCell(byte[] tagName) {
+		for(int i = 0; i < tagCount; i++){
+			Cell cell = cells[tagCells[i]];
+			if(Bytes.equals(tagName, 0, tagName.length, cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength())){
+				return cell;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return all tags of the row, decoded on first call
+	 */
+	public Map<String, String> getTags() {
+		if(tags == null){
+			tags = new HashMap<String, String>(tagCount * 2);
+			for(int i = 0; i < tagCount; i++){
+				Cell cell = cells[tagCells[i]];
+				tags.put(new String(cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength()),
+						new String(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength()));
+			}
+		}
+		return tags;
+	}
+
+	/**
+	 * Materialize all pre-defined qualifiers of the row
+	 *
+	 * @return <code>Map &lt; Qualifier name (not display name),Value in bytes array &gt;</code>
+	 */
+	public Map<String, byte[]> getQualifierValues() {
+		Map<String, byte[]> qualifierValues = new HashMap<String, byte[]>(qualifierCells.length * 2);
+		for(int i = 0; i < qualifierCells.length; i++){
+			if(qualifierCells[i] >= 0){
+				qualifierValues.put(qualifierIndex.get(i).getQualifierName(), CellUtil.cloneValue(cells[qualifierCells[i]]));
+			}
+		}
+		return qualifierValues;
+	}
+
+	/**
+	 * Materialize all cells of the row, including tags
+	 *
+	 * @return <code>Map &lt; Qualifier name (not display name) or tag name,Value in bytes array &gt;</code>
+	 */
+	public Map<String, byte[]> getAllValues() {
+		Map<String, byte[]> allValues = getQualifierValues();
+		for(int i = 0; i < tagCount; i++){
+			Cell cell = cells[tagCells[i]];
+			allValues.put(new String(CellUtil.cloneQualifier(cell)), CellUtil.cloneValue(cell));
+		}
+		return allValues;
+	}
+}
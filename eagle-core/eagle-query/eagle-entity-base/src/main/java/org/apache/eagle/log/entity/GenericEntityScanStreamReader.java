@@ -16,7 +16,9 @@
  */
 package org.apache.eagle.log.entity;
 
+import org.apache.eagle.common.config.EagleConfigFactory;
 import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.meta.EntityCodec;
 import org.apache.eagle.log.entity.meta.EntityConstants;
 import org.apache.eagle.log.entity.meta.EntityDefinition;
 import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
@@ -25,7 +27,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 
 public class GenericEntityScanStreamReader extends StreamReader {
 	private static final Logger LOG = LoggerFactory.getLogger(GenericEntityScanStreamReader.class);
@@ -91,13 +95,19 @@ public class GenericEntityScanStreamReader extends StreamReader {
 			// Generate the output qualifiers
 			outputQualifiers = HBaseInternalLogHelper.getOutputQualifiers(entityDef, condition.getOutputFields());
 		}
-		HBaseLogReader2 reader = new HBaseLogReader2(entityDef, condition.getPartitionValues(), start, end, condition.getFilter(), condition.getStartRowkey(), outputQualifiers, this.prefix);
+		LogReader<InternalLog> reader;
+		if(condition.isMultiPartition()){
+			reader = createMultiPartitionReader(start, end, outputQualifiers);
+		}else{
+			reader = new HBaseLogReader2(entityDef, condition.getPartitionValues(), start, end, condition.getFilter(), condition.getStartRowkey(), outputQualifiers, this.prefix);
+		}
 		try{
 			reader.open();
 			InternalLog log;
 			int count = 0;
+			final EntityCodec codec = EntityCodec.getInstance(entityDef);
 			while ((log = reader.read()) != null) {
-				TaggedLogAPIEntity entity = HBaseInternalLogHelper.buildEntity(log, entityDef);
+				TaggedLogAPIEntity entity = HBaseInternalLogHelper.buildEntity(log, codec);
 				if (lastTimestamp < entity.getTimestamp()) {
 					lastTimestamp = entity.getTimestamp();
 				}
@@ -122,6 +132,29 @@ public class GenericEntityScanStreamReader extends StreamReader {
 		}		
 	}
 
+	/**
+	 * Scan each partition with its own filter concurrently and merge them by timestamp descending,
+	 * a page across partitions continues after <code>startRowkey</code> in every partition
+	 */
+	private LogReader<InternalLog> createMultiPartitionReader(Date start, Date end, byte[][] outputQualifiers){
+		final List<SearchCondition> partitionConditions = condition.splitByPartition();
+		byte[][] scanStartRowkeys = null;
+		if(condition.getStartRowkey() != null){
+			scanStartRowkeys = MultiPartitionLogReader.buildScanStartRowkeys(new ArrayList<List<String>>(condition.getPartitionFilters().keySet()), condition.getStartRowkey());
+		}
+		final List<HBaseLogReader2> readers = new ArrayList<HBaseLogReader2>(partitionConditions.size());
+		for(int i = 0; i < partitionConditions.size(); i++){
+			SearchCondition sc = partitionConditions.get(i);
+			HBaseLogReader2 reader = new HBaseLogReader2(entityDef, sc.getPartitionValues(), start, end, sc.getFilter(), null, outputQualifiers, this.prefix);
+			if(scanStartRowkeys != null){
+				reader.setScanStartRowkey(scanStartRowkeys[i]);
+			}
+			readers.add(reader);
+		}
+		final int batchSize = (int) Math.max(1, Math.min(condition.getPageSize(), EagleConfigFactory.load().getHBaseClientScanCacheSize()));
+		return new MultiPartitionLogReader(readers, batchSize, EagleConfigFactory.load().getExecutor());
+	}
+
 	@Override
 	public long getFirstTimestamp() {
 		return this.firstTimestamp;
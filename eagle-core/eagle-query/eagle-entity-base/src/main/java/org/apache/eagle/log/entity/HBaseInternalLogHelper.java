@@ -22,7 +22,7 @@ import org.apache.eagle.log.entity.meta.*;
 import org.apache.eagle.query.parser.TokenConstant;
 import org.apache.eagle.common.ByteUtil;
 import org.apache.eagle.common.EagleBase64Wrapper;
-import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.client.Result;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,8 +32,6 @@ import java.util.*;
 public class HBaseInternalLogHelper {
 	private final static Logger LOG  = LoggerFactory.getLogger(HBaseInternalLogHelper.class);
 
-	private static final EntitySerDeserializer ENTITY_SERDESER = new EntitySerDeserializer();
-
 	/**
 	 *
 	 * @param ed
@@ -48,26 +46,60 @@ public class HBaseInternalLogHelper {
 		long timestamp = ByteUtil.bytesToLong(row, offset);
 		// reverse timestamp
 		timestamp = Long.MAX_VALUE - timestamp;
-		final byte[] family = ed.getColumnFamily().getBytes();
-		final Map<String, byte[]> allQualifierValues = new HashMap<String, byte[]>();
-
-		if (qualifiers != null) {
-			int count = qualifiers.length;
-			final byte[][] values = new byte[count][];
-			for (int i = 0; i < count; i++) {
-				// TODO if returned value is null, it means no this column for this row, so why set null to the object?
-				values[i] = r.getValue(family, qualifiers[i]);
-				allQualifierValues.put(new String(qualifiers[i]), values[i]);
+		final Cell[] cells = r.rawCells();
+		final CellRowView view = new CellRowView(ed, row, cells == null ? new Cell[0] : cells, qualifiers);
+
+		if (qualifiers != null && hasExpressionQualifier(view, qualifiers)) {
+			// projected fields which are neither qualifiers nor tags of this row may be expressions,
+			// which are evaluated against all field values, so fall back to the materialized map
+			final Map<String, byte[]> allQualifierValues = view.getAllValues();
+			for (byte[] qualifier : qualifiers) {
+				String qualifierName = new String(qualifier);
+				if (!allQualifierValues.containsKey(qualifierName)) {
+					allQualifierValues.put(qualifierName, null);
+				}
 			}
-		}else{
-			// return all qualifiers
-			for(KeyValue kv:r.list()){
-				byte[] qualifier = kv.getQualifier();
-				byte[] value = kv.getValue();
-				allQualifierValues.put(new String(qualifier),value);
+			return buildObject(ed, row, timestamp, allQualifierValues);
+		}
+		return buildObject(ed, row, timestamp, view);
+	}
+
+	private final static byte[] EXPRESSION_PREFIX = "EXP{".getBytes();
+
+	private static boolean hasExpressionQualifier(CellRowView view, byte[][] qualifiers) {
+		final QualifierIndex qualifierIndex = view.getEntityDefinition().getQualifierIndex();
+		for (byte[] qualifier : qualifiers) {
+			if (qualifierIndex.indexOf(qualifier) == QualifierIndex.NOT_FOUND && !view.hasTag(qualifier)
+					&& startsWithIgnoreCase(qualifier, EXPRESSION_PREFIX) && TokenConstant.isExpression(new String(qualifier))) {
+				return true;
 			}
 		}
-		final InternalLog log = buildObject(ed, row, timestamp, allQualifierValues);
+		return false;
+	}
+
+	private static boolean startsWithIgnoreCase(byte[] bytes, byte[] prefix) {
+		if (bytes.length < prefix.length) return false;
+		for (int i = 0; i < prefix.length; i++) {
+			if (Character.toUpperCase(bytes[i]) != prefix[i]) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Build internal log over row view, qualifier values and tags are decoded lazily from the view
+	 *
+	 * @param ed
+	 * @param row
+	 * @param timestamp
+	 * @param view cells of the row
+	 * @return
+	 */
+	public static InternalLog buildObject(EntityDefinition ed, byte[] row, long timestamp, CellRowView view) {
+		InternalLog log = new InternalLog();
+		log.setEncodedRowkey(EagleBase64Wrapper.encodeByteArray2URLSafeString(row));
+		log.setPrefix(ed.getPrefix());
+		log.setTimestamp(timestamp);
+		log.setRowView(view);
 		return log;
 	}
 
@@ -135,11 +167,12 @@ public class HBaseInternalLogHelper {
 
 							if(metricValueArray!=null){
 								double[] resultBucket = new double[metricValueArray.length];
-								Map<String, Double> _doubleMap = new HashMap<String,Double>(doubleMap);
-								_doubleMap.remove(entry.getKey());
+								// bind by slot, only the value slot changes across the metric value array
+								double[] slotValues = parser.toSlotValues(doubleMap);
+								int valueSlot = parser.getFieldSlot(GenericMetricEntity.VALUE_FIELD);
 								for(int i=0;i< resultBucket.length;i++) {
-									_doubleMap.put(GenericMetricEntity.VALUE_FIELD, metricValueArray[i]);
-									resultBucket[i]=  parser.eval(_doubleMap);
+									slotValues[valueSlot] = metricValueArray[i];
+									resultBucket[i]=  parser.eval(slotValues);
 								}
 								extra.put(expression,resultBucket);
 							}else{
@@ -168,8 +201,24 @@ public class HBaseInternalLogHelper {
 	}
 	
 	public static TaggedLogAPIEntity buildEntity(InternalLog log, EntityDefinition entityDef) throws Exception {
-		Map<String, byte[]> qualifierValues = log.getQualifierValues();
-		TaggedLogAPIEntity entity = ENTITY_SERDESER.readValue(qualifierValues, entityDef);
+		return buildEntity(log, EntityCodec.getInstance(entityDef));
+	}
+
+	/**
+	 * Build entity with codec resolved in advance, so that per-row callers skip codec lookup
+	 *
+	 * @param log
+	 * @param codec codec of the entity definition, see {@link EntityCodec#getInstance(EntityDefinition)}
+	 * @return
+	 * @throws Exception
+	 */
+	public static TaggedLogAPIEntity buildEntity(InternalLog log, EntityCodec codec) throws Exception {
+		TaggedLogAPIEntity entity;
+		if (log.getRowView() != null) {
+			entity = readValue(log.getRowView(), codec);
+		} else {
+			entity = codec.readValue(log.getQualifierValues());
+		}
 		if (entity.getTags() == null && log.getTags() != null) {
 			entity.setTags(log.getTags());
 		}
@@ -180,10 +229,25 @@ public class HBaseInternalLogHelper {
 		return entity;
 	}
 	
+	/**
+	 * Set only the qualifiers present in the row, values are deserialized straight from the cells
+	 */
+	private static TaggedLogAPIEntity readValue(CellRowView view, EntityCodec codec) throws Exception {
+		TaggedLogAPIEntity entity = codec.newInstance();
+		for (int i = 0; i < view.getQualifierSlots(); i++) {
+			if (view.hasValue(i)) {
+				EntityCodec.FieldCodec field = codec.getFieldByQualifierName(view.getQualifier(i).getQualifierName());
+				field.setValue(entity, view.getObject(i));
+			}
+		}
+		return entity;
+	}
+
 	public static List<TaggedLogAPIEntity> buildEntities(List<InternalLog> logs, EntityDefinition entityDef) throws Exception {
 		final List<TaggedLogAPIEntity> result = new ArrayList<TaggedLogAPIEntity>(logs.size());
+		final EntityCodec codec = EntityCodec.getInstance(entityDef);
 		for (InternalLog log : logs) {
-			result.add(buildEntity(log, entityDef));
+			result.add(buildEntity(log, codec));
 		}
 		return result;
 	}
@@ -227,8 +291,7 @@ public class HBaseInternalLogHelper {
 		}
 		
 		log.setPartitions(entityDef.getPartitions());
-		EntitySerDeserializer des = new EntitySerDeserializer();
-		log.setQualifierValues(des.writeValue(entity, entityDef));
+		log.setQualifierValues(EntityCodec.getInstance(entityDef).writeValue(entity));
 		
 		final IndexDefinition[] indexDefs = entityDef.getIndexes();
 		if (indexDefs != null) {
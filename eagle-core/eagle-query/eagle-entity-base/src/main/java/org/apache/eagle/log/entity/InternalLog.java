@@ -35,6 +35,10 @@ public class InternalLog {
 	private Map<String, String> tags;
 	private Map<String, List<String>> searchTags;
 	private List<byte[]> indexRowkeys;
+	/**
+	 * Set when read from HBase, qualifier values and tags are then decoded from it on demand
+	 */
+	private CellRowView rowView;
 
 	public String getEncodedRowkey() {
 		return encodedRowkey;
@@ -45,6 +49,9 @@ public class InternalLog {
 	}
 	
 	public Map<String, byte[]> getQualifierValues() {
+		if(qualifierValues == null && rowView != null){
+			qualifierValues = rowView.getQualifierValues();
+		}
 		return qualifierValues;
 	}
 	public void setQualifierValues(Map<String, byte[]> qualifierValues) {
@@ -76,6 +83,9 @@ public class InternalLog {
 		this.timestamp = timestamp;
 	}
 	public Map<String, String> getTags() {
+		if(tags == null && rowView != null){
+			tags = rowView.getTags();
+		}
 		return tags;
 	}
 	public void setTags(Map<String, String> tags) {
@@ -87,6 +97,12 @@ public class InternalLog {
 	public void setIndexRowkeys(List<byte[]> indexRowkeys) {
 		this.indexRowkeys = indexRowkeys;
 	}
+	public CellRowView getRowView() {
+		return rowView;
+	}
+	public void setRowView(CellRowView rowView) {
+		this.rowView = rowView;
+	}
 	public Map<String, Object> getExtraValues() { return extraValues; }
 	public void setExtraValues(Map<String, Object> extraValues) { this.extraValues = extraValues; }
 
@@ -114,8 +130,8 @@ public class InternalLog {
 			}
 		}
 		sb.append("|tags:");
-		if(tags != null){
-			for(Map.Entry<String, String> entry : tags.entrySet()){
+		if(getTags() != null){
+			for(Map.Entry<String, String> entry : getTags().entrySet()){
 				sb.append(entry.getKey());
 				sb.append("=");
 				sb.append(entry.getValue());
@@ -123,9 +139,10 @@ public class InternalLog {
 			}
 		}
 		sb.append("|columns:");
-		if(qualifierValues != null){
-			for(String qualifier : qualifierValues.keySet()){
-				byte[] value = qualifierValues.get(qualifier);
+		if(getQualifierValues() != null){
+			for(Map.Entry<String, byte[]> entry : getQualifierValues().entrySet()){
+				String qualifier = entry.getKey();
+				byte[] value = entry.getValue();
 				sb.append(qualifier);
 				sb.append("=");
 				if(value != null){
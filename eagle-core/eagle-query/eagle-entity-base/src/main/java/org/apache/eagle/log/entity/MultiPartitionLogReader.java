@@ -0,0 +1,309 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity;
+
+import org.apache.eagle.common.ByteUtil;
+import org.apache.eagle.common.EagleBase64Wrapper;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reads the partitions of one query concurrently and merges them into one stream in the order of a single partition
+ * scan, i.e. timestamp descending. Rows of the same timestamp are ordered by partition, then by rowkey.
+ *
+ * <p>Each partition is read ahead by one batch on the executor while the caller consumes the current batch. A batch
+ * which is not picked up by the executor yet when it's needed is read by the caller itself, so that a saturated
+ * or nested pool can only slow the merge down but never dead lock it.</p>
+ *
+ * <p>Not thread safe, {@link #read()} is expected to be called by a single thread.</p>
+ */
+public class MultiPartitionLogReader implements LogReader<InternalLog> {
+	private final static Comparator<Partition> HEAD_COMPARATOR = new Comparator<Partition>() {
+		@Override
+		public int compare(Partition p1, Partition p2) {
+			long t1 = p1.head.getTimestamp();
+			long t2 = p2.head.getTimestamp();
+			if (t1 != t2) {
+				return t1 > t2 ? -1 : 1;
+			}
+			return p1.index - p2.index;
+		}
+	};
+
+	private final Partition[] partitions;
+	private final int batchSize;
+	private final Executor executor;
+	private PriorityQueue<Partition> heads;
+	private boolean isOpen = false;
+
+	/**
+	 * @param readers one reader for each partition, in partition order
+	 * @param batchSize number of rows read from a partition at a time
+	 * @param executor executor to read partitions on
+	 */
+	public MultiPartitionLogReader(List<? extends LogReader<InternalLog>> readers, int batchSize, Executor executor) {
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("batchSize should be positive, but got " + batchSize);
+		}
+		this.partitions = new Partition[readers.size()];
+		for (int i = 0; i < partitions.length; i++) {
+			partitions[i] = new Partition(i, readers.get(i));
+		}
+		this.batchSize = batchSize;
+		this.executor = executor;
+	}
+
+	@Override
+	public void open() throws IOException {
+		if (isOpen)
+			return; // silently return
+		heads = new PriorityQueue<Partition>(Math.max(1, partitions.length), HEAD_COMPARATOR);
+		for (Partition partition : partitions) {
+			partition.fetchNext();
+		}
+		for (Partition partition : partitions) {
+			if (partition.advance()) {
+				heads.add(partition);
+			}
+		}
+		isOpen = true;
+	}
+
+	@Override
+	public InternalLog read() throws IOException {
+		if (!isOpen)
+			throw new IllegalArgumentException("Reader must be opened before reading");
+		Partition partition = heads.poll();
+		if (partition == null) {
+			return null;
+		}
+		InternalLog log = partition.head;
+		if (partition.advance()) {
+			heads.add(partition);
+		}
+		return log;
+	}
+
+	/**
+	 * Wait for batches being read and close readers of all partitions
+	 */
+	@Override
+	public void close() throws IOException {
+		IOException ex = null;
+		for (Partition partition : partitions) {
+			try {
+				partition.close();
+			} catch (IOException e) {
+				if (ex == null) ex = e;
+			}
+		}
+		if (ex != null) throw ex;
+	}
+
+	/**
+	 * Build the first rowkey to scan of each partition to continue a merged scan after <code>startRowkey</code>,
+	 * i.e. the last row returned by the previous page.
+	 *
+	 * <p>As rows of the same timestamp are ordered by partition, the partition of <code>startRowkey</code> continues
+	 * right after it, partitions before it continue from the next timestamp, and partitions after it continue from
+	 * the same timestamp.</p>
+	 *
+	 * @param partitionValues partition values of each partition, in partition order
+	 * @param startRowkey encoded rowkey of the last row returned
+	 * @return the first rowkey to scan of each partition, in partition order
+	 */
+	public static byte[][] buildScanStartRowkeys(List<List<String>> partitionValues, String startRowkey) {
+		final byte[] lastRowkey = EagleBase64Wrapper.decode(startRowkey);
+		final int numOfPartitionFields = partitionValues.get(0).size();
+		final int timestampOffset = 4 + numOfPartitionFields * 4;
+		if (lastRowkey.length < timestampOffset + 8) {
+			throw new IllegalArgumentException("Invalid startRowkey " + startRowkey + " for " + numOfPartitionFields + " partition fields");
+		}
+		final byte[][] partitionHashes = new byte[partitionValues.size()][];
+		int lastPartition = -1;
+		for (int i = 0; i < partitionHashes.length; i++) {
+			final List<String> values = partitionValues.get(i);
+			partitionHashes[i] = new byte[values.size() * 4];
+			for (int j = 0; j < values.size(); j++) {
+				ByteUtil.intToBytes(values.get(j).hashCode(), partitionHashes[i], j * 4);
+			}
+			if (lastPartition < 0 && Bytes.equals(partitionHashes[i], 0, partitionHashes[i].length, lastRowkey, 4, partitionHashes[i].length)) {
+				lastPartition = i;
+			}
+		}
+		if (lastPartition < 0) {
+			throw new IllegalArgumentException("startRowkey " + startRowkey + " doesn't belong to any partition of the query");
+		}
+		final long reverseTimestamp = ByteUtil.bytesToLong(lastRowkey, timestampOffset);
+		final byte[][] startRowkeys = new byte[partitionHashes.length][];
+		for (int i = 0; i < partitionHashes.length; i++) {
+			if (i == lastPartition) {
+				// the smallest rowkey greater than the last one
+				startRowkeys[i] = ByteUtil.concat(lastRowkey, new byte[]{0});
+				continue;
+			}
+			final byte[] rowkey = new byte[timestampOffset + 8];
+			System.arraycopy(lastRowkey, 0, rowkey, 0, 4);
+			System.arraycopy(partitionHashes[i], 0, rowkey, 4, partitionHashes[i].length);
+			ByteUtil.longToBytes(i < lastPartition ? reverseTimestamp + 1 : reverseTimestamp, rowkey, timestampOffset);
+			startRowkeys[i] = rowkey;
+		}
+		return startRowkeys;
+	}
+
+	private class Partition {
+		private final int index;
+		private final LogReader<InternalLog> reader;
+		private boolean isReaderOpen = false;
+		private Fetch pending;
+		private List<InternalLog> batch = Collections.emptyList();
+		private int position = 0;
+		private InternalLog head;
+
+		Partition(int index, LogReader<InternalLog> reader) {
+			this.index = index;
+			this.reader = reader;
+		}
+
+		void fetchNext() {
+			pending = new Fetch(this);
+			try {
+				executor.execute(pending);
+			} catch (RejectedExecutionException ex) {
+				// read by the caller when needed
+			}
+		}
+
+		/**
+		 * @return false if there is no more row in this partition
+		 */
+		boolean advance() throws IOException {
+			if (position == batch.size()) {
+				if (pending == null) {
+					head = null;
+					return false;
+				}
+				batch = pending.await();
+				pending = null;
+				position = 0;
+				if (batch.size() == batchSize) {
+					// read ahead while current batch is being consumed
+					fetchNext();
+				}
+				if (batch.isEmpty()) {
+					head = null;
+					return false;
+				}
+			}
+			head = batch.get(position++);
+			return true;
+		}
+
+		List<InternalLog> readBatch() throws IOException {
+			if (!isReaderOpen) {
+				reader.open();
+				isReaderOpen = true;
+			}
+			List<InternalLog> logs = new ArrayList<InternalLog>(batchSize);
+			InternalLog log;
+			while (logs.size() < batchSize && (log = reader.read()) != null) {
+				logs.add(log);
+			}
+			return logs;
+		}
+
+		void close() throws IOException {
+			if (pending != null) {
+				pending.cancel();
+				pending = null;
+			}
+			reader.close();
+		}
+	}
+
+	/**
+	 * Reading of one batch, run either by the executor or by the caller, whoever comes first
+	 */
+	private static class Fetch implements Runnable {
+		private final Partition partition;
+		private final AtomicBoolean claimed = new AtomicBoolean(false);
+		private final CountDownLatch done = new CountDownLatch(1);
+		private List<InternalLog> logs;
+		private Throwable error;
+
+		Fetch(Partition partition) {
+			this.partition = partition;
+		}
+
+		@Override
+		public void run() {
+			if (!claimed.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				logs = partition.readBatch();
+			} catch (Throwable t) {
+				error = t;
+			} finally {
+				done.countDown();
+			}
+		}
+
+		List<InternalLog> await() throws IOException {
+			run();
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Interrupted while reading partition " + partition.index);
+			}
+			if (error instanceof IOException) {
+				throw (IOException) error;
+			} else if (error instanceof RuntimeException) {
+				throw (RuntimeException) error;
+			} else if (error != null) {
+				throw new IOException(error);
+			}
+			return logs;
+		}
+
+		/**
+		 * Skip the fetch if not started yet, otherwise wait for it to finish so that the reader can be closed
+		 */
+		void cancel() {
+			if (claimed.compareAndSet(false, true)) {
+				return;
+			}
+			try {
+				done.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -19,6 +19,7 @@ package org.apache.eagle.log.entity;
 import org.apache.eagle.query.parser.ORExpression;
 import org.apache.hadoop.hbase.filter.Filter;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -32,6 +33,7 @@ import java.util.Map;
  * 5. output fields and tags
  * 6. entityName
  * 7. pagination: pageSize and startRowkey
+ * 8. partition values, or filters of each partition if the query covers multiple partitions
  */
 public class SearchCondition{
 	private String startTime;
@@ -43,6 +45,7 @@ public class SearchCondition{
 	private String startRowkey;
 	private String entityName;
 	private List<String> partitionValues;
+	private Map<List<String>, Filter> partitionFilters;
 	private ORExpression queryExpression;
 
 	public boolean isOutputVerbose() {
@@ -77,7 +80,11 @@ public class SearchCondition{
 		this.startRowkey = sc.startRowkey;
 		this.entityName = sc.entityName;
 		this.partitionValues = sc.partitionValues;
+		this.partitionFilters = sc.partitionFilters;
 		this.queryExpression = sc.queryExpression;
+		this.outputAll = sc.outputAll;
+		this.outputVerbose = sc.outputVerbose;
+		this.outputAlias = sc.outputAlias;
 	}
 	
 	public SearchCondition(){
@@ -131,6 +138,37 @@ public class SearchCondition{
 	public void setPartitionValues(List<String> partitionValues) {
 		this.partitionValues = partitionValues;
 	}
+	public Map<List<String>, Filter> getPartitionFilters() {
+		return partitionFilters;
+	}
+	/**
+	 * @param partitionFilters filter of each partition keyed by partition values sorted in partition definition order,
+	 *                         iteration order decides the order of partitions whose rows have the same timestamp
+	 */
+	public void setPartitionFilters(Map<List<String>, Filter> partitionFilters) {
+		this.partitionFilters = partitionFilters;
+	}
+	public boolean isMultiPartition() {
+		return partitionFilters != null && partitionFilters.size() > 1;
+	}
+	/**
+	 * @return one copy of the condition for each partition, with its own partition values and filter
+	 */
+	public List<SearchCondition> splitByPartition() {
+		final List<SearchCondition> conditions = new ArrayList<SearchCondition>();
+		if (partitionFilters == null) {
+			conditions.add(this);
+			return conditions;
+		}
+		for (Map.Entry<List<String>, Filter> entry : partitionFilters.entrySet()) {
+			SearchCondition sc = new SearchCondition(this);
+			sc.setPartitionValues(entry.getKey());
+			sc.setFilter(entry.getValue());
+			sc.setPartitionFilters(null);
+			conditions.add(sc);
+		}
+		return conditions;
+	}
 	public ORExpression getQueryExpression() {
 		return queryExpression;
 	}
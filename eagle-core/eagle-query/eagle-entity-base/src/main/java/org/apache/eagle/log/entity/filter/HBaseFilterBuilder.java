@@ -116,8 +116,8 @@ public class HBaseFilterBuilder {
 	 * Return the partition values for each or expression. The size of the returned list should be equal to
 	 * the size of FilterList that {@link #buildFilters()} returns.
 	 * 
-	 * TODO: For now we don't support one query to query multiple partitions. In future if partition is defined, 
-	 * for the entity, internally We need to spawn multiple queries and send one query for each partition.
+	 * Only equal conditions are taken into account, see {@link #getDistinctPartitionValues()} for the partitions
+	 * to scan when one query covers multiple partitions.
 	 * 
 	 * @return Return the partition values for each or expression. Return null if the entity doesn't support
 	 * partition
@@ -156,19 +156,122 @@ public class HBaseFilterBuilder {
 		return result;
 	}
 
+	/**
+	 * Return the distinct partition values to scan. Equal and in conditions on partition tags of each or expression
+	 * are expanded into all combinations of their values, in the order they appear in the query.
+	 *
+	 * @return partition values sorted in partition definition order, a value is null if some or expression doesn't
+	 * constrain that partition. Return null if the entity doesn't support partition
+	 */
+	public List<String[]> getDistinctPartitionValues() {
+		final String[] partitions = _ed.getPartitions();
+		if (partitions == null || partitions.length == 0) {
+			return null;
+		}
+		final Set<List<String>> distinctValues = new LinkedHashSet<List<String>>();
+		for(ANDExpression andExpr : _orExpr.getANDExprList()) {
+			final Map<String, List<String>> constraints = getPartitionConstraints(andExpr);
+			List<List<String>> combinations = new ArrayList<List<String>>();
+			combinations.add(new ArrayList<String>());
+			for (String partition : partitions) {
+				List<String> values = constraints.get(partition);
+				if (values == null) {
+					values = Collections.singletonList(null);
+				}
+				final List<List<String>> expanded = new ArrayList<List<String>>(combinations.size() * values.size());
+				for (List<String> combination : combinations) {
+					for (String value : values) {
+						final List<String> copy = new ArrayList<String>(combination);
+						copy.add(value);
+						expanded.add(copy);
+					}
+				}
+				combinations = expanded;
+			}
+			distinctValues.addAll(combinations);
+		}
+		final List<String[]> result = new ArrayList<String[]>(distinctValues.size());
+		for (List<String> values : distinctValues) {
+			result.add(values.toArray(new String[values.size()]));
+		}
+		return result;
+	}
+
+	/**
+	 * @return values allowed by equal and in conditions of each partition tag in the and expression,
+	 * partition tags without such condition are absent
+	 */
+	private Map<String, List<String>> getPartitionConstraints(ANDExpression andExpr) {
+		final Map<String, List<String>> constraints = new HashMap<String, List<String>>();
+		for(AtomicExpression ae : andExpr.getAtomicExprList()) {
+			if(ae.getKeyType() != TokenType.ID) {
+				continue;
+			}
+			final String fieldName = parseEntityAttribute(ae.getKey());
+			if (fieldName == null || !_ed.isPartitionTag(fieldName)) {
+				continue;
+			}
+			final List<String> values;
+			if (ComparisonOperator.EQUAL.equals(ae.getOp())) {
+				values = new ArrayList<String>(Collections.singletonList(ae.getValue()));
+			} else if (ComparisonOperator.IN.equals(ae.getOp())) {
+				values = new ArrayList<String>(new LinkedHashSet<String>(EntityQualifierUtils.parseList(ae.getValue())));
+			} else {
+				continue;
+			}
+			final List<String> previous = constraints.get(fieldName);
+			if (previous != null) {
+				// all conditions of an and expression must be satisfied
+				values.retainAll(previous);
+			}
+			constraints.put(fieldName, values);
+		}
+		return constraints;
+	}
+
+	/**
+	 * @return false if partition conditions of the and expression exclude the partition
+	 */
+	private boolean matchesPartition(ANDExpression andExpr, String[] partitionValues) {
+		final String[] partitions = _ed.getPartitions();
+		final Map<String, List<String>> constraints = getPartitionConstraints(andExpr);
+		for (int i = 0; i < partitions.length; ++i) {
+			final List<String> values = constraints.get(partitions[i]);
+			if (values != null && !values.contains(partitionValues[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	/**
 	 * @see org.apache.eagle.query.parser.TokenType
 	 *
 	 * @return
 	 */
 	public FilterList buildFilters(){
+		return buildFilters(null);
+	}
+
+	/**
+	 * Build filters for scanning one of the partitions returned by {@link #getDistinctPartitionValues()}.
+	 * Partition tags are only checked by the scan range, so or expressions whose partition conditions exclude
+	 * the partition are left out, otherwise they would let through rows meant for another partition.
+	 *
+	 * @param partitionValues partition values sorted in partition definition order, null to keep all or expressions
+	 * @return
+	 */
+	public FilterList buildFilters(String[] partitionValues){
 		// TODO: Optimize to select between row filter or column filter for better performance
 		// Use row key filter priority by default
 		boolean rowFilterPriority = true;
 
 		FilterList fltList = new FilterList(Operator.MUST_PASS_ONE);
 		for(ANDExpression andExpr : _orExpr.getANDExprList()){
-			
+			if(partitionValues != null && !matchesPartition(andExpr, partitionValues)){
+				continue;
+			}
+
 			FilterList list = new FilterList(Operator.MUST_PASS_ALL);
 			Map<String, List<String>> tagFilters = new HashMap<String, List<String>>();
 			List<QualifierFilterEntity> qualifierFilters = new ArrayList<QualifierFilterEntity>();
@@ -251,8 +354,13 @@ public class HBaseFilterBuilder {
 	 * charset to decode the byte array stored in qualifier
 	 * for tag filter regex, it's always ISO-8859-1 as it only comes from String's hashcode (Integer)
 	 * Note: regex comparasion is to compare String
+	 *
+	 * If custom filter and coprocessor is enabled, {@link TagHashFilter} is used instead, which compares hashes at fixed offsets
 	 */
 	protected Filter buildTagFilter(Map<String, List<String>> tagFilters){
+		if(EagleConfigFactory.load().isCoprocessorEnabled()){
+			return buildTagHashFilter(tagFilters);
+		}
 		RegexStringComparator regexStringComparator = new RegexStringComparator(buildTagFilterRegex(tagFilters));
 		regexStringComparator.setCharset(_charset);
 		RowFilter filter = new RowFilter(CompareOp.EQUAL, regexStringComparator);
@@ -494,24 +602,8 @@ public class HBaseFilterBuilder {
 	 */
 	protected String buildTagFilterRegex(Map<String, List<String>> tags){
 		// TODO need consider that \E could be part of tag, refer to https://github.com/OpenTSDB/opentsdb/blob/master/src/core/TsdbQuery.java
-		final SortedMap<Integer, List<Integer>> tagHash = new TreeMap<Integer, List<Integer>>();
-		final int numOfPartitionFields = (_ed.getPartitions() == null) ? 0 : _ed.getPartitions().length;
-		for(Map.Entry<String, List<String>> entry : tags.entrySet()){
-			String tagName = entry.getKey();
-			// Ignore tag if the tag is one of partition fields
-			if (_ed.isPartitionTag(tagName)) {
-				continue;
-			}
-			List<String> stringValues = entry.getValue();
-			List<Integer> hashValues = new ArrayList<Integer>(stringValues.size());
-			for(String value : stringValues){
-				hashValues.add(value.hashCode());
-			}
-			tagHash.put(tagName.hashCode(), hashValues);
-		}
-		
-		// header = prefix(4 bytes) + partition_hashes(4*N bytes) + timestamp (8 bytes)
-		final int headerLength = 4 + numOfPartitionFields * 4 + 8;
+		final SortedMap<Integer, List<Integer>> tagHash = buildTagHashes(tags);
+		final int headerLength = getRowkeyHeaderLength();
 
 		// <tag1:4><value1:4> ... <tagn:4><valuen:4>
 		StringBuilder sb = new StringBuilder();
@@ -542,6 +634,42 @@ public class HBaseFilterBuilder {
 		return sb.toString();
 	}
 
+	/**
+	 * Same condition as {@link #buildTagFilterRegex(Map)}, but matched by comparing hashes in rowkey
+	 */
+	protected TagHashFilter buildTagHashFilter(Map<String, List<String>> tags){
+		return new TagHashFilter(getRowkeyHeaderLength(), buildTagHashes(tags));
+	}
+
+	/**
+	 * @return tag value hashes keyed by tag name hash, in the same order as tags in rowkey, partition tags are excluded
+	 */
+	private SortedMap<Integer, List<Integer>> buildTagHashes(Map<String, List<String>> tags){
+		final SortedMap<Integer, List<Integer>> tagHash = new TreeMap<Integer, List<Integer>>();
+		for(Map.Entry<String, List<String>> entry : tags.entrySet()){
+			String tagName = entry.getKey();
+			// Ignore tag if the tag is one of partition fields
+			if (_ed.isPartitionTag(tagName)) {
+				continue;
+			}
+			List<String> stringValues = entry.getValue();
+			List<Integer> hashValues = new ArrayList<Integer>(stringValues.size());
+			for(String value : stringValues){
+				hashValues.add(value.hashCode());
+			}
+			tagHash.put(tagName.hashCode(), hashValues);
+		}
+		return tagHash;
+	}
+
+	/**
+	 * header = prefix(4 bytes) + partition_hashes(4*N bytes) + timestamp (8 bytes)
+	 */
+	private int getRowkeyHeaderLength(){
+		final int numOfPartitionFields = (_ed.getPartitions() == null) ? 0 : _ed.getPartitions().length;
+		return 4 + numOfPartitionFields * 4 + 8;
+	}
+
 	/**
 	 * Convert ComparisonOperator to native HBase CompareOp
 	 *
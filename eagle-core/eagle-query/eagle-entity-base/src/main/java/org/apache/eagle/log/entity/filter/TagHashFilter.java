@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity.filter;
+
+import com.google.common.io.ByteArrayDataInput;
+import com.google.common.io.ByteArrayDataOutput;
+import com.google.common.io.ByteStreams;
+import org.apache.eagle.common.ByteUtil;
+import org.apache.hadoop.hbase.exceptions.DeserializationException;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterBase;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Rowkey filter for equal or in conditions on tags, which compares tag name and value hashes at fixed offsets of the
+ * rowkey instead of matching a regular expression over it.
+ *
+ * <p>Rowkey is <code>prefixHash:4 + (partitionValueHash:4)* + timestamp:8 + (tagNameHash:4 + tagValueHash:4)*</code>
+ * where tags are sorted by tag name hash, see {@link org.apache.eagle.log.entity.RowkeyBuilder}. A row is kept only if
+ * for every tag name hash of the filter, the rowkey has the tag and its value hash is one of the allowed ones.
+ * It's equivalent to the regex built by {@link HBaseFilterBuilder#buildTagFilterRegex(Map)}.</p>
+ *
+ * <p>It's a custom filter, so eagle jars must be deployed on region servers as for coprocessor.</p>
+ */
+public class TagHashFilter extends FilterBase {
+    private int headerLength;
+    /**
+     * tag name hashes in ascending order
+     */
+    private int[] tagNameHashes;
+    /**
+     * allowed tag value hashes of each tag name in ascending order
+     */
+    private int[][] tagValueHashes;
+
+    public TagHashFilter(){}
+
+    /**
+     * @param headerLength length of prefix, partition and timestamp part of rowkey
+     * @param tagHashes allowed tag value hashes keyed by tag name hash
+     */
+    public TagHashFilter(int headerLength, SortedMap<Integer, List<Integer>> tagHashes) {
+        this.headerLength = headerLength;
+        this.tagNameHashes = new int[tagHashes.size()];
+        this.tagValueHashes = new int[tagHashes.size()][];
+        int i = 0;
+        for (Map.Entry<Integer, List<Integer>> entry : tagHashes.entrySet()) {
+            tagNameHashes[i] = entry.getKey();
+            int[] values = new int[entry.getValue().size()];
+            for (int j = 0; j < values.length; j++) {
+                values[j] = entry.getValue().get(j);
+            }
+            Arrays.sort(values);
+            tagValueHashes[i++] = values;
+        }
+    }
+
+    /**
+     * @return true to filter out the row
+     */
+    @Override
+    public boolean filterRowKey(byte[] buffer, int offset, int length) {
+        int tagsLength = length - headerLength;
+        if (tagsLength < 0 || tagsLength % 8 != 0) {
+            return true;
+        }
+        int end = offset + length;
+        int pos = offset + headerLength;
+        // merge sorted tags of the filter with sorted tags of the rowkey
+        for (int i = 0; i < tagNameHashes.length; i++) {
+            int tagNameHash = tagNameHashes[i];
+            boolean found = false;
+            for (; pos < end; pos += 8) {
+                int hash = ByteUtil.bytesToInt(buffer, pos);
+                if (hash == tagNameHash) {
+                    found = Arrays.binarySearch(tagValueHashes[i], ByteUtil.bytesToInt(buffer, pos + 4)) >= 0;
+                    pos += 8;
+                    break;
+                } else if (hash > tagNameHash) {
+                    break;
+                }
+            }
+            if (!found) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        ByteArrayDataOutput out = ByteStreams.newDataOutput();
+        out.writeInt(headerLength);
+        out.writeInt(tagNameHashes.length);
+        for (int i = 0; i < tagNameHashes.length; i++) {
+            out.writeInt(tagNameHashes[i]);
+            out.writeInt(tagValueHashes[i].length);
+            for (int value : tagValueHashes[i]) {
+                out.writeInt(value);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    // Override static method
+    public static Filter parseFrom(final byte[] pbBytes) throws DeserializationException {
+        try {
+            ByteArrayDataInput in = ByteStreams.newDataInput(pbBytes);
+            TagHashFilter filter = new TagHashFilter();
+            filter.headerLength = in.readInt();
+            int size = in.readInt();
+            filter.tagNameHashes = new int[size];
+            filter.tagValueHashes = new int[size][];
+            for (int i = 0; i < size; i++) {
+                filter.tagNameHashes[i] = in.readInt();
+                int[] values = new int[in.readInt()];
+                for (int j = 0; j < values.length; j++) {
+                    values[j] = in.readInt();
+                }
+                filter.tagValueHashes[i] = values;
+            }
+            return filter;
+        } catch (IllegalStateException e) {
+            throw new DeserializationException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(getClass().getSimpleName()).append(" (headerLength=").append(headerLength);
+        for (int i = 0; i < tagNameHashes.length; i++) {
+            sb.append(", ").append(tagNameHashes[i]).append(" in ").append(Arrays.toString(tagValueHashes[i]));
+        }
+        return sb.append(")").toString();
+    }
+}
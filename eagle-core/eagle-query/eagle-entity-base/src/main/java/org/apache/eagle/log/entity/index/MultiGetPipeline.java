@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity.index;
+
+import org.apache.eagle.common.config.EagleConfig;
+import org.apache.eagle.common.config.EagleConfigFactory;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HTableFactory;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Result;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Bounded pipeline of multi-gets against one table, results are taken back in the order the batches are submitted.
+ *
+ * <p>Up to <code>concurrency</code> batches are in flight on the executor, each with its own table from the pool, while
+ * the caller prepares the next batches, e.g. by scanning the index. Gets of one batch are grouped by region server and
+ * sent in parallel by the HBase client itself. A batch which is not picked up by the executor yet when its results are
+ * needed is run by the caller, so that a saturated or nested pool can only slow the reader down but never dead lock it.</p>
+ *
+ * <p>Not thread safe, expected to be used by the single thread of a reader.</p>
+ */
+public class MultiGetPipeline {
+	private final String table;
+	private final int concurrency;
+	private final Executor executor;
+	private final Deque<FutureTask<Result[]>> batches = new ArrayDeque<>();
+
+	public MultiGetPipeline(String table) {
+		this(table, EagleConfigFactory.load().getHBaseClientMultiGetConcurrency(), EagleConfigFactory.load().getExecutor());
+	}
+
+	/**
+	 * @param table table to get from
+	 * @param concurrency max number of batches in flight
+	 * @param executor executor to run batches on, if null batches are run by the caller when taken
+	 */
+	public MultiGetPipeline(String table, int concurrency, Executor executor) {
+		if (concurrency <= 0) {
+			throw new IllegalArgumentException("concurrency should be positive, but got " + concurrency);
+		}
+		this.table = table;
+		this.concurrency = concurrency;
+		this.executor = executor;
+	}
+
+	/**
+	 * @return batch size of index and rowkey readers, see {@link EagleConfig#getHBaseClientMultiGetBatchSize()}
+	 */
+	public static int getBatchSize() {
+		return Math.max(1, EagleConfigFactory.load().getHBaseClientMultiGetBatchSize());
+	}
+
+	public boolean isFull() {
+		return batches.size() >= concurrency;
+	}
+
+	public boolean isEmpty() {
+		return batches.isEmpty();
+	}
+
+	/**
+	 * Start getting the batch in background
+	 *
+	 * @throws IllegalStateException if there are already <code>concurrency</code> batches in flight
+	 */
+	public void submit(final List<Get> gets) {
+		if (isFull()) {
+			throw new IllegalStateException("Already " + batches.size() + " batches in flight");
+		}
+		final FutureTask<Result[]> batch = new FutureTask<>(new Callable<Result[]>() {
+			@Override
+			public Result[] call() throws Exception {
+				return get(gets);
+			}
+		});
+		batches.addLast(batch);
+		if (executor != null) {
+			try {
+				executor.execute(batch);
+			} catch (RejectedExecutionException ex) {
+				// run by the caller when taken
+			}
+		}
+	}
+
+	/**
+	 * Wait for the earliest submitted batch
+	 *
+	 * @return results of the earliest submitted batch in the order of its gets, or null if there is no batch in flight
+	 */
+	public Result[] take() throws IOException {
+		final FutureTask<Result[]> batch = batches.pollFirst();
+		if (batch == null) {
+			return null;
+		}
+		// no-op if already started by the executor
+		batch.run();
+		try {
+			return batch.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while getting from " + table);
+		} catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
+	/**
+	 * Skip batches which are not started yet, running ones finish in background and release their own tables
+	 */
+	public void close() {
+		FutureTask<Result[]> batch;
+		while ((batch = batches.pollFirst()) != null) {
+			batch.cancel(false);
+		}
+	}
+
+	/**
+	 * Multi-get of one batch, called from the executor or the caller
+	 */
+	protected Result[] get(List<Get> gets) throws IOException {
+		final HTableInterface tbl;
+		try {
+			tbl = EagleConfigFactory.load().getHTable(table);
+		} catch (RuntimeException ex) {
+			throw new IOException(ex);
+		}
+		try {
+			return tbl.get(gets);
+		} finally {
+			new HTableFactory().releaseHTableInterface(tbl);
+		}
+	}
+}
@@ -28,23 +28,27 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-
+/**
+ * Scans the index and gets the referenced entities in batches through a {@link MultiGetPipeline}, so that scanning
+ * of the index overlaps with getting of the previous batches. Entities are returned in index order.
+ */
 public class NonClusteredIndexLogReader extends IndexLogReader {
 	private final IndexDefinition indexDef;
 	private final List<byte[]> indexRowkeys;
 	private final byte[][] qualifiers;
 	private final Filter filter;
 	private HTableInterface tbl;
+	private MultiGetPipeline pipeline;
 	private boolean isOpen = false;
 	private Result[] results;
 	private int index = -1;
 	private final List<Scan> scans;
 	private int currentScanIndex = 0;
 	private ResultScanner currentResultScanner;
+	private int batchSize;
 
 	// Max tag key/value. 
 	private static final byte[] MAX_TAG_VALUE_BYTES = {(byte) 0XFF,(byte) 0XFF,(byte) 0XFF,(byte) 0XFF,(byte) 0XFF,(byte) 0XFF,(byte) 0XFF,(byte) 0XFF,(byte) 0XFF};
-	private static final int BATCH_MULTIGET_SIZE = 1000;
 
 	public NonClusteredIndexLogReader(IndexDefinition indexDef, List<byte[]> indexRowkeys, byte[][] qualifiers, Filter filter) {
 		this.indexDef = indexDef;
@@ -84,9 +88,12 @@ public class NonClusteredIndexLogReader extends IndexLogReader {
 		} catch (RuntimeException ex) {
 			throw new IOException(ex);
 		}
+		pipeline = new MultiGetPipeline(indexDef.getEntityDefinition().getTable());
+		batchSize = MultiGetPipeline.getBatchSize();
 		currentScanIndex = 0;
 		openNewScan();
-		fillResults();
+		fillPipeline();
+		isOpen = true;
 	}
 
 	private boolean openNewScan() throws IOException {
@@ -99,16 +106,27 @@ public class NonClusteredIndexLogReader extends IndexLogReader {
 		return true;
 	}
 
-	private void fillResults() throws IOException {
+	/**
+	 * Scan the index for next batches until the pipeline is full or the index is exhausted
+	 */
+	private void fillPipeline() throws IOException {
+		while (!pipeline.isFull()) {
+			final List<Get> gets = scanNextBatch();
+			if (gets.isEmpty()) {
+				return;
+			}
+			pipeline.submit(gets);
+		}
+	}
+
+	private List<Get> scanNextBatch() throws IOException {
+		final List<Get> gets = new ArrayList<Get>(batchSize);
 		if (currentResultScanner == null) {
-			return;
+			return gets;
 		}
-		index = 0;
-		int count = 0;
 		Result r = null;
-        final List<Get> gets = new ArrayList<Get>(BATCH_MULTIGET_SIZE);
 		final byte[] family = indexDef.getEntityDefinition().getColumnFamily().getBytes();
-		while (count < BATCH_MULTIGET_SIZE) {
+		while (gets.size() < batchSize) {
 			r = currentResultScanner.next();
 			if (r == null) {
 				if (openNewScan()) {
@@ -135,17 +153,9 @@ public class NonClusteredIndexLogReader extends IndexLogReader {
 				}
         		workaroundHBASE2198(get, filter,qualifiers);
 				gets.add(get);
-				++count;
 			}
 		}
-		if (count == 0) {
-			results = null;
-			return;
-		}
-		results = tbl.get(gets);
-		if (results == null || results.length == 0) {
-			fillResults();
-		}
+		return gets;
 	}
 
 
@@ -159,6 +169,9 @@ public class NonClusteredIndexLogReader extends IndexLogReader {
 
 	@Override
 	public void close() throws IOException {
+		if (pipeline != null) {
+			pipeline.close();
+		}
 		if(tbl != null){
 			new HTableFactory().releaseHTableInterface(tbl);
 		}
@@ -185,11 +198,14 @@ public class NonClusteredIndexLogReader extends IndexLogReader {
 
 
 	private Result getNextResult() throws IOException {
-		if (results == null || results.length == 0 || index >= results.length) {
-			fillResults();
-		}
-		if (results == null || results.length == 0 || index >= results.length) {
-			return null;
+		while (results == null || index >= results.length) {
+			results = pipeline.take();
+			index = 0;
+			if (results == null) {
+				return null;
+			}
+			// keep scanning the index while the batches in flight are being got
+			fillPipeline();
 		}
 		return results[index++];
 	}
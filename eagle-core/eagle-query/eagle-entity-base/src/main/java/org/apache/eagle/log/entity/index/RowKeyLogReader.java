@@ -20,22 +20,24 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.eagle.common.config.EagleConfigFactory;
 import org.apache.eagle.log.entity.HBaseInternalLogHelper;
 import org.apache.eagle.log.entity.InternalLog;
 import org.apache.hadoop.hbase.client.Get;
-import org.apache.hadoop.hbase.client.HTableFactory;
-import org.apache.hadoop.hbase.client.HTableInterface;
 import org.apache.hadoop.hbase.client.Result;
 
 import org.apache.eagle.log.entity.meta.EntityDefinition;
 
+/**
+ * Gets the rows of given rowkeys in batches through a {@link MultiGetPipeline}, rows are returned in the order of rowkeys
+ */
 public class RowKeyLogReader extends IndexLogReader {
 	private final EntityDefinition ed;
 	private final List<byte[]> rowkeys;
     private final byte[][] qualifiers;
-    private HTableInterface tbl;
 	private boolean isOpen = false;
+	private MultiGetPipeline pipeline;
+	private int batchSize;
+	private int nextRowkey = 0;
 	private Result[] entityResult;
     private int getIndex = -1;
 
@@ -63,42 +65,50 @@ public class RowKeyLogReader extends IndexLogReader {
 	public void open() throws IOException {
 		if (isOpen)
 			return; // silently return
-		try {
-			tbl = EagleConfigFactory.load().getHTable(ed.getTable());
-		} catch (RuntimeException ex) {
-			throw new IOException(ex);
-		}
+		pipeline = new MultiGetPipeline(ed.getTable());
+		batchSize = MultiGetPipeline.getBatchSize();
+		fillPipeline();
+		isOpen = true;
+	}
+
+	private void fillPipeline() {
 		final byte[] family = ed.getColumnFamily().getBytes();
-        List<Get> gets = new ArrayList<>(this.rowkeys.size());
+		while (!pipeline.isFull() && nextRowkey < rowkeys.size()) {
+			final int end = Math.min(nextRowkey + batchSize, rowkeys.size());
+            List<Get> gets = new ArrayList<>(end - nextRowkey);
 
-        for(byte[] rowkey:rowkeys) {
-            Get get = new Get(rowkey);
-            get.addFamily(family);
+            for(byte[] rowkey:rowkeys.subList(nextRowkey, end)) {
+                Get get = new Get(rowkey);
+                get.addFamily(family);
 
-            if(qualifiers != null) {
-                for(byte[] qualifier: qualifiers){
-                    get.addColumn(family,qualifier);
+                if(qualifiers != null) {
+                    for(byte[] qualifier: qualifiers){
+                        get.addColumn(family,qualifier);
+                    }
                 }
-            }
 
-            gets.add(get);
-        }
-
-        entityResult = tbl.get(gets);
-		isOpen = true;
+                gets.add(get);
+            }
+			nextRowkey = end;
+			pipeline.submit(gets);
+		}
 	}
 
 	@Override
 	public void close() throws IOException {
-		if(tbl != null){
-			new HTableFactory().releaseHTableInterface(tbl);
+		if(pipeline != null){
+			pipeline.close();
 		}
 	}
 
 	@Override
 	public InternalLog read() throws IOException {
-        if(entityResult == null || entityResult.length == 0 || this.getIndex >= entityResult.length - 1){
-            return null;
+        while(entityResult == null || this.getIndex >= entityResult.length - 1){
+            if(pipeline == null || (entityResult = pipeline.take()) == null){
+                return null;
+            }
+            getIndex = -1;
+            fillPipeline();
         }
         getIndex ++;
 		InternalLog t = HBaseInternalLogHelper.parse(ed, entityResult[getIndex], this.qualifiers);
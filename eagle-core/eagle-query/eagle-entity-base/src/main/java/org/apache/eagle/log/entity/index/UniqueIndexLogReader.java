@@ -21,24 +21,29 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.NavigableMap;
 
-import org.apache.eagle.common.config.EagleConfigFactory;
 import org.apache.eagle.log.entity.HBaseInternalLogHelper;
 import org.apache.eagle.log.entity.InternalLog;
 import org.apache.eagle.log.entity.meta.IndexDefinition;
 import org.apache.hadoop.hbase.client.Get;
-import org.apache.hadoop.hbase.client.HTableFactory;
-import org.apache.hadoop.hbase.client.HTableInterface;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.filter.Filter;
 
+/**
+ * Gets the index rows and then the referenced entities in batches, both through a {@link MultiGetPipeline}, so that
+ * index lookups of later batches overlap with getting of entities of earlier ones. Entities are returned in index order.
+ */
 public class UniqueIndexLogReader extends IndexLogReader {
 
 	private final IndexDefinition indexDef;
 	private final List<byte[]> indexRowkeys; 
 	private final byte[][] qualifiers;
 	private final Filter filter;
-	private HTableInterface tbl;
 	private boolean isOpen = false;
+	private MultiGetPipeline indexPipeline;
+	private MultiGetPipeline entityPipeline;
+	private int batchSize;
+	private int nextIndexRowkey = 0;
+	private final List<Get> pendingEntityGets = new ArrayList<>();
 	private Result[] entityResults;
 	private int index = -1;
 
@@ -53,31 +58,65 @@ public class UniqueIndexLogReader extends IndexLogReader {
 	public void open() throws IOException {
 		if (isOpen)
 			return; // silently return
-		try {
-			tbl = EagleConfigFactory.load().getHTable(indexDef.getEntityDefinition().getTable());
-		} catch (RuntimeException ex) {
-			throw new IOException(ex);
+		final String table = indexDef.getEntityDefinition().getTable();
+		indexPipeline = new MultiGetPipeline(table);
+		entityPipeline = new MultiGetPipeline(table);
+		batchSize = MultiGetPipeline.getBatchSize();
+		fillPipeline();
+		isOpen = true;
+	}
+
+	/**
+	 * Submit batches of entity gets until the entity pipeline is full or all index rows are looked up
+	 */
+	private void fillPipeline() throws IOException {
+		while (!entityPipeline.isFull()) {
+			submitIndexGets();
+			while (pendingEntityGets.size() < batchSize) {
+				final Result[] indexResults = indexPipeline.take();
+				if (indexResults == null) {
+					break;
+				}
+				addEntityGets(indexResults);
+				submitIndexGets();
+			}
+			if (pendingEntityGets.isEmpty()) {
+				return;
+			}
+			final List<Get> batch = pendingEntityGets.subList(0, Math.min(batchSize, pendingEntityGets.size()));
+			entityPipeline.submit(new ArrayList<>(batch));
+			batch.clear();
 		}
+	}
+
+	private void submitIndexGets() {
 		final byte[] family = indexDef.getEntityDefinition().getColumnFamily().getBytes();
-        final List<Get> indexGets = new ArrayList<>();
-        for (byte[] rowkey : indexRowkeys) {
-            Get get = new Get(rowkey);
-            // Return all index qualifiers
-            get.addFamily(family);
-            indexGets.add(get);
-        }
-        final Result[] indexResults = tbl.get(indexGets);
-        indexGets.clear();
-        for (Result indexResult : indexResults) {
-        	final NavigableMap<byte[], byte[]> map = indexResult.getFamilyMap(family);
-        	if (map == null) {
-        		continue;
-        	}
-        	for (byte[] entityRowkey : map.keySet()) {
-                Get get = new Get(entityRowkey);
-                if (filter != null) {
-                	get.setFilter(filter);
-                }
+		while (!indexPipeline.isFull() && nextIndexRowkey < indexRowkeys.size()) {
+			final int end = Math.min(nextIndexRowkey + batchSize, indexRowkeys.size());
+			final List<Get> indexGets = new ArrayList<>(end - nextIndexRowkey);
+			for (byte[] rowkey : indexRowkeys.subList(nextIndexRowkey, end)) {
+				Get get = new Get(rowkey);
+				// Return all index qualifiers
+				get.addFamily(family);
+				indexGets.add(get);
+			}
+			nextIndexRowkey = end;
+			indexPipeline.submit(indexGets);
+		}
+	}
+
+	private void addEntityGets(Result[] indexResults) {
+		final byte[] family = indexDef.getEntityDefinition().getColumnFamily().getBytes();
+		for (Result indexResult : indexResults) {
+			final NavigableMap<byte[], byte[]> map = indexResult.getFamilyMap(family);
+			if (map == null) {
+				continue;
+			}
+			for (byte[] entityRowkey : map.keySet()) {
+				Get get = new Get(entityRowkey);
+				if (filter != null) {
+					get.setFilter(filter);
+				}
 				if(qualifiers == null) {
 					// filter all qualifiers if output qualifiers are null
 					get.addFamily(family);
@@ -88,37 +127,48 @@ public class UniqueIndexLogReader extends IndexLogReader {
 					}
 				}
 				workaroundHBASE2198(get, filter,qualifiers);
-        		indexGets.add(get);
-        	}
-        }
-        entityResults = tbl.get(indexGets);
-		isOpen = true;
+				pendingEntityGets.add(get);
+			}
+		}
 	}
 
 	@Override
 	public void close() throws IOException {
-		if(tbl != null){
-			new HTableFactory().releaseHTableInterface(tbl);
+		if (indexPipeline != null) {
+			indexPipeline.close();
+		}
+		if (entityPipeline != null) {
+			entityPipeline.close();
 		}
 	}
 
 	@Override
 	public InternalLog read() throws IOException {
-		if (entityResults == null) {
+		if (!isOpen) {
 			throw new IllegalArgumentException("entityResults haven't been initialized before reading");
 		}
 		InternalLog t = null;
-		while (entityResults.length > ++index) {
-			Result r = entityResults[index];
-			if (r != null) {
-				if (r.getRow() == null) {
-					continue;
-				}
-				t = HBaseInternalLogHelper.parse(indexDef.getEntityDefinition(), r, qualifiers);
-				break;
+		Result r;
+		while ((r = getNextResult()) != null) {
+			if (r.getRow() == null) {
+				continue;
 			}
+			t = HBaseInternalLogHelper.parse(indexDef.getEntityDefinition(), r, qualifiers);
+			break;
 		}
 		return t;
 	}
 
+	private Result getNextResult() throws IOException {
+		while (entityResults == null || index >= entityResults.length) {
+			entityResults = entityPipeline.take();
+			index = 0;
+			if (entityResults == null) {
+				return null;
+			}
+			fillPipeline();
+		}
+		return entityResults[index++];
+	}
+
 }
@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity.meta;
+
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.commons.beanutils.PropertyUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reflection-free reader/writer of entity objects, resolved once per entity class.
+ *
+ * <p>All bean property lookups are done when the codec is created, each qualifier is then bound to
+ * a pair of {@link MethodHandle}s adapted to <code>(TaggedLogAPIEntity,Object)void</code> and
+ * <code>(TaggedLogAPIEntity)Object</code>, so that reading or writing a row costs one exact handle
+ * invocation per qualifier instead of a property descriptor lookup plus {@link Method#invoke}.</p>
+ *
+ * <p>Setters are still invoked (instead of writing fields directly) so that
+ * {@link TaggedLogAPIEntity#modifiedQualifiers()} keeps tracking changed fields.</p>
+ *
+ * @see EntitySerDeserializer
+ */
+public class EntityCodec {
+	private final static Logger LOG = LoggerFactory.getLogger(EntityCodec.class);
+
+	private final static MethodType SETTER_TYPE = MethodType.methodType(void.class, TaggedLogAPIEntity.class, Object.class);
+	private final static MethodType GETTER_TYPE = MethodType.methodType(Object.class, TaggedLogAPIEntity.class);
+	private final static MethodType CONSTRUCTOR_TYPE = MethodType.methodType(TaggedLogAPIEntity.class);
+
+	private final static StringSerDeser TAG_SERDESER = new StringSerDeser();
+
+	private final static Map<Class<? extends TaggedLogAPIEntity>, EntityCodec> _codecCache = new ConcurrentHashMap<Class<? extends TaggedLogAPIEntity>, EntityCodec>();
+
+	private final Class<? extends TaggedLogAPIEntity> entityClass;
+	private final MethodHandle constructor;
+	/**
+	 * Keyed by qualifier name
+	 */
+	private final Map<String, FieldCodec> qualifierNameCodecs;
+	/**
+	 * Keyed by display name
+	 */
+	private final Map<String, FieldCodec> displayNameCodecs;
+
+	/**
+	 * Get the codec of the entity class of <code>ed</code>, the codec is created only once per entity class
+	 *
+	 * @param ed entity definition
+	 * @return shared codec instance
+	 * @throws NullPointerException if entity class of <code>ed</code> is not available
+	 */
+	public static EntityCodec getInstance(EntityDefinition ed) {
+		Class<? extends TaggedLogAPIEntity> clazz = ed.getEntityClass();
+		if(clazz == null){
+			throw new NullPointerException("Entity class of service "+ed.getService()+" is null");
+		}
+		EntityCodec codec = _codecCache.get(clazz);
+		if(codec == null){
+			codec = new EntityCodec(ed);
+			_codecCache.put(clazz, codec);
+			if(LOG.isDebugEnabled()) LOG.debug("Created entity codec for "+clazz.getName());
+		}
+		return codec;
+	}
+
+	private EntityCodec(EntityDefinition ed) {
+		this.entityClass = ed.getEntityClass();
+		MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+		MethodHandle _constructor = null;
+		try {
+			_constructor = lookup.findConstructor(entityClass, MethodType.methodType(void.class)).asType(CONSTRUCTOR_TYPE);
+		} catch (Exception e) {
+			LOG.warn("No accessible default constructor for "+entityClass.getName()+", fall back to reflection");
+		}
+		this.constructor = _constructor;
+
+		Map<String, PropertyDescriptor> descriptors = new HashMap<String, PropertyDescriptor>();
+		for(PropertyDescriptor pd : PropertyUtils.getPropertyDescriptors(entityClass)){
+			descriptors.put(pd.getName(), pd);
+		}
+
+		Map<String, FieldCodec> byQualifierName = new HashMap<String, FieldCodec>();
+		Map<String, FieldCodec> byDisplayName = new HashMap<String, FieldCodec>();
+		for(Qualifier q : ed.getDisplayNameMap().values()){
+			PropertyDescriptor pd = descriptors.get(q.getDisplayName());
+			FieldCodec codec = new FieldCodec(q, adapt(lookup, pd == null ? null : pd.getReadMethod(), GETTER_TYPE),
+					adapt(lookup, pd == null ? null : pd.getWriteMethod(), SETTER_TYPE));
+			byQualifierName.put(q.getQualifierName(), codec);
+			byDisplayName.put(q.getDisplayName(), codec);
+		}
+		this.qualifierNameCodecs = Collections.unmodifiableMap(byQualifierName);
+		this.displayNameCodecs = Collections.unmodifiableMap(byDisplayName);
+	}
+
+	private static MethodHandle adapt(MethodHandles.Lookup lookup, Method method, MethodType type) {
+		if(method == null) return null;
+		try {
+			return lookup.unreflect(method).asType(type);
+		} catch (IllegalAccessException e) {
+			LOG.warn("Method "+method+" is not accessible, fall back to reflection");
+			return null;
+		}
+	}
+
+	public Class<? extends TaggedLogAPIEntity> getEntityClass() {
+		return entityClass;
+	}
+
+	/**
+	 * @param qualifierName qualifier name (not display name)
+	 * @return field codec, or null if <code>qualifierName</code> is not a pre-defined qualifier (i.e. a tag)
+	 */
+	public FieldCodec getFieldByQualifierName(String qualifierName) {
+		return qualifierNameCodecs.get(qualifierName);
+	}
+
+	/**
+	 * @param displayName display name (java field name)
+	 * @return field codec, or null if <code>displayName</code> is not a pre-defined qualifier (i.e. a tag)
+	 */
+	public FieldCodec getFieldByDisplayName(String displayName) {
+		return displayNameCodecs.get(displayName);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T extends TaggedLogAPIEntity> T newInstance() throws Exception {
+		if(constructor == null){
+			return (T) entityClass.newInstance();
+		}
+		try {
+			return (T) (TaggedLogAPIEntity) constructor.invokeExact();
+		} catch (Exception e) {
+			throw e;
+		} catch (Throwable t) {
+			throw new Exception(t);
+		}
+	}
+
+	/**
+	 * @param qualifierValues <code>Map &lt; Qualifier name (not display name),Value in bytes array &gt;</code>
+	 * @return new entity object, unknown qualifiers are set as tags
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T readValue(Map<String, byte[]> qualifierValues) throws Exception {
+		TaggedLogAPIEntity obj = newInstance();
+		for(Map.Entry<String, byte[]> entry : qualifierValues.entrySet()){
+			FieldCodec field = qualifierNameCodecs.get(entry.getKey());
+			if(field == null){
+				// if it's not pre-defined qualifier, it must be tag unless it's a bug
+				if(obj.getTags() == null){
+					obj.setTags(new HashMap<String, String>());
+				}
+				obj.getTags().put(entry.getKey(), TAG_SERDESER.deserialize(entry.getValue()));
+				continue;
+			}
+			if(entry.getValue() != null){
+				field.setValue(obj, field.getQualifier().getSerDeser().deserialize(entry.getValue()));
+			}
+		}
+		return (T)obj;
+	}
+
+	/**
+	 * @param entity entity object
+	 * @return <code>Map &lt; Qualifier name (not display name),Value in bytes array &gt;</code> of all modified qualifiers
+	 */
+	public Map<String, byte[]> writeValue(TaggedLogAPIEntity entity) throws Exception {
+		Map<String, byte[]> qualifierValues = new HashMap<String, byte[]>();
+		// iterate all modified qualifiers
+		for(String fieldName : entity.modifiedQualifiers()){
+			FieldCodec field = displayNameCodecs.get(fieldName);
+			if(field == null){
+				throw new IllegalArgumentException("Field "+fieldName+" is not a qualifier of "+entityClass.getName());
+			}
+			Qualifier q = field.getQualifier();
+			qualifierValues.put(q.getQualifierName(), q.getSerDeser().serialize(field.getValue(entity)));
+		}
+		return qualifierValues;
+	}
+
+	/**
+	 * Bound accessors of a single qualifier
+	 */
+	public static class FieldCodec {
+		private final Qualifier qualifier;
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+
+		private FieldCodec(Qualifier qualifier, MethodHandle getter, MethodHandle setter) {
+			this.qualifier = qualifier;
+			this.getter = getter;
+			this.setter = setter;
+		}
+
+		public Qualifier getQualifier() {
+			return qualifier;
+		}
+
+		public Object getValue(TaggedLogAPIEntity entity) throws Exception {
+			if(getter == null){
+				return PropertyUtils.getProperty(entity, qualifier.getDisplayName());
+			}
+			try {
+				return (Object) getter.invokeExact(entity);
+			} catch (Exception e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new Exception(t);
+			}
+		}
+
+		public void setValue(TaggedLogAPIEntity entity, Object value) throws Exception {
+			if(setter == null){
+				PropertyUtils.setProperty(entity, qualifier.getDisplayName(), value);
+				return;
+			}
+			try {
+				setter.invokeExact(entity, value);
+			} catch (Exception e) {
+				throw e;
+			} catch (Throwable t) {
+				throw new Exception(t);
+			}
+		}
+	}
+}
@@ -20,6 +20,7 @@ import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
 import org.apache.eagle.log.entity.GenericMetricEntity;
 import org.apache.eagle.log.entity.GenericMetricShadowEntity;
 import org.apache.hadoop.io.Writable;
+import org.codehaus.jackson.annotate.JsonIgnore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,6 +57,8 @@ public class EntityDefinition implements Writable{
 	private boolean isTimeSeries;
 	private MetricDefinition metricDefinition;
 	private IndexDefinition[] indexes;
+	// lazily built from qualifierNameMap, not serialized
+	private volatile QualifierIndex qualifierIndex;
 	
 
 	public EntityDefinition(){}
@@ -101,6 +104,7 @@ public class EntityDefinition implements Writable{
 	}
 	public void setQualifierNameMap(Map<String, Qualifier> qualifierNameMap) {
 		this.qualifierNameMap = qualifierNameMap;
+		this.qualifierIndex = null;
 	}
 	public String getPrefix() {
 		return prefix;
@@ -147,6 +151,18 @@ public class EntityDefinition implements Writable{
 	public String[] getTags(){
 		return tags;
 	}
+	/**
+	 * @return interned qualifiers of this entity which support lookup by raw qualifier bytes
+	 */
+	@JsonIgnore
+	public QualifierIndex getQualifierIndex(){
+		QualifierIndex index = qualifierIndex;
+		if(index == null){
+			index = new QualifierIndex(qualifierNameMap);
+			qualifierIndex = index;
+		}
+		return index;
+	}
 	public void setTags(String[] tags){
 		this.tags = tags;
 	}
@@ -261,6 +277,7 @@ public class EntityDefinition implements Writable{
 		this.displayNameMap = ed.getDisplayNameMap();
 		this.qualifierGetterMap = ed.getQualifierGetterMap();
         this.qualifierNameMap = ed.getQualifierNameMap();
+		this.qualifierIndex = null;
 		this.isTimeSeries = ed.isTimeSeries();
 		this.metricDefinition = ed.metricDefinition;
 		this.indexes = ed.getIndexes();
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity.meta;
+
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interned qualifiers of an entity definition, sorted by qualifier name bytes so that a raw qualifier
+ * (e.g. the qualifier section of an HBase cell backing array) can be resolved to its {@link Qualifier}
+ * by binary search, without decoding it into a <code>String</code> first.
+ *
+ * @see EntityDefinition#getQualifierIndex()
+ */
+public class QualifierIndex {
+	public final static int NOT_FOUND = -1;
+
+	private final Qualifier[] qualifiers;
+	private final byte[][] qualifierNames;
+
+	public QualifierIndex(Map<String, Qualifier> qualifierNameMap) {
+		List<Map.Entry<String, Qualifier>> entries = new ArrayList<Map.Entry<String, Qualifier>>(qualifierNameMap.entrySet());
+		final List<byte[]> names = new ArrayList<byte[]>(entries.size());
+		for(Map.Entry<String, Qualifier> entry : entries){
+			names.add(entry.getKey().getBytes());
+		}
+		List<Integer> order = new ArrayList<Integer>(entries.size());
+		for(int i = 0; i < entries.size(); i++){
+			order.add(i);
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Bytes.compareTo(names.get(o1), names.get(o2));
+			}
+		});
+		this.qualifiers = new Qualifier[entries.size()];
+		this.qualifierNames = new byte[entries.size()][];
+		for(int i = 0; i < order.size(); i++){
+			this.qualifiers[i] = entries.get(order.get(i)).getValue();
+			this.qualifierNames[i] = names.get(order.get(i));
+		}
+	}
+
+	/**
+	 * @return number of qualifiers, indexes are within <code>[0, size)</code>
+	 */
+	public int size() {
+		return qualifiers.length;
+	}
+
+	public Qualifier get(int index) {
+		return qualifiers[index];
+	}
+
+	/**
+	 * @param buffer backing array containing qualifier name
+	 * @param offset qualifier name offset
+	 * @param length qualifier name length
+	 * @return index of the qualifier, or {@link #NOT_FOUND} if not a pre-defined qualifier (i.e. a tag)
+	 */
+	public int indexOf(byte[] buffer, int offset, int length) {
+		int low = 0;
+		int high = qualifierNames.length - 1;
+		while(low <= high){
+			int mid = (low + high) >>> 1;
+			byte[] name = qualifierNames[mid];
+			int cmp = Bytes.compareTo(name, 0, name.length, buffer, offset, length);
+			if(cmp < 0){
+				low = mid + 1;
+			}else if(cmp > 0){
+				high = mid - 1;
+			}else{
+				return mid;
+			}
+		}
+		return NOT_FOUND;
+	}
+
+	public int indexOf(byte[] qualifierName) {
+		return indexOf(qualifierName, 0, qualifierName.length);
+	}
+}
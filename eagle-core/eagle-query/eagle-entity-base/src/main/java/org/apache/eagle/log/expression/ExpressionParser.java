@@ -21,6 +21,8 @@ package org.apache.eagle.log.expression;
 
 import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
 import org.apache.eagle.log.entity.EntityQualifierUtils;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import parsii.eval.Expression;
@@ -31,10 +33,12 @@ import parsii.tokenizer.ParseException;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <h1>Expression Evaluation</h1>
@@ -73,7 +77,23 @@ public class ExpressionParser{
 		return scope;
 	}
 
-	private List<String> dependentFields;
+	private final List<String> dependentFields;
+	private final Map<String, Integer> fieldSlots;
+
+	/**
+	 * Parsed expression and variables of the current thread, so that thread safe evaluation needs no lock
+	 */
+	private final ThreadLocal<Binding> bindings = new ThreadLocal<Binding>(){
+		@Override
+		protected Binding initialValue() {
+			try {
+				return new Binding(exprStr, dependentFields);
+			} catch (ParseException e) {
+				// already parsed successfully in constructor
+				throw new IllegalStateException("Failed to parse expression: " + exprStr, e);
+			}
+		}
+	};
 
 	/**
 	 * @param exprStr expression string in format like: <code>(max(a, b)* min(a, b)) / abs(a-b+c-d)</code>
@@ -85,6 +105,17 @@ public class ExpressionParser{
 		this.exprStr = exprStr;
 		scope = Scope.create();
 		expression = Parser.parse(this.exprStr,scope);
+
+		List<String> fields = new ArrayList<String>();
+		Map<String, Integer> slots = new HashMap<String, Integer>();
+		for (String variable : scope.getNames()) {
+			if (!variable.equals("pi") && !variable.equals("E") && !variable.equals("euler")) {
+				slots.put(variable, fields.size());
+				fields.add(variable);
+			}
+		}
+		dependentFields = Collections.unmodifiableList(fields);
+		fieldSlots = slots;
 	}
 
 	@SuppressWarnings("unused")
@@ -125,6 +156,9 @@ public class ExpressionParser{
 		return this;
 	}
 
+	/**
+	 * Evaluate with variables set by {@link #setVariables(Map)} or {@link #setVariable(String, Double)}, not thread safe
+	 */
 	public double eval() throws Exception{
 		return expression.evaluate();
 	}
@@ -137,24 +171,78 @@ public class ExpressionParser{
 	 * @throws ParsiiUnknowVariableException
 	 */
 	public double eval(Map<String, Double> tuple) throws Exception {
-		synchronized (this){
-			this.setVariables(tuple);
-			return this.eval();
+		Binding binding = bindings.get();
+		for(Map.Entry<String,Double> entry : tuple.entrySet()) {
+			Integer slot = fieldSlots.get(entry.getKey());
+			if(slot != null && entry.getValue() != null) {
+				binding.variables[slot].setValue(entry.getValue());
+			}
+		}
+		return binding.expression.evaluate();
+	}
+
+	/**
+	 * Thread safe
+	 *
+	 * @param values variable values by slot, aligned with {@link #getDependentFields()}
+	 * @return
+	 */
+	public double eval(double[] values) {
+		Binding binding = bindings.get();
+		for(int i = 0; i < binding.variables.length; i++) {
+			binding.variables[i].setValue(values[i]);
+		}
+		return binding.expression.evaluate();
+	}
+
+	/**
+	 * @param field variable name
+	 * @return slot of the variable in {@link #getDependentFields()}, or -1 if the expression does not depend on it
+	 */
+	public int getFieldSlot(String field) {
+		Integer slot = fieldSlots.get(field);
+		return slot == null ? -1 : slot;
+	}
+
+	/**
+	 * Convert tuple to variable values by slot, fields missing in tuple are bound to 0 (default of variable)
+	 *
+	 * @param tuple
+	 * @return values aligned with {@link #getDependentFields()}
+	 */
+	public double[] toSlotValues(Map<String, Double> tuple) {
+		double[] values = new double[dependentFields.size()];
+		for (int i = 0; i < values.length; i++) {
+			Double value = tuple.get(dependentFields.get(i));
+			if (value != null) values[i] = value;
 		}
+		return values;
 	}
 
 	public List<String> getDependentFields() {
-		if (dependentFields == null) {
-			dependentFields = new ArrayList<String>();
-			for (String variable : scope.getNames()) {
-				if (!variable.equals("pi") && !variable.equals("E") && !variable.equals("euler"))
-					dependentFields.add(variable);
+		return dependentFields; 
+	}
+
+	private static class Binding {
+		private final Expression expression;
+		private final Variable[] variables;
+
+		private Binding(String exprStr, List<String> fields) throws ParseException {
+			Scope scope = Scope.create();
+			this.expression = Parser.parse(exprStr, scope);
+			this.variables = new Variable[fields.size()];
+			for (int i = 0; i < variables.length; i++) {
+				variables[i] = scope.getVariable(fields.get(i));
 			}
 		}
-		return dependentFields; 
 	}
 
-	private final static Map<String, ExpressionParser> _exprParserCache = new HashMap<String, ExpressionParser>();
+	/**
+	 * Max number of parsed expressions kept in cache, the least recently used ones are evicted beyond that
+	 */
+	private final static int MAX_CACHED_EXPRESSIONS = 1024;
+
+	private final static Cache<String, ExpressionParser> _exprParserCache = CacheBuilder.newBuilder().maximumSize(MAX_CACHED_EXPRESSIONS).build();
 
 	/**
 	 * Thread safe
@@ -166,42 +254,39 @@ public class ExpressionParser{
 	 */
 	public static ExpressionParser parse(String expr) throws ParsiiInvalidException, ParseException {
 		if(expr == null) throw new IllegalStateException("Expression to parse is null");
-		synchronized (_exprParserCache) {
-			ExpressionParser parser = _exprParserCache.get(expr);
-			if (parser == null) {
-				parser = new ExpressionParser(expr);
-				_exprParserCache.put(expr, parser);
-			}
-			return parser;
+		ExpressionParser parser = _exprParserCache.getIfPresent(expr);
+		if (parser == null) {
+			// concurrent parsing of the same expression is harmless, the last one wins
+			parser = new ExpressionParser(expr);
+			_exprParserCache.put(expr, parser);
 		}
+		return parser;
 	}
 	public static double eval(String expression,Map<String,Double> context) throws Exception {
 		ExpressionParser parser = parse(expression);
 		return parser.eval(context);
 	}
 
-	private static final Map<String,Method> _entityMethodCache = new HashMap<String, Method>();
+	private static final Map<String,Method> _entityMethodCache = new ConcurrentHashMap<String, Method>();
 	public static double eval(String expression,TaggedLogAPIEntity entity) throws Exception {
 		ExpressionParser parser = parse(expression);
 		List<String> dependencies = parser.getDependentFields();
-		Map<String,Double> context = new HashMap<String,Double>();
-		for(String field:dependencies){
-			String methodName = "get"+field.substring(0, 1).toUpperCase() + field.substring(1);
-			String methodUID = entity.getClass().getName()+"."+methodName;
-
-			Method m;
-			synchronized (_entityMethodCache) {
-				m = _entityMethodCache.get(methodUID);
-				if (m == null) {
-					m = entity.getClass().getMethod(methodName);
-					_entityMethodCache.put(methodUID, m);
-				}
+		double[] values = new double[dependencies.size()];
+		for(int i = 0; i < values.length; i++){
+			String field = dependencies.get(i);
+			String methodUID = entity.getClass().getName()+"."+field;
+
+			Method m = _entityMethodCache.get(methodUID);
+			if (m == null) {
+				String methodName = "get"+field.substring(0, 1).toUpperCase() + field.substring(1);
+				m = entity.getClass().getMethod(methodName);
+				_entityMethodCache.put(methodUID, m);
 			}
 			Object obj = m.invoke(entity);
 			Double doubleValue = EntityQualifierUtils.convertObjToDouble(obj);
 			// if(doubleValue == Double.NaN) throw new IllegalArgumentException("Field "+field+": "+obj+" in expression "+expression+" is not number");
-			context.put(field,doubleValue);
+			if(doubleValue != null) values[i] = doubleValue;
 		}
-		return parser.eval(context);
+		return parser.eval(values);
 	}
 }
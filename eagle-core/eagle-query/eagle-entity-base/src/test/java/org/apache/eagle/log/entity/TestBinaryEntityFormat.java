@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity;
+
+import junit.framework.Assert;
+import org.apache.eagle.log.entity.test.TestLogAPIEntity;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+
+public class TestBinaryEntityFormat {
+
+	private TestLogAPIEntity newEntity(int i) {
+		TestLogAPIEntity e = new TestLogAPIEntity();
+		e.setPrefix("TestLogAPIEntity");
+		e.setTimestamp(1000L + i);
+		e.setTags(new HashMap<String, String>());
+		e.getTags().put("cluster", "cluster1");
+		e.getTags().put("hostname", "host" + (i % 2));
+		e.setField1(i);
+		e.setField3(i);
+		e.setField7(String.valueOf(i));
+		return e;
+	}
+
+	@Test
+	public void testReadWrite() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinaryEntityWriter writer = new BinaryEntityWriter(bytes);
+		for (int i = 0; i < 3; i++) {
+			writer.write(newEntity(i));
+		}
+		TestLogAPIEntity noTags = new TestLogAPIEntity();
+		noTags.setEncodedRowkey("rowkey");
+		noTags.setField5(2.5);
+		writer.write(noTags);
+		writer.finish();
+		bytes.write("trailer".getBytes());
+
+		BinaryEntityReader reader = new BinaryEntityReader(new ByteArrayInputStream(bytes.toByteArray()));
+		Assert.assertEquals("TestLogAPIEntity", reader.getEntityDefinition().getService());
+		List<TestLogAPIEntity> entities = reader.readAll();
+		Assert.assertEquals(4, entities.size());
+		for (int i = 0; i < 3; i++) {
+			TestLogAPIEntity e = entities.get(i);
+			Assert.assertEquals("TestLogAPIEntity", e.getPrefix());
+			Assert.assertEquals(1000L + i, e.getTimestamp());
+			Assert.assertEquals(newEntity(i).getTags(), e.getTags());
+			Assert.assertEquals(i, e.getField1());
+			Assert.assertNull(e.getField2());
+			Assert.assertEquals(i, e.getField3());
+			Assert.assertEquals(String.valueOf(i), e.getField7());
+			Assert.assertEquals(3, e.modifiedQualifiers().size());
+		}
+		TestLogAPIEntity e = entities.get(3);
+		Assert.assertNull(e.getPrefix());
+		Assert.assertNull(e.getTags());
+		Assert.assertEquals("rowkey", e.getEncodedRowkey());
+		Assert.assertEquals(2.5, e.getField5());
+		Assert.assertNull(reader.read());
+
+		byte[] trailer = new byte[7];
+		Assert.assertEquals(7, reader.getTrailer().read(trailer));
+		Assert.assertEquals("trailer", new String(trailer));
+	}
+
+	@Test
+	public void testQualifierFailedToEncode() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BinaryEntityWriter writer = new BinaryEntityWriter(bytes);
+		TestLogAPIEntity failed = newEntity(0);
+		failed.modifiedQualifiers().add("notQualifier");
+		try {
+			writer.write(failed);
+			Assert.fail("Entity with unknown qualifier should be rejected");
+		} catch (IllegalArgumentException ex) {
+			// expected
+		}
+
+		writer.write(newEntity(1));
+		try {
+			writer.write(failed);
+			Assert.fail("Entity with unknown qualifier should be rejected");
+		} catch (IllegalArgumentException ex) {
+			// expected
+		}
+		writer.write(newEntity(2));
+		writer.finish();
+		bytes.write("trailer".getBytes());
+
+		BinaryEntityReader reader = new BinaryEntityReader(new ByteArrayInputStream(bytes.toByteArray()));
+		List<TestLogAPIEntity> entities = reader.readAll();
+		Assert.assertEquals(2, entities.size());
+		Assert.assertEquals(1, entities.get(0).getField1());
+		Assert.assertEquals(newEntity(1).getTags(), entities.get(0).getTags());
+		Assert.assertEquals(2, entities.get(1).getField1());
+		Assert.assertEquals(newEntity(2).getTags(), entities.get(1).getTags());
+		byte[] trailer = new byte[7];
+		Assert.assertEquals(7, reader.getTrailer().read(trailer));
+		Assert.assertEquals("trailer", new String(trailer));
+	}
+
+	@Test
+	public void testEmptyStream() throws Exception {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		new BinaryEntityWriter(bytes).close();
+		BinaryEntityReader reader = new BinaryEntityReader(new ByteArrayInputStream(bytes.toByteArray()));
+		Assert.assertNull(reader.getEntityDefinition());
+		Assert.assertNull(reader.read());
+	}
+
+	@Test
+	public void testInvalidStream() throws Exception {
+		try {
+			new BinaryEntityReader(new ByteArrayInputStream("{\"obj\":[]}".getBytes())).read();
+			Assert.fail("JSON should be rejected");
+		} catch (IOException ex) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity;
+
+import org.apache.eagle.common.ByteUtil;
+import org.apache.eagle.log.entity.meta.EntityDefinition;
+import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
+import org.apache.eagle.log.entity.meta.QualifierIndex;
+import org.apache.eagle.log.entity.test.TestLogAPIEntity;
+import junit.framework.Assert;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestCellRowView {
+	private final static byte[] ROW = new byte[]{0, 0, 0, 1, 0x7f, -1, -1, -1, -1, -1, -1, -2};
+	private final static byte[] FAMILY = "f".getBytes();
+
+	private EntityDefinition ed;
+
+	@Before
+	public void setUp() throws Exception {
+		ed = EntityDefinitionManager.getEntityDefinitionByEntityClass(TestLogAPIEntity.class);
+	}
+
+	private Result createResult() {
+		List<Cell> cells = new ArrayList<Cell>();
+		cells.add(new KeyValue(ROW, FAMILY, "a".getBytes(), ByteUtil.intToBytes(12)));
+		cells.add(new KeyValue(ROW, FAMILY, "c".getBytes(), ByteUtil.longToBytes(123432432L)));
+		cells.add(new KeyValue(ROW, FAMILY, "g".getBytes(), "value7".getBytes()));
+		cells.add(new KeyValue(ROW, FAMILY, "hostname".getBytes(), "testhost".getBytes()));
+		cells.add(new KeyValue(ROW, FAMILY, "jobID".getBytes(), "job_1".getBytes()));
+		return Result.create(cells);
+	}
+
+	@Test
+	public void testRowView() {
+		CellRowView view = new CellRowView(ed, ROW, createResult().rawCells(), null);
+		QualifierIndex index = ed.getQualifierIndex();
+		int a = index.indexOf("a".getBytes());
+		int b = index.indexOf("b".getBytes());
+		Assert.assertTrue(a >= 0);
+		Assert.assertEquals(QualifierIndex.NOT_FOUND, index.indexOf("hostname".getBytes()));
+		Assert.assertTrue(view.hasValue(a));
+		Assert.assertFalse(view.hasValue(b));
+		Assert.assertEquals(12, view.getObject(a));
+		Assert.assertNull(view.getObject(b));
+		Assert.assertEquals("testhost", view.getTag("hostname"));
+		Assert.assertEquals(2, view.getTags().size());
+		Assert.assertEquals(3, view.getQualifierValues().size());
+		Assert.assertEquals(5, view.getAllValues().size());
+	}
+
+	@Test
+	public void testProjection() {
+		byte[][] projection = new byte[][]{"a".getBytes(), "hostname".getBytes()};
+		CellRowView view = new CellRowView(ed, ROW, createResult().rawCells(), projection);
+		Assert.assertEquals(1, view.getQualifierValues().size());
+		Assert.assertEquals(1, view.getTags().size());
+		Assert.assertNull(view.getTag("jobID"));
+	}
+
+	@Test
+	public void testParseAndBuildEntity() throws Exception {
+		InternalLog log = HBaseInternalLogHelper.parse(ed, createResult(), null);
+		Assert.assertNotNull(log.getRowView());
+		TestLogAPIEntity entity = (TestLogAPIEntity) HBaseInternalLogHelper.buildEntity(log, ed);
+		Assert.assertEquals(12, entity.getField1());
+		Assert.assertEquals(123432432L, entity.getField3());
+		Assert.assertEquals("value7", entity.getField7());
+		Assert.assertNull(entity.getField2());
+		Assert.assertEquals("testhost", entity.getTags().get("hostname"));
+		Assert.assertEquals("job_1", entity.getTags().get("jobID"));
+		Assert.assertEquals(3, entity.modifiedQualifiers().size());
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity;
+
+import org.apache.eagle.common.EagleBase64Wrapper;
+import org.apache.eagle.common.config.EagleConfigFactory;
+import org.apache.eagle.log.entity.index.MultiGetPipeline;
+import org.apache.eagle.log.entity.index.RowKeyLogReader;
+import org.apache.eagle.log.entity.meta.EntityDefinition;
+import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
+import org.apache.eagle.log.entity.test.TestLogAPIEntity;
+import org.apache.eagle.service.hbase.TestHBaseBase;
+import junit.framework.Assert;
+import org.apache.commons.lang.time.StopWatch;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.HTableFactory;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Compares pipelined multi-gets of {@link RowKeyLogReader} with sequential multi-gets of the same batch size
+ * against the embedded HBase, tune with <code>eagle.service.hbase-client-multiget-concurrency</code>
+ */
+@Ignore
+public class TestIndexLogReaderPerformance extends TestHBaseBase {
+	private final static Logger LOG = LoggerFactory.getLogger(TestIndexLogReaderPerformance.class);
+	private final static int COUNT = 100000;
+	private EntityDefinition ed;
+
+	@Before
+	public void setUp() throws IllegalAccessException, InstantiationException, IOException {
+		EntityDefinitionManager.registerEntity(TestLogAPIEntity.class);
+		ed = EntityDefinitionManager.getEntityDefinitionByEntityClass(TestLogAPIEntity.class);
+		hbase.createTable(ed.getTable(), ed.getColumnFamily());
+	}
+
+	@After
+	public void cleanUp() throws IOException {
+		hbase.deleteTable(ed.getTable());
+	}
+
+	private List<byte[]> writeEntities() throws Exception {
+		GenericEntityWriter writer = new GenericEntityWriter(ed.getService());
+		List<byte[]> rowkeys = new ArrayList<byte[]>(COUNT);
+		List<TestLogAPIEntity> list = new ArrayList<TestLogAPIEntity>();
+		for (int i = 0; i < COUNT; i++) {
+			TestLogAPIEntity e = new TestLogAPIEntity();
+			e.setTimestamp(System.currentTimeMillis());
+			e.setField1(i);
+			e.setField7(String.valueOf(i));
+			e.setTags(new HashMap<String, String>());
+			e.getTags().put("jobID", "perf_test_job_id");
+			e.getTags().put("hostname", "testhost");
+			e.getTags().put("index", String.valueOf(i));
+			list.add(e);
+			if (list.size() >= 1000 || i == COUNT - 1) {
+				for (String rowkey : writer.write(list)) {
+					rowkeys.add(EagleBase64Wrapper.decode(rowkey));
+				}
+				list.clear();
+			}
+		}
+		return rowkeys;
+	}
+
+	@Test
+	public void testPipelinedMultiGet() throws Exception {
+		List<byte[]> rowkeys = writeEntities();
+		byte[] family = ed.getColumnFamily().getBytes();
+		int batchSize = MultiGetPipeline.getBatchSize();
+
+		StopWatch watch = new StopWatch();
+		watch.start();
+		int count = 0;
+		HTableInterface tbl = EagleConfigFactory.load().getHTable(ed.getTable());
+		try {
+			for (int i = 0; i < rowkeys.size(); i += batchSize) {
+				List<Get> gets = new ArrayList<Get>(batchSize);
+				for (byte[] rowkey : rowkeys.subList(i, Math.min(i + batchSize, rowkeys.size()))) {
+					gets.add(new Get(rowkey).addFamily(family));
+				}
+				count += tbl.get(gets).length;
+			}
+		} finally {
+			new HTableFactory().releaseHTableInterface(tbl);
+		}
+		watch.stop();
+		Assert.assertEquals(COUNT, count);
+		LOG.info("Sequential multi-get of " + count + " rows in batches of " + batchSize + " takes " + watch.getTime() + " ms");
+
+		watch.reset();
+		watch.start();
+		count = 0;
+		RowKeyLogReader reader = new RowKeyLogReader(ed, rowkeys, null);
+		try {
+			reader.open();
+			while (reader.read() != null) {
+				count++;
+			}
+		} finally {
+			reader.close();
+		}
+		watch.stop();
+		Assert.assertEquals(COUNT, count);
+		LOG.info("Pipelined multi-get of " + count + " rows with concurrency " + EagleConfigFactory.load().getHBaseClientMultiGetConcurrency()
+				+ " takes " + watch.getTime() + " ms");
+	}
+}
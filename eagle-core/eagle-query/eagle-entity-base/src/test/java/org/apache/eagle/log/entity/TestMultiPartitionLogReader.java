@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity;
+
+import junit.framework.Assert;
+import org.apache.eagle.common.EagleBase64Wrapper;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TestMultiPartitionLogReader {
+
+	private static class ListLogReader implements LogReader<InternalLog> {
+		private final String partition;
+		private final Iterator<Long> timestamps;
+		private boolean failOnRead = false;
+		boolean closed = false;
+
+		ListLogReader(String partition, Long... timestamps) {
+			this.partition = partition;
+			this.timestamps = Arrays.asList(timestamps).iterator();
+		}
+
+		@Override
+		public void open() throws IOException {
+		}
+
+		@Override
+		public void close() throws IOException {
+			closed = true;
+		}
+
+		@Override
+		public InternalLog read() throws IOException {
+			if (failOnRead) throw new IOException("read failure of " + partition);
+			if (!timestamps.hasNext()) return null;
+			InternalLog log = new InternalLog();
+			log.setTimestamp(timestamps.next());
+			log.setTags(Collections.singletonMap("site", partition));
+			return log;
+		}
+	}
+
+	@Test
+	public void testMergeByTimestamp() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			List<ListLogReader> readers = Arrays.asList(
+					new ListLogReader("site1", 9L, 7L, 7L, 3L, 1L),
+					new ListLogReader("site2"),
+					new ListLogReader("site3", 8L, 7L, 2L));
+			MultiPartitionLogReader reader = new MultiPartitionLogReader(readers, 2, executor);
+			List<String> merged = new ArrayList<String>();
+			try {
+				reader.open();
+				InternalLog log;
+				while ((log = reader.read()) != null) {
+					merged.add(log.getTimestamp() + "@" + log.getTags().get("site"));
+				}
+			} finally {
+				reader.close();
+			}
+			Assert.assertEquals(Arrays.asList("9@site1", "8@site3", "7@site1", "7@site1", "7@site3", "3@site1", "2@site3", "1@site1"), merged);
+			for (ListLogReader r : readers) {
+				Assert.assertTrue(r.closed);
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testReadFailure() throws Exception {
+		// rejects everything, all batches are read by the caller
+		ExecutorService executor = Executors.newFixedThreadPool(1);
+		executor.shutdown();
+		ListLogReader failed = new ListLogReader("site2", 5L);
+		failed.failOnRead = true;
+		MultiPartitionLogReader reader = new MultiPartitionLogReader(Arrays.asList(new ListLogReader("site1", 6L), failed), 10, executor);
+		try {
+			reader.open();
+			Assert.fail("read failure of a partition should fail the reader");
+		} catch (IOException ex) {
+			Assert.assertEquals("read failure of site2", ex.getMessage());
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static byte[] buildRowkey(String site, long timestamp, String user) {
+		InternalLog log = new InternalLog();
+		log.setPrefix("entityut");
+		log.setPartitions(new String[]{"site"});
+		log.setTimestamp(timestamp);
+		Map<String, String> tags = new HashMap<String, String>();
+		tags.put("site", site);
+		tags.put("user", user);
+		log.setTags(tags);
+		return RowkeyBuilder.buildRowkey(log);
+	}
+
+	@Test
+	public void testBuildScanStartRowkeys() {
+		List<List<String>> partitions = Arrays.asList(
+				Collections.singletonList("site1"),
+				Collections.singletonList("site2"),
+				Collections.singletonList("site3"));
+		byte[] last = buildRowkey("site2", 1000L, "user1");
+		byte[][] startRowkeys = MultiPartitionLogReader.buildScanStartRowkeys(partitions, EagleBase64Wrapper.encodeByteArray2URLSafeString(last));
+		Assert.assertEquals(3, startRowkeys.length);
+
+		// the partition of last row continues right after it
+		Assert.assertTrue(Bytes.compareTo(startRowkeys[1], last) > 0);
+		Assert.assertTrue(Bytes.compareTo(startRowkeys[1], buildRowkey("site2", 999L, "user0")) < 0);
+
+		// partition before skips rows of the same timestamp
+		Assert.assertTrue(Bytes.compareTo(startRowkeys[0], buildRowkey("site1", 1000L, "user9")) > 0);
+		Assert.assertTrue(Bytes.compareTo(startRowkeys[0], buildRowkey("site1", 999L, "user0")) <= 0);
+
+		// partition after keeps rows of the same timestamp
+		Assert.assertTrue(Bytes.compareTo(startRowkeys[2], buildRowkey("site3", 1000L, "user0")) <= 0);
+		Assert.assertTrue(Bytes.compareTo(startRowkeys[2], buildRowkey("site3", 1001L, "user9")) > 0);
+
+		try {
+			MultiPartitionLogReader.buildScanStartRowkeys(partitions, EagleBase64Wrapper.encodeByteArray2URLSafeString(buildRowkey("site4", 1000L, "user1")));
+			Assert.fail("startRowkey of other partition should be rejected");
+		} catch (IllegalArgumentException ex) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity.filter;
+
+import junit.framework.Assert;
+import org.apache.eagle.log.entity.InternalLog;
+import org.apache.eagle.log.entity.RowkeyBuilder;
+import org.apache.eagle.log.entity.meta.EntityDefinition;
+import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
+import org.apache.eagle.log.entity.test.TestLogAPIEntity;
+import org.apache.hadoop.hbase.filter.CompareFilter;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.RegexStringComparator;
+import org.apache.hadoop.hbase.filter.RowFilter;
+import org.junit.Test;
+
+import java.util.*;
+
+public class TestTagHashFilter {
+
+	private byte[] buildRowkey(String... tagNameValues) {
+		InternalLog log = new InternalLog();
+		log.setPrefix("entityut");
+		log.setTimestamp(1234567890L);
+		Map<String, String> tags = new HashMap<String, String>();
+		for (int i = 0; i < tagNameValues.length; i += 2) {
+			tags.put(tagNameValues[i], tagNameValues[i + 1]);
+		}
+		log.setTags(tags);
+		return RowkeyBuilder.buildRowkey(log);
+	}
+
+	@Test
+	public void testSameAsRegexFilter() throws Exception {
+		EntityDefinition ed = EntityDefinitionManager.getEntityDefinitionByEntityClass(TestLogAPIEntity.class);
+		HBaseFilterBuilder builder = new HBaseFilterBuilder(ed, null);
+
+		Map<String, List<String>> tagFilters = new HashMap<String, List<String>>();
+		tagFilters.put("cluster", Arrays.asList("cluster1"));
+		tagFilters.put("jobID", Arrays.asList("job_1", "job_2"));
+
+		RegexStringComparator comparator = new RegexStringComparator(builder.buildTagFilterRegex(tagFilters));
+		comparator.setCharset(builder.getCharset());
+		Filter regexFilter = new RowFilter(CompareFilter.CompareOp.EQUAL, comparator);
+		Filter hashFilter = builder.buildTagHashFilter(tagFilters);
+		Filter parsedHashFilter = TagHashFilter.parseFrom(hashFilter.toByteArray());
+
+		List<byte[]> rowkeys = new ArrayList<byte[]>();
+		rowkeys.add(buildRowkey("cluster", "cluster1", "jobID", "job_1"));
+		rowkeys.add(buildRowkey("cluster", "cluster1", "jobID", "job_2", "user", "user1", "datacenter", "dc1"));
+		rowkeys.add(buildRowkey("cluster", "cluster1", "jobID", "job_3"));
+		rowkeys.add(buildRowkey("cluster", "cluster2", "jobID", "job_1"));
+		rowkeys.add(buildRowkey("cluster", "cluster1"));
+		rowkeys.add(buildRowkey("jobID", "job_1", "user", "user1"));
+		rowkeys.add(buildRowkey());
+		rowkeys.add(Arrays.copyOf(buildRowkey("cluster", "cluster1", "jobID", "job_1"), 20));
+
+		boolean[] expectedFilterOut = new boolean[]{false, false, true, true, true, true, true, true};
+		for (int i = 0; i < rowkeys.size(); i++) {
+			byte[] rowkey = rowkeys.get(i);
+			Assert.assertEquals(regexFilter.filterRowKey(rowkey, 0, rowkey.length), hashFilter.filterRowKey(rowkey, 0, rowkey.length));
+			Assert.assertEquals(expectedFilterOut[i], hashFilter.filterRowKey(rowkey, 0, rowkey.length));
+			Assert.assertEquals(expectedFilterOut[i], parsedHashFilter.filterRowKey(rowkey, 0, rowkey.length));
+		}
+	}
+
+	@Test
+	public void testNoTagFilter() throws Exception {
+		EntityDefinition ed = EntityDefinitionManager.getEntityDefinitionByEntityClass(TestLogAPIEntity.class);
+		Filter hashFilter = new HBaseFilterBuilder(ed, null).buildTagHashFilter(new HashMap<String, List<String>>());
+		byte[] rowkey = buildRowkey("cluster", "cluster1");
+		Assert.assertFalse(hashFilter.filterRowKey(rowkey, 0, rowkey.length));
+	}
+}
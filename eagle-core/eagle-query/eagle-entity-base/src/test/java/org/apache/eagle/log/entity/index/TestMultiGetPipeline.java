@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity.index;
+
+import junit.framework.Assert;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TestMultiGetPipeline {
+
+	/**
+	 * Echoes rowkeys of gets, later batches finish earlier
+	 */
+	private static class EchoPipeline extends MultiGetPipeline {
+		EchoPipeline(int concurrency, ExecutorService executor) {
+			super("unittest", concurrency, executor);
+		}
+
+		@Override
+		protected Result[] get(List<Get> gets) throws IOException {
+			if (gets.isEmpty()) {
+				throw new IOException("empty batch");
+			}
+			try {
+				Thread.sleep(Math.max(0, 50 - Bytes.toInt(gets.get(0).getRow()) * 10));
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+			Result[] results = new Result[gets.size()];
+			for (int i = 0; i < results.length; i++) {
+				byte[] row = gets.get(i).getRow();
+				results[i] = Result.create(new Cell[]{new KeyValue(row, Bytes.toBytes("f"), Bytes.toBytes("q"), row)});
+			}
+			return results;
+		}
+	}
+
+	private static List<Get> batch(int... rows) {
+		List<Get> gets = new ArrayList<Get>();
+		for (int row : rows) {
+			gets.add(new Get(Bytes.toBytes(row)));
+		}
+		return gets;
+	}
+
+	private static List<Integer> take(MultiGetPipeline pipeline) throws IOException {
+		List<Integer> rows = new ArrayList<Integer>();
+		for (Result r : pipeline.take()) {
+			rows.add(Bytes.toInt(r.getRow()));
+		}
+		return rows;
+	}
+
+	@Test
+	public void testResultsInSubmitOrder() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			MultiGetPipeline pipeline = new EchoPipeline(3, executor);
+			pipeline.submit(batch(0, 1));
+			pipeline.submit(batch(2));
+			pipeline.submit(batch(4, 3));
+			Assert.assertTrue(pipeline.isFull());
+			try {
+				pipeline.submit(batch(5));
+				Assert.fail("submit to a full pipeline should fail");
+			} catch (IllegalStateException ex) {
+				// expected
+			}
+			Assert.assertEquals(Arrays.asList(0, 1), take(pipeline));
+			pipeline.submit(batch(5));
+			Assert.assertEquals(Arrays.asList(2), take(pipeline));
+			Assert.assertEquals(Arrays.asList(4, 3), take(pipeline));
+			Assert.assertEquals(Arrays.asList(5), take(pipeline));
+			Assert.assertTrue(pipeline.isEmpty());
+			Assert.assertNull(pipeline.take());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testRunByCallerAndFailure() throws Exception {
+		// rejects everything, all batches are run by the caller
+		ExecutorService executor = Executors.newFixedThreadPool(1);
+		executor.shutdown();
+		MultiGetPipeline pipeline = new EchoPipeline(2, executor);
+		pipeline.submit(batch(1));
+		pipeline.submit(Collections.<Get>emptyList());
+		Assert.assertEquals(Arrays.asList(1), take(pipeline));
+		try {
+			pipeline.take();
+			Assert.fail("failure of a batch should be thrown by take");
+		} catch (IOException ex) {
+			Assert.assertEquals("empty batch", ex.getMessage());
+		}
+		pipeline.submit(batch(2));
+		pipeline.close();
+		Assert.assertTrue(pipeline.isEmpty());
+	}
+}
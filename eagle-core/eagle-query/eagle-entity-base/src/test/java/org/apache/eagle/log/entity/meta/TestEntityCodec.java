@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.log.entity.meta;
+
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.test.TestLogAPIEntity;
+import junit.framework.Assert;
+import org.apache.commons.beanutils.PropertyUtils;
+import org.apache.commons.lang.time.StopWatch;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.beans.PropertyDescriptor;
+import java.util.HashMap;
+import java.util.Map;
+
+public class TestEntityCodec {
+	private final static Logger LOG = LoggerFactory.getLogger(TestEntityCodec.class);
+
+	private EntityDefinition ed;
+
+	@Before
+	public void setUp() throws Exception {
+		ed = EntityDefinitionManager.getEntityDefinitionByEntityClass(TestLogAPIEntity.class);
+	}
+
+	private TestLogAPIEntity newEntity(int i){
+		TestLogAPIEntity e = new TestLogAPIEntity();
+		e.setField1(i);
+		e.setField2(i);
+		e.setField3(i);
+		e.setField4((long) i);
+		e.setField5(i * 1.5);
+		e.setField6(i * 2.5);
+		e.setField7(String.valueOf(i));
+		return e;
+	}
+
+	@Test
+	public void testReadWriteValue() throws Exception {
+		EntityCodec codec = EntityCodec.getInstance(ed);
+		Assert.assertSame(codec, EntityCodec.getInstance(ed));
+
+		Map<String, byte[]> qualifierValues = codec.writeValue(newEntity(7));
+		Assert.assertEquals(7, qualifierValues.size());
+		qualifierValues.put("hostname", "testhost".getBytes());
+
+		TestLogAPIEntity entity = codec.readValue(qualifierValues);
+		Assert.assertEquals(7, entity.getField1());
+		Assert.assertEquals(Integer.valueOf(7), entity.getField2());
+		Assert.assertEquals(7L, entity.getField3());
+		Assert.assertEquals(Long.valueOf(7), entity.getField4());
+		Assert.assertEquals(10.5, entity.getField5());
+		Assert.assertEquals(17.5, entity.getField6());
+		Assert.assertEquals("7", entity.getField7());
+		Assert.assertEquals("testhost", entity.getTags().get("hostname"));
+		// setters must still be called so that modified qualifiers are tracked
+		Assert.assertEquals(7, entity.modifiedQualifiers().size());
+	}
+
+	@Test
+	public void testFieldCodec() throws Exception {
+		EntityCodec codec = EntityCodec.getInstance(ed);
+		TestLogAPIEntity entity = new TestLogAPIEntity();
+		EntityCodec.FieldCodec field1 = codec.getFieldByDisplayName("field1");
+		Assert.assertSame(field1, codec.getFieldByQualifierName("a"));
+		field1.setValue(entity, 12);
+		Assert.assertEquals(12, entity.getField1());
+		Assert.assertEquals(12, field1.getValue(entity));
+		Assert.assertNull(codec.getFieldByDisplayName("hostname"));
+	}
+
+	/**
+	 * Reflection based read path of EntitySerDeserializer before EntityCodec was introduced
+	 */
+	private static TaggedLogAPIEntity reflectionReadValue(Map<String, byte[]> qualifierValues, EntityDefinition ed) throws Exception {
+		TaggedLogAPIEntity obj = ed.getEntityClass().newInstance();
+		Map<String, Qualifier> map = ed.getQualifierNameMap();
+		for(Map.Entry<String, byte[]> entry : qualifierValues.entrySet()){
+			Qualifier q = map.get(entry.getKey());
+			if(q == null){
+				if(obj.getTags() == null){
+					obj.setTags(new HashMap<String, String>());
+				}
+				obj.getTags().put(entry.getKey(), new StringSerDeser().deserialize(entry.getValue()));
+				continue;
+			}
+			PropertyDescriptor pd = PropertyUtils.getPropertyDescriptor(obj, q.getDisplayName());
+			if(entry.getValue() != null){
+				pd.getWriteMethod().invoke(obj, q.getSerDeser().deserialize(entry.getValue()));
+			}
+		}
+		return obj;
+	}
+
+	@Ignore
+	@Test
+	public void testReadValuePerformance() throws Exception {
+		final int warmup = 100000;
+		final int count = 1000000;
+		EntityCodec codec = EntityCodec.getInstance(ed);
+		Map<String, byte[]> qualifierValues = codec.writeValue(newEntity(1));
+		qualifierValues.put("hostname", "testhost".getBytes());
+		qualifierValues.put("jobID", "index_test_job_id".getBytes());
+
+		for(int i = 0; i < warmup; i++){
+			reflectionReadValue(qualifierValues, ed);
+			codec.readValue(qualifierValues);
+		}
+
+		StopWatch watch = new StopWatch();
+		watch.start();
+		for(int i = 0; i < count; i++){
+			reflectionReadValue(qualifierValues, ed);
+		}
+		watch.stop();
+		long reflectionTime = watch.getTime();
+
+		watch.reset();
+		watch.start();
+		for(int i = 0; i < count; i++){
+			codec.readValue(qualifierValues);
+		}
+		watch.stop();
+		long codecTime = watch.getTime();
+
+		LOG.info(String.format("Read %d entities: reflection = %d ms, codec = %d ms", count, reflectionTime, codecTime));
+	}
+}
@@ -31,6 +31,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @since Nov 4, 2014
@@ -117,4 +121,48 @@ public class TestExpressionPerformance {
 			Assert.assertEquals(df.format(parser.parse(exprStr, tuples)), "371.73");
 		}
 	}
+
+	/**
+	 * Cached parser is shared by all threads and evaluated without lock, each thread should get its own results
+	 */
+	@Test
+	public void TestMultiThreadEvaluation() throws Exception{
+		final String exprStr = "max(a, 3 * b) + min(b, 10000) / abs(c * 2)";
+		final int threads = 8;
+		final int count = 10000;
+		final org.apache.eagle.log.expression.ExpressionParser parser = org.apache.eagle.log.expression.ExpressionParser.parse(exprStr);
+		final int a = parser.getFieldSlot("a");
+		final int b = parser.getFieldSlot("b");
+		final int c = parser.getFieldSlot("c");
+		final AtomicInteger failures = new AtomicInteger();
+		final AtomicInteger evaluated = new AtomicInteger();
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		for (int t = 0; t < threads; t++) {
+			final int seed = t;
+			futures.add(executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					double[] values = new double[3];
+					for (int i = 1; i <= count; i++) {
+						values[a] = seed + i;
+						values[b] = i;
+						values[c] = 0.5;
+						double expected = Math.max(seed + i, 3.0 * i) + Math.min(i, 10000) / Math.abs(0.5 * 2);
+						if (org.apache.eagle.log.expression.ExpressionParser.parse(exprStr) != parser || parser.eval(values) != expected) {
+							failures.incrementAndGet();
+						}
+						evaluated.incrementAndGet();
+					}
+				}
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		executor.shutdown();
+		Assert.assertEquals(threads * count, evaluated.get());
+		Assert.assertEquals("evaluations with result of another thread", 0, failures.get());
+	}
 }
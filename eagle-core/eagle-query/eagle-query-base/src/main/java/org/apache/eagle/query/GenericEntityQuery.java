@@ -67,6 +67,18 @@ public class GenericEntityQuery implements GenericQuery,EntityCreationListener {
 		return entities;
 	}
 
+	/**
+	 * Notify the listener of each entity as it's read instead of collecting them, so that memory doesn't grow with the result size
+	 *
+	 * @param listener listener of entities, called by the reading thread
+	 */
+	public void readAsStream(EntityCreationListener listener) throws Exception{
+		if(LOG.isDebugEnabled()) LOG.debug("Start reading as stream mode");
+		reader.unregister(this);
+		reader.register(listener);
+		reader.readAsStream();
+	}
+
 	@Override
 	public long getFirstTimeStamp() {
 		return reader.getFirstTimestamp();
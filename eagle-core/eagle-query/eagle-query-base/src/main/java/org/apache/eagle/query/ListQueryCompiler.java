@@ -91,6 +91,7 @@ public class ListQueryCompiler {
 	private List<SortOption> _sortOptions;
 	private boolean _hasAgg;
 	private List<String[]> _partitionValues;
+	private HBaseFilterBuilder _filterBuilder;
 	private boolean _filterIfMissing;
 	private ORExpression _queryExpression;
 	private boolean _outputAll = false;
@@ -137,20 +138,25 @@ public class ListQueryCompiler {
 	}
 	
 	/**
-	 * TODO: For now we don't support one query to query multiple partitions. In future if partition is defined 
-	 * for the entity, internally We need to spawn multiple queries and send one query for each search condition 
-	 * for each partition
+	 * One query may cover multiple partitions, each of them is scanned with its own filter, see
+	 * {@link #getQueryPartitionFilters()}. In that case every or expression has to tell the value of each partition field
 	 * 
 	 * @param query input query to compile
 	 */
 	private void partitionConstraintValidate(String query) {
-		if (_partitionValues != null && _partitionValues.size() > 1) {
-			final String[] values = _partitionValues.get(0);
-			for (int i = 1; i < _partitionValues.size(); ++i) {
-				final String[] tmpValues = _partitionValues.get(i);
-				for (int j = 0; j < values.length; ++j) {
-					if (values[j] == null || (!values[j].equals(tmpValues[j]))) {
-						final String errMsg = "One query for multiple partitions is NOT allowed for now! Query: " + query;
+		if (_partitionValues == null) {
+			return;
+		}
+		if (_partitionValues.isEmpty()) {
+			final String errMsg = "No partition matches the query! Query: " + query;
+			LOG.error(errMsg);
+			throw new IllegalArgumentException(errMsg);
+		}
+		if (_partitionValues.size() > 1) {
+			for (String[] values : _partitionValues) {
+				for (String value : values) {
+					if (value == null) {
+						final String errMsg = "Query for multiple partitions must provide all partition values in each OR expression! Query: " + query;
 						LOG.error(errMsg);
 						throw new IllegalArgumentException(errMsg);
 					}
@@ -163,9 +169,27 @@ public class ListQueryCompiler {
 		return _hasAgg;
 	}
 	
+	/**
+	 * @return distinct partition values to scan, sorted in partition definition order, or null if the entity doesn't support partition
+	 */
 	public List<String[]> getQueryPartitionValues() {
 		return _partitionValues;
 	}
+
+	/**
+	 * @return filter of each partition keyed by partition values in the order of {@link #getQueryPartitionValues()},
+	 * or null if the query covers at most one partition
+	 */
+	public Map<List<String>, Filter> getQueryPartitionFilters() {
+		if (_partitionValues == null || _partitionValues.size() <= 1) {
+			return null;
+		}
+		final Map<List<String>, Filter> partitionFilters = new LinkedHashMap<List<String>, Filter>();
+		for (String[] values : _partitionValues) {
+			partitionFilters.put(Arrays.asList(values), _filterBuilder.buildFilters(values));
+		}
+		return partitionFilters;
+	}
 	
 	public ORExpression getQueryExpression() {
 		return _queryExpression;
@@ -320,7 +344,8 @@ public class ListQueryCompiler {
 			//TODO: build customize filter for EXP{<Expression>}
 			HBaseFilterBuilder builder = new HBaseFilterBuilder(ed, _queryExpression, _filterIfMissing);
 			FilterList flist = builder.buildFilters();
-			_partitionValues = builder.getPartitionValues();
+			_filterBuilder = builder;
+			_partitionValues = builder.getDistinctPartitionValues();
 			_filterFields = builder.getFilterFields();
 			return flist;
 		} catch (InstantiationException e) {
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.raw;
+
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Struct-of-arrays accumulators of aggregate functions, one <code>double[]</code> value column and one
+ * <code>int[]</code> count column per function, indexed by group id of {@link GroupbyKeyTable}.
+ *
+ * <p>Semantics are the same as {@link Function}: count and sum add up values, avg is total divided by count,
+ * max starts from 0.0 and min starts from {@link Double#MAX_VALUE}.</p>
+ *
+ * <p>Not thread safe.</p>
+ */
+public class AggregateAccumulators {
+	private final static int INITIAL_GROUPS = 64;
+
+	private final AggregateFunctionType[] types;
+	private final double[][] values;
+	private final int[][] counts;
+	private int capacity;
+
+	public AggregateAccumulators(List<AggregateFunctionType> types) {
+		this.types = types.toArray(new AggregateFunctionType[types.size()]);
+		this.values = new double[this.types.length][];
+		this.counts = new int[this.types.length][];
+		this.capacity = 0;
+		ensureCapacity(INITIAL_GROUPS);
+	}
+
+	public int getFunctionCount() {
+		return types.length;
+	}
+
+	public AggregateFunctionType getType(int function) {
+		return types[function];
+	}
+
+	/**
+	 * Make sure groups within <code>[0, groups)</code> can be accumulated
+	 */
+	public void ensureCapacity(int groups) {
+		if(groups <= capacity){
+			return;
+		}
+		int newCapacity = Math.max(groups, capacity * 2);
+		for(int f = 0; f < types.length; f++){
+			values[f] = values[f] == null ? new double[newCapacity] : Arrays.copyOf(values[f], newCapacity);
+			counts[f] = counts[f] == null ? new int[newCapacity] : Arrays.copyOf(counts[f], newCapacity);
+			if(types[f] == AggregateFunctionType.min){
+				Arrays.fill(values[f], capacity, newCapacity, Double.MAX_VALUE);
+			}
+		}
+		capacity = newCapacity;
+	}
+
+	public void run(int group, int function, double v) {
+		run(group, function, v, 1);
+	}
+
+	/**
+	 * @param group group id
+	 * @param function function index
+	 * @param v value
+	 * @param count number of datapoints <code>v</code> stands for
+	 */
+	public void run(int group, int function, double v, int count) {
+		double[] column = values[function];
+		switch (types[function]){
+			case max:
+				if(v > column[group]) column[group] = v;
+				break;
+			case min:
+				if(v < column[group]) column[group] = v;
+				break;
+			default:
+				column[group] += v;
+		}
+		counts[function][group] += count;
+	}
+
+	public double result(int group, int function) {
+		if(types[function] == AggregateFunctionType.avg){
+			return values[function][group] / counts[function][group];
+		}
+		return values[function][group];
+	}
+
+	public int count(int group, int function) {
+		return counts[function][group];
+	}
+}
@@ -0,0 +1,255 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.raw;
+
+import org.apache.eagle.common.ByteUtil;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Open addressing hash table which assigns a dense int id to every distinct group.
+ *
+ * <p>A group is identified by its groupby field values packed as <code>[length][bytes]...</code> into a
+ * single byte arena, plus an optional primitive <code>long</code> dimension (e.g. time series bucket index),
+ * so that looking up an existing group neither allocates nor decodes anything. Ids are assigned in
+ * insertion order within <code>[0, size)</code> and are meant to index struct-of-arrays accumulators,
+ * see {@link AggregateAccumulators}.</p>
+ *
+ * <p>Usage: {@link #newKey()}, {@link #addField(byte[])} for each groupby field, then {@link #locate(long)}.</p>
+ *
+ * <p>Not thread safe.</p>
+ */
+public class GroupbyKeyTable {
+	public final static int NOT_FOUND = -1;
+
+	private final static Charset UTF_8 = Charset.forName("UTF-8");
+	private final static int INITIAL_GROUPS = 64;
+
+	private final int numFields;
+
+	// key being built
+	private byte[] scratch = new byte[64];
+	private int scratchLength;
+	private int scratchFields;
+
+	// packed keys of all groups, indexed by group id
+	private byte[] arena = new byte[INITIAL_GROUPS * 16];
+	private int arenaLength;
+	private int[] keyOffsets = new int[INITIAL_GROUPS];
+	private int[] keyLengths = new int[INITIAL_GROUPS];
+	private long[] dimensions = new long[INITIAL_GROUPS];
+	private int[] hashes = new int[INITIAL_GROUPS];
+	private int size;
+
+	// group id + 1 of each slot, 0 means empty
+	private int[] slots = new int[INITIAL_GROUPS * 2];
+	private int mask = slots.length - 1;
+
+	/**
+	 * @param numFields number of groupby fields of each key
+	 */
+	public GroupbyKeyTable(int numFields) {
+		this.numFields = numFields;
+	}
+
+	public int getFieldCount() {
+		return numFields;
+	}
+
+	/**
+	 * @return number of groups, group ids are within <code>[0, size)</code>
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Start building a new key, the previous one is discarded
+	 */
+	public void newKey() {
+		scratchLength = 0;
+		scratchFields = 0;
+	}
+
+	public void addField(byte[] value) {
+		addField(value, 0, value.length);
+	}
+
+	public void addField(byte[] buffer, int offset, int length) {
+		if(scratchFields == numFields){
+			throw new IllegalStateException("Key already has "+numFields+" fields");
+		}
+		int required = scratchLength + 4 + length;
+		if(required > scratch.length){
+			scratch = Arrays.copyOf(scratch, Math.max(required, scratch.length * 2));
+		}
+		ByteUtil.intToBytes(length, scratch, scratchLength);
+		System.arraycopy(buffer, offset, scratch, scratchLength + 4, length);
+		scratchLength = required;
+		scratchFields++;
+	}
+
+	public void addField(String value) {
+		addField(value.getBytes(UTF_8));
+	}
+
+	/**
+	 * Find the group of the key being built
+	 *
+	 * @param dimension primitive dimension of the group, 0 if not used
+	 * @return group id, or {@link #NOT_FOUND}
+	 */
+	public int find(long dimension) {
+		checkKey();
+		int hash = hash(dimension);
+		for(int slot = hash & mask; slots[slot] != 0; slot = (slot + 1) & mask){
+			int group = slots[slot] - 1;
+			if(matches(group, hash, dimension)){
+				return group;
+			}
+		}
+		return NOT_FOUND;
+	}
+
+	/**
+	 * Find the group of the key being built, a new group is added if not exists
+	 *
+	 * @param dimension primitive dimension of the group, 0 if not used
+	 * @return group id
+	 */
+	public int locate(long dimension) {
+		checkKey();
+		int hash = hash(dimension);
+		int slot = hash & mask;
+		for(; slots[slot] != 0; slot = (slot + 1) & mask){
+			int group = slots[slot] - 1;
+			if(matches(group, hash, dimension)){
+				return group;
+			}
+		}
+		int group = add(hash, dimension);
+		slots[slot] = group + 1;
+		// keep load factor under 0.5
+		if(size * 2 > slots.length){
+			rehash();
+		}
+		return group;
+	}
+
+	private void checkKey() {
+		if(scratchFields != numFields){
+			throw new IllegalStateException("Key has "+scratchFields+" fields, but expect "+numFields);
+		}
+	}
+
+	private int hash(long dimension) {
+		int h = (int) (dimension ^ (dimension >>> 32));
+		for(int i = 0; i < scratchLength; i++){
+			h = 31 * h + scratch[i];
+		}
+		// spread bits as the table size is a power of 2
+		h ^= (h >>> 16);
+		h *= 0x85ebca6b;
+		h ^= (h >>> 13);
+		return h;
+	}
+
+	private boolean matches(int group, int hash, long dimension) {
+		return hashes[group] == hash && dimensions[group] == dimension
+				&& Bytes.equals(arena, keyOffsets[group], keyLengths[group], scratch, 0, scratchLength);
+	}
+
+	private int add(int hash, long dimension) {
+		if(size == keyOffsets.length){
+			int capacity = size * 2;
+			keyOffsets = Arrays.copyOf(keyOffsets, capacity);
+			keyLengths = Arrays.copyOf(keyLengths, capacity);
+			dimensions = Arrays.copyOf(dimensions, capacity);
+			hashes = Arrays.copyOf(hashes, capacity);
+		}
+		if(arenaLength + scratchLength > arena.length){
+			arena = Arrays.copyOf(arena, Math.max(arenaLength + scratchLength, arena.length * 2));
+		}
+		System.arraycopy(scratch, 0, arena, arenaLength, scratchLength);
+		keyOffsets[size] = arenaLength;
+		keyLengths[size] = scratchLength;
+		dimensions[size] = dimension;
+		hashes[size] = hash;
+		arenaLength += scratchLength;
+		return size++;
+	}
+
+	private void rehash() {
+		slots = new int[slots.length * 2];
+		mask = slots.length - 1;
+		for(int group = 0; group < size; group++){
+			int slot = hashes[group] & mask;
+			while(slots[slot] != 0){
+				slot = (slot + 1) & mask;
+			}
+			slots[slot] = group + 1;
+		}
+	}
+
+	public long getDimension(int group) {
+		return dimensions[group];
+	}
+
+	private int fieldOffset(int group, int field) {
+		int offset = keyOffsets[group];
+		for(int i = 0; i < field; i++){
+			offset += 4 + ByteUtil.bytesToInt(arena, offset);
+		}
+		return offset;
+	}
+
+	/**
+	 * @return copy of the groupby field value
+	 */
+	public byte[] getField(int group, int field) {
+		int offset = fieldOffset(group, field);
+		int length = ByteUtil.bytesToInt(arena, offset);
+		return Arrays.copyOfRange(arena, offset + 4, offset + 4 + length);
+	}
+
+	public String getFieldAsString(int group, int field) {
+		int offset = fieldOffset(group, field);
+		return new String(arena, offset + 4, ByteUtil.bytesToInt(arena, offset), UTF_8);
+	}
+
+	/**
+	 * Compare groupby field values of two groups field by field in lexicographical byte order,
+	 * consistent with {@link GroupbyKeyComparator}, dimension is not compared
+	 */
+	public int compare(int group1, int group2) {
+		int offset1 = keyOffsets[group1];
+		int offset2 = keyOffsets[group2];
+		for(int i = 0; i < numFields; i++){
+			int length1 = ByteUtil.bytesToInt(arena, offset1);
+			int length2 = ByteUtil.bytesToInt(arena, offset2);
+			int r = Bytes.compareTo(arena, offset1 + 4, length1, arena, offset2 + 4, length2);
+			if(r != 0){
+				return r;
+			}
+			offset1 += 4 + length1;
+			offset2 += 4 + length2;
+		}
+		return 0;
+	}
+}
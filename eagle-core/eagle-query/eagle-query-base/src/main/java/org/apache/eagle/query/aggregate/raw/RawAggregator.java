@@ -26,36 +26,25 @@ import java.util.Map;
 
 public class RawAggregator implements QualifierCreationListener,GroupbyKeyAggregatable {
 	private List<String> groupbyFields;
-	private GroupbyKey key;
+	private byte[][] key;
 	private static final byte[] UNASSIGNED = "unassigned".getBytes();
 	private RawGroupbyBucket bucket;
 
 	public RawAggregator(List<String> groupbyFields, List<AggregateFunctionType> aggregateFunctionTypes, List<String> aggregatedFields, EntityDefinition ed){
 		this.groupbyFields = groupbyFields;
-		key = new GroupbyKey();
+		key = new byte[groupbyFields.size()][];
 		bucket = new RawGroupbyBucket(aggregateFunctionTypes, aggregatedFields, ed);
 	}
 
 	@Override
 	public void qualifierCreated(Map<String, byte[]> qualifiers){
-		key.clear();
+		int i = 0;
 		ListIterator<String> it = groupbyFields.listIterator();
 		while(it.hasNext()){
 			byte[] groupbyFieldValue = qualifiers.get(it.next());
-			if(groupbyFieldValue == null){
-				key.addValue(UNASSIGNED);
-			}else{
-				key.addValue(groupbyFieldValue);
-			}
+			key[i++] = groupbyFieldValue == null ? UNASSIGNED : groupbyFieldValue;
 		}
-		GroupbyKey newKey = null;
-		if(bucket.exists(key)){
-			newKey = key;
-		}else{
-			newKey = new GroupbyKey(key);
-		}
-		
-		bucket.addDatapoint(newKey, qualifiers);
+		bucket.addDatapoint(key, qualifiers);
 	}
 
 	/**
@@ -16,6 +16,7 @@
  */
 package org.apache.eagle.query.aggregate.raw;
 
+import org.apache.eagle.common.ByteUtil;
 import org.apache.eagle.log.entity.EntityQualifierUtils;
 import org.apache.eagle.log.entity.GenericMetricEntity;
 import org.apache.eagle.log.entity.meta.*;
@@ -29,145 +30,254 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 
+/**
+ * Groups are kept in a {@link GroupbyKeyTable} over packed key bytes and aggregated into
+ * {@link AggregateAccumulators} columns, the value type of each aggregated field is resolved once
+ * when the bucket is created and values are decoded straight from the qualifier bytes.
+ */
 public class RawGroupbyBucket {
 	private final static Logger LOG = LoggerFactory.getLogger(RawGroupbyBucket.class);
 
+	private final static int TYPE_OTHER = 0;
+	private final static int TYPE_INT = 1;
+	private final static int TYPE_LONG = 2;
+	private final static int TYPE_DOUBLE = 3;
+	private final static int TYPE_DOUBLE_ARRAY = 4;
+	private final static int TYPE_INT_ARRAY = 5;
+
 	private List<String> aggregatedFields;
 	private EntityDefinition entityDefinition;
 
-	
 	private List<AggregateFunctionType> types;
-	private SortedMap<GroupbyKey, List<Function>> group2FunctionMap =
-			new TreeMap<GroupbyKey, List<Function>>(new GroupbyKeyComparator());
+	private final String[] fields;
+	private final int[] fieldTypes;
+	private final boolean[] isCount;
+	private final String[] expressions;
+	private final int valueFieldType;
+
+	private GroupbyKeyTable table;
+	private final AggregateAccumulators accumulators;
 
 	public RawGroupbyBucket(List<AggregateFunctionType> types, List<String> aggregatedFields, EntityDefinition ed){
 		this.types = types;
 		this.aggregatedFields = aggregatedFields;
 		this.entityDefinition = ed;
+		this.accumulators = new AggregateAccumulators(types);
+
+		int numFunctions = Math.min(types.size(), aggregatedFields.size());
+		this.fields = new String[numFunctions];
+		this.fieldTypes = new int[numFunctions];
+		this.isCount = new boolean[numFunctions];
+		this.expressions = new String[numFunctions];
+		for(int i = 0; i < numFunctions; i++){
+			fields[i] = aggregatedFields.get(i);
+			fieldTypes[i] = fieldType(fields[i]);
+			isCount[i] = types.get(i) == AggregateFunctionType.count;
+			if(TokenConstant.isExpression(fields[i])){
+				expressions[i] = TokenConstant.parseExpressionContent(fields[i]);
+			}
+		}
+		this.valueFieldType = fieldType(GenericMetricEntity.VALUE_FIELD);
+	}
+
+	private int fieldType(String displayName){
+		Qualifier q = entityDefinition.getDisplayNameMap().get(displayName);
+		if(q == null) return TYPE_OTHER;
+		EntitySerDeser<?> serDeser = q.getSerDeser();
+		if(serDeser instanceof IntSerDeser){
+			return TYPE_INT;
+		}else if(serDeser instanceof LongSerDeser){
+			return TYPE_LONG;
+		}else if(serDeser instanceof DoubleSerDeser){
+			return TYPE_DOUBLE;
+		// TODO: support numeric array type that is not metric
+		}else if(serDeser instanceof DoubleArraySerDeser){
+			return TYPE_DOUBLE_ARRAY;
+		}else if(serDeser instanceof IntArraySerDeser){
+			return TYPE_INT_ARRAY;
+		}
+		return TYPE_OTHER;
+	}
+
+	private GroupbyKeyTable table(int numFields){
+		if(table == null){
+			table = new GroupbyKeyTable(numFields);
+		}
+		return table;
 	}
 
 	public boolean exists(GroupbyKey key){
-		return group2FunctionMap.containsKey(key);
+		if(table == null) return false;
+		newKey(key);
+		return table.find(0) != GroupbyKeyTable.NOT_FOUND;
+	}
+
+	private void newKey(GroupbyKey key){
+		GroupbyKeyTable t = table(key.getValue().size());
+		t.newKey();
+		for(BytesWritable value : key.getValue()){
+			t.addField(value.getBytes(), 0, value.getLength());
+		}
 	}
 
 	public void addDatapoint(GroupbyKey groupbyKey, Map<String, byte[]> values){
-		// locate groupby bucket
-		List<Function> functions = group2FunctionMap.get(groupbyKey);
-		if(functions == null){
-			functions = new ArrayList<Function>();
-			for(AggregateFunctionType type : types){
-				FunctionFactory ff = FunctionFactory.locateFunctionFactory(type);
-				if(ff == null){
-					LOG.error("FunctionFactory of AggregationFunctionType:"+type+" is null");
-				}else{
-					functions.add(ff.createFunction());
-				}
-			}
-			group2FunctionMap.put(groupbyKey, functions);
+		newKey(groupbyKey);
+		addDatapoint(table.locate(0), values);
+	}
+
+	/**
+	 * @param groupbyFieldValues groupby field values in bytes, not kept by the bucket so the array can be reused
+	 * @param values <code>Map &lt; display name,Value in bytes array &gt;</code>
+	 */
+	public void addDatapoint(byte[][] groupbyFieldValues, Map<String, byte[]> values){
+		GroupbyKeyTable t = table(groupbyFieldValues.length);
+		t.newKey();
+		for(byte[] value : groupbyFieldValues){
+			t.addField(value);
 		}
-		ListIterator<Function> e1 = functions.listIterator();
-		ListIterator<String> e2 = aggregatedFields.listIterator();
-		while(e1.hasNext() && e2.hasNext()){
-			Function f = e1.next();
-			String aggregatedField = e2.next();
+		addDatapoint(t.locate(0), values);
+	}
+
+	private void addDatapoint(int group, Map<String, byte[]> values){
+		accumulators.ensureCapacity(group + 1);
+		for(int i = 0; i < fields.length; i++){
+			String aggregatedField = fields[i];
+			int fieldType = fieldTypes[i];
 			byte[] v = values.get(aggregatedField);
-			if(f instanceof Function.Count){ // handle count
+			if(isCount[i]){ // handle count
 				if(entityDefinition.getMetricDefinition()==null) {
-					f.run(1.0);
+					accumulators.run(group, i, 1.0);
 					continue;
 				}else if(v == null){
 					aggregatedField = GenericMetricEntity.VALUE_FIELD;
+					fieldType = valueFieldType;
 					v = values.get(aggregatedField);
 				}
 			}
 			if(v != null){
-				Qualifier q = entityDefinition.getDisplayNameMap().get(aggregatedField);
-				EntitySerDeser<?> serDeser = q.getSerDeser();
-				// double d = 0.0;
-				if(serDeser instanceof IntSerDeser){
-					double d= (Integer)serDeser.deserialize(v);
-					f.run(d);
-				}else if(serDeser instanceof LongSerDeser){
-					double d = (Long)serDeser.deserialize(v);
-					f.run(d);
-				}else if(serDeser instanceof DoubleSerDeser){
-					double d = (Double)serDeser.deserialize(v);
-					f.run(d);
-				// TODO: support numeric array type that is not metric
-				}else if(serDeser instanceof DoubleArraySerDeser){
-					double[] d = ((DoubleArraySerDeser) serDeser).deserialize(v);
-					if(f instanceof Function.Count){
-						f.run(d.length);
-					} else {
-						for(double i:d) f.run(i);
-					}
-				}else if(serDeser instanceof IntArraySerDeser){
-					int[] d = ((IntArraySerDeser) serDeser).deserialize(v);
-					if(f instanceof Function.Count){
-						f.run(d.length);
-					}else{
-						for(int i:d) f.run(i);
-					}
+				run(group, i, fieldType, v, aggregatedField);
+			}else if(expressions[i] != null){
+				runExpression(group, i, expressions[i], values);
+			}
+		}
+	}
+
+	private void run(int group, int function, int fieldType, byte[] v, String aggregatedField){
+		switch (fieldType){
+			case TYPE_INT:
+				if(v.length >= 4) accumulators.run(group, function, ByteUtil.bytesToInt(v, 0));
+				break;
+			case TYPE_LONG:
+				if(v.length >= 8) accumulators.run(group, function, ByteUtil.bytesToLong(v, 0));
+				break;
+			case TYPE_DOUBLE:
+				if(v.length >= 8) accumulators.run(group, function, ByteUtil.bytesToDouble(v, 0));
+				break;
+			case TYPE_DOUBLE_ARRAY:
+				if(v.length < 4 || (v.length - 4) % 8 != 0) break;
+				if(isCount[function]){
+					accumulators.run(group, function, ByteUtil.bytesToInt(v, 0));
 				}else{
-					if(LOG.isDebugEnabled()) LOG.debug("EntitySerDeser of field "+aggregatedField+" is not IntSerDeser or LongSerDeser or DoubleSerDeser or IntArraySerDeser or DoubleArraySerDeser, default as 0.0");
+					int size = ByteUtil.bytesToInt(v, 0);
+					for(int j = 0, offset = 4; j < size; j++, offset += 8) accumulators.run(group, function, ByteUtil.bytesToDouble(v, offset));
 				}
-			}else if(TokenConstant.isExpression(aggregatedField)){
-				String expression = TokenConstant.parseExpressionContent(aggregatedField);
-				try {
-					Map<String,Double> doubleMap = EntityQualifierUtils.bytesMapToDoubleMap(values, entityDefinition);
-					if(entityDefinition.getMetricDefinition() == null) {
-						double value = ExpressionParser.eval(expression,doubleMap);
-						// LOG.info("DEBUG: Eval "+expression +" = "+value);
-						f.run(value);
+				break;
+			case TYPE_INT_ARRAY:
+				if(v.length < 4) break;
+				if(isCount[function]){
+					accumulators.run(group, function, ByteUtil.bytesToInt(v, 0));
+				}else{
+					int size = ByteUtil.bytesToInt(v, 0);
+					for(int j = 0, offset = 4; j < size; j++, offset += 4) accumulators.run(group, function, ByteUtil.bytesToInt(v, offset));
+				}
+				break;
+			default:
+				if(LOG.isDebugEnabled()) LOG.debug("EntitySerDeser of field "+aggregatedField+" is not IntSerDeser or LongSerDeser or DoubleSerDeser or IntArraySerDeser or DoubleArraySerDeser, default as 0.0");
+		}
+	}
+
+	private void runExpression(int group, int function, String expression, Map<String, byte[]> values){
+		try {
+			Map<String,Double> doubleMap = EntityQualifierUtils.bytesMapToDoubleMap(values, entityDefinition);
+			ExpressionParser parser = ExpressionParser.parse(expression);
+			if(entityDefinition.getMetricDefinition() == null) {
+				double value = parser.eval(doubleMap);
+				// LOG.info("DEBUG: Eval "+expression +" = "+value);
+				accumulators.run(group, function, value);
+			}else{
+				Qualifier qualifier = entityDefinition.getDisplayNameMap().get(GenericMetricEntity.VALUE_FIELD);
+				EntitySerDeser _serDeser = qualifier.getSerDeser();
+				byte[] valueBytes = values.get(GenericMetricEntity.VALUE_FIELD);
+				if( _serDeser instanceof DoubleArraySerDeser){
+					double[] d = (double[]) _serDeser.deserialize(valueBytes);
+					if(isCount[function]) {
+						accumulators.run(group, function, d.length);
 					}else{
-						Qualifier qualifier = entityDefinition.getDisplayNameMap().get(GenericMetricEntity.VALUE_FIELD);
-						EntitySerDeser _serDeser = qualifier.getSerDeser();
-						byte[] valueBytes = values.get(GenericMetricEntity.VALUE_FIELD);
-						if( _serDeser instanceof DoubleArraySerDeser){
-							double[] d = (double[]) _serDeser.deserialize(valueBytes);
-							if(f instanceof Function.Count) {
-								f.run(d.length);
-							}else{
-								for(double i:d){
-									doubleMap.put(GenericMetricEntity.VALUE_FIELD,i);
-									f.run(ExpressionParser.eval(expression, doubleMap));
-								}
-							}
-						}else if(_serDeser instanceof IntArraySerDeser){
-							int[] d = (int[]) _serDeser.deserialize(valueBytes);
-							if(f instanceof Function.Count) {
-								f.run(d.length);
-							}else {
-								for (double i : d) {
-									doubleMap.put(GenericMetricEntity.VALUE_FIELD, i);
-									f.run(ExpressionParser.eval(expression, doubleMap));
-								}
-							}
-						}else{
-							double value = ExpressionParser.eval(expression,doubleMap);
-							f.run(value);
-						}
+						evalEach(parser, doubleMap, d, group, function);
+					}
+				}else if(_serDeser instanceof IntArraySerDeser){
+					int[] d = (int[]) _serDeser.deserialize(valueBytes);
+					if(isCount[function]) {
+						accumulators.run(group, function, d.length);
+					}else {
+						double[] metricValues = new double[d.length];
+						for (int i = 0; i < d.length; i++) metricValues[i] = d[i];
+						evalEach(parser, doubleMap, metricValues, group, function);
 					}
-				} catch (Exception e) {
-					LOG.error("Got exception to evaluate expression: "+expression+", exception: "+e.getMessage(),e);
+				}else{
+					double value = parser.eval(doubleMap);
+					accumulators.run(group, function, value);
 				}
 			}
+		} catch (Exception e) {
+			LOG.error("Got exception to evaluate expression: "+expression+", exception: "+e.getMessage(),e);
+		}
+	}
+
+	/**
+	 * Evaluate expression for each metric value, variables are bound by slot and only the value slot changes
+	 */
+	private void evalEach(ExpressionParser parser, Map<String, Double> doubleMap, double[] metricValues, int group, int function){
+		double[] slotValues = parser.toSlotValues(doubleMap);
+		int valueSlot = parser.getFieldSlot(GenericMetricEntity.VALUE_FIELD);
+		for(double v : metricValues){
+			if(valueSlot >= 0) slotValues[valueSlot] = v;
+			accumulators.run(group, function, parser.eval(slotValues));
 		}
 	}
 
+	/**
+	 * @return group ids sorted by groupby field values, see {@link GroupbyKeyComparator}
+	 */
+	private Integer[] sortedGroups(){
+		Integer[] groups = new Integer[table == null ? 0 : table.size()];
+		for(int i = 0; i < groups.length; i++) groups[i] = i;
+		Arrays.sort(groups, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return table.compare(o1, o2);
+			}
+		});
+		return groups;
+	}
+
 	/**
 	 * expensive operation - create objects and format the result
 	 * @return
 	 */
 	public List<GroupbyKeyValue> groupbyKeyValues(){
 		List<GroupbyKeyValue> results = new ArrayList<GroupbyKeyValue>();
-		for(Map.Entry<GroupbyKey, List<Function>> entry : this.group2FunctionMap.entrySet()){
+		for(int group : sortedGroups()){
+			GroupbyKey key = new GroupbyKey();
+			for(int i = 0; i < table.getFieldCount(); i++){
+				key.addValue(table.getField(group, i));
+			}
 			GroupbyValue value = new GroupbyValue();
-			for(Function f : entry.getValue()){
-				value.add(new DoubleWritable(f.result()));
-				value.addMeta(f.count());
+			for(int f = 0; f < fields.length; f++){
+				value.add(new DoubleWritable(accumulators.result(group, f)));
+				value.addMeta(accumulators.count(group, f));
 			}
-			results.add(new GroupbyKeyValue(entry.getKey(),value));
+			results.add(new GroupbyKeyValue(key,value));
 		}
 		return results;
 	}
@@ -178,18 +288,17 @@ public class RawGroupbyBucket {
 	 */
 	public Map<List<String>, List<Double>> result(){
 		Map<List<String>, List<Double>> result = new HashMap<List<String>, List<Double>>();
-		for(Map.Entry<GroupbyKey, List<Function>> entry : this.group2FunctionMap.entrySet()){
+		int size = table == null ? 0 : table.size();
+		for(int group = 0; group < size; group++){
 			List<Double> values = new ArrayList<Double>();
-			for(Function f : entry.getValue()){
-				values.add(f.result());
+			for(int f = 0; f < fields.length; f++){
+				values.add(accumulators.result(group, f));
 			}
-			GroupbyKey key = entry.getKey();
-			List<BytesWritable> list1 = key.getValue();
-			List<String> list2 = new ArrayList<String>();
-			for(BytesWritable e : list1){
-				list2.add(new String(e.copyBytes()));
+			List<String> key = new ArrayList<String>();
+			for(int i = 0; i < table.getFieldCount(); i++){
+				key.add(new String(table.getField(group, i)));
 			}
-			result.put(list2, values);
+			result.put(key, values);
 		}
 		return result;
 	}
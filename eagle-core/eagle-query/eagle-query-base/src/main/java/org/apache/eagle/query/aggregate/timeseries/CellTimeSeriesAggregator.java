@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.timeseries;
+
+import org.apache.eagle.common.ByteUtil;
+import org.apache.eagle.log.entity.CellRowView;
+import org.apache.eagle.log.entity.GenericMetricEntity;
+import org.apache.eagle.log.entity.meta.*;
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.IllegalAggregateFieldTypeException;
+import org.apache.eagle.query.aggregate.raw.GroupbyKeyAggregatable;
+import org.apache.eagle.query.aggregate.raw.GroupbyKeyValue;
+import org.apache.eagle.query.parser.TokenConstant;
+import org.apache.hadoop.hbase.Cell;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Time series aggregator reading group-by and aggregated qualifiers straight from the cells of scanned rows,
+ * without building <code>InternalLog</code> or entity objects, which is what {@link TimeSeriesAggregator} needs.
+ *
+ * <p>Results are the same as {@link TimeSeriesAggregator} for the same rows: group-by fields are resolved from tags
+ * first, then from string qualifiers, missing values are grouped as "unassigned", and the <code>value</code> array of
+ * a {@link GenericMetricEntity} row is expanded into one datapoint per metric interval.</p>
+ *
+ * <p>Only plain field aggregation is supported, see {@link #isSupported(EntityDefinition, List, List, List)}.</p>
+ */
+public class CellTimeSeriesAggregator implements GroupbyKeyAggregatable {
+	private final static Logger LOG = LoggerFactory.getLogger(CellTimeSeriesAggregator.class);
+
+	private final static byte[] UNASSIGNED = "unassigned".getBytes();
+
+	private final GroupbyBucket bucket;
+	private final long startTime;
+	private final long endTime;
+	private final long intervalms;
+	private final boolean isMetric;
+	private final long metricInterval;
+
+	/**
+	 * Qualifier slot of each groupby field, or -1 if the field is a tag
+	 */
+	private final int[] groupbySlots;
+	private final byte[][] groupbyTags;
+	/**
+	 * Qualifier slot of each aggregated field, or -1 for count
+	 */
+	private final int[] aggregatedSlots;
+	private final double[] values;
+
+	private int metricSlot = -1;
+	private int ignoredDatapointCounter = 0;
+	private long startTimestamp = 0;
+	private long stopTimestamp = 0;
+
+	/**
+	 * @return true if entities of <code>ed</code> can be aggregated by groupby fields and aggregated fields from cells,
+	 * i.e. no expression, groupby qualifiers are strings, and aggregated fields are qualifiers
+	 * (<code>value</code> only for {@link GenericMetricEntity})
+	 */
+	public static boolean isSupported(EntityDefinition ed, List<String> groupbyFields, List<AggregateFunctionType> aggregateFunctionTypes, List<String> aggregatedFields){
+		if(ed.getEntityClass() == null) return false;
+		boolean isMetric = GenericMetricEntity.class.isAssignableFrom(ed.getEntityClass());
+		if(isMetric && ed.getMetricDefinition() == null) return false;
+		for(String groupbyField : groupbyFields){
+			Qualifier q = ed.getDisplayNameMap().get(groupbyField);
+			if(q != null && !(q.getSerDeser() instanceof StringSerDeser)) return false;
+		}
+		if(aggregatedFields.size() < aggregateFunctionTypes.size()) return false;
+		for(int i = 0; i < aggregateFunctionTypes.size(); i++){
+			if(aggregateFunctionTypes.get(i) == AggregateFunctionType.count) continue;
+			String aggregatedField = aggregatedFields.get(i);
+			if(aggregatedField == null || TokenConstant.isExpression(aggregatedField)) return false;
+			if(isMetric){
+				if(!GenericMetricEntity.VALUE_FIELD.equals(aggregatedField)) return false;
+			}else if(ed.getDisplayNameMap().get(aggregatedField) == null){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public CellTimeSeriesAggregator(EntityDefinition ed, List<String> groupbyFields, List<AggregateFunctionType> aggregateFunctionTypes, List<String> aggregatedFields,
+									long startTime, long endTime, long intervalms){
+		this.bucket = new GroupbyBucket(aggregateFunctionTypes, true);
+		this.startTime = startTime;
+		this.endTime = endTime;
+		this.intervalms = intervalms;
+		this.isMetric = GenericMetricEntity.class.isAssignableFrom(ed.getEntityClass());
+		this.metricInterval = isMetric ? ed.getMetricDefinition().getInterval() : 0;
+
+		QualifierIndex qualifierIndex = ed.getQualifierIndex();
+		this.groupbySlots = new int[groupbyFields.size()];
+		this.groupbyTags = new byte[groupbyFields.size()][];
+		for(int i = 0; i < groupbyFields.size(); i++){
+			Qualifier q = ed.getDisplayNameMap().get(groupbyFields.get(i));
+			groupbySlots[i] = q == null ? -1 : qualifierIndex.indexOf(q.getQualifierName().getBytes());
+			groupbyTags[i] = groupbyFields.get(i).getBytes();
+		}
+		this.aggregatedSlots = new int[aggregateFunctionTypes.size()];
+		for(int i = 0; i < aggregateFunctionTypes.size(); i++){
+			if(aggregateFunctionTypes.get(i) == AggregateFunctionType.count){
+				aggregatedSlots[i] = -1;
+			}else{
+				Qualifier q = ed.getDisplayNameMap().get(aggregatedFields.get(i));
+				aggregatedSlots[i] = qualifierIndex.indexOf(q.getQualifierName().getBytes());
+			}
+		}
+		if(isMetric){
+			this.metricSlot = qualifierIndex.indexOf(ed.getDisplayNameMap().get(GenericMetricEntity.VALUE_FIELD).getQualifierName().getBytes());
+		}
+		this.values = new double[aggregateFunctionTypes.size()];
+	}
+
+	/**
+	 * @param view scanned row
+	 * @param timestamp row timestamp
+	 */
+	public void accumulate(CellRowView view, long timestamp){
+		bucket.newKey(groupbySlots.length);
+		for(int i = 0; i < groupbySlots.length; i++){
+			Cell cell = view.getTagCell(groupbyTags[i]);
+			if(cell == null && groupbySlots[i] >= 0) cell = view.getCell(groupbySlots[i]);
+			if(cell == null){
+				bucket.addKeyField(UNASSIGNED, 0, UNASSIGNED.length);
+			}else{
+				bucket.addKeyField(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+			}
+		}
+
+		if(isMetric){
+			Cell cell = view.getCell(metricSlot);
+			if(cell == null) return;
+			byte[] buffer = cell.getValueArray();
+			int offset = cell.getValueOffset();
+			int length = cell.getValueLength();
+			if(length < 4 || (length - 4) % 8 != 0) return;
+			int count = ByteUtil.bytesToInt(buffer, offset);
+			for(int i = 0; i < count; i++){
+				double value = ByteUtil.bytesToDouble(buffer, offset + 4 + i * 8);
+				for(int f = 0; f < values.length; f++){
+					values[f] = aggregatedSlots[f] < 0 ? 1.0 : value;
+				}
+				addDatapoint(timestamp + i * metricInterval);
+			}
+		}else{
+			for(int f = 0; f < values.length; f++){
+				values[f] = aggregatedSlots[f] < 0 ? 1.0 : toDouble(view, aggregatedSlots[f]);
+			}
+			addDatapoint(timestamp);
+		}
+	}
+
+	private void addDatapoint(long timestamp){
+		// Min
+		if(startTimestamp == 0 || startTimestamp > timestamp) startTimestamp = timestamp;
+		// Max
+		if(stopTimestamp == 0 || stopTimestamp < timestamp) stopTimestamp = timestamp;
+		if(timestamp >= this.endTime || timestamp < this.startTime){
+			this.ignoredDatapointCounter ++;
+			return;
+		}
+		// time series bucket index
+		bucket.addDatapoint((int) ((timestamp - startTime) / intervalms), values);
+	}
+
+	/**
+	 * Same conversion as {@link AbstractAggregator#numberToDouble(Object)}, fixed width numbers are decoded in place
+	 */
+	private static double toDouble(CellRowView view, int slot){
+		Cell cell = view.getCell(slot);
+		if(cell == null) return 0.0;
+		EntitySerDeser<?> serDeser = view.getQualifier(slot).getSerDeser();
+		if(serDeser instanceof IntSerDeser && cell.getValueLength() >= 4){
+			return ByteUtil.bytesToInt(cell.getValueArray(), cell.getValueOffset());
+		}else if(serDeser instanceof LongSerDeser && cell.getValueLength() >= 8){
+			return ByteUtil.bytesToLong(cell.getValueArray(), cell.getValueOffset());
+		}else if(serDeser instanceof DoubleSerDeser && cell.getValueLength() >= 8){
+			return ByteUtil.bytesToDouble(cell.getValueArray(), cell.getValueOffset());
+		}
+		Object obj = view.getObject(slot);
+		if(obj == null) return 0.0;
+		if(obj instanceof Number) return ((Number) obj).doubleValue();
+		if(obj instanceof String){
+			try{
+				return Double.parseDouble((String) obj);
+			}catch(NumberFormatException ex){
+				LOG.warn("Datapoint ignored because it can not be converted to correct number for " + obj, ex);
+				return 0.0;
+			}
+		}
+		if(obj instanceof double[]){
+			double[] value = (double[]) obj;
+			return value.length > 0 ? value[0] : 0.0;
+		}
+		throw new IllegalAggregateFieldTypeException(obj.getClass().toString() + " type is not support. The aggregated field must be numeric type, int, long or double");
+	}
+
+	/**
+	 * @return min timestamp of accumulated datapoints, including those out of time range
+	 */
+	public long getStartTimestamp(){
+		return startTimestamp;
+	}
+
+	/**
+	 * @return max timestamp of accumulated datapoints, including those out of time range
+	 */
+	public long getStopTimestamp(){
+		return stopTimestamp;
+	}
+
+	@Override
+	public List<GroupbyKeyValue> getGroupbyKeyValues(){
+		if(this.ignoredDatapointCounter > 0)
+			LOG.warn("Ignored "+this.ignoredDatapointCounter+" datapoints for reason: timestamp > "+this.endTime+" or < "+this.startTime);
+		return bucket.getGroupbyKeyValue();
+	}
+}
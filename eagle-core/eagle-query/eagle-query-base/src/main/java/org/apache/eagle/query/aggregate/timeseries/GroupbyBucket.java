@@ -18,7 +18,9 @@ package org.apache.eagle.query.aggregate.timeseries;
 
 import org.apache.eagle.query.QueryConstants;
 import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.raw.AggregateAccumulators;
 import org.apache.eagle.query.aggregate.raw.GroupbyKey;
+import org.apache.eagle.query.aggregate.raw.GroupbyKeyTable;
 import org.apache.eagle.query.aggregate.raw.GroupbyKeyValue;
 import org.apache.eagle.query.aggregate.raw.GroupbyValue;
 import org.slf4j.Logger;
@@ -46,62 +48,165 @@ public class GroupbyBucket {
 	}
 	
 	private List<AggregateFunctionType> types;
-//	private SortedMap<List<String>, List<Function>> group2FunctionMap = 
-//			new TreeMap<List<String>, List<Function>>(new GroupbyFieldsComparator());
-	
-	private Map<List<String>, List<Function>> group2FunctionMap = new HashMap<>(); //new GroupbyFieldsComparator());
-	
+	private final boolean timeseries;
+	private GroupbyKeyTable table;
+	private final AggregateAccumulators accumulators;
+
 	public GroupbyBucket(List<AggregateFunctionType> types){
+		this(types, false);
+	}
+
+	/**
+	 * @param types aggregate function types
+	 * @param timeseries whether datapoints are added with a time series bucket index,
+	 *                   the index is kept as a primitive dimension of the group and appended to group keys of the result
+	 */
+	public GroupbyBucket(List<AggregateFunctionType> types, boolean timeseries){
 		this.types = types;
+		this.timeseries = timeseries;
+		this.accumulators = new AggregateAccumulators(types);
 	}
-	
+
 	public void addDatapoint(List<String> groupbyFieldValues, List<Double> values){
+		addDatapoint(groupbyFieldValues, 0, values);
+	}
+
+	/**
+	 * @param groupbyFieldValues groupby field values, not kept by the bucket
+	 * @param timeseriesIndex time series bucket index
+	 * @param values pre-aggregated value of each function
+	 */
+	public void addDatapoint(List<String> groupbyFieldValues, int timeseriesIndex, List<Double> values){
 		// LOG.info("DEBUG: addDatapoint: groupby=["+StringUtils.join(groupbyFieldValues,",")+"], values=["+StringUtils.join(values, ",")+"]");
-		
-		// locate groupby bucket
-		List<Function> functions = group2FunctionMap.get(groupbyFieldValues);
-		if(functions == null){
-			functions = new ArrayList<Function>();
-			for(AggregateFunctionType type : types){
-				functions.add(_functionFactories.get(type.name()).createFunction());
-			}
-			group2FunctionMap.put(groupbyFieldValues, functions);
+		newKey(groupbyFieldValues.size());
+		for(String groupbyFieldValue : groupbyFieldValues){
+			table.addField(groupbyFieldValue);
 		}
+		int group = locate(timeseriesIndex);
 		int functionIndex = 0;
 		for(Double v : values){
-			functions.get(functionIndex).run(v);
+			accumulators.run(group, functionIndex, v);
 			functionIndex++;
 		}
 	}
-	
+
+	/**
+	 * Start building the group key of the next datapoint field by field, so that field values
+	 * can be added straight from their backing arrays, see {@link #addKeyField(byte[], int, int)}
+	 *
+	 * @param numFields number of groupby fields
+	 */
+	public void newKey(int numFields){
+		if(table == null){
+			table = new GroupbyKeyTable(numFields);
+		}
+		table.newKey();
+	}
+
+	/**
+	 * @param buffer backing array containing UTF-8 encoded groupby field value
+	 */
+	public void addKeyField(byte[] buffer, int offset, int length){
+		table.addField(buffer, offset, length);
+	}
+
+	/**
+	 * Add datapoint to the group of the key built by {@link #newKey(int)} and {@link #addKeyField(byte[], int, int)}
+	 *
+	 * @param timeseriesIndex time series bucket index
+	 * @param values pre-aggregated value of each function
+	 */
+	public void addDatapoint(int timeseriesIndex, double[] values){
+		int group = locate(timeseriesIndex);
+		for(int f = 0; f < values.length; f++){
+			accumulators.run(group, f, values[f]);
+		}
+	}
+
+	private int locate(int timeseriesIndex){
+		int group = table.locate(timeseriesIndex);
+		accumulators.ensureCapacity(group + 1);
+		return group;
+	}
+
+	private int size(){
+		return table == null ? 0 : table.size();
+	}
+
+	private List<String> groupbyFieldValues(int group, boolean withTimeseriesIndex){
+		List<String> key = new ArrayList<String>(table.getFieldCount() + 1);
+		for(int i = 0; i < table.getFieldCount(); i++){
+			key.add(table.getFieldAsString(group, i));
+		}
+		if(withTimeseriesIndex){
+			key.add(String.valueOf(table.getDimension(group)));
+		}
+		return key;
+	}
+
+	/**
+	 * @return groupby field values (plus time series bucket index as the last element if timeseries) to function values
+	 */
 	public Map<List<String>, List<Double>> result(){
 		Map<List<String>, List<Double>> result = new HashMap<List<String>, List<Double>>();
-		for(Map.Entry<List<String>, List<Function>> entry : this.group2FunctionMap.entrySet()){
+		for(int group = 0; group < size(); group++){
 			List<Double> values = new ArrayList<Double>();
-			for(Function f : entry.getValue()){
-				values.add(f.result());
+			for(int f = 0; f < accumulators.getFunctionCount(); f++){
+				values.add(accumulators.result(group, f));
 			}
-			result.put(entry.getKey(), values);
+			result.put(groupbyFieldValues(group, timeseries), values);
 		}
 		return result;
 	}
 
+	/**
+	 * Fill time series of each group directly from the time series bucket index dimension
+	 *
+	 * @param numDatapoints number of datapoints of each time series
+	 * @return groupby field values to time series of each function
+	 */
+	public Map<List<String>, List<double[]>> toMetric(int numDatapoints){
+		Map<List<String>, List<double[]>> timeseriesDatapoints = new HashMap<List<String>, List<double[]>>();
+		for(int group = 0; group < size(); group++){
+			List<String> groupbyFields = groupbyFieldValues(group, false);
+			List<double[]> functionValues = timeseriesDatapoints.get(groupbyFields);
+			if(functionValues == null){
+				functionValues = new ArrayList<double[]>();
+				timeseriesDatapoints.put(groupbyFields, functionValues);
+				for(int i = 0; i < accumulators.getFunctionCount(); i++){
+					functionValues.add(new double[numDatapoints]);
+				}
+			}
+			int timeseriesIndex = (int) table.getDimension(group);
+			int functionIndex = 0;
+			for(double[] values : functionValues){
+				values[timeseriesIndex] = accumulators.result(group, functionIndex);
+				functionIndex++;
+			}
+		}
+		return timeseriesDatapoints;
+	}
+
 	public List<GroupbyKeyValue> getGroupbyKeyValue(){
 		List<GroupbyKeyValue>  results = new ArrayList<GroupbyKeyValue>();
 		
-		for(Map.Entry<List<String>, List<Function>> entry : this.group2FunctionMap.entrySet()){
+		for(int group = 0; group < size(); group++){
 			GroupbyKey key = new GroupbyKey();
-			for(String keyStr:entry.getKey()){
+			// packed field values are already UTF-8 bytes, i.e. QueryConstants.CHARSET
+			for(int i = 0; i < table.getFieldCount(); i++){
+				key.addValue(table.getField(group, i));
+			}
+			if(timeseries){
 				try {
-					key.addValue(keyStr.getBytes(QueryConstants.CHARSET));
+					key.addValue(String.valueOf(table.getDimension(group)).getBytes(QueryConstants.CHARSET));
 				} catch (UnsupportedEncodingException e) {
 					LOG.error(e.getMessage(),e);
 				}
 			}
 			GroupbyValue value = new GroupbyValue();
-			for(Function f : entry.getValue()){
-				value.add(f.result());
-				value.addMeta(f.count());
+			for(int f = 0; f < accumulators.getFunctionCount(); f++){
+				value.add(accumulators.result(group, f));
+				value.addMeta(accumulators.count(group, f));
 			}
 			results.add(new GroupbyKeyValue(key,value));
 		}
@@ -58,6 +58,8 @@ public class TimeSeriesAggregator extends FlatAggregator implements GroupbyKeyAg
 		this.endTime = endTime;
 		this.intervalms = intervalms;
 		this.numFunctions = aggregateFuntionTypes.size();
+		// time series bucket index is kept as a primitive dimension of the group
+		this.bucket = new GroupbyBucket(this.aggregateFunctionTypes, true);
 	}
 
 //	@Deprecated
@@ -80,10 +82,9 @@ public class TimeSeriesAggregator extends FlatAggregator implements GroupbyKeyAg
 			return;
 		}
 		// time series bucket index
-		long located =(entity.getTimestamp() - startTime)/intervalms; 
-		groupbyFieldValues.add(String.valueOf(located));
+		int located =(int)((entity.getTimestamp() - startTime)/intervalms);
 		List<Double> preAggregatedValues = createPreAggregatedValues(entity);
-		bucket.addDatapoint(groupbyFieldValues, preAggregatedValues);
+		bucket.addDatapoint(groupbyFieldValues, located, preAggregatedValues);
 	}
 	
 	public Map<List<String>, List<Double>> result(){
@@ -105,8 +106,7 @@ public class TimeSeriesAggregator extends FlatAggregator implements GroupbyKeyAg
 	}
 	
 	public Map<List<String>, List<double[]>> getMetric(){
-		// groupbyfields+timeseriesbucket --> aggregatedvalues for different function
-		Map<List<String>, List<Double>> result = bucket.result();
+		// groupbyfields --> timeseries for different function, filled directly from timeseries bucket index of each group
 //		Map<List<String>, List<double[]>> timeseriesDatapoints = new HashMap<List<String>, List<double[]>>();
 //		/**
 //		 * bug fix: startTime is inclusive and endTime is exclusive
@@ -134,7 +134,7 @@ public class TimeSeriesAggregator extends FlatAggregator implements GroupbyKeyAg
 //			}
 //		}
 //		return timeseriesDatapoints;
-		return toMetric(result,(int)((endTime-1-startTime)/intervalms + 1),this.numFunctions);
+		return bucket.toMetric((int)((endTime-1-startTime)/intervalms + 1));
 	}
 
 	public static Map<List<String>, List<double[]>> toMetric(Map<List<String>, List<Double>> result,int numDatapoints,int numFunctions){
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.raw;
+
+import junit.framework.Assert;
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class TestGroupbyKeyTable {
+	private static int locate(GroupbyKeyTable table, long dimension, String... fields){
+		table.newKey();
+		for(String field : fields){
+			table.addField(field);
+		}
+		return table.locate(dimension);
+	}
+
+	@Test
+	public void testLocate(){
+		GroupbyKeyTable table = new GroupbyKeyTable(2);
+		Assert.assertEquals(0, locate(table, 0, "cluster1", "host1"));
+		Assert.assertEquals(1, locate(table, 0, "cluster1", "host2"));
+		Assert.assertEquals(0, locate(table, 0, "cluster1", "host1"));
+		// same field values in another dimension is another group
+		Assert.assertEquals(2, locate(table, 1, "cluster1", "host1"));
+		// field boundaries are part of the key
+		Assert.assertEquals(3, locate(table, 0, "cluster1h", "ost1"));
+		Assert.assertEquals(4, table.size());
+
+		Assert.assertEquals("host2", table.getFieldAsString(1, 1));
+		Assert.assertTrue(Arrays.equals("cluster1h".getBytes(), table.getField(3, 0)));
+		Assert.assertEquals(1, table.getDimension(2));
+
+		table.newKey();
+		table.addField("cluster2".getBytes());
+		table.addField("host1".getBytes());
+		Assert.assertEquals(GroupbyKeyTable.NOT_FOUND, table.find(0));
+
+		Assert.assertTrue(table.compare(0, 1) < 0);
+		Assert.assertTrue(table.compare(3, 0) > 0);
+		Assert.assertEquals(0, table.compare(0, 2));
+	}
+
+	@Test
+	public void testRehash(){
+		GroupbyKeyTable table = new GroupbyKeyTable(1);
+		int count = 10000;
+		for(int i = 0; i < count; i++){
+			Assert.assertEquals(i, locate(table, i % 7, "host" + i));
+		}
+		for(int i = 0; i < count; i++){
+			Assert.assertEquals(i, locate(table, i % 7, "host" + i));
+		}
+		Assert.assertEquals(count, table.size());
+	}
+
+	@Test
+	public void testAccumulators(){
+		AggregateAccumulators accumulators = new AggregateAccumulators(Arrays.asList(AggregateFunctionType.count,
+				AggregateFunctionType.sum, AggregateFunctionType.avg, AggregateFunctionType.max, AggregateFunctionType.min));
+		int groups = 100;
+		accumulators.ensureCapacity(groups);
+		for(int group = 0; group < groups; group++){
+			for(int v = 1; v <= 4; v++){
+				accumulators.run(group, 0, 1.0);
+				for(int f = 1; f < 5; f++){
+					accumulators.run(group, f, v * group);
+				}
+			}
+		}
+		Assert.assertEquals(4.0, accumulators.result(99, 0));
+		Assert.assertEquals(990.0, accumulators.result(99, 1));
+		Assert.assertEquals(247.5, accumulators.result(99, 2));
+		Assert.assertEquals(396.0, accumulators.result(99, 3));
+		Assert.assertEquals(99.0, accumulators.result(99, 4));
+		Assert.assertEquals(4, accumulators.count(99, 4));
+		// same initial values as Function.Max and Function.Min
+		accumulators.ensureCapacity(groups + 1);
+		Assert.assertEquals(0.0, accumulators.result(groups, 3));
+		Assert.assertEquals(Double.MAX_VALUE, accumulators.result(groups, 4));
+	}
+}
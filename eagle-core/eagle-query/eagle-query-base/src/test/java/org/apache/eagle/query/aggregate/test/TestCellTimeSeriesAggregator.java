@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.query.aggregate.test;
+
+import junit.framework.Assert;
+import org.apache.eagle.log.entity.CellRowView;
+import org.apache.eagle.log.entity.meta.EntityCodec;
+import org.apache.eagle.log.entity.meta.EntityDefinition;
+import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
+import org.apache.eagle.log.entity.test.TestEntity;
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.query.aggregate.raw.GroupbyKeyValue;
+import org.apache.eagle.query.aggregate.timeseries.CellTimeSeriesAggregator;
+import org.apache.eagle.query.aggregate.timeseries.TimeSeriesAggregator;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.io.BytesWritable;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestCellTimeSeriesAggregator {
+	private final static byte[] FAMILY = "f".getBytes();
+	private final static long START = 1386120000L * 1000;
+	private final static long END = 1386123600L * 1000;
+
+	private TestEntity createEntity(String cluster, String remediationID, int numHosts, long numClusters, long timestamp){
+		TestEntity entity = new TestEntity();
+		Map<String, String> tags = new HashMap<String, String>();
+		tags.put("cluster", cluster);
+		entity.setTags(tags);
+		if(remediationID != null) entity.setRemediationID(remediationID);
+		entity.setNumHosts(numHosts);
+		entity.setNumClusters(numClusters);
+		entity.setTimestamp(timestamp);
+		return entity;
+	}
+
+	private CellRowView toRowView(EntityDefinition ed, TestEntity entity, int i) throws Exception {
+		byte[] row = ("row" + i).getBytes();
+		List<Cell> cells = new ArrayList<Cell>();
+		for(Map.Entry<String, byte[]> entry : EntityCodec.getInstance(ed).writeValue(entity).entrySet()){
+			cells.add(new KeyValue(row, FAMILY, entry.getKey().getBytes(), entry.getValue()));
+		}
+		for(Map.Entry<String, String> entry : entity.getTags().entrySet()){
+			cells.add(new KeyValue(row, FAMILY, entry.getKey().getBytes(), entry.getValue().getBytes()));
+		}
+		return new CellRowView(ed, row, cells);
+	}
+
+	private static Map<List<String>, List<Double>> toMap(List<GroupbyKeyValue> keyValues){
+		Map<List<String>, List<Double>> result = new HashMap<List<String>, List<Double>>();
+		for(GroupbyKeyValue keyValue : keyValues){
+			List<String> key = new ArrayList<String>();
+			for(BytesWritable field : keyValue.getKey().getValue()){
+				key.add(new String(field.copyBytes()));
+			}
+			List<Double> values = new ArrayList<Double>();
+			for(int i = 0; i < keyValue.getValue().getValue().size(); i++){
+				values.add(keyValue.getValue().get(i).get());
+			}
+			result.put(key, values);
+		}
+		return result;
+	}
+
+	@Test
+	public void testSameResultAsTimeSeriesAggregator() throws Exception {
+		EntityDefinition ed = EntityDefinitionManager.getEntityDefinitionByEntityClass(TestEntity.class);
+		List<String> groupbyFields = Arrays.asList("cluster", "remediationID");
+		List<AggregateFunctionType> types = Arrays.asList(AggregateFunctionType.count, AggregateFunctionType.sum, AggregateFunctionType.max);
+		List<String> aggregatedFields = Arrays.asList("count", "numHosts", "numClusters");
+		Assert.assertTrue(CellTimeSeriesAggregator.isSupported(ed, groupbyFields, types, aggregatedFields));
+		Assert.assertFalse(CellTimeSeriesAggregator.isSupported(ed, groupbyFields, types, Arrays.asList("count", "EXP{numHosts*2}", "numClusters")));
+
+		TestEntity[] entities = new TestEntity[]{
+				createEntity("cluster1", "r1", 12, 2, START),
+				createEntity("cluster1", "r1", 20, 1, START + 1060 * 1000),
+				createEntity("cluster1", null, 10, 0, START + 1070 * 1000),
+				createEntity("cluster2", "r2", 9, 2, START + 2122 * 1000),
+				createEntity("cluster2", "r2", 25, 5, START + 3480 * 1000),
+				createEntity("cluster2", "r2", 12, 0, START + 3481 * 1000),
+				// out of time range
+				createEntity("cluster2", "r2", 1, 1, END)
+		};
+
+		TimeSeriesAggregator expected = new TimeSeriesAggregator(groupbyFields, types, aggregatedFields, START, END, 60 * 1000);
+		CellTimeSeriesAggregator actual = new CellTimeSeriesAggregator(ed, groupbyFields, types, aggregatedFields, START, END, 60 * 1000);
+		for(int i = 0; i < entities.length; i++){
+			expected.accumulate(entities[i]);
+			actual.accumulate(toRowView(ed, entities[i], i), entities[i].getTimestamp());
+		}
+
+		Map<List<String>, List<Double>> result = toMap(actual.getGroupbyKeyValues());
+		Assert.assertEquals(toMap(expected.getGroupbyKeyValues()), result);
+		Assert.assertEquals(Arrays.asList(2.0, 45.0, 5.0), result.get(Arrays.asList("cluster2", "r2", "58")));
+		Assert.assertEquals(Arrays.asList(1.0, 10.0, 0.0), result.get(Arrays.asList("cluster1", "unassigned", "17")));
+		Assert.assertEquals(START, actual.getStartTimestamp());
+		Assert.assertEquals(END, actual.getStopTimestamp());
+	}
+}
@@ -20,11 +20,13 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.hadoop.hbase.filter.Filter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -117,11 +119,10 @@ public class SplitFullScanEntityReader<ENTITY extends TaggedLogAPIEntity> {
 			throw new IllegalArgumentException("Invalid entity name: " + comp.serviceName());
 		}
 		
-		// TODO: For now we don't support one query to query multiple partitions. In future 
-		// if partition is defined for the entity, internally We need to spawn multiple
-		// queries and send one query for each search condition for each partition
+		// partition constraints are validated by compiler, a query for multiple partitions
+		// scans each partition with its own filter and merges the results
 		final List<String[]> partitionValues = comp.getQueryPartitionValues();
-		partitionConstraintValidate(partitionValues, query);
+		final Map<List<String>, Filter> partitionFilters = comp.getQueryPartitionFilters();
 		
 		long lastTimestamp = Long.MAX_VALUE;
 		if (startRowkey != null) {
@@ -148,6 +149,7 @@ public class SplitFullScanEntityReader<ENTITY extends TaggedLogAPIEntity> {
 			condition.setQueryExpression(comp.getQueryExpression());
 			if (partitionValues != null) {
 				condition.setPartitionValues(Arrays.asList(partitionValues.get(0)));
+				condition.setPartitionFilters(partitionFilters);
 			}
 			// Should be careful to the startRowkey setting. Only set startRowkey when 
 			// lastTimestamp is within the slot time range.
@@ -171,25 +173,7 @@ public class SplitFullScanEntityReader<ENTITY extends TaggedLogAPIEntity> {
 		}
 		return readers;
 	}
-	
 
-	private static void partitionConstraintValidate(List<String[]> partitionValues, String query) {
-		if (partitionValues != null && partitionValues.size() > 1) {
-			final String[] values = partitionValues.get(0);
-			for (int i = 1; i < partitionValues.size(); ++i) {
-				final String[] tmpValues = partitionValues.get(i);
-				for (int j = 0; j < values.length; ++j) {
-					if (values[j] == null || (!values[j].equals(tmpValues[j]))) {
-						final String errMsg = "One query for multiple partitions is NOT allowed for now! Query: " + query;
-						LOG.error(errMsg);
-						throw new IllegalArgumentException(errMsg);
-					}
-				}
-			}
-		}
-	}
-	
-	
 	@SuppressWarnings("unchecked")
 	public static class EntityResultSet<ENTITY extends TaggedLogAPIEntity> {
 		private static final long DEFAULT_TIMEOUT_IN_MS = 1000;
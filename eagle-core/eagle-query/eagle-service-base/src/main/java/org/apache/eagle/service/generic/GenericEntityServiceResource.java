@@ -18,7 +18,11 @@ package org.apache.eagle.service.generic;
 
 import com.sun.jersey.core.header.FormDataContentDisposition;
 import com.sun.jersey.multipart.FormDataParam;
+import org.apache.eagle.common.EagleExceptionWrapper;
 import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.BinaryEntityFormat;
+import org.apache.eagle.log.entity.BinaryEntityReader;
+import org.apache.eagle.log.entity.BinaryEntityWriter;
 import org.apache.eagle.log.entity.GenericServiceAPIResponseEntity;
 import org.apache.eagle.log.entity.meta.EntityDefinition;
 import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
@@ -28,8 +32,10 @@ import org.apache.eagle.storage.exception.IllegalDataStorageException;
 import org.apache.eagle.storage.operation.*;
 import org.apache.eagle.storage.result.ModifyResult;
 import org.apache.eagle.storage.result.QueryResult;
+import org.apache.eagle.storage.result.QueryResultListener;
 import com.sun.jersey.api.json.JSONWithPadding;
 import org.apache.commons.lang.time.StopWatch;
+import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.map.type.TypeFactory;
 import org.slf4j.Logger;
@@ -38,8 +44,11 @@ import org.slf4j.LoggerFactory;
 import javax.ws.rs.*;
 import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -55,6 +64,7 @@ public class GenericEntityServiceResource {
     public final static String JSONP_PATH = "jsonp";
     public final static String DELETE_ENTITIES_PATH = "delete";
     public final static String ROWKEY_PATH = "rowkey";
+    public final static String STREAM_PATH = "stream";
 
     public final static String FIRST_TIMESTAMP = "firstTimestamp";
     public final static String LAST_TIMESTAMP = "lastTimestamp";
@@ -286,6 +296,74 @@ public class GenericEntityServiceResource {
         return response;
     }
 
+    /**
+     * Same as {@link #create(InputStream, String)}, but entities are written in {@link BinaryEntityFormat}
+     */
+    @POST
+    @Consumes(BinaryEntityFormat.MEDIA_TYPE)
+    @Produces(MediaType.APPLICATION_JSON)
+    public GenericServiceAPIResponseEntity createFromBinary(InputStream inputStream,
+                                                           @QueryParam("serviceName") String serviceName){
+        return modifyFromBinary(inputStream, serviceName, false);
+    }
+
+    /**
+     * Same as {@link #update(InputStream, String)}, but entities are written in {@link BinaryEntityFormat}
+     */
+    @PUT
+    @Consumes(BinaryEntityFormat.MEDIA_TYPE)
+    @Produces(MediaType.APPLICATION_JSON)
+    public GenericServiceAPIResponseEntity updateFromBinary(InputStream inputStream,
+                                                           @QueryParam("serviceName") String serviceName){
+        return modifyFromBinary(inputStream, serviceName, true);
+    }
+
+    private GenericServiceAPIResponseEntity modifyFromBinary(InputStream inputStream, String serviceName, boolean update){
+        GenericServiceAPIResponseEntity<String> response = new GenericServiceAPIResponseEntity<String>();
+        Map<String,Object> meta = new HashMap<>();
+        StopWatch stopWatch = new StopWatch();
+        try {
+            stopWatch.start();
+            EntityDefinition entityDefinition = EntityDefinitionManager.getEntityByServiceName(serviceName);
+
+            if(entityDefinition == null){
+                throw new IllegalArgumentException("entity definition of service "+serviceName+" not found");
+            }
+
+            BinaryEntityReader reader = new BinaryEntityReader(inputStream);
+            if(reader.getEntityDefinition() != null && reader.getEntityDefinition() != entityDefinition){
+                throw new IllegalArgumentException("entities of service "+reader.getEntityDefinition().getService()+" can not be written to service "+serviceName);
+            }
+            List<? extends TaggedLogAPIEntity> entities = reader.readAll();
+            DataStorage dataStorage = DataStorageManager.getDataStorageByEagleConfig();
+            Statement<ModifyResult<String>> statement;
+            if(update){
+                statement = new UpdateStatement(entities,entityDefinition);
+            }else{
+                statement = new CreateStatement(entities,entityDefinition);
+            }
+            ModifyResult<String> result = statement.execute(dataStorage);
+            if(result.isSuccess()) {
+                List<String> keys =result.getIdentifiers();
+                if(keys != null) {
+                    response.setObj(keys, String.class);
+                    meta.put(TOTAL_RESULTS,keys.size());
+                }else{
+                    meta.put(TOTAL_RESULTS,0);
+                }
+                meta.put(ELAPSEDMS,stopWatch.getTime());
+                response.setMeta(meta);
+                response.setSuccess(true);
+            }
+        } catch (Exception e) {
+            LOG.error(e.getMessage(), e);
+            response.setException(e);
+        } finally {
+            stopWatch.stop();
+        }
+        return response;
+    }
+
 
 
     /**
@@ -462,6 +540,164 @@ public class GenericEntityServiceResource {
         return response;
     }
 
+    /**
+     * Same as {@link #search(String, String, String, int, String, boolean, boolean, long, int, boolean, int, String, Boolean)},
+     * but entities are written into the response as they are scanned, with <code>success</code>, <code>exception</code>,
+     * <code>meta</code> and <code>type</code> after <code>obj</code>, see {@link StreamingQueryOutput}
+     */
+    @GET
+    @Path(STREAM_PATH)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response searchAsStream(@QueryParam("query") String query,
+                                   @QueryParam("startTime") String startTime, @QueryParam("endTime") String endTime,
+                                   @QueryParam("pageSize") int pageSize, @QueryParam("startRowkey") String startRowkey,
+                                   @QueryParam("treeAgg") boolean treeAgg, @QueryParam("timeSeries") boolean timeSeries,
+                                   @QueryParam("intervalmin") long intervalmin, @QueryParam("top") int top,
+                                   @QueryParam("filterIfMissing") boolean filterIfMissing,
+                                   @QueryParam("parallel") int parallel,
+                                   @QueryParam("metricName") String metricName,
+                                   @QueryParam("verbose") Boolean verbose){
+        RawQuery rawQuery = RawQuery.build()
+                .query(query)
+                .startTime(startTime)
+                .endTime(endTime)
+                .pageSize(pageSize)
+                .startRowkey(startRowkey)
+                .treeAgg(treeAgg)
+                .timeSeries(timeSeries)
+                .intervalMin(intervalmin)
+                .top(top)
+                .filerIfMissing(filterIfMissing)
+                .parallel(parallel)
+                .metricName(metricName)
+                .verbose(verbose)
+                .done();
+        final QueryStatement queryStatement = new QueryStatement(rawQuery);
+
+        return Response.ok(new StreamingQueryOutput() {
+            private QueryResult<?> result;
+
+            @Override
+            protected void execute() throws Exception {
+                DataStorage dataStorage = DataStorageManager.getDataStorageByEagleConfig();
+                if(dataStorage==null){
+                    LOG.error("Data storage is null");
+                    throw new IllegalDataStorageException("data storage is null");
+                }
+                result = queryStatement.executeAsStream(dataStorage, new QueryResultListener<Object>() {
+                    @Override
+                    public void resultCreated(Object entity) throws IOException {
+                        writeResult(entity);
+                    }
+                });
+            }
+
+            @Override
+            protected void writeTrailer(JsonGenerator generator, Exception failure, int totalResults, long elapsedms) throws IOException {
+                boolean success = failure == null && result != null && result.isSuccess();
+                generator.writeBooleanField("success", success);
+                if(failure != null){
+                    generator.writeStringField("exception", EagleExceptionWrapper.wrap(failure));
+                }
+                if(success){
+                    generator.writeObjectFieldStart("meta");
+                    if(result.getFirstTimestamp() != null) generator.writeNumberField(FIRST_TIMESTAMP, result.getFirstTimestamp());
+                    if(result.getLastTimestamp() != null) generator.writeNumberField(LAST_TIMESTAMP, result.getLastTimestamp());
+                    generator.writeNumberField(TOTAL_RESULTS, totalResults);
+                    generator.writeNumberField(ELAPSEDMS, elapsedms);
+                    generator.writeEndObject();
+                    if(result.getEntityType() != null){
+                        generator.writeStringField("type", result.getEntityType().getName());
+                    }
+                }
+            }
+        }).build();
+    }
+
+    /**
+     * Same as {@link #searchAsStream(String, String, String, int, String, boolean, boolean, long, int, boolean, int, String, Boolean)},
+     * but entities are written in {@link BinaryEntityFormat}, chosen by <code>Accept: application/x-eagle-entity</code>.
+     * The JSON response without entities follows them as trailer, it carries <code>obj</code> only if the query returns
+     * other results than entities, e.g. aggregations.
+     */
+    @GET
+    @Path(STREAM_PATH)
+    @Produces(BinaryEntityFormat.MEDIA_TYPE + ";qs=0.5")
+    public Response searchAsBinaryStream(@QueryParam("query") String query,
+                                         @QueryParam("startTime") String startTime, @QueryParam("endTime") String endTime,
+                                         @QueryParam("pageSize") int pageSize, @QueryParam("startRowkey") String startRowkey,
+                                         @QueryParam("treeAgg") boolean treeAgg, @QueryParam("timeSeries") boolean timeSeries,
+                                         @QueryParam("intervalmin") long intervalmin, @QueryParam("top") int top,
+                                         @QueryParam("filterIfMissing") boolean filterIfMissing,
+                                         @QueryParam("parallel") int parallel,
+                                         @QueryParam("metricName") String metricName,
+                                         @QueryParam("verbose") Boolean verbose){
+        RawQuery rawQuery = RawQuery.build()
+                .query(query)
+                .startTime(startTime)
+                .endTime(endTime)
+                .pageSize(pageSize)
+                .startRowkey(startRowkey)
+                .treeAgg(treeAgg)
+                .timeSeries(timeSeries)
+                .intervalMin(intervalmin)
+                .top(top)
+                .filerIfMissing(filterIfMissing)
+                .parallel(parallel)
+                .metricName(metricName)
+                .verbose(verbose)
+                .done();
+        final QueryStatement queryStatement = new QueryStatement(rawQuery);
+
+        return Response.ok(new StreamingOutput() {
+            @Override
+            public void write(OutputStream output) throws IOException {
+                StopWatch stopWatch = new StopWatch();
+                stopWatch.start();
+                final BinaryEntityWriter writer = new BinaryEntityWriter(output);
+                final List<Object> others = new LinkedList<>();
+                final int[] totalResults = {0};
+                GenericServiceAPIResponseEntity response = new GenericServiceAPIResponseEntity();
+                try {
+                    DataStorage dataStorage = DataStorageManager.getDataStorageByEagleConfig();
+                    if(dataStorage==null){
+                        LOG.error("Data storage is null");
+                        throw new IllegalDataStorageException("data storage is null");
+                    }
+                    QueryResult<?> result = queryStatement.executeAsStream(dataStorage, new QueryResultListener<Object>() {
+                        @Override
+                        public void resultCreated(Object entity) throws IOException {
+                            if(entity instanceof TaggedLogAPIEntity){
+                                writer.write((TaggedLogAPIEntity) entity);
+                            }else{
+                                others.add(entity);
+                            }
+                            totalResults[0]++;
+                        }
+                    });
+                    if(result.isSuccess()){
+                        Map<String,Object> meta = new HashMap<>();
+                        meta.put(FIRST_TIMESTAMP, result.getFirstTimestamp());
+                        meta.put(LAST_TIMESTAMP, result.getLastTimestamp());
+                        meta.put(TOTAL_RESULTS, totalResults[0]);
+                        meta.put(ELAPSEDMS, stopWatch.getTime());
+                        if(!others.isEmpty()) response.setObj(others);
+                        response.setType(result.getEntityType());
+                        response.setSuccess(true);
+                        response.setMeta(meta);
+                    }
+                } catch (Exception e) {
+                    LOG.error(e.getMessage(), e);
+                    response.setException(e);
+                } finally {
+                    stopWatch.stop();
+                }
+                writer.finish();
+                GenericObjectMapperProvider.getObjectMapper().writeValue(output, response);
+            }
+        }).build();
+    }
+
     /**
      *
      * @param query
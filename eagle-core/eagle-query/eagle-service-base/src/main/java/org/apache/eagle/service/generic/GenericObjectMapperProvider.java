@@ -33,6 +33,14 @@ public class GenericObjectMapperProvider implements ContextResolver<ObjectMapper
     public ObjectMapper getContext(Class<?> clazz) {
         return OBJECT_MAPPER;
     }
+
+    /**
+     * @return object mapper of JSON responses, for resources writing responses by themselves
+     */
+    public static ObjectMapper getObjectMapper(){
+        return OBJECT_MAPPER;
+    }
+
     public static void setFilter(FilterProvider filter){
         OBJECT_MAPPER.setFilters(filter);
     }
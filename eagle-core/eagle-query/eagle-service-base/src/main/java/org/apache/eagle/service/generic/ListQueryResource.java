@@ -21,6 +21,7 @@ import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
 import org.apache.eagle.log.entity.*;
 import org.apache.eagle.log.entity.meta.EntityDefinition;
 import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
+import org.apache.eagle.query.GenericEntityQuery;
 import org.apache.eagle.query.GenericQuery;
 import org.apache.eagle.query.ListQueryCompiler;
 import org.apache.eagle.service.common.EagleExceptionWrapper;
@@ -30,6 +31,7 @@ import com.sun.jersey.api.json.JSONWithPadding;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.time.StopWatch;
 import org.apache.eagle.query.aggregate.timeseries.*;
+import org.codehaus.jackson.JsonGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +41,8 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.io.IOException;
 import java.util.*;
 
 @Path("list")
@@ -89,84 +93,8 @@ public class ListQueryResource {
 		watch.start();
 		ListQueryAPIResponseEntity result = new ListQueryAPIResponseEntity();
 		try{
-			validateQueryParameters(startRowkey, pageSize);
-
-			// 1. Compile query to parse parameters and HBase Filter
-			ListQueryCompiler comp = new ListQueryCompiler(query, filterIfMissing);
-			String serviceName = comp.serviceName();
-			
-			SearchCondition condition = new SearchCondition();
-			condition.setOutputVerbose(verbose == null || verbose);
-			condition.setOutputAlias(comp.getOutputAlias());
-			condition.setFilter(comp.filter());
-			condition.setQueryExpression(comp.getQueryExpression());
-			if(comp.sortOptions() == null && top > 0) {
-				LOG.warn("Parameter \"top\" is only used for sort query! Ignore top parameter this time since it's not a sort query");
-			}
+			GenericQuery reader = buildQuery(query, startTime, endTime, pageSize, startRowkey, treeAgg, timeSeries, intervalmin, top, filterIfMissing, parallel, metricName, verbose);
 
-			// 2. Initialize partition values if set
-			// TODO: For now we don't support one query to query multiple partitions. In future 
-			// if partition is defined for the entity, internally We need to spawn multiple
-			// queries and send one query for each search condition for each partition
-			final List<String[]> partitionValues = comp.getQueryPartitionValues();
-			if (partitionValues != null) {
-				condition.setPartitionValues(Arrays.asList(partitionValues.get(0)));
-			}
-
-			// 3. Set time range if it's timeseries service
-			EntityDefinition ed = EntityDefinitionManager.getEntityByServiceName(serviceName);
-			if(ed.isTimeSeries()){
-				// TODO check timestamp exists for timeseries or topology data
-				condition.setStartTime(startTime);
-				condition.setEndTime(endTime);
-			}
-
-			// 4. Set HBase start scanning rowkey if given
-			condition.setStartRowkey(startRowkey);
-
-			// 5. Set page size
-			condition.setPageSize(pageSize);
-
-			// 6. Generate output,group-by,aggregated fields
-			List<String> outputFields = comp.outputFields();
-			List<String> groupbyFields = comp.groupbyFields();
-			List<String> aggregateFields = comp.aggregateFields();
-			Set<String> filterFields = comp.getFilterFields();
-
-			// Start to generate output fields list {
-			condition.setOutputAll(comp.isOutputAll());
-			if(outputFields == null) outputFields = new ArrayList<String>();
-			if(comp.hasAgg()){
-				if(groupbyFields != null) outputFields.addAll(groupbyFields);
-				if(aggregateFields != null) outputFields.addAll(aggregateFields);
-				if(GenericMetricEntity.GENERIC_METRIC_SERVICE.equals(serviceName) && !outputFields.contains(GenericMetricEntity.VALUE_FIELD)){
-					outputFields.add(GenericMetricEntity.VALUE_FIELD);
-				}
-			}
-			if(filterFields!=null) outputFields.addAll(filterFields);
-			condition.setOutputFields(outputFields);
-			if(comp.isOutputAll()){
-				LOG.info("Output fields: ALL");
-			}else{
-				LOG.info("Output fields: " + StringUtils.join(outputFields, ","));
-			}
-			// } END
-
-			// 7. Build GenericQuery
-			GenericQuery reader = GenericQueryBuilder
-									.select(outputFields)
-									.from(serviceName, metricName).where(condition)
-									.groupBy(
-											comp.hasAgg(),
-											groupbyFields,
-											comp.aggregateFunctionTypes(),
-											aggregateFields)
-									.timeSeries(timeSeries, intervalmin)
-									.treeAgg(treeAgg)
-									.orderBy(comp.sortOptions(),comp.sortFunctions(),comp.sortFields()).top(top)
-									.parallel(parallel)								
-									.build();
-			
 			// 8. Fill response object
 			List entities = reader.result();
 			result.setObj(entities);
@@ -187,6 +115,141 @@ public class ListQueryResource {
 		return result;
 	}
 	
+	/**
+	 * Same as {@link #listQuery(String, String, String, int, String, boolean, boolean, long, int, boolean, int, String, Boolean)},
+	 * but entities of list query are written into the response as they are scanned, with <code>success</code>,
+	 * <code>exception</code>, <code>totalResults</code>, <code>lastTimestamp</code> and <code>elapsedms</code> after
+	 * <code>obj</code>, see {@link StreamingQueryOutput}
+	 */
+	@GET
+	@Path("/stream")
+	@Produces({MediaType.APPLICATION_JSON})
+	public Response listQueryAsStream(@QueryParam("query") final String query,
+			@QueryParam("startTime") final String startTime, @QueryParam("endTime") final String endTime,
+			@QueryParam("pageSize") final int pageSize, @QueryParam("startRowkey") final String startRowkey,
+			@QueryParam("treeAgg") final boolean treeAgg, @QueryParam("timeSeries") final boolean timeSeries,
+			@QueryParam("intervalmin") final long intervalmin, @QueryParam("top") final int top,
+			@QueryParam("filterIfMissing") final boolean filterIfMissing,
+			@QueryParam("parallel") final int parallel,
+			@QueryParam("metricName") final String metricName,
+			@QueryParam("verbose") final Boolean verbose) {
+		return Response.ok(new StreamingQueryOutput() {
+			private GenericQuery reader;
+
+			@Override
+			protected void execute() throws Exception {
+				reader = buildQuery(query, startTime, endTime, pageSize, startRowkey, treeAgg, timeSeries, intervalmin, top, filterIfMissing, parallel, metricName, verbose);
+				if(reader instanceof GenericEntityQuery){
+					((GenericEntityQuery) reader).readAsStream(new EntityCreationListener() {
+						@Override
+						public void entityCreated(TaggedLogAPIEntity entity) throws Exception {
+							writeResult(entity);
+						}
+					});
+				}else{
+					// aggregated results are bounded by groups
+					for(Object obj : reader.result()){
+						writeResult(obj);
+					}
+				}
+			}
+
+			@Override
+			protected void writeTrailer(JsonGenerator generator, Exception failure, int totalResults, long elapsedms) throws IOException {
+				generator.writeBooleanField("success", failure == null);
+				if(failure != null){
+					generator.writeStringField("exception", EagleExceptionWrapper.wrap(failure));
+				}
+				generator.writeNumberField("totalResults", totalResults);
+				generator.writeNumberField("elapsedms", elapsedms);
+				generator.writeNumberField("lastTimestamp", (failure == null && reader != null) ? reader.getLastTimestamp() : 0);
+				LOG.info("Streaming query done " + elapsedms + " ms");
+			}
+		}).build();
+	}
+
+	private GenericQuery buildQuery(String query, String startTime, String endTime, int pageSize, String startRowkey,
+									boolean treeAgg, boolean timeSeries, long intervalmin, int top, boolean filterIfMissing,
+									int parallel, String metricName, Boolean verbose) throws Exception {
+		validateQueryParameters(startRowkey, pageSize);
+
+		// 1. Compile query to parse parameters and HBase Filter
+		ListQueryCompiler comp = new ListQueryCompiler(query, filterIfMissing);
+		String serviceName = comp.serviceName();
+		
+		SearchCondition condition = new SearchCondition();
+		condition.setOutputVerbose(verbose == null || verbose);
+		condition.setOutputAlias(comp.getOutputAlias());
+		condition.setFilter(comp.filter());
+		condition.setQueryExpression(comp.getQueryExpression());
+		if(comp.sortOptions() == null && top > 0) {
+			LOG.warn("Parameter \"top\" is only used for sort query! Ignore top parameter this time since it's not a sort query");
+		}
+
+		// 2. Initialize partition values if set, a query for multiple partitions
+		// scans each partition with its own filter and merges the results
+		final List<String[]> partitionValues = comp.getQueryPartitionValues();
+		if (partitionValues != null) {
+			condition.setPartitionValues(Arrays.asList(partitionValues.get(0)));
+			condition.setPartitionFilters(comp.getQueryPartitionFilters());
+		}
+
+		// 3. Set time range if it's timeseries service
+		EntityDefinition ed = EntityDefinitionManager.getEntityByServiceName(serviceName);
+		if(ed.isTimeSeries()){
+			// TODO check timestamp exists for timeseries or topology data
+			condition.setStartTime(startTime);
+			condition.setEndTime(endTime);
+		}
+
+		// 4. Set HBase start scanning rowkey if given
+		condition.setStartRowkey(startRowkey);
+
+		// 5. Set page size
+		condition.setPageSize(pageSize);
+
+		// 6. Generate output,group-by,aggregated fields
+		List<String> outputFields = comp.outputFields();
+		List<String> groupbyFields = comp.groupbyFields();
+		List<String> aggregateFields = comp.aggregateFields();
+		Set<String> filterFields = comp.getFilterFields();
+
+		// Start to generate output fields list {
+		condition.setOutputAll(comp.isOutputAll());
+		if(outputFields == null) outputFields = new ArrayList<String>();
+		if(comp.hasAgg()){
+			if(groupbyFields != null) outputFields.addAll(groupbyFields);
+			if(aggregateFields != null) outputFields.addAll(aggregateFields);
+			if(GenericMetricEntity.GENERIC_METRIC_SERVICE.equals(serviceName) && !outputFields.contains(GenericMetricEntity.VALUE_FIELD)){
+				outputFields.add(GenericMetricEntity.VALUE_FIELD);
+			}
+		}
+		if(filterFields!=null) outputFields.addAll(filterFields);
+		condition.setOutputFields(outputFields);
+		if(comp.isOutputAll()){
+			LOG.info("Output fields: ALL");
+		}else{
+			LOG.info("Output fields: " + StringUtils.join(outputFields, ","));
+		}
+		// } END
+
+		// 7. Build GenericQuery
+		GenericQuery reader = GenericQueryBuilder
+								.select(outputFields)
+								.from(serviceName, metricName).where(condition)
+								.groupBy(
+										comp.hasAgg(),
+										groupbyFields,
+										comp.aggregateFunctionTypes(),
+										aggregateFields)
+								.timeSeries(timeSeries, intervalmin)
+								.treeAgg(treeAgg)
+								.orderBy(comp.sortOptions(),comp.sortFunctions(),comp.sortFields()).top(top)
+								.parallel(parallel)								
+								.build();
+		return reader;
+	}
+
 	/**
 	 * <b>TODO</b> remove the legacy deprecated implementation of listQueryWithoutCoprocessor
 	 *
@@ -230,12 +293,10 @@ public class ListQueryResource {
 				LOG.warn("Parameter \"top\" is only used for sort query! Ignore top parameter this time since it's not a sort query");
 			}
 
-			// TODO: For now we don't support one query to query multiple partitions. In future
-			// if partition is defined for the entity, internally We need to spawn multiple
-			// queries and send one query for each search condition for each partition
 			final List<String[]> partitionValues = comp.getQueryPartitionValues();
 			if (partitionValues != null) {
 				condition.setPartitionValues(Arrays.asList(partitionValues.get(0)));
+				condition.setPartitionFilters(comp.getQueryPartitionFilters());
 			}
 			EntityDefinition ed = EntityDefinitionManager.getEntityByServiceName(serviceName);
 			if(ed.isTimeSeries()){
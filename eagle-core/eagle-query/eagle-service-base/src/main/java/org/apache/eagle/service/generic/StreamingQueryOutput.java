@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.service.generic;
+
+import org.apache.commons.lang.time.StopWatch;
+import org.codehaus.jackson.JsonEncoding;
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.map.SerializationConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * JSON response of a query which is written while the query is being read.
+ *
+ * <p>Results are serialized into the <code>obj</code> array one by one by the request thread as the query produces them,
+ * so the service only buffers what the generator and the servlet container buffer, regardless of the result size, and
+ * a slow client slows down the scan instead of piling up results. As meta data like total results and timestamps are
+ * only known at the end, they are written as trailer fields after <code>obj</code>, together with the failure if the
+ * query fails half way, clients should not rely on the order of fields.</p>
+ */
+public abstract class StreamingQueryOutput implements StreamingOutput {
+    private final static Logger LOG = LoggerFactory.getLogger(StreamingQueryOutput.class);
+    public final static String OBJ_FIELD = "obj";
+
+    private final ObjectMapper objectMapper = GenericObjectMapperProvider.getObjectMapper();
+    // let the generator and the container decide when to send a chunk instead of flushing every result
+    private final SerializationConfig serializationConfig = objectMapper.getSerializationConfig().without(SerializationConfig.Feature.FLUSH_AFTER_WRITE_VALUE);
+    private JsonGenerator generator;
+    private int totalResults = 0;
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        StopWatch watch = new StopWatch();
+        watch.start();
+        generator = objectMapper.getJsonFactory().createJsonGenerator(output, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.writeStartObject();
+        generator.writeArrayFieldStart(OBJ_FIELD);
+        Exception failure = null;
+        try {
+            execute();
+        } catch (Exception ex) {
+            LOG.error("Fail executing streaming query", ex);
+            failure = ex;
+        }
+        generator.writeEndArray();
+        watch.stop();
+        writeTrailer(generator, failure, totalResults, watch.getTime());
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    /**
+     * Serialize one result into the <code>obj</code> array
+     */
+    @SuppressWarnings("deprecation")
+    protected void writeResult(Object result) throws IOException {
+        objectMapper.writeValue(generator, result, serializationConfig);
+        totalResults++;
+    }
+
+    /**
+     * Execute the query and call {@link #writeResult(Object)} for each result
+     */
+    protected abstract void execute() throws Exception;
+
+    /**
+     * Write meta fields after the <code>obj</code> array
+     *
+     * @param failure exception of the query, or null if succeeded
+     * @param totalResults number of results written
+     * @param elapsedms time taken by executing and writing the query
+     */
+    protected abstract void writeTrailer(JsonGenerator generator, Exception failure, int totalResults, long elapsedms) throws IOException;
+}
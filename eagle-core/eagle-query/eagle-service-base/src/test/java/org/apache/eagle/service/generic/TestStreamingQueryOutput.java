@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.service.generic;
+
+import org.codehaus.jackson.JsonGenerator;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+public class TestStreamingQueryOutput {
+
+	private static class TestOutput extends StreamingQueryOutput {
+		private final int count;
+		private final boolean fail;
+
+		TestOutput(int count, boolean fail) {
+			this.count = count;
+			this.fail = fail;
+		}
+
+		@Override
+		protected void execute() throws Exception {
+			for (int i = 0; i < count; i++) {
+				writeResult(Collections.singletonMap("value", i));
+			}
+			if (fail) throw new IOException("scan failure");
+		}
+
+		@Override
+		protected void writeTrailer(JsonGenerator generator, Exception failure, int totalResults, long elapsedms) throws IOException {
+			generator.writeBooleanField("success", failure == null);
+			if (failure != null) generator.writeStringField("exception", failure.getMessage());
+			generator.writeNumberField("totalResults", totalResults);
+		}
+	}
+
+	private static JsonNode write(StreamingQueryOutput output) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		output.write(bytes);
+		return new ObjectMapper().readTree(bytes.toByteArray());
+	}
+
+	@Test
+	public void testResultsAndTrailer() throws IOException {
+		JsonNode response = write(new TestOutput(3, false));
+		Assert.assertEquals(3, response.get(StreamingQueryOutput.OBJ_FIELD).size());
+		Assert.assertEquals(2, response.get(StreamingQueryOutput.OBJ_FIELD).get(2).get("value").getIntValue());
+		Assert.assertTrue(response.get("success").getBooleanValue());
+		Assert.assertEquals(3, response.get("totalResults").getIntValue());
+	}
+
+	@Test
+	public void testFailureAfterResults() throws IOException {
+		JsonNode response = write(new TestOutput(2, true));
+		// still a complete document, with results written before the failure
+		Assert.assertEquals(2, response.get(StreamingQueryOutput.OBJ_FIELD).size());
+		Assert.assertFalse(response.get("success").getBooleanValue());
+		Assert.assertEquals("scan failure", response.get("exception").getTextValue());
+		Assert.assertEquals(2, response.get("totalResults").getIntValue());
+	}
+}
@@ -208,6 +208,7 @@ public class CompiledQuery {
         final List<String[]> partitionValues = compiler.getQueryPartitionValues();
         if (partitionValues != null) {
             this.searchCondition.setPartitionValues(Arrays.asList(partitionValues.get(0)));
+            this.searchCondition.setPartitionFilters(compiler.getQueryPartitionFilters());
         }
 
         // 3. Set time range if it's timeseries service
@@ -21,6 +21,7 @@ import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
 import org.apache.eagle.storage.DataStorage;
 import org.apache.eagle.storage.exception.QueryCompileException;
 import org.apache.eagle.storage.result.QueryResult;
+import org.apache.eagle.storage.result.QueryResultListener;
 
 import java.io.IOException;
 
@@ -36,15 +37,32 @@ public class QueryStatement implements Statement<QueryResult<?>>{
 
     @Override
     public QueryResult<?> execute(DataStorage dataStorage) throws IOException {
-        CompiledQuery compiledQuery;
+        CompiledQuery compiledQuery = compile(dataStorage);
+        return dataStorage.query(compiledQuery, getEntityDefinition(compiledQuery));
+    }
+
+    /**
+     * Execute as {@link #execute(DataStorage)}, but notify the listener of each result instead of returning them
+     *
+     * @see DataStorage#queryAsStream(CompiledQuery, EntityDefinition, QueryResultListener)
+     */
+    @SuppressWarnings("unchecked")
+    public QueryResult<?> executeAsStream(DataStorage dataStorage, QueryResultListener<?> listener) throws IOException {
+        CompiledQuery compiledQuery = compile(dataStorage);
+        return dataStorage.queryAsStream(compiledQuery, getEntityDefinition(compiledQuery), listener);
+    }
+
+    private CompiledQuery compile(DataStorage dataStorage) throws IOException {
         try {
-            compiledQuery = dataStorage.compile(this.query);
+            return dataStorage.compile(this.query);
         } catch (QueryCompileException e) {
             throw new IOException(e);
         }
+    }
+
+    private static EntityDefinition getEntityDefinition(CompiledQuery compiledQuery) throws IOException {
         try {
-            EntityDefinition entityDefinition = EntityDefinitionManager.getEntityByServiceName(compiledQuery.getServiceName());
-            return dataStorage.query(compiledQuery, entityDefinition);
+            return EntityDefinitionManager.getEntityByServiceName(compiledQuery.getServiceName());
         } catch (InstantiationException | IllegalAccessException e) {
             throw new IOException(e);
         }
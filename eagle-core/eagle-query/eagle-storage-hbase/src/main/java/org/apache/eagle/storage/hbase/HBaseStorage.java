@@ -17,18 +17,21 @@
 package org.apache.eagle.storage.hbase;
 
 import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.log.entity.EntityCreationListener;
 import org.apache.eagle.log.entity.GenericEntityWriter;
 import org.apache.eagle.log.entity.HBaseInternalLogHelper;
 import org.apache.eagle.log.entity.InternalLog;
 import org.apache.eagle.log.entity.index.RowKeyLogReader;
 import org.apache.eagle.log.entity.meta.EntityDefinition;
 import org.apache.eagle.log.entity.old.GenericDeleter;
+import org.apache.eagle.query.GenericEntityQuery;
 import org.apache.eagle.query.GenericQuery;
 import org.apache.eagle.storage.DataStorageBase;
 import org.apache.eagle.storage.hbase.query.GenericQueryBuilder;
 import org.apache.eagle.storage.operation.CompiledQuery;
 import org.apache.eagle.storage.result.ModifyResult;
 import org.apache.eagle.storage.result.QueryResult;
+import org.apache.eagle.storage.result.QueryResultListener;
 import org.apache.eagle.common.EagleBase64Wrapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -187,16 +190,7 @@ public class HBaseStorage extends DataStorageBase {
     public <E extends Object> QueryResult<E> query(CompiledQuery query, EntityDefinition entityDefinition) throws IOException {
         QueryResult<E> result = new QueryResult<E>();
         try {
-            GenericQuery reader = GenericQueryBuilder
-                    .select(query.getSearchCondition().getOutputFields())
-                    .from(query.getServiceName(),query.getRawQuery().getMetricName()).where(query.getSearchCondition())
-                    .groupBy(query.isHasAgg(), query.getGroupByFields(), query.getAggregateFunctionTypes(), query.getAggregateFields())
-                    .timeSeries(query.getRawQuery().isTimeSeries(),query.getRawQuery().getIntervalmin())
-                    .treeAgg(query.getRawQuery().isTreeAgg())
-                    .orderBy(query.getSortOptions(),query.getSortFunctions(),query.getSortFields())
-                    .top(query.getRawQuery().getTop())
-                    .parallel(query.getRawQuery().getParallel())
-                    .build();
+            GenericQuery reader = buildQuery(query);
             List<E> entities =  reader.result();
             result.setData(entities);
             result.setFirstTimestamp(reader.getFirstTimeStamp());
@@ -211,6 +205,53 @@ public class HBaseStorage extends DataStorageBase {
         return result;
     }
 
+    /**
+     * Entities of list query are notified as they are scanned, aggregate query results are notified after aggregation
+     *
+     * @see DataStorageBase#queryAsStream(CompiledQuery, EntityDefinition, QueryResultListener)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <E extends Object> QueryResult<E> queryAsStream(CompiledQuery query, EntityDefinition entityDefinition, final QueryResultListener<E> listener) throws IOException {
+        if(query.isHasAgg()){
+            return super.queryAsStream(query, entityDefinition, listener);
+        }
+        QueryResult<E> result = new QueryResult<E>();
+        try {
+            GenericEntityQuery reader = (GenericEntityQuery) buildQuery(query);
+            final int[] size = {0};
+            reader.readAsStream(new EntityCreationListener() {
+                @Override
+                public void entityCreated(TaggedLogAPIEntity entity) throws Exception {
+                    listener.resultCreated((E) entity);
+                    size[0]++;
+                }
+            });
+            result.setFirstTimestamp(reader.getFirstTimeStamp());
+            result.setLastTimestamp(reader.getLastTimestamp());
+            result.setSize(size[0]);
+            result.setEntityType((Class<E>) entityDefinition.getEntityClass());
+            result.setSuccess(true);
+        } catch (Exception e) {
+            LOG.error(e.getMessage(),e);
+            throw new IOException(e);
+        }
+        return result;
+    }
+
+    private GenericQuery buildQuery(CompiledQuery query) throws Exception {
+        return GenericQueryBuilder
+                .select(query.getSearchCondition().getOutputFields())
+                .from(query.getServiceName(),query.getRawQuery().getMetricName()).where(query.getSearchCondition())
+                .groupBy(query.isHasAgg(), query.getGroupByFields(), query.getAggregateFunctionTypes(), query.getAggregateFields())
+                .timeSeries(query.getRawQuery().isTimeSeries(),query.getRawQuery().getIntervalmin())
+                .treeAgg(query.getRawQuery().isTreeAgg())
+                .orderBy(query.getSortOptions(),query.getSortFunctions(),query.getSortFields())
+                .top(query.getRawQuery().getTop())
+                .parallel(query.getRawQuery().getParallel())
+                .build();
+    }
+
     /**
      * Query by HBase rowkey
      *
@@ -16,8 +16,10 @@
  */
 package org.apache.eagle.storage.hbase.query.aggregate;
 
+import org.apache.eagle.common.config.EagleConfigFactory;
 import org.apache.eagle.log.entity.GenericMetricEntity;
 import org.apache.eagle.log.entity.HBaseInternalLogHelper;
+import org.apache.eagle.log.entity.MultiPartitionLogReader;
 import org.apache.eagle.log.entity.SearchCondition;
 import org.apache.eagle.log.entity.meta.EntityConstants;
 import org.apache.eagle.log.entity.meta.EntityDefinition;
@@ -44,6 +46,10 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * AggregateQuery
@@ -175,7 +181,7 @@ public class GenericAggregateQuery implements GenericQuery {
 	 *
  	 */
 	@Override
-	@SuppressWarnings("raw")
+	@SuppressWarnings("rawtypes")
 	public List result() throws Exception {
 		Date start = null;
 		Date end = null;
@@ -193,13 +199,16 @@ public class GenericAggregateQuery implements GenericQuery {
 		}
 		// Generate the output qualifiers
 		final byte[][] outputQualifiers = HBaseInternalLogHelper.getOutputQualifiers(entityDef, searchCondition.getOutputFields());
+		if(searchCondition.isMultiPartition()){
+			return multiPartitionResult(start, end, outputQualifiers);
+		}
 		GenericAggregateReader reader = new GenericAggregateReader(entityDef,
 				searchCondition.getPartitionValues(),
 				start, end, searchCondition.getFilter(), searchCondition.getStartRowkey(), outputQualifiers, this.prefix,this.aggregateCondition);
 		try{
 			if(LOG.isDebugEnabled()) LOG.debug("open and read group aggregate reader");
 			reader.open();
-			List result = buildGroupAggregateQueryReader(reader,this.aggregateCondition.isTimeSeries()).result();
+			List result = buildGroupAggregateQueryReader(reader.read(),this.aggregateCondition.isTimeSeries()).result();
 			if(result == null) throw new IOException("result is null");
 			this.firstTimestamp = reader.getFirstTimestamp();
 			this.lastTimestamp = reader.getLastTimestamp();
@@ -216,6 +225,71 @@ public class GenericAggregateQuery implements GenericQuery {
 		}
 	}
 
+	/**
+	 * Aggregate each partition with its own filter concurrently on coprocessor, then merge the partial aggregates
+	 */
+	@SuppressWarnings("rawtypes")
+	private List multiPartitionResult(Date start, Date end, byte[][] outputQualifiers) throws Exception {
+		final List<SearchCondition> partitionConditions = searchCondition.splitByPartition();
+		byte[][] scanStartRowkeys = null;
+		if(searchCondition.getStartRowkey() != null){
+			scanStartRowkeys = MultiPartitionLogReader.buildScanStartRowkeys(new ArrayList<List<String>>(searchCondition.getPartitionFilters().keySet()), searchCondition.getStartRowkey());
+		}
+		final List<GenericAggregateReader> readers = new ArrayList<GenericAggregateReader>(partitionConditions.size());
+		final List<FutureTask<AggregateResult>> tasks = new ArrayList<FutureTask<AggregateResult>>(partitionConditions.size());
+		for(int i = 0; i < partitionConditions.size(); i++){
+			final SearchCondition sc = partitionConditions.get(i);
+			final GenericAggregateReader reader = new GenericAggregateReader(entityDef,
+					sc.getPartitionValues(),
+					start, end, sc.getFilter(), null, outputQualifiers, this.prefix,this.aggregateCondition);
+			if(scanStartRowkeys != null){
+				reader.setScanStartRowkey(scanStartRowkeys[i]);
+			}
+			readers.add(reader);
+			FutureTask<AggregateResult> task = new FutureTask<AggregateResult>(new Callable<AggregateResult>() {
+				@Override
+				public AggregateResult call() throws Exception {
+					reader.open();
+					return reader.getResult();
+				}
+			});
+			tasks.add(task);
+			try {
+				EagleConfigFactory.load().getExecutor().execute(task);
+			}catch (RejectedExecutionException ex){
+				// run by current thread below
+			}
+		}
+		final AggregateResultCallbackImpl callback = new AggregateResultCallbackImpl(this.aggregateCondition.getAggregateFunctionTypes());
+		Exception error = null;
+		try{
+			for(FutureTask<AggregateResult> task : tasks){
+				// no-op if the task is already picked up by executor
+				task.run();
+				try{
+					AggregateResult result = task.get();
+					if(error == null) callback.merge(result);
+				}catch (ExecutionException ex){
+					if(error == null) error = ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+				}
+			}
+		}finally{
+			for(GenericAggregateReader reader : readers){
+				reader.close();
+			}
+		}
+		if(error != null){
+			LOG.error("Fail reading aggregated results", error);
+			throw error;
+		}
+		AggregateResult merged = callback.result();
+		List result = buildGroupAggregateQueryReader(merged.getKeyValues(),this.aggregateCondition.isTimeSeries()).result();
+		this.firstTimestamp = merged.getStartTimestamp();
+		this.lastTimestamp = merged.getStopTimestamp();
+		if(LOG.isDebugEnabled()) LOG.debug("finish read aggregated " + result.size() + " rows of " + readers.size() + " partitions");
+		return result;
+	}
+
 	///////////////////////////////////////////////////////////
 	// GroupAggregateQueryReader(GroupAggregateLogReader)
 	// 	|_ FlatGroupAggregateQueryReader
@@ -229,25 +303,25 @@ public class GenericAggregateQuery implements GenericQuery {
 	 * |_ {@link FlatGroupAggregateQueryReader}
 	 * |_ {@link TimeSeriesGroupAggregateQueryReader}
 	 * </pre>
-	 * @param reader
+	 * @param keyValues aggregated key values
 	 * @param isTimeSeries
 	 * @return
 	 * @throws IOException
 	 */
-	private  GroupAggregateQueryReader  buildGroupAggregateQueryReader(GenericAggregateReader reader,boolean isTimeSeries) throws IOException{
+	private  GroupAggregateQueryReader  buildGroupAggregateQueryReader(List<GroupbyKeyValue> keyValues,boolean isTimeSeries) throws IOException{
 		if(isTimeSeries){
-			return new TimeSeriesGroupAggregateQueryReader(reader,this);
+			return new TimeSeriesGroupAggregateQueryReader(keyValues,this);
 		}else{
-			return new FlatGroupAggregateQueryReader(reader,this);
+			return new FlatGroupAggregateQueryReader(keyValues,this);
 		}
 	}
 
 	private abstract class GroupAggregateQueryReader {
-		protected final GenericAggregateReader reader;
+		protected final List<GroupbyKeyValue> keyValues;
 		protected final GenericAggregateQuery query;
 
-		public GroupAggregateQueryReader(GenericAggregateReader reader, GenericAggregateQuery query){
-			this.reader = reader;
+		public GroupAggregateQueryReader(List<GroupbyKeyValue> keyValues, GenericAggregateQuery query){
+			this.keyValues = keyValues;
 			this.query = query;
 		}
 		public abstract <T> List<T> result() throws Exception;
@@ -274,12 +348,12 @@ public class GenericAggregateQuery implements GenericQuery {
 	}
 
 	private class FlatGroupAggregateQueryReader extends GroupAggregateQueryReader{
-		public FlatGroupAggregateQueryReader(GenericAggregateReader reader, GenericAggregateQuery query) {
-			super(reader,query);
+		public FlatGroupAggregateQueryReader(List<GroupbyKeyValue> keyValues, GenericAggregateQuery query) {
+			super(keyValues,query);
 		}
 		@Override
 		public List<Map.Entry<List<String>, List<Double>>> result() throws Exception {
-			Map<List<String>, List<Double>> aggResultMap = this.keyValuesToMap(this.reader.read());
+			Map<List<String>, List<Double>> aggResultMap = this.keyValuesToMap(this.keyValues);
 			if(this.query.sortOptions == null)
 				return new ArrayList<Map.Entry<List<String>, List<Double>>>(aggResultMap.entrySet());
 			if(LOG.isDebugEnabled()) LOG.debug("Flat sorting");
@@ -296,8 +370,8 @@ public class GenericAggregateQuery implements GenericQuery {
 		private final List<AggregateFunctionType> sortFuncs;
 		private final int sortAggFuncNum;
 
-		public TimeSeriesGroupAggregateQueryReader(GenericAggregateReader reader, GenericAggregateQuery query) throws IOException {
-			super(reader,query);
+		public TimeSeriesGroupAggregateQueryReader(List<GroupbyKeyValue> keyValues, GenericAggregateQuery query) throws IOException {
+			super(keyValues,query);
 			try {
 				if(entityDef.isTimeSeries()){
 						this.start = DateTimeUtil.humanDateToDate(searchCondition.getStartTime());
@@ -338,7 +412,7 @@ public class GenericAggregateQuery implements GenericQuery {
 		 */
 		@Override
 		public List<Map.Entry<List<String>, List<double[]>>> result() throws Exception {
-			List<GroupbyKeyValue> result = this.reader.read();
+			List<GroupbyKeyValue> result = this.keyValues;
 
 			// aggregated data points only
 			Map<List<String>,List<double[]>> timeseriesDataPoints = convertToTimeSeriesDataPoints(result);
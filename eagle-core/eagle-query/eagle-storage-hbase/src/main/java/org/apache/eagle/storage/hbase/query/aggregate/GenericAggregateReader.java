@@ -121,6 +121,13 @@ public class GenericAggregateReader extends AbstractHBaseLogReader<List<GroupbyK
 		return this.result.getKeyValues();
 	}
 
+	/**
+	 * @return aggregated result of the scan, available after {@link #open()}
+	 */
+	public AggregateResult getResult() {
+		return this.result;
+	}
+
 	public long getFirstTimestamp() {
 		return this.result.getStartTimestamp();
 	}
@@ -18,11 +18,13 @@ package org.apache.eagle.storage.hbase.query.coprocessor;
 
 import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
 import org.apache.eagle.log.entity.*;
+import org.apache.eagle.log.entity.meta.EntityCodec;
 import org.apache.eagle.log.entity.meta.EntityDefinition;
-import org.apache.eagle.log.entity.meta.Qualifier;
+import org.apache.eagle.log.entity.meta.QualifierIndex;
 import org.apache.eagle.query.aggregate.AggregateFunctionType;
 import org.apache.eagle.query.aggregate.raw.GroupbyKeyValue;
 import org.apache.eagle.query.aggregate.raw.RawAggregator;
+import org.apache.eagle.query.aggregate.timeseries.CellTimeSeriesAggregator;
 import org.apache.eagle.query.aggregate.timeseries.TimeSeriesAggregator;
 import org.apache.eagle.storage.hbase.query.coprocessor.generated.AggregateProtos;
 import org.apache.eagle.common.DateTimeUtil;
@@ -30,6 +32,7 @@ import com.google.protobuf.RpcCallback;
 import com.google.protobuf.RpcController;
 import com.google.protobuf.Service;
 import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.Coprocessor;
 import org.apache.hadoop.hbase.CoprocessorEnvironment;
 import org.apache.hadoop.hbase.client.Scan;
@@ -155,9 +158,10 @@ public class AggregateProtocolEndPoint extends AggregateProtos.AggregateProtocol
 		try{
 			boolean hasMoreRows;
 			GenericMetricShadowEntity singleMetricEntity = null;
+			// resolved lazily on first row and reused across the whole scan
+			EntityCodec codec = null;
 			do{
 				hasMoreRows = scanner.next(results);
-				Map<String, byte[]> kvMap = new HashMap<String, byte[]>();
 				if(!results.isEmpty()){
 					counter ++;
 					byte[] row = results.get(0).getRow();
@@ -173,26 +177,15 @@ public class AggregateProtocolEndPoint extends AggregateProtos.AggregateProtocol
 						stopTimestamp = timestamp;
 					}
 					
-					for(Cell kv:results){
-						String qualifierName = Bytes.toString(kv.getQualifier());
-//						Qualifier qualifier = null;
-//						if(!ed.isTag(qualifierName)){
-//							qualifier = ed.getQualifierNameMap().get(qualifierName);
-//							if(qualifier == null){
-//								LOG.error("qualifier for   " + qualifierName + " not exist");
-//								throw new NullPointerException("qualifier for field "+qualifierName+" not exist");
-//							}
-//						}
-						if(kv.getValue()!=null) kvMap.put(qualifierName ,kv.getValue());
-					}
-					
-					// LOG.info("DEBUG: timestamp="+timestamp+", keys=["+StringUtils.join(kvMap.keySet(),",")+"]");
-					
-					InternalLog internalLog = HBaseInternalLogHelper.buildObject(ed, row, timestamp, kvMap);
+					// qualifiers are resolved over cell backing arrays and only decoded when read
+					CellRowView rowView = new CellRowView(ed, row, results);
+
+					InternalLog internalLog = HBaseInternalLogHelper.buildObject(ed, row, timestamp, rowView);
 					if(internalLog!=null){
 						TaggedLogAPIEntity logAPIEntity = null;
 						try {
-							logAPIEntity = HBaseInternalLogHelper.buildEntity(internalLog, ed);
+							if(codec == null) codec = EntityCodec.getInstance(ed);
+							logAPIEntity = HBaseInternalLogHelper.buildEntity(internalLog, codec);
 							if(logAPIEntity instanceof GenericMetricEntity){
 								if(singleMetricEntity == null) singleMetricEntity = new GenericMetricShadowEntity();
 								GenericMetricEntity e = (GenericMetricEntity)logAPIEntity;
@@ -224,7 +217,7 @@ public class AggregateProtocolEndPoint extends AggregateProtos.AggregateProtocol
 							throw new IOException(e);
 						}
 					}else{
-						LOG.error("Got null to parse internal log for row: " + row.length + " with fields: " + kvMap);
+						LOG.error("Got null to parse internal log for row: " + row.length + " with fields: " + rowView.getAllValues().keySet());
 					}
 					results.clear();
 				}else{
@@ -242,6 +235,54 @@ public class AggregateProtocolEndPoint extends AggregateProtos.AggregateProtocol
 		return new InternalReadReport(counter,startTimestamp,stopTimestamp);
 	}
 
+	/**
+	 * Asynchronous HBase scan read as cells, qualifiers are folded into the aggregator without building entities
+	 *
+	 * @param scan
+	 * @param aggregator
+	 * @throws java.io.IOException
+	 */
+	protected InternalReadReport asyncStreamRead(EntityDefinition ed, Scan scan, CellTimeSeriesAggregator aggregator) throws IOException {
+		long counter = 0;
+		long startTimestamp = 0;
+		long stopTimestamp = 0;
+		InternalScanner scanner = this.getCurrentRegion().getScanner(scan);
+		List<Cell> results = new ArrayList<Cell>();
+		try{
+			boolean hasMoreRows;
+			do{
+				hasMoreRows = scanner.next(results);
+				if(!results.isEmpty()){
+					counter ++;
+					byte[] row = results.get(0).getRow();
+					long timestamp = RowkeyBuilder.getTimestamp(row, ed);
+					// Min
+					if(startTimestamp == 0 || startTimestamp > timestamp ){
+						startTimestamp = timestamp;
+					}
+					// Max
+					if(stopTimestamp == 0 || stopTimestamp < timestamp ){
+						stopTimestamp = timestamp;
+					}
+					aggregator.accumulate(new CellRowView(ed, row, results), timestamp);
+					results.clear();
+				}else{
+					if(LOG.isDebugEnabled()) LOG.warn("Empty batch of KeyValue");
+				}
+			} while(hasMoreRows);
+		}catch(IOException ex){
+			LOG.error(ex.getMessage(),ex);
+			throw ex;
+		} finally {
+            if(scanner != null) {
+                scanner.close();
+            }
+		}
+		// metric datapoints may be later than row timestamp
+		if(aggregator.getStopTimestamp() > stopTimestamp) stopTimestamp = aggregator.getStopTimestamp();
+		return new InternalReadReport(counter,startTimestamp,stopTimestamp);
+	}
+
 	/**
 	 * Asynchronous HBase scan read as RAW qualifier
 	 *
@@ -256,6 +297,7 @@ public class AggregateProtocolEndPoint extends AggregateProtos.AggregateProtocol
 		long stopTimestamp = 0;
 		InternalScanner scanner = this.getCurrentRegion().getScanner(scan);
 		List<Cell> results = new ArrayList<Cell>();
+		QualifierIndex qualifierIndex = ed.getQualifierIndex();
 		try{
 			boolean hasMoreRows;//false by default
 			do{
@@ -277,17 +319,15 @@ public class AggregateProtocolEndPoint extends AggregateProtos.AggregateProtocol
 //					}
 					
 					for(Cell kv:results){
-						String qualifierName = Bytes.toString(kv.getQualifier());
-						Qualifier qualifier = null;
-						if(!ed.isTag(qualifierName)){
-							qualifier = ed.getQualifierNameMap().get(qualifierName);
-							if(qualifier == null){
-								LOG.error("qualifier for field " + qualifierName + " not exist");
-								throw new IOException(new NullPointerException("qualifier for field "+qualifierName+" is null"));
-							}
-							qualifierName = qualifier.getDisplayName();
+						// resolve pre-defined qualifiers over the cell backing array, only tag names are decoded
+						int index = qualifierIndex.indexOf(kv.getQualifierArray(), kv.getQualifierOffset(), kv.getQualifierLength());
+						String qualifierName;
+						if(index == QualifierIndex.NOT_FOUND){
+							qualifierName = Bytes.toString(kv.getQualifierArray(), kv.getQualifierOffset(), kv.getQualifierLength());
+						}else{
+							qualifierName = qualifierIndex.get(index).getDisplayName();
 						}
-						if(kv.getValue()!=null) kvMap.put(qualifierName,kv.getValue());
+						kvMap.put(qualifierName, CellUtil.cloneValue(kv));
 					}
 					
 //					LOG.info("DEBUG: timestamp="+timestamp+", keys=["+StringUtils.join(kvMap.keySet(),",")+"]");
@@ -410,9 +450,19 @@ public class AggregateProtocolEndPoint extends AggregateProtos.AggregateProtocol
                 " from: " + DateTimeUtil.millisecondsToHumanDateWithMilliseconds(startTime) + " to: " + DateTimeUtil.millisecondsToHumanDateWithMilliseconds(endTime));
         if(LOG.isDebugEnabled()) LOG.debug("SCAN: "+scan.toJSON());
         long _start = System.currentTimeMillis();
-        final TimeSeriesAggregator aggregator = new TimeSeriesAggregator(groupbyFields,AggregateFunctionType.fromBytesList(aggregateFuncTypes),aggregatedFields,startTime,endTime,intervalMin);
-        InternalReadReport report = this.asyncStreamRead(entityDefinition, scan,aggregator);
-        List<GroupbyKeyValue> keyValues = aggregator.getGroupbyKeyValues();
+        List<AggregateFunctionType> aggregateFunctionTypes = AggregateFunctionType.fromBytesList(aggregateFuncTypes);
+        InternalReadReport report;
+        List<GroupbyKeyValue> keyValues;
+        if(CellTimeSeriesAggregator.isSupported(entityDefinition, groupbyFields, aggregateFunctionTypes, aggregatedFields)){
+            // fold qualifiers straight from cells, no entity is created in region server
+            final CellTimeSeriesAggregator aggregator = new CellTimeSeriesAggregator(entityDefinition, groupbyFields, aggregateFunctionTypes, aggregatedFields, startTime, endTime, intervalMin);
+            report = this.asyncStreamRead(entityDefinition, scan, aggregator);
+            keyValues = aggregator.getGroupbyKeyValues();
+        }else {
+            final TimeSeriesAggregator aggregator = new TimeSeriesAggregator(groupbyFields, aggregateFunctionTypes, aggregatedFields, startTime, endTime, intervalMin);
+            report = this.asyncStreamRead(entityDefinition, scan, aggregator);
+            keyValues = aggregator.getGroupbyKeyValues();
+        }
 
         AggregateResult result = new AggregateResult();
         result.setKeyValues(keyValues);
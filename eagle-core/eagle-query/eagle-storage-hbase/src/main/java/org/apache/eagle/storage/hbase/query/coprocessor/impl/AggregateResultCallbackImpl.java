@@ -40,6 +40,7 @@ public class AggregateResultCallbackImpl implements AggregateResultCallback {
 	private final static Logger LOG = LoggerFactory.getLogger(AggregateResultCallback.class);
 	private Map<GroupbyKey,List<Function>> groupedFuncs = new HashMap<GroupbyKey, List<Function>>();
 	private List<FunctionFactory> functionFactories = new ArrayList<FunctionFactory>();
+	private final List<AggregateFunctionType> aggregateFunctionTypes;
 	private int numFuncs = 0;
 	private long kvCounter = 0;
 	private int regionCounter = 0;
@@ -50,6 +51,7 @@ public class AggregateResultCallbackImpl implements AggregateResultCallback {
 	private final long _start;
 	
 	public AggregateResultCallbackImpl(List<AggregateFunctionType> aggregateFunctionTypes){
+		this.aggregateFunctionTypes = new ArrayList<AggregateFunctionType>(aggregateFunctionTypes);
 		this.numFuncs = aggregateFunctionTypes.size();
 		for(AggregateFunctionType type: aggregateFunctionTypes){
 			 functionFactories.add(FunctionFactory.locateFunctionFactory(type));
@@ -73,10 +75,31 @@ public class AggregateResultCallbackImpl implements AggregateResultCallback {
 		}
 	}
 
+	/**
+	 * Merge a result already reduced by another callback, e.g. the result of another partition.
+	 * Avg values are turned back into sums by their counts before accumulated.
+	 */
+	public void merge(AggregateResult result) {
+		kvCounter += result.getKeyValues().size();
+		if(this.startTimestamp == 0 || (result.getStartTimestamp() != 0 && this.startTimestamp > result.getStartTimestamp())){
+			this.startTimestamp = result.getStartTimestamp();
+		}
+		if(this.stopTimestamp == 0 || this.stopTimestamp < result.getStopTimestamp()){
+			this.stopTimestamp = result.getStopTimestamp();
+		}
+		for(GroupbyKeyValue keyValue:result.getKeyValues()){
+			accumulate(keyValue, true);
+		}
+	}
+
 	public void update(GroupbyKeyValue keyValue) {
 		// Incr kvCounter if call #update(GroupbyKeyValue) directly
 		// instead of #update(byte[] region, byte[] row, AggregateResult result)
 		if(this.getKVCounter() == 0) this.kvCounter ++;
+		accumulate(keyValue, false);
+	}
+
+	private void accumulate(GroupbyKeyValue keyValue, boolean reduced) {
 		// Accumulate key value for GroubyKey mapped Functions
 		GroupbyKey groupedKey = keyValue.getKey();
 		List<Function> funcs = groupedFuncs.get(groupedKey);
@@ -93,7 +116,11 @@ public class AggregateResultCallbackImpl implements AggregateResultCallback {
 			if(count != null){
 				intCount = ByteUtil.bytesToInt(count);
 			}
-			funcs.get(i).run(keyValue.getValue().get(i).get(), intCount);
+			double value = keyValue.getValue().get(i).get();
+			if(reduced && AggregateFunctionType.avg.equals(aggregateFunctionTypes.get(i))){
+				value = intCount == 0 ? 0 : value * intCount;
+			}
+			funcs.get(i).run(value, intCount);
 		}
 	}
 
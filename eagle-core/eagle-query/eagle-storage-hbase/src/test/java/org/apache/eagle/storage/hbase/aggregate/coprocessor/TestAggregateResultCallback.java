@@ -112,6 +112,33 @@ public class TestAggregateResultCallback {
         Assert.assertEquals(9, ByteUtil.bytesToInt(row1.getValue().getMeta(4).getBytes()));
     }
 
+    @Test
+    public void testMergeWeightsAvgByCount(){
+        // partition results of the same group already reduced, avg 2.0 over 1 row and 4.0 over 3 rows
+        AggregateResult partition1 = AggregateResult.build(
+                Arrays.<String[]>asList(new String[]{"a"}),
+                Arrays.asList(new double[]{2.0, 2.0}),
+                Arrays.asList(1),
+                1l, 2l);
+        AggregateResult partition2 = AggregateResult.build(
+                Arrays.<String[]>asList(new String[]{"a"}),
+                Arrays.asList(new double[]{4.0, 12.0}),
+                Arrays.asList(3),
+                2l, 3l);
+        AggregateResultCallbackImpl callback = new AggregateResultCallbackImpl(Arrays.asList(AggregateFunctionType.avg, AggregateFunctionType.sum));
+        callback.merge(partition1);
+        callback.merge(partition2);
+        AggregateResult merged = callback.result();
+        Assert.assertEquals(1, merged.getKeyValues().size());
+        GroupbyKeyValue row = merged.getKeyValues().get(0);
+        // (2.0 * 1 + 4.0 * 3) / 4 rather than (2.0 + 4.0) / 2
+        Assert.assertEquals(3.5, row.getValue().get(0).get());
+        Assert.assertEquals(4, ByteUtil.bytesToInt(row.getValue().getMeta(0).getBytes()));
+        Assert.assertEquals(14.0, row.getValue().get(1).get());
+        Assert.assertEquals(1l, merged.getStartTimestamp());
+        Assert.assertEquals(3l, merged.getStopTimestamp());
+    }
+
     @Test
     public void testAggregateResultTimestamp(){
         AggregateResult result1 = new AggregateResult();
@@ -39,6 +39,7 @@ public class JdbcConstants {
     public final static String EAGLE_DATABASE= "eagle.service.storage-database";
     public final static String EAGLE_DRIVER_CLASS= "eagle.service.storage-driver-class";
     public final static String EAGLE_CONN_MAX_SIZE= "eagle.service.storage-connection-max";
+    public final static String EAGLE_BATCH_SIZE= "eagle.service.storage-batch-size";
 
     public static final boolean isReservedField(String columnName){
         return TIMESTAMP_COLUMN_NAME.equals(columnName) || METRIC_NAME_COLUMN_NAME.equals(columnName) || ROW_KEY_COLUMN_NAME.equals(columnName);
@@ -58,6 +58,19 @@ public class ConnectionConfig {
         this.connectionMaxActive = connectionMaxActive;
     }
 
+    /**
+     * Max number of rows sent in one JDBC batch, rows are written one by one if it's 0 or less
+     */
+    private int batchSize = 1000;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
     public String getConnectionProperties() {
         return connectionProperties;
     }
@@ -52,6 +52,10 @@ public class ConnectionConfigFactory {
             config.setConnectionMaxActive(Integer.parseInt(connMaxSize));
         }
 
+        if(EagleConfigFactory.load().getConfig().hasPath(JdbcConstants.EAGLE_BATCH_SIZE)){
+            config.setBatchSize(EagleConfigFactory.load().getConfig().getInt(JdbcConstants.EAGLE_BATCH_SIZE));
+        }
+
         return config;
     }
 }
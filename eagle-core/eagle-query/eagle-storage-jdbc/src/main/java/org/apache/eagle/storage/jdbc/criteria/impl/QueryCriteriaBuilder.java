@@ -20,27 +20,37 @@ import org.apache.eagle.log.entity.GenericMetricEntity;
 import org.apache.eagle.log.entity.SearchCondition;
 import org.apache.eagle.query.aggregate.AggregateFunctionType;
 import org.apache.eagle.query.parser.ORExpression;
+import org.apache.eagle.query.parser.TokenConstant;
 import org.apache.eagle.storage.jdbc.criteria.CriteriaBuilder;
 import org.apache.eagle.storage.jdbc.criteria.CriterionBuilder;
 import org.apache.eagle.storage.jdbc.JdbcConstants;
 import org.apache.eagle.storage.jdbc.schema.JdbcEntityDefinition;
 import org.apache.eagle.storage.operation.CompiledQuery;
+import org.apache.torque.Column;
 import org.apache.torque.ColumnImpl;
 import org.apache.torque.criteria.Criteria;
 import org.apache.torque.criteria.Criterion;
 import org.apache.torque.criteria.SqlEnum;
 
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @since 3/27/15
  */
 public class QueryCriteriaBuilder implements CriteriaBuilder {
+    private final static Set<Integer> NUMERIC_TYPES = new HashSet<Integer>(Arrays.asList(
+            Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT,
+            Types.FLOAT, Types.REAL, Types.DOUBLE, Types.NUMERIC, Types.DECIMAL));
 
     private final CompiledQuery query;
     private final String tableName;
     private final Boolean limitEnabled;
     private final JdbcEntityDefinition jdbcEntityDefinition;
+    private final boolean timeSeriesPushDown;
 
     public QueryCriteriaBuilder(CompiledQuery query, JdbcEntityDefinition entityDefinition){
         this(query,entityDefinition,true);
@@ -51,6 +61,40 @@ public class QueryCriteriaBuilder implements CriteriaBuilder {
         this.tableName = entityDefinition.getJdbcTableName();
         this.limitEnabled = limitEnabled;
         this.jdbcEntityDefinition = entityDefinition;
+        this.timeSeriesPushDown = query.isHasAgg() && query.isTimeSeries()
+                && entityDefinition.getInternal().isTimeSeries() && canPushDownTimeSeries();
+    }
+
+    /**
+     * Whether time series buckets are grouped and aggregated by the database, the rows are then mapped by
+     * {@link org.apache.eagle.storage.jdbc.entity.impl.TimeSeriesAggregateRecordMapper}. Otherwise raw rows are
+     * selected and aggregated in memory.
+     */
+    public boolean isTimeSeriesPushDown() {
+        return timeSeriesPushDown;
+    }
+
+    /**
+     * Time series can be aggregated by the database if interval is positive, all groupby fields are columns
+     * and all aggregated fields are numeric columns, i.e. no expression
+     */
+    private boolean canPushDownTimeSeries(){
+        if(query.getIntervalMin() <= 0) return false;
+        List<String> tags = this.jdbcEntityDefinition.getInternal().getTags() == null ?
+                Arrays.<String>asList() : Arrays.asList(this.jdbcEntityDefinition.getInternal().getTags());
+        for(String field : query.getGroupByFields()){
+            if(!tags.contains(field) && !this.jdbcEntityDefinition.isField(field)) return false;
+        }
+        List<AggregateFunctionType> aggFuncs = query.getAggregateFunctionTypes();
+        List<String> aggFields = query.getAggregateFields();
+        for(int i = 0; i < aggFuncs.size(); i++){
+            if(aggFuncs.get(i) == AggregateFunctionType.count) continue;
+            String field = aggFields.get(i);
+            if(TokenConstant.isExpression(field)) return false;
+            Integer typeCode = this.jdbcEntityDefinition.getJdbcColumnTypeCodeOrNull(field);
+            if(typeCode == null || !NUMERIC_TYPES.contains(typeCode)) return false;
+        }
+        return true;
     }
 
     @Override
@@ -61,7 +105,26 @@ public class QueryCriteriaBuilder implements CriteriaBuilder {
 
 
         if(query.isHasAgg()){
-            if(this.jdbcEntityDefinition.getInternal().isTimeSeries() && query.isTimeSeries()) {
+            if(this.timeSeriesPushDown) {
+                // SELECT $groupByFields, $bucketStartTime, $aggFunc($aggField)..., count(*)
+                for(String field:query.getGroupByFields()){
+                    root.addSelectColumn(new ColumnImpl(this.tableName,field));
+                }
+                Column bucket = timeSeriesBucketColumn();
+                root.addSelectColumn(bucket);
+                List<String> aggFields = query.getAggregateFields();
+                List<AggregateFunctionType> aggFuncs = query.getAggregateFunctionTypes();
+                for (int i = 0; i < aggFuncs.size(); i++) {
+                    root.addSelectColumn(timeSeriesAggregateColumn(aggFuncs.get(i), aggFields.get(i)));
+                }
+                root.addSelectColumn(new ColumnImpl(null, this.tableName, null, "count(*)"));
+
+                // GROUP BY $groupByFields, $bucketStartTime
+                for(String field:query.getGroupByFields()){
+                    root.addGroupByColumn(new ColumnImpl(this.tableName,field));
+                }
+                root.addGroupByColumn(bucket);
+            } else if(this.jdbcEntityDefinition.getInternal().isTimeSeries() && query.isTimeSeries()) {
                 // SELECT
                 root.addSelectColumn(new ColumnImpl(this.tableName,JdbcConstants.TIMESTAMP_COLUMN_NAME));
                 List<String> aggFields = query.getAggregateFields();
@@ -143,4 +206,31 @@ public class QueryCriteriaBuilder implements CriteriaBuilder {
         }
         return root;
     }
+
+    /**
+     * Start time of the time series bucket of each row, i.e. <code>timestamp - (timestamp - startTime) % interval</code>,
+     * in integer arithmetic only so that it's evaluated the same way by all databases
+     */
+    private Column timeSeriesBucketColumn(){
+        String timestamp = this.tableName + "." + JdbcConstants.TIMESTAMP_COLUMN_NAME;
+        long intervalms = query.getIntervalMin() * 60 * 1000;
+        return new ColumnImpl(null, this.tableName, JdbcConstants.TIMESTAMP_COLUMN_NAME,
+                String.format("%s - MOD(%s - %d, %d)", timestamp, timestamp, query.getStartTime(), intervalms));
+    }
+
+    /**
+     * Null values count as 0 as in memory, so avg is selected as sum and divided by count(*) of the bucket
+     */
+    private Column timeSeriesAggregateColumn(AggregateFunctionType aggFunc, String aggField){
+        String field = this.tableName + "." + aggField;
+        switch (aggFunc){
+            case count:
+                return new ColumnImpl(null, this.tableName, null, "count(*)");
+            case sum:
+            case avg:
+                return new ColumnImpl(null, this.tableName, aggField, String.format("sum(%s)", field));
+            default:
+                return new ColumnImpl(null, this.tableName, aggField, String.format("%s(COALESCE(%s, 0))", aggFunc.name(), field));
+        }
+    }
 }
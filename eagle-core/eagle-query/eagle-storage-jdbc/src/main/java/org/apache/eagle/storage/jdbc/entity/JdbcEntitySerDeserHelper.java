@@ -18,6 +18,7 @@ package org.apache.eagle.storage.jdbc.entity;
 
 import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
 import org.apache.eagle.log.entity.GenericMetricEntity;
+import org.apache.eagle.log.entity.meta.EntityCodec;
 import org.apache.eagle.log.entity.meta.EntityDefinition;
 import org.apache.eagle.log.entity.meta.Qualifier;
 import org.apache.eagle.storage.jdbc.JdbcConstants;
@@ -33,7 +34,6 @@ import org.slf4j.LoggerFactory;
 import java.beans.PropertyDescriptor;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
@@ -60,24 +60,14 @@ public class JdbcEntitySerDeserHelper {
     public static <E extends TaggedLogAPIEntity> E buildEntity(Map<String, Object> row, JdbcEntityDefinition entityDefinition) throws IOException {
         EntityDefinition ed = entityDefinition.getInternal();
 
-        Class<? extends TaggedLogAPIEntity> clazz = ed.getEntityClass();
-        if(clazz == null){
-            throw new NullPointerException("Entity class of service "+ed.getService()+" is null");
-        }
-
+        EntityCodec codec = EntityCodec.getInstance(ed);
         TaggedLogAPIEntity obj = null;
         try {
-            obj = clazz.newInstance();
+            obj = codec.newInstance();
         } catch (Exception e) {
             LOG.error(e.getMessage(),e.getCause());
             throw new IOException(e);
         }
-        Map<String, Qualifier> rawmap = ed.getDisplayNameMap();
-        // rdbms may contains field which is not case insensitive, we need convert all into lower case
-        Map<String, Qualifier> map = new HashMap<>();
-        for(Map.Entry<String, Qualifier> e : rawmap.entrySet()){
-            map.put(e.getKey().toLowerCase(), e.getValue());
-        }
         for(Map.Entry<String, Object> entry : row.entrySet()){
             // timestamp;
             if(JdbcConstants.TIMESTAMP_COLUMN_NAME.equalsIgnoreCase(entry.getKey())){
@@ -98,8 +88,13 @@ public class JdbcEntitySerDeserHelper {
                 continue;
             }
 
-            Qualifier q = map.get(entry.getKey().toLowerCase());
-            if(q == null){
+            EntityCodec.FieldCodec field = codec.getFieldByDisplayName(entry.getKey());
+            if(field == null){
+                // rdbms may contains field which is not case insensitive
+                Qualifier q = entityDefinition.getColumnQualifier(entry.getKey());
+                if(q != null) field = codec.getFieldByDisplayName(q.getDisplayName());
+            }
+            if(field == null){
                 // if it's not pre-defined qualifier, it must be tag unless it's a bug
                 if(obj.getTags() == null){
                     obj.setTags(new HashMap<String, String>());
@@ -124,13 +119,10 @@ public class JdbcEntitySerDeserHelper {
             }
 
             // parse different types of qualifiers
-            String fieldName = q.getDisplayName();
-            // PropertyDescriptor pd = PropertyUtils.getPropertyDescriptor(obj, fieldName);
-            PropertyDescriptor pd = null;
+            String fieldName = field.getQualifier().getDisplayName();
             try {
-                pd = getPropertyDescriptor(obj,fieldName);
                 if(entry.getValue() != null) {
-                    pd.getWriteMethod().invoke(obj, entry.getValue());
+                    field.setValue(obj, entry.getValue());
                 }
             } catch (Exception ex){
                 LOG.error("Failed to set value  {} = {}",fieldName,entry.getValue(),ex);
@@ -229,6 +221,7 @@ public class JdbcEntitySerDeserHelper {
      * @throws IllegalAccessException
      */
     public static <E extends TaggedLogAPIEntity> ColumnValues buildColumnValues(E entity, JdbcEntityDefinition jdbcEntityDefinition) throws InvocationTargetException, IllegalAccessException {
+        EntityCodec codec = EntityCodec.getInstance(jdbcEntityDefinition.getInternal());
         String tableName = jdbcEntityDefinition.getJdbcTableName();
         ColumnValues columnValues = new ColumnValues();
 
@@ -241,14 +234,19 @@ public class JdbcEntitySerDeserHelper {
 
         // qualifier fields
         Map<String,Qualifier> displayQualifier = jdbcEntityDefinition.getInternal().getDisplayNameMap();
-        Map<String,Method> getMethods = jdbcEntityDefinition.getInternal().getQualifierGetterMap();
         for(Map.Entry<String,Qualifier> entry:displayQualifier.entrySet()){
             String displayName = entry.getKey();
 
             Qualifier qualifier = entry.getValue();
 //            String qualifierName = qualifier.getQualifierName();
-            Method getMethod = getMethods.get(displayName);
-            Object fieldValue = getMethod.invoke(entity);
+            Object fieldValue;
+            try {
+                fieldValue = codec.getFieldByDisplayName(displayName).getValue(entity);
+            } catch (IllegalAccessException | InvocationTargetException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new InvocationTargetException(e);
+            }
 
             Class<?> fieldType = qualifier.getSerDeser().type();
             JdbcSerDeser jdbcSerDeser = jdbcEntityDefinition.getJdbcSerDeser(displayName);
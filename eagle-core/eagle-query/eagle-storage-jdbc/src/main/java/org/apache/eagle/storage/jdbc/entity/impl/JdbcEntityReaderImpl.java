@@ -62,7 +62,9 @@ public class JdbcEntityReaderImpl implements JdbcEntityReader {
         if(LOG.isDebugEnabled()) LOG.debug("Querying: " + displaySql);
 
         RecordMapper<E> recordMapper;
-        if(query.isHasAgg() && !query.isTimeSeries()) {
+        if(criteriaBuilder.isTimeSeriesPushDown()) {
+            recordMapper = (RecordMapper<E>) new TimeSeriesAggregateRecordMapper(query);
+        }else if(query.isHasAgg() && !query.isTimeSeries()) {
             recordMapper = (RecordMapper<E>) new AggreagteRecordMapper(query, jdbcEntityDefinition);
         }else{
             recordMapper = new EntityRecordMapper(jdbcEntityDefinition);
@@ -75,7 +77,11 @@ public class JdbcEntityReaderImpl implements JdbcEntityReader {
             result = peer.delegate().doSelect(criteria, recordMapper);
             LOG.info(String.format("Read %s records in %s ms (sql: %s)",result.size(),stopWatch.getTime(),displaySql));
             if(result.size() > 0 && query.isTimeSeries()){
+                if(criteriaBuilder.isTimeSeriesPushDown()) {
+                    result = Lists.newArrayList((E) timeseriesResult((List<Map.Entry<List<String>, List<Double>>>) result, query));
+                }else{
                     result = Lists.newArrayList((E) timeseriesAggregate(result, query));
+                }
             }
         }catch (Exception ex){
             LOG.error("Failed to query by: "+displaySql+", due to: "+ex.getMessage(),ex);
@@ -91,7 +97,7 @@ public class JdbcEntityReaderImpl implements JdbcEntityReader {
             query.getAggregateFunctionTypes(),
             query.getAggregateFields(),
             query.getStartTime(), query.getEndTime(),
-            query.getIntervalMin()
+            query.getIntervalMin() * 60 * 1000
         );
         for(E entity: result)
             aggregator.accumulate((TaggedLogAPIEntity) entity);
@@ -102,6 +108,20 @@ public class JdbcEntityReaderImpl implements JdbcEntityReader {
         }
     }
 
+    /**
+     * Same result shape as {@link #timeseriesAggregate(List, CompiledQuery)} from buckets aggregated by the database
+     */
+    private Map timeseriesResult(List<Map.Entry<List<String>, List<Double>>> rows, CompiledQuery query) {
+        Map<List<String>, List<Double>> result = TimeSeriesAggregateRecordMapper.toResult(rows);
+        if(this.jdbcEntityDefinition.isGenericMetric()) {
+            long intervalms = query.getIntervalMin() * 60 * 1000;
+            int numDatapoints = (int) ((query.getEndTime() - 1 - query.getStartTime()) / intervalms + 1);
+            return TimeSeriesAggregator.toMetric(result, numDatapoints, query.getAggregateFunctionTypes().size());
+        } else {
+            return result;
+        }
+    }
+
     @Override
     public <E> List<E> query(List<String> ids) throws Exception {
         PrimaryKeyCriteriaBuilder criteriaBuilder = new PrimaryKeyCriteriaBuilder(ids,this.jdbcEntityDefinition.getJdbcTableName());
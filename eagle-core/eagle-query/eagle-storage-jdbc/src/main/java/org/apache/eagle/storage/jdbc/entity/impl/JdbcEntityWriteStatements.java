@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.storage.jdbc.entity.impl;
+
+import org.apache.eagle.log.base.taggedlog.TaggedLogAPIEntity;
+import org.apache.eagle.storage.jdbc.JdbcConstants;
+import org.apache.eagle.storage.jdbc.entity.JdbcEntitySerDeserHelper;
+import org.apache.eagle.storage.jdbc.schema.JdbcEntityDefinition;
+import org.apache.torque.Column;
+import org.apache.torque.util.ColumnValues;
+import org.apache.torque.util.JdbcTypedValue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Batch insert, update and upsert statements of one entity table, the SQL is generated once per table and adapter.
+ *
+ * <p>Column values are built by {@link JdbcEntitySerDeserHelper#buildColumnValues(TaggedLogAPIEntity, JdbcEntityDefinition)}
+ * as for single row statements, and bound in the fixed column order of the table.</p>
+ */
+public class JdbcEntityWriteStatements {
+    private final static ConcurrentMap<String, JdbcEntityWriteStatements> CACHE = new ConcurrentHashMap<String, JdbcEntityWriteStatements>();
+    private final static int MAX_IN_LIST_SIZE = 500;
+
+    /**
+     * Native upsert syntax of the database
+     */
+    public enum UpsertDialect {
+        /**
+         * INSERT ... ON DUPLICATE KEY UPDATE
+         */
+        MYSQL,
+        /**
+         * INSERT ... ON CONFLICT (...) DO UPDATE
+         */
+        POSTGRESQL,
+        /**
+         * No native upsert, existing keys are selected first
+         */
+        NONE;
+
+        /**
+         * @param adapter torque adapter, e.g. mysql, postgresql, derby
+         */
+        public static UpsertDialect forAdapter(String adapter) {
+            if(adapter == null) return NONE;
+            String name = adapter.toLowerCase();
+            if(name.startsWith("mysql")) return MYSQL;
+            if(name.startsWith("postgres")) return POSTGRESQL;
+            return NONE;
+        }
+    }
+
+    private final JdbcEntityDefinition jdbcEntityDefinition;
+    private final String tableName;
+    private final UpsertDialect dialect;
+    private final List<String> columns;
+    private final Set<String> columnSet;
+    private final List<Integer> columnTypes;
+    private final String insertSql;
+    private final String updateSql;
+    private final String upsertSql;
+
+    private JdbcEntityWriteStatements(JdbcEntityDefinition jdbcEntityDefinition, UpsertDialect dialect) {
+        this.jdbcEntityDefinition = jdbcEntityDefinition;
+        this.tableName = jdbcEntityDefinition.getJdbcTableName();
+        this.dialect = dialect;
+
+        List<String> columns = new ArrayList<String>();
+        List<Integer> columnTypes = new ArrayList<Integer>();
+        if(jdbcEntityDefinition.isGenericMetric()){
+            columns.add(JdbcConstants.METRIC_NAME_COLUMN_NAME);
+            columnTypes.add(Types.VARCHAR);
+        }
+        columns.add(JdbcConstants.ROW_KEY_COLUMN_NAME);
+        columnTypes.add(Types.VARCHAR);
+        columns.add(JdbcConstants.TIMESTAMP_COLUMN_NAME);
+        columnTypes.add(Types.BIGINT);
+        if(jdbcEntityDefinition.getInternal().getTags() != null){
+            for(String tag : jdbcEntityDefinition.getInternal().getTags()){
+                columns.add(tag);
+                columnTypes.add(Types.VARCHAR);
+            }
+        }
+        for(String field : jdbcEntityDefinition.getInternal().getDisplayNameMap().keySet()){
+            columns.add(field);
+            Integer typeCode = jdbcEntityDefinition.getJdbcColumnTypeCodeOrNull(field);
+            columnTypes.add(typeCode == null ? Types.VARCHAR : typeCode);
+        }
+        this.columns = Collections.unmodifiableList(columns);
+        this.columnTypes = Collections.unmodifiableList(columnTypes);
+        this.columnSet = new HashSet<String>(columns);
+
+        StringBuilder insert = new StringBuilder("INSERT INTO ").append(tableName).append(" (");
+        StringBuilder values = new StringBuilder(" VALUES (");
+        StringBuilder update = new StringBuilder("UPDATE ").append(tableName).append(" SET ");
+        StringBuilder upsertSet = new StringBuilder();
+        boolean firstUpdate = true;
+        for(int i = 0; i < columns.size(); i++){
+            String column = columns.get(i);
+            if(i > 0){
+                insert.append(", ");
+                values.append(", ");
+            }
+            insert.append(column);
+            values.append("?");
+            if(JdbcConstants.ROW_KEY_COLUMN_NAME.equals(column)) continue;
+            if(!firstUpdate){
+                update.append(", ");
+                upsertSet.append(", ");
+            }
+            firstUpdate = false;
+            update.append(column).append(" = ?");
+            if(dialect == UpsertDialect.MYSQL){
+                upsertSet.append(column).append(" = VALUES(").append(column).append(")");
+            }else{
+                upsertSet.append(column).append(" = EXCLUDED.").append(column);
+            }
+        }
+        insert.append(")").append(values).append(")");
+        update.append(" WHERE ").append(JdbcConstants.ROW_KEY_COLUMN_NAME).append(" = ?");
+        this.insertSql = insert.toString();
+        this.updateSql = update.toString();
+        switch (dialect){
+            case MYSQL:
+                this.upsertSql = insertSql + " ON DUPLICATE KEY UPDATE " + upsertSet;
+                break;
+            case POSTGRESQL:
+                this.upsertSql = insertSql + " ON CONFLICT (" + JdbcConstants.ROW_KEY_COLUMN_NAME + ") DO UPDATE SET " + upsertSet;
+                break;
+            default:
+                this.upsertSql = null;
+        }
+    }
+
+    /**
+     * @param adapter torque adapter of the database
+     * @return cached statements of the entity table
+     */
+    public static JdbcEntityWriteStatements getInstance(JdbcEntityDefinition jdbcEntityDefinition, String adapter) {
+        UpsertDialect dialect = UpsertDialect.forAdapter(adapter);
+        String key = dialect + ":" + jdbcEntityDefinition.getJdbcTableName();
+        JdbcEntityWriteStatements statements = CACHE.get(key);
+        if(statements == null){
+            statements = new JdbcEntityWriteStatements(jdbcEntityDefinition, dialect);
+            JdbcEntityWriteStatements previous = CACHE.putIfAbsent(key, statements);
+            if(previous != null) statements = previous;
+        }
+        return statements;
+    }
+
+    public UpsertDialect getDialect() {
+        return dialect;
+    }
+
+    public String getInsertSql() {
+        return insertSql;
+    }
+
+    public String getUpdateSql() {
+        return updateSql;
+    }
+
+    /**
+     * @return native upsert statement, or null if the database doesn't support any
+     */
+    public String getUpsertSql() {
+        return upsertSql;
+    }
+
+    /**
+     * Insert, or upsert if supported, all entities in one batch
+     */
+    public <E extends TaggedLogAPIEntity> void insert(Connection connection, List<E> entities, boolean upsert) throws SQLException, InvocationTargetException, IllegalAccessException {
+        executeBatch(connection, upsert ? upsertSql : insertSql, entities, false);
+    }
+
+    /**
+     * Update all entities by primary key in one batch
+     */
+    public <E extends TaggedLogAPIEntity> void update(Connection connection, List<E> entities) throws SQLException, InvocationTargetException, IllegalAccessException {
+        executeBatch(connection, updateSql, entities, true);
+    }
+
+    /**
+     * @return primary keys of given entities which already exist in the table
+     */
+    public <E extends TaggedLogAPIEntity> Set<String> selectExistingKeys(Connection connection, List<E> entities) throws SQLException {
+        Set<String> existing = new HashSet<String>();
+        for(int from = 0; from < entities.size(); from += MAX_IN_LIST_SIZE){
+            List<E> chunk = entities.subList(from, Math.min(from + MAX_IN_LIST_SIZE, entities.size()));
+            StringBuilder sql = new StringBuilder("SELECT ").append(JdbcConstants.ROW_KEY_COLUMN_NAME)
+                    .append(" FROM ").append(tableName).append(" WHERE ").append(JdbcConstants.ROW_KEY_COLUMN_NAME).append(" IN (");
+            for(int i = 0; i < chunk.size(); i++){
+                sql.append(i == 0 ? "?" : ", ?");
+            }
+            sql.append(")");
+            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                for(int i = 0; i < chunk.size(); i++){
+                    statement.setString(i + 1, chunk.get(i).getEncodedRowkey());
+                }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while(resultSet.next()){
+                        existing.add(resultSet.getString(1));
+                    }
+                }
+            }
+        }
+        return existing;
+    }
+
+    private <E extends TaggedLogAPIEntity> void executeBatch(Connection connection, String sql, List<E> entities, boolean update) throws SQLException, InvocationTargetException, IllegalAccessException {
+        if(entities.isEmpty()) return;
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for(E entity : entities){
+                bind(statement, entity, update);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Bind all columns in table order for insert, or non-key columns followed by the key for update
+     */
+    private <E extends TaggedLogAPIEntity> void bind(PreparedStatement statement, E entity, boolean update) throws SQLException, InvocationTargetException, IllegalAccessException {
+        ColumnValues columnValues = JdbcEntitySerDeserHelper.buildColumnValues(entity, jdbcEntityDefinition);
+        Map<String, JdbcTypedValue> values = new HashMap<String, JdbcTypedValue>(columnValues.size() * 2);
+        for(Map.Entry<Column, JdbcTypedValue> entry : columnValues.entrySet()){
+            String column = entry.getKey().getColumnName();
+            if(!columnSet.contains(column)){
+                // SQLException to roll back and retry row by row as other failures of the batch
+                throw new SQLException("Column " + column + " is not defined in table " + tableName);
+            }
+            values.put(column, entry.getValue());
+        }
+        int index = 1;
+        for(int i = 0; i < columns.size(); i++){
+            String column = columns.get(i);
+            if(update && JdbcConstants.ROW_KEY_COLUMN_NAME.equals(column)) continue;
+            setValue(statement, index++, values.get(column), columnTypes.get(i));
+        }
+        if(update){
+            setValue(statement, index, values.get(JdbcConstants.ROW_KEY_COLUMN_NAME), Types.VARCHAR);
+        }
+    }
+
+    private static void setValue(PreparedStatement statement, int index, JdbcTypedValue value, int columnType) throws SQLException {
+        if(value == null || value.getValue() == null){
+            statement.setNull(index, value == null ? columnType : value.getJdbcType());
+        }else if(value.getValue() instanceof byte[]){
+            statement.setBytes(index, (byte[]) value.getValue());
+        }else{
+            statement.setObject(index, value.getValue(), value.getJdbcType());
+        }
+    }
+}
@@ -33,10 +33,13 @@ import org.apache.torque.util.ColumnValues;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.InvocationTargetException;
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @since 3/27/15
@@ -59,7 +62,7 @@ public class JdbcEntityWriterImpl<E extends TaggedLogAPIEntity> implements JdbcE
 
     @Override
     public List<String> write(List<E> entities) throws Exception {
-        List<String> keys = new ArrayList<String>();
+        List<String> keys;
         if(LOG.isDebugEnabled()) LOG.debug("Writing "+entities.size()+" entities");
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
@@ -71,35 +74,21 @@ public class JdbcEntityWriterImpl<E extends TaggedLogAPIEntity> implements JdbcE
             TorqueStatementPeerImpl<E> peer = connectionManager.getStatementExecutor(this.jdbcEntityDefinition.getJdbcTableName());
             for (E entity : entities) {
                 entity.setEncodedRowkey(peer.getPrimaryKeyBuilder().build(entity));
-                ColumnValues columnValues = JdbcEntitySerDeserHelper.buildColumnValues(entity, this.jdbcEntityDefinition);
+            }
 
-                ObjectKey key = null;
+            int batchSize = connectionManager.getConfig().getBatchSize();
+            if(batchSize <= 0){
+                keys = writeRowByRow(entities, peer, connection);
+            }else {
+                JdbcEntityWriteStatements statements = JdbcEntityWriteStatements.getInstance(this.jdbcEntityDefinition, connectionManager.getConfig().getAdapter());
                 try {
-                    // TODO: implement batch insert for better performance
-                    key = peer.delegate().doInsert(columnValues,connection);
-
-                    if (key != null) {
-                        keys.add((String) key.getValue());
-                    } else {
-                        keys.add(entity.getEncodedRowkey());
-                    }
-                } catch (ClassCastException ex) {
-                    assert key != null;
-                    throw new RuntimeException("Key is not in type of String (VARCHAR) , but JdbcType (java.sql.Types): " + key.getJdbcType() + ", value: " + key.getValue(), ex);
-                } catch (ConstraintViolationException e){
-                    //this message will be different in each DB type ...using duplicate keyword to catch for broader set of DBs. moreover we are already inside ConstraintViolationException exception, do we even need this check?
-                    if(e.getMessage().toLowerCase().contains("duplicate")){
-                        String primaryKey = entity.getEncodedRowkey();
-                        if(primaryKey==null) {
-                            primaryKey = ConnectionManagerFactory.getInstance().getStatementExecutor().getPrimaryKeyBuilder().build(entity);
-                            entity.setEncodedRowkey(primaryKey);
-                        }
-                        PrimaryKeyCriteriaBuilder pkBuilder = new PrimaryKeyCriteriaBuilder(Collections.singletonList(primaryKey), this.jdbcEntityDefinition.getJdbcTableName());
-                        Criteria selectCriteria = pkBuilder.build();
-                        if(LOG.isDebugEnabled()) LOG.debug("Updating by query: "+ SqlBuilder.buildQuery(selectCriteria).getDisplayString());
-                        peer.delegate().doUpdate(selectCriteria, columnValues, connection);
-                        keys.add(primaryKey);
-                    }
+                    keys = writeInBatches(entities, statements, batchSize, connection);
+                } catch (SQLException ex) {
+                    if(statements.getUpsertSql() != null) throw ex;
+                    // keys selected as new may have been inserted by others in the meantime
+                    LOG.warn("Failed to write records in batches, rolling back and retrying row by row: "+ex.getMessage());
+                    connection.rollback();
+                    keys = writeRowByRow(entities, peer, connection);
                 }
             }
 
@@ -121,4 +110,74 @@ public class JdbcEntityWriterImpl<E extends TaggedLogAPIEntity> implements JdbcE
         LOG.info(String.format("Wrote %s records in %s ms (table: %s)",keys.size(),stopWatch.getTime(),this.jdbcEntityDefinition.getJdbcTableName()));
         return keys;
     }
-}
\ No newline at end of file
+
+    /**
+     * Upsert natively if the database supports, otherwise select existing keys, then insert new rows and update
+     * existing rows, each with one JDBC batch per <code>batchSize</code> entities
+     */
+    private List<String> writeInBatches(List<E> entities, JdbcEntityWriteStatements statements, int batchSize, Connection connection) throws SQLException, InvocationTargetException, IllegalAccessException {
+        List<String> keys = new ArrayList<String>(entities.size());
+        for (int from = 0; from < entities.size(); from += batchSize) {
+            List<E> batch = entities.subList(from, Math.min(from + batchSize, entities.size()));
+            if (statements.getUpsertSql() != null) {
+                statements.insert(connection, batch, true);
+            } else {
+                Set<String> existingKeys = statements.selectExistingKeys(connection, batch);
+                List<E> inserts = new ArrayList<E>(batch.size());
+                List<E> updates = new ArrayList<E>(existingKeys.size());
+                for (E entity : batch) {
+                    if (existingKeys.contains(entity.getEncodedRowkey())) {
+                        updates.add(entity);
+                    } else {
+                        inserts.add(entity);
+                    }
+                }
+                statements.insert(connection, inserts, false);
+                statements.update(connection, updates);
+            }
+            for (E entity : batch) {
+                keys.add(entity.getEncodedRowkey());
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Insert one by one and update on duplicate key
+     */
+    private List<String> writeRowByRow(List<E> entities, TorqueStatementPeerImpl<E> peer, Connection connection) throws Exception {
+        List<String> keys = new ArrayList<String>();
+        for (E entity : entities) {
+            ColumnValues columnValues = JdbcEntitySerDeserHelper.buildColumnValues(entity, this.jdbcEntityDefinition);
+
+            ObjectKey key = null;
+            try {
+                key = peer.delegate().doInsert(columnValues,connection);
+
+                if (key != null) {
+                    keys.add((String) key.getValue());
+                } else {
+                    keys.add(entity.getEncodedRowkey());
+                }
+            } catch (ClassCastException ex) {
+                assert key != null;
+                throw new RuntimeException("Key is not in type of String (VARCHAR) , but JdbcType (java.sql.Types): " + key.getJdbcType() + ", value: " + key.getValue(), ex);
+            } catch (ConstraintViolationException e){
+                //this message will be different in each DB type ...using duplicate keyword to catch for broader set of DBs. moreover we are already inside ConstraintViolationException exception, do we even need this check?
+                if(e.getMessage().toLowerCase().contains("duplicate")){
+                    String primaryKey = entity.getEncodedRowkey();
+                    if(primaryKey==null) {
+                        primaryKey = ConnectionManagerFactory.getInstance().getStatementExecutor().getPrimaryKeyBuilder().build(entity);
+                        entity.setEncodedRowkey(primaryKey);
+                    }
+                    PrimaryKeyCriteriaBuilder pkBuilder = new PrimaryKeyCriteriaBuilder(Collections.singletonList(primaryKey), this.jdbcEntityDefinition.getJdbcTableName());
+                    Criteria selectCriteria = pkBuilder.build();
+                    if(LOG.isDebugEnabled()) LOG.debug("Updating by query: "+ SqlBuilder.buildQuery(selectCriteria).getDisplayString());
+                    peer.delegate().doUpdate(selectCriteria, columnValues, connection);
+                    keys.add(primaryKey);
+                }
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.storage.jdbc.entity.impl;
+
+import org.apache.eagle.query.aggregate.AggregateFunctionType;
+import org.apache.eagle.storage.jdbc.criteria.impl.QueryCriteriaBuilder;
+import org.apache.eagle.storage.operation.CompiledQuery;
+import org.apache.torque.TorqueException;
+import org.apache.torque.criteria.CriteriaInterface;
+import org.apache.torque.om.mapper.RecordMapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps rows of a time series aggregation grouped in database, see {@link QueryCriteriaBuilder#isTimeSeriesPushDown()},
+ * to the buckets of {@link org.apache.eagle.query.aggregate.timeseries.TimeSeriesAggregator#result()}, i.e. groupby field
+ * values plus time series bucket index to the value of each function.
+ *
+ * <p>Columns are expected in the order of groupby fields, bucket start time, one column for each function and the row count.</p>
+ */
+public class TimeSeriesAggregateRecordMapper implements RecordMapper<Map.Entry<List<String>, List<Double>>> {
+    private static final String UNASSIGNED = "unassigned";
+
+    private final int numGroupbyFields;
+    private final List<AggregateFunctionType> aggregateFunctionTypes;
+    private final long startTime;
+    private final long intervalms;
+
+    public TimeSeriesAggregateRecordMapper(CompiledQuery query) {
+        this.numGroupbyFields = query.getGroupByFields().size();
+        this.aggregateFunctionTypes = query.getAggregateFunctionTypes();
+        this.startTime = query.getStartTime();
+        this.intervalms = query.getIntervalMin() * 60 * 1000;
+    }
+
+    @Override
+    public Map.Entry<List<String>, List<Double>> processRow(ResultSet resultSet, int rowOffset, CriteriaInterface<?> criteria) throws TorqueException {
+        try {
+            List<String> key = new ArrayList<String>(numGroupbyFields + 1);
+            for(int i = 1; i <= numGroupbyFields; i++){
+                String value = resultSet.getString(i);
+                key.add(value == null ? UNASSIGNED : value);
+            }
+            long bucketStartTime = resultSet.getLong(numGroupbyFields + 1);
+            key.add(String.valueOf((bucketStartTime - startTime) / intervalms));
+
+            int firstFunctionColumn = numGroupbyFields + 2;
+            long count = resultSet.getLong(firstFunctionColumn + aggregateFunctionTypes.size());
+            List<Double> values = new ArrayList<Double>(aggregateFunctionTypes.size());
+            for(int f = 0; f < aggregateFunctionTypes.size(); f++){
+                double value = resultSet.getDouble(firstFunctionColumn + f);
+                if(aggregateFunctionTypes.get(f) == AggregateFunctionType.avg){
+                    // sum is selected for avg, null values count as 0 as in TimeSeriesAggregator
+                    value = value / count;
+                }
+                values.add(value);
+            }
+            return new AbstractMap.SimpleImmutableEntry<List<String>, List<Double>>(key, values);
+        } catch (SQLException e) {
+            throw new TorqueException(e);
+        }
+    }
+
+    /**
+     * @return groupby field values plus time series bucket index to function values
+     */
+    public static Map<List<String>, List<Double>> toResult(List<Map.Entry<List<String>, List<Double>>> rows){
+        Map<List<String>, List<Double>> result = new HashMap<List<String>, List<Double>>(rows.size() * 2);
+        for(Map.Entry<List<String>, List<Double>> row : rows){
+            result.put(row.getKey(), row.getValue());
+        }
+        return result;
+    }
+}
@@ -22,14 +22,23 @@ import org.apache.eagle.common.DateTimeUtil;
 import org.apache.eagle.log.entity.meta.EntityDefinition;
 import org.apache.eagle.log.entity.meta.EntityDefinitionManager;
 import org.apache.eagle.log.entity.test.TestTimeSeriesAPIEntity;
+import org.apache.eagle.query.aggregate.timeseries.TimeSeriesAggregator;
 import org.apache.eagle.storage.exception.QueryCompileException;
+import org.apache.eagle.storage.jdbc.conn.ConnectionConfig;
+import org.apache.eagle.storage.jdbc.conn.ConnectionManagerFactory;
+import org.apache.eagle.storage.jdbc.entity.impl.JdbcEntityWriteStatements;
+import org.apache.eagle.storage.jdbc.schema.JdbcEntityDefinition;
+import org.apache.eagle.storage.jdbc.schema.JdbcEntityDefinitionManager;
 import org.apache.eagle.storage.operation.CompiledQuery;
 import org.apache.eagle.storage.operation.RawQuery;
 import org.apache.eagle.storage.result.ModifyResult;
 import org.apache.eagle.storage.result.QueryResult;
+import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.*;
 
 public class TestJdbcStorage extends JdbcStorageTestBase {
@@ -196,30 +205,152 @@ public class TestJdbcStorage extends JdbcStorageTestBase {
         Assert.assertTrue(queryResult.getSize() >= 1000);
     }
 
+    @Test
+    public void testWriteDuplicates() throws IOException, QueryCompileException {
+        // two hours ago, in whole seconds as query time range
+        long baseTime = (System.currentTimeMillis() / 1000 - 2 * 3600) * 1000;
+        List<TestTimeSeriesAPIEntity> entityList = new ArrayList<TestTimeSeriesAPIEntity>();
+        for(int i = 0; i < 100; i++){
+            TestTimeSeriesAPIEntity entity = newInstance();
+            entity.getTags().put("cluster", "c4duplicates");
+            entity.setTimestamp(baseTime + i * 1000);
+            entityList.add(entity);
+        }
+        ModifyResult<String> result = storage.create(entityList, entityDefinition);
+        Assert.assertEquals(100, result.getSize());
+
+        // existing rows are updated instead of failing the batch
+        for(TestTimeSeriesAPIEntity entity : entityList){
+            entity.setField1(456);
+            entity.setField7("updated");
+        }
+        TestTimeSeriesAPIEntity newEntity = newInstance();
+        newEntity.getTags().put("cluster", "c4duplicates");
+        newEntity.setTimestamp(baseTime + 100 * 1000);
+        entityList.add(newEntity);
+        result = storage.create(entityList, entityDefinition);
+        Assert.assertEquals(101, result.getSize());
+        Assert.assertTrue(result.isSuccess());
+
+        RawQuery rawQuery = new RawQuery();
+        rawQuery.setQuery("TestTimeSeriesAPIEntity[@cluster=\"c4duplicates\"]{*}");
+        rawQuery.setStartTime(DateTimeUtil.millisecondsToHumanDateWithSeconds(baseTime));
+        rawQuery.setEndTime(DateTimeUtil.millisecondsToHumanDateWithSeconds(baseTime + 200 * 1000));
+        rawQuery.setPageSize(1000);
+        QueryResult<TestTimeSeriesAPIEntity> queryResult = storage.query(new CompiledQuery(rawQuery), entityDefinition);
+        Assert.assertEquals(101, queryResult.getSize());
+        Map<String, TestTimeSeriesAPIEntity> stored = new HashMap<String, TestTimeSeriesAPIEntity>();
+        for(TestTimeSeriesAPIEntity entity : queryResult.getData()){
+            stored.put(entity.getTags().get("random"), entity);
+        }
+        for(TestTimeSeriesAPIEntity entity : entityList){
+            TestTimeSeriesAPIEntity read = stored.get(entity.getTags().get("random"));
+            Assert.assertNotNull(read);
+            Assert.assertEquals(entity.getTimestamp(), read.getTimestamp());
+            Assert.assertEquals(entity == newEntity ? 123 : 456, read.getField1());
+            Assert.assertEquals(entity == newEntity ? newEntity.getField7() : "updated", read.getField7());
+            Assert.assertEquals(Integer.valueOf(234), read.getField2());
+        }
+    }
+
+    @Test
+    public void testWriteUndeclaredTag() throws Exception {
+        JdbcEntityDefinition jdbcEntityDefinition = JdbcEntityDefinitionManager.getJdbcEntityDefinition(TestTimeSeriesAPIEntity.class);
+        JdbcEntityWriteStatements statements = JdbcEntityWriteStatements.getInstance(jdbcEntityDefinition, "derby");
+        TestTimeSeriesAPIEntity entity = newInstance();
+        entity.getTags().put("undeclared", "value");
+        Connection connection = ConnectionManagerFactory.getInstance().getConnection();
+        try {
+            statements.insert(connection, Collections.singletonList(entity), false);
+            Assert.fail("Undeclared tag should fail the batch with SQLException");
+        } catch (SQLException ex) {
+            // expected, to roll back and retry row by row
+        } finally {
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testTimeSeriesAggregationPushDown() throws Exception {
+        // two hours ago, in whole seconds as query time range
+        long baseTime = (System.currentTimeMillis() / 1000 - 2 * 3600) * 1000;
+        List<TestTimeSeriesAPIEntity> entityList = new ArrayList<TestTimeSeriesAPIEntity>();
+        for(int i = 0; i < 40; i++){
+            TestTimeSeriesAPIEntity entity = newInstance();
+            entity.getTags().put("cluster", "c4pushdown");
+            entity.getTags().put("datacenter", i % 3 == 0 ? "d4ut" : "d4ut2");
+            entity.setField1(i);
+            entity.setField5(i * 1.5);
+            entity.setTimestamp(baseTime + i * 30 * 1000);
+            entityList.add(entity);
+        }
+        storage.create(entityList, entityDefinition);
+
+        RawQuery rawQuery = new RawQuery();
+        rawQuery.setQuery("TestTimeSeriesAPIEntity[@cluster=\"c4pushdown\"]<@datacenter>{count,sum(@field1),avg(@field1),max(@field5),min(@field5)}");
+        rawQuery.setStartTime(DateTimeUtil.millisecondsToHumanDateWithSeconds(baseTime));
+        rawQuery.setEndTime(DateTimeUtil.millisecondsToHumanDateWithSeconds(baseTime + 20 * 60 * 1000));
+        rawQuery.setTimeSeries(true);
+        rawQuery.setIntervalmin(5);
+        rawQuery.setPageSize(10000);
+        CompiledQuery query = new CompiledQuery(rawQuery);
+        QueryResult<Map<List<String>, List<Double>>> queryResult = storage.query(query, entityDefinition);
+        Assert.assertEquals(1, queryResult.getSize());
+
+        TimeSeriesAggregator aggregator = new TimeSeriesAggregator(query.getGroupByFields(), query.getAggregateFunctionTypes(),
+                query.getAggregateFields(), query.getStartTime(), query.getEndTime(), 5 * 60 * 1000);
+        for(TestTimeSeriesAPIEntity entity : entityList){
+            aggregator.accumulate(entity);
+        }
+        Map<List<String>, List<Double>> expected = aggregator.result();
+        Map<List<String>, List<Double>> actual = queryResult.getData().get(0);
+        // 2 datacenters in 4 buckets
+        Assert.assertEquals(8, expected.size());
+        Assert.assertEquals(expected.keySet(), actual.keySet());
+        for(Map.Entry<List<String>, List<Double>> entry : expected.entrySet()){
+            List<Double> values = actual.get(entry.getKey());
+            for(int f = 0; f < entry.getValue().size(); f++){
+                Assert.assertEquals(entry.getValue().get(f), values.get(f), 0.0001);
+            }
+        }
+    }
+
     /**
-     * TODO: Investigate why writing performance becomes slower as records count increases
-     *
-     * 1) Wrote 100000 records in about 18820 ms for empty table
-     * 2) Wrote 100000 records in about 35056 ms when 1M records in table
-     *
-     * @throws IOException
+     * Compare writing in JDBC batches with writing row by row on embedded Derby, run manually as it writes 20000 rows
      */
-//    @Test
-    public void testWriterPerformance() throws IOException {
+    @Ignore
+    @Test
+    public void testWriterPerformance() throws Exception {
+        ConnectionConfig config = ConnectionManagerFactory.getInstance().getConfig();
+        int batchSize = config.getBatchSize();
+        try {
+            long batchMs = writeRecords(10000);
+            config.setBatchSize(0);
+            long rowByRowMs = writeRecords(10000);
+            LOG.info("Wrote 10000 records in " + batchMs + " ms in batches of " + batchSize + ", in " + rowByRowMs + " ms row by row");
+        } finally {
+            config.setBatchSize(batchSize);
+        }
+    }
+
+    private long writeRecords(int count) throws IOException {
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
         List<TestTimeSeriesAPIEntity> entityList = new ArrayList<TestTimeSeriesAPIEntity>();
+        int written = 0;
         int i= 0;
-        while( i++ < 100000){
+        while( i++ < count){
             entityList.add(newInstance());
             if(entityList.size()>=1000) {
                 ModifyResult<String> result = storage.create(entityList, entityDefinition);
-                Assert.assertNotNull(result);
+                Assert.assertTrue(result.isSuccess());
+                written += result.getSize();
                 entityList.clear();
             }
         }
         stopWatch.stop();
-        LOG.info("Wrote 100000 records in "+stopWatch.getTime()+" ms");
+        Assert.assertEquals(count, written);
+        return stopWatch.getTime();
     }
 
 
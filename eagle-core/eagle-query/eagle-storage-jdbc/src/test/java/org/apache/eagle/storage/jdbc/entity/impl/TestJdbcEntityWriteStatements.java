@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.storage.jdbc.entity.impl;
+
+import org.apache.eagle.log.entity.test.TestTimeSeriesAPIEntity;
+import org.apache.eagle.storage.jdbc.schema.JdbcEntityDefinition;
+import org.apache.eagle.storage.jdbc.schema.JdbcEntityDefinitionManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestJdbcEntityWriteStatements {
+    @Test
+    public void testUpsertDialect(){
+        Assert.assertEquals(JdbcEntityWriteStatements.UpsertDialect.MYSQL, JdbcEntityWriteStatements.UpsertDialect.forAdapter("mysql"));
+        Assert.assertEquals(JdbcEntityWriteStatements.UpsertDialect.POSTGRESQL, JdbcEntityWriteStatements.UpsertDialect.forAdapter("postgresql"));
+        Assert.assertEquals(JdbcEntityWriteStatements.UpsertDialect.NONE, JdbcEntityWriteStatements.UpsertDialect.forAdapter("derby"));
+        Assert.assertEquals(JdbcEntityWriteStatements.UpsertDialect.NONE, JdbcEntityWriteStatements.UpsertDialect.forAdapter(null));
+    }
+
+    @Test
+    public void testBuildSql() throws Exception {
+        JdbcEntityDefinition jdbcEntityDefinition = JdbcEntityDefinitionManager.getJdbcEntityDefinition(TestTimeSeriesAPIEntity.class);
+        String table = jdbcEntityDefinition.getJdbcTableName();
+
+        JdbcEntityWriteStatements mysql = JdbcEntityWriteStatements.getInstance(jdbcEntityDefinition, "mysql");
+        Assert.assertSame(mysql, JdbcEntityWriteStatements.getInstance(jdbcEntityDefinition, "mysql"));
+        Assert.assertTrue(mysql.getInsertSql().startsWith("INSERT INTO " + table + " (uuid, timestamp, "));
+        Assert.assertTrue(mysql.getUpsertSql().startsWith(mysql.getInsertSql() + " ON DUPLICATE KEY UPDATE timestamp = VALUES(timestamp)"));
+        Assert.assertFalse(mysql.getUpsertSql().contains("uuid = VALUES(uuid)"));
+
+        JdbcEntityWriteStatements postgres = JdbcEntityWriteStatements.getInstance(jdbcEntityDefinition, "postgresql");
+        Assert.assertTrue(postgres.getUpsertSql().startsWith(postgres.getInsertSql() + " ON CONFLICT (uuid) DO UPDATE SET timestamp = EXCLUDED.timestamp"));
+
+        JdbcEntityWriteStatements derby = JdbcEntityWriteStatements.getInstance(jdbcEntityDefinition, "derby");
+        Assert.assertNull(derby.getUpsertSql());
+        Assert.assertTrue(derby.getUpdateSql().startsWith("UPDATE " + table + " SET timestamp = ?"));
+        Assert.assertTrue(derby.getUpdateSql().endsWith(" WHERE uuid = ?"));
+
+        // same columns bound by insert and update
+        Assert.assertEquals(countPlaceholders(derby.getInsertSql()), countPlaceholders(derby.getUpdateSql()));
+    }
+
+    private static int countPlaceholders(String sql){
+        int count = 0;
+        for(char c : sql.toCharArray()){
+            if(c == '?') count++;
+        }
+        return count;
+    }
+}
@@ -31,9 +31,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import scala.Tuple2;
 
+import java.io.Closeable;
 import java.util.*;
 
-public class GCMetricGeneratorExecutor extends JavaStormStreamExecutor2<String, Map> {
+public class GCMetricGeneratorExecutor extends JavaStormStreamExecutor2<String, Map> implements Closeable {
 
     public final static Logger LOG = LoggerFactory.getLogger(GCMetricGeneratorExecutor.class);
     private Config config;
@@ -45,7 +46,7 @@ public class GCMetricGeneratorExecutor extends JavaStormStreamExecutor2<String,
     private Map<String, String> dimensions;
     private List<EagleMetric> metrics = new ArrayList<>();
 
-    private EagleServiceReporterMetricListener listener;
+    private AsyncEagleMetricListener listener;
 
     @Override
     public void prepareConfig(Config config) {
@@ -59,11 +60,13 @@ public class GCMetricGeneratorExecutor extends JavaStormStreamExecutor2<String,
         int port = EagleConfigHelper.getServicePort(config);
         String username = EagleConfigHelper.getServiceUser(config);
         String password = EagleConfigHelper.getServicePassword(config);
-        listener = new EagleServiceReporterMetricListener(host, port, username, password);
+        // metrics of every gc event are written to eagle service in batches by background thread
+        listener = new AsyncEagleMetricListener(new EagleServiceReporterMetricListener(host, port, username, password));
         dimensions = new HashMap<>();
         dimensions.put(EagleConfigConstants.SITE, EagleConfigHelper.getSite(config));
         dimensions.put(EagleConfigConstants.APPLICATION, EagleConfigHelper.getApplication(config));
         gcPausedTimeMetricName = MetricKeyCodeDecoder.codeMetricKey(GCConstants.GC_PAUSE_TIME_METRIC_NAME, dimensions);
+        listener.reportListenerMetrics(dimensions, AsyncEagleMetricListener.DEFAULT_LISTENER_METRICS_INTERVAL_MS);
     }
 
     public void registerMetricIfMissing(String metricName, EagleMetric metric) {
@@ -105,4 +108,14 @@ public class GCMetricGeneratorExecutor extends JavaStormStreamExecutor2<String,
         metrics.clear();
         collector.collect(new Tuple2(input.get(0), input.get(1)));
     }
+
+    /**
+     * Write metrics left in the queue and stop the background thread of listener
+     */
+    @Override
+    public void close() {
+        if (listener != null) {
+            listener.close();
+        }
+    }
 }
\ No newline at end of file
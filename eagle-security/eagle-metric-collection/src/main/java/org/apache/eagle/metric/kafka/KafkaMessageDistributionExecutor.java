@@ -30,16 +30,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import scala.Tuple1;
 
+import java.io.Closeable;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-public class KafkaMessageDistributionExecutor extends JavaStormStreamExecutor1<String> {
+public class KafkaMessageDistributionExecutor extends JavaStormStreamExecutor1<String> implements Closeable {
 
     private Config config;
     private Map<String, String> baseMetricDimension;
     private MetricRegistry registry;
-    private EagleMetricListener listener;
+    private AsyncEagleMetricListener listener;
     private long granularity;
     private static final long DEFAULT_METRIC_GRANULARITY = 60 * 1000;
     private static final Logger LOG = LoggerFactory.getLogger(KafkaMessageDistributionExecutor.class);
@@ -67,7 +68,8 @@ public class KafkaMessageDistributionExecutor extends JavaStormStreamExecutor1<S
         int port = config.getInt(EagleConfigConstants.EAGLE_PROPS + "." + EagleConfigConstants.EAGLE_SERVICE + "." + EagleConfigConstants.PORT);
         String username = config.getString(EagleConfigConstants.EAGLE_PROPS + "." + EagleConfigConstants.EAGLE_SERVICE + "." + EagleConfigConstants.USERNAME);
         String password = config.getString(EagleConfigConstants.EAGLE_PROPS + "." + EagleConfigConstants.EAGLE_SERVICE + "." + EagleConfigConstants.PASSWORD);
-        listener = new EagleServiceReporterMetricListener(host, port, username, password);
+        listener = new AsyncEagleMetricListener(new EagleServiceReporterMetricListener(host, port, username, password));
+        listener.reportListenerMetrics(baseMetricDimension, AsyncEagleMetricListener.DEFAULT_LISTENER_METRICS_INTERVAL_MS);
     }
 
     public String generateMetricKey(String user) {
@@ -100,4 +102,14 @@ public class KafkaMessageDistributionExecutor extends JavaStormStreamExecutor1<S
             LOG.error("Got an exception, ex: ", ex);
         }
     }
+
+    /**
+     * Write metrics left in the queue and stop the background thread of listener
+     */
+    @Override
+    public void close() {
+        if (listener != null) {
+            listener.close();
+        }
+    }
 }
@@ -20,6 +20,7 @@ import com.typesafe.config.Config;
 import org.apache.eagle.datastream.Collector;
 import org.apache.eagle.datastream.JavaStormStreamExecutor2;
 import org.apache.eagle.security.auditlog.timer.FileSensitivityPollingJob;
+import org.apache.eagle.security.auditlog.util.FileSensitivityIndex;
 import org.apache.eagle.security.auditlog.util.SimplifyPath;
 import org.apache.eagle.security.entity.FileSensitivityAPIEntity;
 import org.apache.eagle.security.util.ExternalDataCache;
@@ -30,8 +31,6 @@ import scala.Tuple2;
 
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class FileSensitivityDataJoinExecutor extends JavaStormStreamExecutor2<String, Map> {
 	private static final Logger LOG = LoggerFactory.getLogger(FileSensitivityDataJoinExecutor.class);
@@ -58,24 +57,15 @@ public class FileSensitivityDataJoinExecutor extends JavaStormStreamExecutor2<St
     public void flatMap(java.util.List<Object> input, Collector<Tuple2<String, Map>> outputCollector){
         Map<String, Object> toBeCopied = (Map<String, Object>)input.get(1);
         Map<String, Object> event = new TreeMap<String, Object>(toBeCopied);
-        Map<String, FileSensitivityAPIEntity> map = (Map<String, FileSensitivityAPIEntity>) ExternalDataCache.getInstance().getJobResult(FileSensitivityPollingJob.class);
+        FileSensitivityIndex index = (FileSensitivityIndex) ExternalDataCache.getInstance().getJobResult(FileSensitivityPollingJob.class);
         FileSensitivityAPIEntity e = null;
         if (LOG.isDebugEnabled()) {
-            LOG.debug("Receive map: " + map + "event: " + event);
+            LOG.debug("Receive file sensitivity index of " + (index == null ? 0 : index.size()) + " entities, event: " + event);
         }
 
         String src = (String)event.get("src");
-        if(map != null && src != null) {
-            String simplifiedPath = new SimplifyPath().build(src);
-            for (String fileDir : map.keySet()) {
-                Pattern pattern = Pattern.compile(simplifiedPath,Pattern.CASE_INSENSITIVE);
-                Matcher matcher = pattern.matcher(fileDir);
-                boolean isMatched = matcher.matches();
-                if (isMatched) {
-                    e = map.get(fileDir);
-                    break;
-                }
-            }
+        if(index != null && src != null) {
+            e = index.find(new SimplifyPath().build(src));
         }
         event.put("sensitivityType",  e == null ? "NA" : e.getSensitivityType());
         if(LOG.isDebugEnabled()) {
@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.eagle.common.config.EagleConfigConstants;
+import org.apache.eagle.security.auditlog.util.FileSensitivityIndex;
 import org.apache.eagle.security.util.ExternalDataCache;
 import org.apache.eagle.security.entity.FileSensitivityAPIEntity;
 import org.quartz.Job;
@@ -54,7 +55,8 @@ public class FileSensitivityPollingJob implements Job{
 					return input.getTags().get("filedir");
 				}
 			});
-			ExternalDataCache.getInstance().setJobResult(getClass(), map);
+			// index is built once here and replaced as a whole, so that readers never see a partial one
+			ExternalDataCache.getInstance().setJobResult(getClass(), new FileSensitivityIndex(map));
 		}catch(Exception ex){
 			LOG.error("Fail loading file sensitivity data", ex);
 		}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.security.auditlog.util;
+
+import org.apache.eagle.security.entity.FileSensitivityAPIEntity;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Case-insensitive character trie over file directories of file sensitivity entities, built once whenever
+ * file sensitivity data is polled and replaced as a whole, so lookup costs O(path length) instead of one regex per entity.
+ *
+ * <p>{@link #find(String)} has the same result as matching every file directory against the simplified path compiled as
+ * case-insensitive regular expression, i.e. '.' in the path matches any character and other characters match themselves
+ * ignoring US-ASCII case. When several file directories match, the first one in iteration order of the entity map wins.
+ * Paths with other regular expression meta characters fall back to regex matching.</p>
+ *
+ * <p>Immutable once built, safe to be read by multiple threads.</p>
+ */
+public class FileSensitivityIndex {
+	private final static String REGEX_META_CHARS = "\\^$|?*+()[]{}";
+
+	private final Map<String, FileSensitivityAPIEntity> entities;
+	private final Node root = new Node();
+
+	private static class Node {
+		char[] keys = new char[0];
+		Node[] children = new Node[0];
+		FileSensitivityAPIEntity entity;
+		/**
+		 * iteration order of the entity in entity map
+		 */
+		int order = -1;
+
+		Node child(char c) {
+			int i = Arrays.binarySearch(keys, c);
+			return i < 0 ? null : children[i];
+		}
+
+		Node getOrAddChild(char c) {
+			int i = Arrays.binarySearch(keys, c);
+			if (i >= 0) return children[i];
+			int insertion = -i - 1;
+			char[] newKeys = new char[keys.length + 1];
+			Node[] newChildren = new Node[children.length + 1];
+			System.arraycopy(keys, 0, newKeys, 0, insertion);
+			System.arraycopy(children, 0, newChildren, 0, insertion);
+			System.arraycopy(keys, insertion, newKeys, insertion + 1, keys.length - insertion);
+			System.arraycopy(children, insertion, newChildren, insertion + 1, children.length - insertion);
+			Node child = new Node();
+			newKeys[insertion] = c;
+			newChildren[insertion] = child;
+			keys = newKeys;
+			children = newChildren;
+			return child;
+		}
+	}
+
+	/**
+	 * @param entities file sensitivity entities keyed by file directory
+	 */
+	public FileSensitivityIndex(Map<String, FileSensitivityAPIEntity> entities) {
+		this.entities = entities;
+		int order = 0;
+		for (Map.Entry<String, FileSensitivityAPIEntity> entry : entities.entrySet()) {
+			String fileDir = entry.getKey();
+			Node node = root;
+			for (int i = 0; i < fileDir.length(); i++) {
+				node = node.getOrAddChild(fold(fileDir.charAt(i)));
+			}
+			// file directories only different in case, keep the first one
+			if (node.entity == null) {
+				node.entity = entry.getValue();
+				node.order = order;
+			}
+			order++;
+		}
+	}
+
+	public Map<String, FileSensitivityAPIEntity> getEntities() {
+		return entities;
+	}
+
+	public int size() {
+		return entities.size();
+	}
+
+	/**
+	 * @param simplifiedPath path built by {@link SimplifyPath}
+	 * @return entity of the first file directory matching the path, or null if not found
+	 */
+	public FileSensitivityAPIEntity find(String simplifiedPath) {
+		if (simplifiedPath == null) {
+			return null;
+		}
+		for (int i = 0; i < simplifiedPath.length(); i++) {
+			if (REGEX_META_CHARS.indexOf(simplifiedPath.charAt(i)) >= 0) {
+				return scan(simplifiedPath);
+			}
+		}
+		Node node = match(root, simplifiedPath, 0);
+		return node == null ? null : node.entity;
+	}
+
+	/**
+	 * @return matched node with entity of the smallest order, or null
+	 */
+	private static Node match(Node node, String path, int i) {
+		for (; i < path.length(); i++) {
+			char c = path.charAt(i);
+			if (c == '.') {
+				// regex '.' matches any character but line terminators
+				Node best = null;
+				for (int k = 0; k < node.keys.length; k++) {
+					if (isLineTerminator(node.keys[k])) continue;
+					Node matched = match(node.children[k], path, i + 1);
+					if (matched != null && (best == null || matched.order < best.order)) best = matched;
+				}
+				return best;
+			}
+			node = node.child(fold(c));
+			if (node == null) {
+				return null;
+			}
+		}
+		return node.entity == null ? null : node;
+	}
+
+	private FileSensitivityAPIEntity scan(String simplifiedPath) {
+		Pattern pattern = Pattern.compile(simplifiedPath, Pattern.CASE_INSENSITIVE);
+		for (Map.Entry<String, FileSensitivityAPIEntity> entry : entities.entrySet()) {
+			if (pattern.matcher(entry.getKey()).matches()) {
+				return entry.getValue();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Same case folding as {@link Pattern#CASE_INSENSITIVE} without {@link Pattern#UNICODE_CASE}
+	 */
+	private static char fold(char c) {
+		return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+	}
+
+	private static boolean isLineTerminator(char c) {
+		return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+	}
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.eagle.security.auditlog.util;
+
+import junit.framework.Assert;
+import org.apache.eagle.security.entity.FileSensitivityAPIEntity;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+public class TestFileSensitivityIndex {
+
+	private FileSensitivityAPIEntity createEntity(String fileDir, String sensitivityType) {
+		FileSensitivityAPIEntity entity = new FileSensitivityAPIEntity();
+		Map<String, String> tags = new HashMap<String, String>();
+		tags.put("site", "sandbox");
+		tags.put("filedir", fileDir);
+		entity.setTags(tags);
+		entity.setSensitivityType(sensitivityType);
+		return entity;
+	}
+
+	/**
+	 * the way file sensitivity was looked up before it's indexed
+	 */
+	private FileSensitivityAPIEntity scan(Map<String, FileSensitivityAPIEntity> map, String simplifiedPath) {
+		Pattern pattern = Pattern.compile(simplifiedPath, Pattern.CASE_INSENSITIVE);
+		for (String fileDir : map.keySet()) {
+			if (pattern.matcher(fileDir).matches()) {
+				return map.get(fileDir);
+			}
+		}
+		return null;
+	}
+
+	@Test
+	public void testFind() {
+		Map<String, FileSensitivityAPIEntity> map = new LinkedHashMap<String, FileSensitivityAPIEntity>();
+		for (String fileDir : new String[]{"/tmp/private", "/tmp/Private/data.txt", "/tmp/private/data_txt", "/user/hive/warehouse",
+				"/user/hive", "./relative/dir", "/a/b/c"}) {
+			map.put(fileDir, createEntity(fileDir, "PRIVATE"));
+		}
+		FileSensitivityIndex index = new FileSensitivityIndex(map);
+		SimplifyPath simplifyPath = new SimplifyPath();
+		for (String path : new String[]{"/tmp/private", "/TMP/PRIVATE", "/tmp/private/data.txt", "/tmp/private/data_txt",
+				"/tmp/private/dataXtxt", "/user/hive/", "/user/hive/../hive/warehouse", "relative/dir", "/a/b", "/a/b/c/d", "/",
+				"/a/b/[c]", "/a/b/c*"}) {
+			String simplifiedPath = simplifyPath.build(path);
+			Assert.assertSame(path, scan(map, simplifiedPath), index.find(simplifiedPath));
+		}
+		Assert.assertSame(map.get("/tmp/Private/data.txt"), index.find("/tmp/private/data.txt"));
+		Assert.assertSame(map.get("./relative/dir"), index.find("./relative/dir"));
+		Assert.assertNull(index.find("/tmp/private/other"));
+		Assert.assertNull(index.find(null));
+	}
+}